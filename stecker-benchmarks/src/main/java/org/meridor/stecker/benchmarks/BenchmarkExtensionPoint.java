@@ -0,0 +1,7 @@
+package org.meridor.stecker.benchmarks;
+
+/**
+ * Extension point implemented by half of generated plugin classes
+ */
+public interface BenchmarkExtensionPoint {
+}
@@ -0,0 +1,68 @@
+package org.meridor.stecker.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File helpers used by benchmarks. Plugin files themselves are created by {@link PluginCorpus}.
+ */
+public final class BenchmarkPlugins {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private BenchmarkPlugins() {
+    }
+
+    /**
+     * Returns all class files in the directory
+     *
+     * @param classesDirectory directory with class files, e.g. unpacked <b>plugin.jar</b>
+     * @return a list of class files
+     * @throws IOException when directory can't be listed
+     */
+    public static List<Path> getClassFiles(Path classesDirectory) throws IOException {
+        List<Path> classFiles = new ArrayList<>();
+        Files.walkFileTree(classesDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (file.toString().endsWith(CLASS_FILE_EXTENSION)) {
+                    classFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return classFiles;
+    }
+
+    /**
+     * Recursively deletes the directory if it exists
+     *
+     * @param directory directory to delete
+     * @throws IOException when something can't be deleted
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.impl.PluginClassLoader;
+import org.meridor.stecker.impl.PluginUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Compares plugin class loader indexed by package with plain {@link URLClassLoader} searching every library. Every
+ * invocation uses new class loader, so that classes are really loaded and class loader creation is included.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassLookupBenchmark {
+
+    private static final int MISSING_CLASSES_COUNT = 1000;
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    @Param({"1", "60"})
+    public int librariesCount;
+
+    @Param({"url", "indexed"})
+    public String classLoaderType;
+
+    private Path directory;
+
+    private URL[] urls;
+
+    private List<String> classNames;
+
+    private URLClassLoader classLoader;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("stecker-lookup-benchmark");
+        Path pluginFile = new PluginCorpus()
+                .withLibrariesCount(librariesCount)
+                .createPlugin(directory, "plugin", "");
+        Path unpackedPluginDirectory = PluginUtils.unpackPlugin(pluginFile, directory.resolve(".cache"));
+        Path implementationDirectory = PluginUtils.getPluginImplementationDirectory(unpackedPluginDirectory);
+        List<Path> libraries = PluginUtils.getLibraries(unpackedPluginDirectory.resolve(PluginUtils.LIB_DIRECTORY));
+
+        List<URL> classPath = new ArrayList<>();
+        classNames = new ArrayList<>();
+        for (Path library : libraries) {
+            classPath.add(library.toUri().toURL());
+        }
+        classPath.add(implementationDirectory.toUri().toURL());
+        urls = classPath.toArray(new URL[classPath.size()]);
+
+        for (Path library : libraries) {
+            try (JarFile jarFile = new JarFile(library.toFile())) {
+                jarFile.stream()
+                        .map(JarEntry::getName)
+                        .filter(name -> name.endsWith(CLASS_FILE_EXTENSION))
+                        .forEach(name -> classNames.add(toClassName(name)));
+            }
+        }
+        for (Path classFile : BenchmarkPlugins.getClassFiles(implementationDirectory)) {
+            classNames.add(toClassName(implementationDirectory.relativize(classFile).toString()));
+        }
+    }
+
+    private static String toClassName(String entryName) {
+        return entryName
+                .substring(0, entryName.length() - CLASS_FILE_EXTENSION.length())
+                .replace('/', '.')
+                .replace('\\', '.');
+    }
+
+    @Setup(Level.Invocation)
+    public void createClassLoader() {
+        classLoader = "indexed".equals(classLoaderType) ?
+                new PluginClassLoader(urls, Collections.emptyList()) :
+                new URLClassLoader(urls);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkPlugins.delete(directory);
+    }
+
+    @Benchmark
+    public void loadExistingClasses(Blackhole blackhole) throws Exception {
+        for (String className : classNames) {
+            blackhole.consume(classLoader.loadClass(className));
+        }
+    }
+
+    @Benchmark
+    public void loadMissingClasses(Blackhole blackhole) {
+        for (int i = 0; i < MISSING_CLASSES_COUNT; i++) {
+            try {
+                blackhole.consume(classLoader.loadClass("org.example.missing" + (i % 10) + ".Missing" + i));
+            } catch (ClassNotFoundException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+}
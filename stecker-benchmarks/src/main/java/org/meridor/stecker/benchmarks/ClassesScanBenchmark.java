@@ -0,0 +1,84 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.impl.PluginUtils;
+import org.meridor.stecker.interfaces.PluginImplementationsAware;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures searching extension point implementations among many classes of unpacked plugin. Every invocation uses
+ * new class loader, so that classes are really loaded.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassesScanBenchmark {
+
+    private static final List<Class> EXTENSION_POINTS = Collections.singletonList(BenchmarkExtensionPoint.class);
+
+    @Param({"1000", "10000"})
+    public int classesCount;
+
+    private Path directory;
+
+    private Path implementationDirectory;
+
+    private Path libDirectory;
+
+    private List<Path> classFiles;
+
+    private ClassLoader classLoader;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("stecker-scan-benchmark");
+        Path pluginFile = new PluginCorpus().withClassesCount(classesCount).createPlugin(directory, "plugin", "");
+        Path unpackedPluginDirectory = PluginUtils.unpackPlugin(pluginFile, directory.resolve(".cache"));
+        implementationDirectory = PluginUtils.getPluginImplementationDirectory(unpackedPluginDirectory);
+        libDirectory = unpackedPluginDirectory.resolve(PluginUtils.LIB_DIRECTORY);
+        classFiles = BenchmarkPlugins.getClassFiles(implementationDirectory);
+    }
+
+    @Setup(Level.Invocation)
+    public void createClassLoader() throws PluginException {
+        classLoader = PluginUtils.getClassLoader(implementationDirectory, libDirectory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkPlugins.delete(directory);
+    }
+
+    @Benchmark
+    public PluginImplementationsAware getMatchingClasses() throws Exception {
+        return PluginUtils.getMatchingClasses(EXTENSION_POINTS, implementationDirectory, classFiles, classLoader);
+    }
+
+    @Benchmark
+    public PluginImplementationsAware getMatchingClassesByBytecode() throws Exception {
+        return PluginUtils.getMatchingClassesByBytecode(EXTENSION_POINTS, classFiles, classLoader);
+    }
+
+}
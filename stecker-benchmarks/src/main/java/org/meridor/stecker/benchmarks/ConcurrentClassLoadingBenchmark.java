@@ -0,0 +1,148 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.impl.PluginClassLoader;
+import org.meridor.stecker.impl.PluginUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a burst of cold traffic: many threads at once touch classes of just loaded plugin, each in its own order.
+ * Compares parallel capable plugin class loader with the same class loader locking as a whole.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentClassLoadingBenchmark {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    @Param({"1", "8"})
+    public int threadsCount;
+
+    @Param({"1000"})
+    public int classesCount;
+
+    @Param({"parallel", "serial"})
+    public String lockingType;
+
+    private Path directory;
+
+    private URL[] urls;
+
+    private List<List<String>> threadClassNames;
+
+    private ExecutorService executorService;
+
+    private PluginClassLoader classLoader;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("stecker-concurrency-benchmark");
+        Path pluginFile = new PluginCorpus()
+                .withClassesCount(classesCount)
+                .withLibrariesCount(0)
+                .createPlugin(directory, "plugin", "");
+        Path unpackedPluginDirectory = PluginUtils.unpackPlugin(pluginFile, directory.resolve(".cache"));
+        Path implementationDirectory = PluginUtils.getPluginImplementationDirectory(unpackedPluginDirectory);
+        urls = new URL[]{implementationDirectory.toUri().toURL()};
+
+        List<String> classNames = new ArrayList<>();
+        for (Path classFile : BenchmarkPlugins.getClassFiles(implementationDirectory)) {
+            String entryName = implementationDirectory.relativize(classFile).toString();
+            classNames.add(entryName
+                    .substring(0, entryName.length() - CLASS_FILE_EXTENSION.length())
+                    .replace(classFile.getFileSystem().getSeparator(), "."));
+        }
+        threadClassNames = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < threadsCount; i++) {
+            List<String> shuffledClassNames = new ArrayList<>(classNames);
+            Collections.shuffle(shuffledClassNames, random);
+            threadClassNames.add(shuffledClassNames);
+        }
+        executorService = Executors.newFixedThreadPool(threadsCount);
+    }
+
+    @Setup(Level.Invocation)
+    public void createClassLoader() {
+        classLoader = "parallel".equals(lockingType) ?
+                new PluginClassLoader(urls, Collections.emptyList()) :
+                new SerialPluginClassLoader(urls);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeClassLoader() throws IOException {
+        classLoader.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executorService.shutdownNow();
+        BenchmarkPlugins.delete(directory);
+    }
+
+    @Benchmark
+    public int coldBurst() throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (List<String> classNames : threadClassNames) {
+            futures.add(executorService.submit(loadClasses(classNames)));
+        }
+        int loadedClassesCount = 0;
+        for (Future<Integer> future : futures) {
+            loadedClassesCount += future.get();
+        }
+        return loadedClassesCount;
+    }
+
+    private Callable<Integer> loadClasses(List<String> classNames) {
+        return () -> {
+            int loadedClassesCount = 0;
+            for (String className : classNames) {
+                if (classLoader.loadClass(className) != null) {
+                    loadedClassesCount++;
+                }
+            }
+            return loadedClassesCount;
+        };
+    }
+
+    /**
+     * Doesn't register itself as parallel capable, so the whole class loader is locked while loading any class
+     */
+    private static class SerialPluginClassLoader extends PluginClassLoader {
+
+        SerialPluginClassLoader(URL[] urls) {
+            super(urls, Collections.emptyList());
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.impl.DefaultDependencyChecker;
+import org.meridor.stecker.impl.DefaultVersionComparator;
+import org.meridor.stecker.impl.DependencyContainer;
+import org.meridor.stecker.impl.PluginMetadataContainer;
+import org.meridor.stecker.impl.PluginRegistryContainer;
+import org.meridor.stecker.impl.Versions;
+import org.meridor.stecker.interfaces.Dependency;
+import org.meridor.stecker.interfaces.DependencyChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking dependencies of every plugin in a large graph. Each plugin requires several random previous
+ * plugins by exact version or version range and conflicts with one missing plugin.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DependencyCheckerBenchmark {
+
+    @Param({"1000", "10000"})
+    public int pluginsCount;
+
+    @Param({"10"})
+    public int dependenciesCount;
+
+    private final DependencyChecker dependencyChecker = new DefaultDependencyChecker(new DefaultVersionComparator(new Versions()));
+
+    private final List<PluginMetadata> plugins = new ArrayList<>();
+
+    private PluginRegistryContainer pluginRegistry;
+
+    @Setup
+    public void setUp() throws PluginException {
+        Random random = new Random(42);
+        pluginRegistry = new PluginRegistryContainer();
+        for (int i = 0; i < pluginsCount; i++) {
+            String version = String.format("%d.%d.%d", 1 + i % 3, i % 10, i % 7);
+            PluginMetadataContainer pluginMetadata = new PluginMetadataContainer("plugin" + i, version, Paths.get("plugin" + i + ".jar"));
+            List<Dependency> requiredDependencies = new ArrayList<>();
+            for (int j = 0; j < Math.min(i, dependenciesCount); j++) {
+                PluginMetadata dependency = plugins.get(random.nextInt(i));
+                String requiredVersion = random.nextBoolean() ? dependency.getVersion() : "[1.0,4.0)";
+                requiredDependencies.add(new DependencyContainer(dependency.getName(), requiredVersion));
+            }
+            pluginMetadata.addRequiredDependencies(requiredDependencies);
+            pluginMetadata.addConflictingDependencies(Collections.singletonList(new DependencyContainer("missing" + i, "1.0")));
+            plugins.add(pluginMetadata);
+            pluginRegistry.addPlugin(pluginMetadata);
+        }
+    }
+
+    @Benchmark
+    public int checkAll() throws PluginException {
+        for (PluginMetadata pluginMetadata : plugins) {
+            dependencyChecker.check(pluginRegistry, pluginMetadata);
+        }
+        return plugins.size();
+    }
+
+}
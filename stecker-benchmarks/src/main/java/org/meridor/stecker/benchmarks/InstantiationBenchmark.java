@@ -0,0 +1,79 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.impl.InstanceSuppliers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares ways of creating extension point implementation instances
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstantiationBenchmark {
+
+    private Constructor<Implementation> constructor;
+
+    private MethodHandle methodHandle;
+
+    private Supplier<Implementation> supplier;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException, PluginException {
+        constructor = Implementation.class.getConstructor();
+        methodHandle = MethodHandles.publicLookup()
+                .findConstructor(Implementation.class, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+        supplier = InstanceSuppliers.of(Implementation.class);
+    }
+
+    @Benchmark
+    public Object direct() {
+        return new Implementation();
+    }
+
+    @Benchmark
+    public Object constructorNewInstance() throws ReflectiveOperationException {
+        return constructor.newInstance();
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Throwable {
+        return (Object) methodHandle.invokeExact();
+    }
+
+    @Benchmark
+    public Object instanceSupplier() {
+        return supplier.get();
+    }
+
+    public static class Implementation {
+
+        private final int value = 42;
+
+        public int getValue() {
+            return value;
+        }
+
+    }
+
+}
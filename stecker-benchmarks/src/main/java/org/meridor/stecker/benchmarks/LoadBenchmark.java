@@ -0,0 +1,115 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginLoader;
+import org.meridor.stecker.PluginRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PluginLoader#load()} with empty cache directory (cold), with plugins already unpacked and
+ * scanned by previous load (warm) and with lazy activation when only manifests are read
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+
+    @Param({"10", "100"})
+    public int pluginsCount;
+
+    @Param({"100"})
+    public int classesCount;
+
+    @Param({"1"})
+    public int dependencyLevelsCount;
+
+    @Param({"2"})
+    public int dependenciesCount;
+
+    private Path pluginsDirectory;
+
+    private PluginLoader pluginLoader;
+
+    private PluginLoader lazyPluginLoader;
+
+    @Setup
+    public void setUp() throws IOException, PluginException {
+        pluginsDirectory = Files.createTempDirectory("stecker-load-benchmark");
+        new PluginCorpus()
+                .withPluginsCount(pluginsCount)
+                .withClassesCount(classesCount)
+                .withDependencyLevelsCount(dependencyLevelsCount)
+                .withDependenciesCount(dependenciesCount)
+                .generate(pluginsDirectory);
+        pluginLoader = PluginLoader
+                .withPluginDirectory(pluginsDirectory)
+                .withExtensionPoints(BenchmarkExtensionPoint.class)
+                .withResourcesPatterns("glob:**/*.resource");
+        lazyPluginLoader = PluginLoader
+                .withPluginDirectory(pluginsDirectory)
+                .withExtensionPoints(BenchmarkExtensionPoint.class)
+                .withResourcesPatterns("glob:**/*.resource")
+                .withLazyActivation(true);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkPlugins.delete(pluginsDirectory);
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyCache {
+
+        @Setup(Level.Invocation)
+        public void clean(LoadBenchmark benchmark) throws IOException {
+            BenchmarkPlugins.delete(benchmark.pluginLoader.getCacheDirectory());
+        }
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilledCache {
+
+        @Setup(Level.Trial)
+        public void fill(LoadBenchmark benchmark) throws PluginException {
+            benchmark.pluginLoader.load();
+        }
+
+    }
+
+    @Benchmark
+    public PluginRegistry coldLoad(EmptyCache emptyCache) throws PluginException {
+        return pluginLoader.load();
+    }
+
+    @Benchmark
+    public PluginRegistry lazyLoad(EmptyCache emptyCache) throws PluginException {
+        return lazyPluginLoader.load();
+    }
+
+    @Benchmark
+    public PluginRegistry warmLoad(FilledCache filledCache) throws PluginException {
+        return pluginLoader.load();
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.impl.DefaultManifestReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading metadata of plugin with all manifest fields filled
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManifestReaderBenchmark {
+
+    private final DefaultManifestReader manifestReader = new DefaultManifestReader();
+
+    private Path directory;
+
+    private Path pluginFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("stecker-manifest-benchmark");
+        pluginFile = new PluginCorpus().withClassesCount(1000).createPlugin(directory, "plugin", "dependency1=1.0;dependency2=[1.0,2.0)");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkPlugins.delete(directory);
+    }
+
+    @Benchmark
+    public PluginMetadata read() throws PluginException {
+        return manifestReader.read(pluginFile);
+    }
+
+}
@@ -0,0 +1,374 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.impl.DefaultManifestReader;
+import org.meridor.stecker.impl.ManifestField;
+import org.meridor.stecker.impl.PluginUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a set of plugin files in real plugin layout: outer jar with manifest, nested <b>plugin.jar</b> and
+ * <b>lib/*.jar</b>. Every even class of <b>plugin.jar</b> implements {@link BenchmarkExtensionPoint}. Plugins are
+ * split to dependency levels: each plugin of a level depends on several random plugins of the previous level, so
+ * dependency graph depth equals the number of levels. The same configuration and seed always produce the same files.
+ * Can also be run from command line to prepare plugins for soak tests:
+ * <pre>
+ * $ java -cp benchmarks.jar org.meridor.stecker.benchmarks.PluginCorpus some/directory plugins=1000 classes=500 depth=5
+ * </pre>
+ */
+public class PluginCorpus {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private static final String RESOURCE_FILE_EXTENSION = ".resource";
+
+    private static final String ENTRY_SEPARATOR = "/";
+
+    private static final String VERSION = "1.0.0";
+
+    private static final String DEPENDENCY_VERSION_RANGE = "[1.0,2.0)";
+
+    private static final ZonedDateTime DATE = ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private int pluginsCount = 10;
+
+    private int classesCount = 100;
+
+    private int librariesCount = 1;
+
+    private int libraryClassesCount = 10;
+
+    private int dependenciesCount = 0;
+
+    private int dependencyLevelsCount = 1;
+
+    private int resourcesCount = 1;
+
+    private int resourceSize = 1024;
+
+    private long seed = 42;
+
+    /**
+     * Define number of generated plugins
+     *
+     * @param pluginsCount number of plugin files
+     * @return this
+     */
+    public PluginCorpus withPluginsCount(int pluginsCount) {
+        this.pluginsCount = pluginsCount;
+        return this;
+    }
+
+    /**
+     * Define size of plugin implementation
+     *
+     * @param classesCount number of classes in <b>plugin.jar</b> of every plugin
+     * @return this
+     */
+    public PluginCorpus withClassesCount(int classesCount) {
+        this.classesCount = classesCount;
+        return this;
+    }
+
+    /**
+     * Define size of plugin lib directory
+     *
+     * @param librariesCount number of jar files in <b>lib</b> directory of every plugin
+     * @return this
+     */
+    public PluginCorpus withLibrariesCount(int librariesCount) {
+        this.librariesCount = librariesCount;
+        return this;
+    }
+
+    /**
+     * Define size of every plugin library
+     *
+     * @param libraryClassesCount number of classes in every library jar
+     * @return this
+     */
+    public PluginCorpus withLibraryClassesCount(int libraryClassesCount) {
+        this.libraryClassesCount = libraryClassesCount;
+        return this;
+    }
+
+    /**
+     * Define dependency fan-out
+     *
+     * @param dependenciesCount number of plugins from the previous level every plugin depends on
+     * @return this
+     */
+    public PluginCorpus withDependenciesCount(int dependenciesCount) {
+        this.dependenciesCount = dependenciesCount;
+        return this;
+    }
+
+    /**
+     * Define dependency graph depth
+     *
+     * @param dependencyLevelsCount number of dependency levels, 1 means no dependencies
+     * @return this
+     */
+    public PluginCorpus withDependencyLevelsCount(int dependencyLevelsCount) {
+        this.dependencyLevelsCount = dependencyLevelsCount;
+        return this;
+    }
+
+    /**
+     * Define number of plugin resources
+     *
+     * @param resourcesCount number of resource files in <b>plugin.jar</b> of every plugin
+     * @return this
+     */
+    public PluginCorpus withResourcesCount(int resourcesCount) {
+        this.resourcesCount = resourcesCount;
+        return this;
+    }
+
+    /**
+     * Define size of plugin resources
+     *
+     * @param resourceSize size of every resource file in bytes
+     * @return this
+     */
+    public PluginCorpus withResourceSize(int resourceSize) {
+        this.resourceSize = resourceSize;
+        return this;
+    }
+
+    /**
+     * Define random seed used to choose dependencies and fill resources
+     *
+     * @param seed random seed
+     * @return this
+     */
+    public PluginCorpus withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Writes all plugin files to the directory
+     *
+     * @param directory existing directory
+     * @return plugin files in dependency order
+     * @throws IOException when some file can't be written
+     */
+    public List<Path> generate(Path directory) throws IOException {
+        Random random = new Random(seed);
+        int levelsCount = Math.max(1, Math.min(dependencyLevelsCount, pluginsCount));
+        List<Path> pluginFiles = new ArrayList<>();
+        List<String> previousLevel = Collections.emptyList();
+        int pluginIndex = 0;
+        for (int level = 0; level < levelsCount; level++) {
+            int levelSize = pluginsCount / levelsCount + (level < pluginsCount % levelsCount ? 1 : 0);
+            List<String> currentLevel = new ArrayList<>();
+            for (int i = 0; i < levelSize; i++) {
+                String pluginName = String.format("plugin%d", pluginIndex++);
+                List<String> candidates = new ArrayList<>(previousLevel);
+                Collections.shuffle(candidates, random);
+                String dependencies = candidates.stream()
+                        .limit(dependenciesCount)
+                        .map(dependency -> dependency + DefaultManifestReader.VERSION_DELIMITER + DEPENDENCY_VERSION_RANGE)
+                        .collect(Collectors.joining(DefaultManifestReader.DEPENDENCY_DELIMITER));
+                pluginFiles.add(createPlugin(directory, pluginName, dependencies));
+                currentLevel.add(pluginName);
+            }
+            previousLevel = currentLevel;
+        }
+        return pluginFiles;
+    }
+
+    /**
+     * Writes one plugin file with all manifest fields filled
+     *
+     * @param directory    existing directory
+     * @param pluginName   plugin name, also used as file name and package name of generated classes
+     * @param dependencies value of <b>Plugin-Depends</b> field or empty string
+     * @return plugin file
+     * @throws IOException when plugin file can't be written
+     */
+    public Path createPlugin(Path directory, String pluginName, String dependencies) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue(ManifestField.NAME.getFieldName(), pluginName);
+        attributes.putValue(ManifestField.VERSION.getFieldName(), VERSION);
+        attributes.putValue(ManifestField.DATE.getFieldName(), DATE.format(DefaultManifestReader.DATE_FORMATTER));
+        attributes.putValue(ManifestField.DESCRIPTION.getFieldName(), "Generated plugin " + pluginName);
+        attributes.putValue(ManifestField.MAINTAINER.getFieldName(), "Stecker Benchmarks <benchmarks@example.com>");
+        if (!dependencies.isEmpty()) {
+            attributes.putValue(ManifestField.DEPENDS.getFieldName(), dependencies);
+        }
+
+        String packageName = "generated/" + pluginName.replaceAll("[^A-Za-z0-9]", "_");
+        Random random = new Random(seed ^ pluginName.hashCode());
+        Path pluginFile = directory.resolve(pluginName + ".jar");
+        try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(pluginFile), manifest)) {
+            byte[] pluginImplementation = createJar(packageName + "/impl", classesCount, true, resourcesCount, random);
+            addEntry(outputStream, PluginUtils.PLUGIN_IMPLEMENTATION_FILE, pluginImplementation);
+            for (int i = 0; i < librariesCount; i++) {
+                byte[] library = createJar(packageName + "/lib" + i, libraryClassesCount, false, 0, random);
+                addEntry(outputStream, String.format("%s/library%d.jar", PluginUtils.LIB_DIRECTORY, i), library);
+            }
+        }
+        return pluginFile;
+    }
+
+    private byte[] createJar(String packageName, int classesCount, boolean implementExtensionPoint, int resourcesCount, Random random) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JarOutputStream outputStream = new JarOutputStream(bytes, new Manifest())) {
+            String extensionPointName = BenchmarkExtensionPoint.class.getName().replace('.', ENTRY_SEPARATOR.charAt(0));
+            for (int i = 0; i < classesCount; i++) {
+                String className = String.format("%s/Class%d", packageName, i);
+                String interfaceName = (implementExtensionPoint && i % 2 == 0) ? extensionPointName : null;
+                addEntry(outputStream, className + CLASS_FILE_EXTENSION, createClass(className, interfaceName));
+            }
+            for (int i = 0; i < resourcesCount; i++) {
+                byte[] contents = new byte[resourceSize];
+                random.nextBytes(contents);
+                addEntry(outputStream, String.format("%s/resource%d%s", packageName, i, RESOURCE_FILE_EXTENSION), contents);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void addEntry(JarOutputStream outputStream, String entryName, byte[] contents) throws IOException {
+        outputStream.putNextEntry(new JarEntry(entryName));
+        outputStream.write(contents);
+        outputStream.closeEntry();
+    }
+
+    /**
+     * Returns bytes of public class with public no-argument constructor optionally implementing one interface
+     */
+    private static byte[] createClass(String className, String interfaceName) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(0xCAFEBABE);
+        output.writeShort(0); //Minor version
+        output.writeShort(52); //Java 8
+        output.writeShort(12); //Constant pool size + 1
+        writeUtf8(output, className); //#1
+        writeClass(output, 1); //#2
+        writeUtf8(output, "java/lang/Object"); //#3
+        writeClass(output, 3); //#4
+        writeUtf8(output, interfaceName != null ? interfaceName : "java/lang/Object"); //#5
+        writeClass(output, 5); //#6
+        writeUtf8(output, "<init>"); //#7
+        writeUtf8(output, "()V"); //#8
+        output.writeByte(12); //#9: NameAndType
+        output.writeShort(7);
+        output.writeShort(8);
+        output.writeByte(10); //#10: Methodref
+        output.writeShort(4);
+        output.writeShort(9);
+        writeUtf8(output, "Code"); //#11
+        output.writeShort(0x0021); //ACC_PUBLIC | ACC_SUPER
+        output.writeShort(2); //This class
+        output.writeShort(4); //Super class
+        if (interfaceName != null) {
+            output.writeShort(1);
+            output.writeShort(6);
+        } else {
+            output.writeShort(0);
+        }
+        output.writeShort(0); //Fields
+        output.writeShort(1); //Methods
+        output.writeShort(0x0001); //ACC_PUBLIC
+        output.writeShort(7);
+        output.writeShort(8);
+        output.writeShort(1); //Method attributes
+        output.writeShort(11);
+        output.writeInt(17); //Code attribute length
+        output.writeShort(1); //Max stack
+        output.writeShort(1); //Max locals
+        output.writeInt(5); //Code length
+        output.writeByte(0x2a); //aload_0
+        output.writeByte(0xb7); //invokespecial #10
+        output.writeShort(10);
+        output.writeByte(0xb1); //return
+        output.writeShort(0); //Exception table
+        output.writeShort(0); //Code attributes
+        output.writeShort(0); //Class attributes
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeUtf8(DataOutputStream output, String value) throws IOException {
+        output.writeByte(1);
+        output.writeUTF(value);
+    }
+
+    private static void writeClass(DataOutputStream output, int nameIndex) throws IOException {
+        output.writeByte(7);
+        output.writeShort(nameIndex);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: PluginCorpus <directory> [plugins=N] [classes=N] [libraries=N] [libraryClasses=N] " +
+                    "[dependencies=N] [depth=N] [resources=N] [resourceSize=N] [seed=N]");
+            System.exit(1);
+        }
+        PluginCorpus pluginCorpus = new PluginCorpus();
+        for (int i = 1; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Invalid option: " + args[i]);
+            }
+            long value = Long.parseLong(option[1]);
+            switch (option[0]) {
+                case "plugins":
+                    pluginCorpus.withPluginsCount((int) value);
+                    break;
+                case "classes":
+                    pluginCorpus.withClassesCount((int) value);
+                    break;
+                case "libraries":
+                    pluginCorpus.withLibrariesCount((int) value);
+                    break;
+                case "libraryClasses":
+                    pluginCorpus.withLibraryClassesCount((int) value);
+                    break;
+                case "dependencies":
+                    pluginCorpus.withDependenciesCount((int) value);
+                    break;
+                case "depth":
+                    pluginCorpus.withDependencyLevelsCount((int) value);
+                    break;
+                case "resources":
+                    pluginCorpus.withResourcesCount((int) value);
+                    break;
+                case "resourceSize":
+                    pluginCorpus.withResourceSize((int) value);
+                    break;
+                case "seed":
+                    pluginCorpus.withSeed(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option[0]);
+            }
+        }
+        Path directory = Files.createDirectories(Paths.get(args[0]));
+        List<Path> pluginFiles = pluginCorpus.generate(directory);
+        System.out.println(String.format("Generated %d plugins in %s", pluginFiles.size(), directory.toAbsolutePath()));
+    }
+
+}
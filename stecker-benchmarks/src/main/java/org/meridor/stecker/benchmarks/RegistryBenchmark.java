@@ -0,0 +1,92 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.PluginRegistry;
+import org.meridor.stecker.impl.PluginMetadataContainer;
+import org.meridor.stecker.impl.PluginRegistryContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lookups in loaded (frozen) plugin registry read by several threads at once
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistryBenchmark {
+
+    @Param({"100", "1000"})
+    public int pluginsCount;
+
+    private String[] pluginNames;
+
+    private PluginRegistry pluginRegistry;
+
+    @Setup
+    public void setUp() throws PluginException {
+        PluginRegistryContainer pluginRegistryContainer = new PluginRegistryContainer();
+        List<Class> implementations = Arrays.asList(FirstImplementation.class, SecondImplementation.class);
+        pluginNames = new String[pluginsCount];
+        for (int i = 0; i < pluginsCount; i++) {
+            pluginNames[i] = "plugin" + i;
+            PluginMetadata pluginMetadata = new PluginMetadataContainer(pluginNames[i], "1.0", Paths.get(pluginNames[i] + ".jar"));
+            pluginRegistryContainer.addPlugin(pluginMetadata);
+            pluginRegistryContainer.addImplementations(pluginMetadata, BenchmarkExtensionPoint.class, implementations);
+            pluginRegistryContainer.addClassLoader(pluginMetadata, getClass().getClassLoader());
+        }
+        pluginRegistry = pluginRegistryContainer.freeze();
+    }
+
+    private String getRandomPluginName() {
+        return pluginNames[ThreadLocalRandom.current().nextInt(pluginNames.length)];
+    }
+
+    @Benchmark
+    public List<Class> getImplementations() {
+        return pluginRegistry.getImplementations(BenchmarkExtensionPoint.class);
+    }
+
+    @Benchmark
+    public List<Class> getPluginImplementations() {
+        return pluginRegistry.getImplementations(getRandomPluginName(), BenchmarkExtensionPoint.class);
+    }
+
+    @Benchmark
+    public Optional<PluginMetadata> getPlugin() {
+        return pluginRegistry.getPlugin(getRandomPluginName());
+    }
+
+    @Benchmark
+    public Optional<ClassLoader> getClassLoader() {
+        return pluginRegistry.getClassLoader(getRandomPluginName());
+    }
+
+    public static class FirstImplementation implements BenchmarkExtensionPoint {
+    }
+
+    public static class SecondImplementation implements BenchmarkExtensionPoint {
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.meridor.stecker.benchmarks;
+
+import org.meridor.stecker.impl.PluginUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PluginUtils#unpackPlugin(Path, Path)} to empty cache directory
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnpackBenchmark {
+
+    @Param({"100", "1000"})
+    public int classesCount;
+
+    private Path directory;
+
+    private Path pluginFile;
+
+    private Path cacheDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("stecker-unpack-benchmark");
+        pluginFile = new PluginCorpus().withClassesCount(classesCount).createPlugin(directory, "plugin", "");
+        cacheDirectory = directory.resolve(".cache");
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanCache() throws IOException {
+        BenchmarkPlugins.delete(cacheDirectory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkPlugins.delete(directory);
+    }
+
+    @Benchmark
+    public Path unpackPlugin() throws IOException {
+        return PluginUtils.unpackPlugin(pluginFile, cacheDirectory);
+    }
+
+}
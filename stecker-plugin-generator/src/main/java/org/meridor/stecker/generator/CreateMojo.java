@@ -18,10 +18,13 @@ import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.jar.JarArchiver;
 import org.codehaus.plexus.archiver.jar.Manifest;
 import org.codehaus.plexus.archiver.jar.ManifestException;
+import org.meridor.stecker.PluginException;
 import org.meridor.stecker.impl.DefaultManifestReader;
+import org.meridor.stecker.impl.ExtensionIndex;
 import org.meridor.stecker.impl.ManifestField;
 import org.meridor.stecker.impl.PluginUtils;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -41,6 +44,8 @@ import java.util.stream.Collectors;
 )
 public class CreateMojo extends AbstractMojo {
 
+    private static final String INDEX_DIRECTORY = "index";
+
     @Parameter(defaultValue = "${project.artifactId}", readonly = true, required = true)
     private String pluginName;
 
@@ -62,6 +67,20 @@ public class CreateMojo extends AbstractMojo {
     @Parameter
     private String provides;
 
+    /**
+     * Whether to index compiled classes and embed the index to plugin. Plugin loader uses this index to find extension
+     * point implementations without scanning plugin classes.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean createIndex;
+
+    /**
+     * Whether to store nested jars (plugin.jar and libraries) without compression. Plugin loader can then read
+     * classes from memory-mapped plugin file without inflating nested jars to heap.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean storeNestedJars;
+
     /**
      * Plugin contents are saved to this directory
      */
@@ -120,22 +139,44 @@ public class CreateMojo extends AbstractMojo {
         }
     }
 
-    private void packageCompiledSources() throws DependencyResolutionRequiredException, IOException, ManifestException {
+    private void packageCompiledSources() throws DependencyResolutionRequiredException, IOException, ManifestException, PluginException {
         MavenArchiver archiver = new MavenArchiver();
         archiver.setArchiver(sourcesArchiver);
         Path pluginJarFile = getDataOutputDirectory().resolve(PluginUtils.PLUGIN_IMPLEMENTATION_FILE);
         getLog().debug(String.format("Packing plugin sources to %s", pluginJarFile.toString()));
         archiver.setOutputFile(pluginJarFile.toFile());
         sourcesArchiver.addDirectory(compiledSourcesDir);
+        if (createIndex) {
+            sourcesArchiver.addFile(createExtensionIndex().toFile(), ExtensionIndex.INDEX_FILE);
+        }
         archiver.createArchive(session, project, new MavenArchiveConfiguration());
     }
 
+    private Path createExtensionIndex() throws IOException, PluginException {
+        Path compiledSourcesPath = Paths.get(compiledSourcesDir.toURI());
+        Path libDirectory = getDataOutputDirectory().resolve(PluginUtils.LIB_DIRECTORY);
+        Path indexFile = Paths.get(outputDirectory.toURI()).resolve(INDEX_DIRECTORY).resolve(ExtensionIndex.INDEX_FILE);
+        getLog().debug(String.format("Indexing compiled classes to %s", indexFile.toString()));
+        ClassLoader classLoader = PluginUtils.getClassLoader(compiledSourcesPath, libDirectory);
+        try {
+            ExtensionIndex extensionIndex = ExtensionIndex.build(compiledSourcesPath, classLoader);
+            extensionIndex.write(indexFile);
+            getLog().info(String.format("Indexed %d classes", extensionIndex.getClassNames().size()));
+        } finally {
+            if (classLoader instanceof Closeable) {
+                ((Closeable) classLoader).close();
+            }
+        }
+        return indexFile;
+    }
+
     private void packagePlugin() throws DependencyResolutionRequiredException, IOException, ManifestException {
         MavenArchiver archiver = new MavenArchiver();
         archiver.setArchiver(pluginArchiver);
         Path pluginFile = getPluginFile();
         getLog().info(String.format("Creating plugin file: %s", pluginFile));
         archiver.setOutputFile(pluginFile.toFile());
+        pluginArchiver.setRecompressAddedZips(!storeNestedJars);
         pluginArchiver.addDirectory(dataOutputDirectory);
         pluginArchiver.addConfiguredManifest(getPluginManifest());
         archiver.createArchive(session, project, new MavenArchiveConfiguration());
@@ -9,19 +9,29 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.meridor.stecker.impl.ExtensionIndex;
 import org.meridor.stecker.impl.FileSystemHelper;
+import org.meridor.stecker.impl.PluginUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static com.marvinformatics.kiss.matchers.path.PathMatchers.exists;
 import static com.marvinformatics.kiss.matchers.path.PathMatchers.isDirectory;
 import static com.marvinformatics.kiss.matchers.path.PathMatchers.isRegularFile;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 public class CreateMojoTest {
@@ -35,6 +45,8 @@ public class CreateMojoTest {
 
     private MavenProject mavenProject;
 
+    private Path testClassFile;
+
     @Before
     public void prepareData() throws Exception {
         Path pomPath = getResource("pom.xml").get();
@@ -43,13 +55,17 @@ public class CreateMojoTest {
         Path classesDir = targetDir.resolve("classes");
         Path packageDir = classesDir.resolve("test-package");
         Files.createDirectories(packageDir);
-        Path testClassFile = packageDir.resolve("Test.class");
+        testClassFile = packageDir.resolve("Test.class");
         Files.createFile(testClassFile);
 
         mavenProject = rule.readMavenProject(baseDir.toFile());
 
         Path artifactFile = targetDir.resolve(ARTIFACT_FILE);
-        Files.createFile(artifactFile);
+        try (JarOutputStream jarOutputStream = new JarOutputStream(Files.newOutputStream(artifactFile))) {
+            jarOutputStream.putNextEntry(new ZipEntry("test.txt"));
+            jarOutputStream.write(new byte[]{1, 2, 3});
+            jarOutputStream.closeEntry();
+        }
         Artifact artifact = new DefaultArtifact(
                 "javax.servlet",
                 "javax.servlet-api",
@@ -89,6 +105,54 @@ public class CreateMojoTest {
         assertThat(dependencyFile, exists());
         assertThat(dependencyFile, isRegularFile());
 
+        //Index is not created and nested jars are compressed by default
+        assertThat(getImplementationEntry(ExtensionIndex.INDEX_FILE), nullValue());
+        assertThat(getPluginEntry(PluginUtils.PLUGIN_IMPLEMENTATION_FILE).getMethod(), equalTo(ZipEntry.DEFLATED));
+    }
+
+    @Test
+    public void testCreateIndex() throws Exception {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(getClassResourceName(Plugin.class))) {
+            Files.copy(inputStream, testClassFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        CreateMojo mojo = (CreateMojo) rule.lookupConfiguredMojo(mavenProject, "create");
+        rule.setVariableValueToObject(mojo, "createIndex", true);
+        mojo.execute();
+
+        assertThat(getImplementationEntry(ExtensionIndex.INDEX_FILE), notNullValue());
+    }
+
+    @Test
+    public void testStoreNestedJars() throws Exception {
+        CreateMojo mojo = (CreateMojo) rule.lookupConfiguredMojo(mavenProject, "create");
+        rule.setVariableValueToObject(mojo, "storeNestedJars", true);
+        mojo.execute();
+
+        assertThat(getPluginEntry(PluginUtils.PLUGIN_IMPLEMENTATION_FILE).getMethod(), equalTo(ZipEntry.STORED));
+        assertThat(getPluginEntry(PluginUtils.LIB_DIRECTORY + "/" + ARTIFACT_FILE).getMethod(), equalTo(ZipEntry.STORED));
+    }
+
+    private Path getPluginFile() {
+        return targetDir.resolve("plugin-generator").resolve("plugin-test-1.0.jar");
+    }
+
+    private ZipEntry getPluginEntry(String entryName) throws IOException {
+        try (ZipFile zipFile = new ZipFile(getPluginFile().toFile())) {
+            ZipEntry entry = zipFile.getEntry(entryName);
+            assertThat(entry, notNullValue());
+            return entry;
+        }
+    }
+
+    private ZipEntry getImplementationEntry(String entryName) throws IOException {
+        Path implementationFile = targetDir.resolve("plugin-generator").resolve("data").resolve(PluginUtils.PLUGIN_IMPLEMENTATION_FILE);
+        try (ZipFile zipFile = new ZipFile(implementationFile.toFile())) {
+            return zipFile.getEntry(entryName);
+        }
+    }
+
+    private static String getClassResourceName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
     }
 
     private Optional<Path> getResource(String resourceName) throws URISyntaxException {
@@ -0,0 +1,84 @@
+package org.meridor.stecker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Typed handle to implementations of one extension point. Handle is immutable and returns the same list on every
+ * call, so it can be obtained once and then queried from hot paths without any lookups or allocations.
+ *
+ * @param <T> extension point type
+ */
+public final class ExtensionPoint<T> {
+
+    private static final ClassValue<ExtensionPoint<?>> EMPTY_HANDLES = new ClassValue<ExtensionPoint<?>>() {
+        @Override
+        protected ExtensionPoint<?> computeValue(Class<?> type) {
+            return of(type, Collections.emptyList());
+        }
+    };
+
+    private final Class<T> type;
+
+    private final List<Class<? extends T>> implementations;
+
+    private ExtensionPoint(Class<T> type, List<Class<? extends T>> implementations) {
+        this.type = type;
+        this.implementations = implementations;
+    }
+
+    /**
+     * Creates handle for extension point implementations
+     *
+     * @param type            extension point class or interface
+     * @param implementations classes implementing extension point as found by classes scanner
+     * @param <T>             extension point type
+     * @return extension point handle
+     * @throws IllegalArgumentException when extension point is an annotation
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExtensionPoint<T> of(Class<T> type, List<Class> implementations) {
+        if (type.isAnnotation()) {
+            throw new IllegalArgumentException(String.format("Annotation %s can't be used as typed extension point", type.getName()));
+        }
+        List<Class<? extends T>> typedImplementations = new ArrayList<>(implementations.size());
+        for (Class implementation : implementations) {
+            typedImplementations.add((Class<? extends T>) implementation);
+        }
+        return new ExtensionPoint<>(type, Collections.unmodifiableList(typedImplementations));
+    }
+
+    /**
+     * Returns handle without implementations. The same handle is returned for the same type, so that registries can
+     * answer for unknown extension points without allocating. Handles are attached to the type itself and do not
+     * prevent its class loader from being collected.
+     *
+     * @param type extension point class or interface
+     * @param <T>  extension point type
+     * @return empty extension point handle
+     * @throws IllegalArgumentException when extension point is an annotation
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExtensionPoint<T> empty(Class<T> type) {
+        return (ExtensionPoint<T>) EMPTY_HANDLES.get(type);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Returns classes implementing this extension point
+     *
+     * @return immutable list of implementation classes
+     */
+    public List<Class<? extends T>> getImplementations() {
+        return implementations;
+    }
+
+    public boolean isEmpty() {
+        return implementations.isEmpty();
+    }
+
+}
@@ -0,0 +1,239 @@
+package org.meridor.stecker;
+
+import org.meridor.stecker.impl.InstanceSuppliers;
+import org.meridor.stecker.impl.LazyPluginRegistry;
+import org.meridor.stecker.interfaces.PluginsReloadedHandler;
+import org.meridor.stecker.interfaces.ReloadResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Creates and caches instances of extension point implementations from plugin registry. Instances are created lazily
+ * on first request using public no-argument constructor called through {@link InstanceSuppliers}. Singleton
+ * instances are created exactly once even when requested from several threads simultaneously. When plugin is released
+ * (explicitly or because it was removed or modified during reload) its instances are dropped and those implementing
+ * {@link AutoCloseable} are closed.
+ */
+public class PluginInstances implements PluginsReloadedHandler {
+
+    private final Map<Class, Scope> scopes = new ConcurrentHashMap<>();
+
+    private final Map<Class, InstanceHolder> instanceHolders = new ConcurrentHashMap<>();
+
+    private volatile PluginRegistry pluginRegistry;
+
+    private volatile Scope defaultScope = Scope.SINGLETON;
+
+    public PluginInstances(PluginRegistry pluginRegistry) {
+        this.pluginRegistry = pluginRegistry;
+    }
+
+    /**
+     * Sets scope used for implementations without explicitly set scope. Default is {@link Scope#SINGLETON}.
+     *
+     * @param defaultScope scope
+     * @return this
+     */
+    public PluginInstances withDefaultScope(Scope defaultScope) {
+        this.defaultScope = defaultScope;
+        return this;
+    }
+
+    /**
+     * Sets scope of specific implementation. Should be called before the first instance is requested.
+     *
+     * @param implementation implementation class
+     * @param scope          scope
+     * @return this
+     */
+    public PluginInstances withScope(Class implementation, Scope scope) {
+        scopes.put(implementation, scope);
+        return this;
+    }
+
+    public Scope getScope(Class implementation) {
+        return scopes.getOrDefault(implementation, defaultScope);
+    }
+
+    public PluginRegistry getPluginRegistry() {
+        return pluginRegistry;
+    }
+
+    /**
+     * Returns instance of implementation class according to its scope
+     *
+     * @param implementation implementation class
+     * @param <T>            implementation type
+     * @return implementation instance
+     * @throws PluginException when instance can't be created
+     */
+    public <T> T getInstance(Class<T> implementation) throws PluginException {
+        while (true) {
+            InstanceHolder instanceHolder = instanceHolders.get(implementation);
+            if (instanceHolder == null) {
+                instanceHolder = instanceHolders.computeIfAbsent(
+                        implementation,
+                        c -> new InstanceHolder(c, getScope(c))
+                );
+            }
+            Object instance = instanceHolder.get();
+            if (instance != null) {
+                return implementation.cast(instance);
+            }
+            //Holder was released concurrently, so the instance is created by a new one which will be released later
+        }
+    }
+
+    /**
+     * Returns instances of all extension point implementations from all plugins
+     *
+     * @param extensionPoint extension point class or interface
+     * @param <T>            extension point type
+     * @return a list of instances in the same order as implementations in registry
+     * @throws PluginException when some instance can't be created
+     */
+    public <T> List<T> getInstances(Class<T> extensionPoint) throws PluginException {
+        List<Class<? extends T>> implementations = pluginRegistry.getExtensionPoint(extensionPoint).getImplementations();
+        List<T> instances = new ArrayList<>(implementations.size());
+        for (Class<? extends T> implementation : implementations) {
+            instances.add(getInstance(implementation));
+        }
+        return instances;
+    }
+
+    /**
+     * Drops cached instances of all implementations from plugin
+     *
+     * @param pluginName plugin name
+     */
+    public void release(String pluginName) {
+        release(pluginRegistry, pluginName);
+    }
+
+    /**
+     * Drops all cached instances
+     */
+    public void releaseAll() {
+        for (Class implementation : new ArrayList<>(instanceHolders.keySet())) {
+            release(implementation);
+        }
+    }
+
+    /**
+     * Releases instances of removed and modified plugins and switches to reloaded registry
+     *
+     * @param reloadResult reload result
+     */
+    @Override
+    public void onPluginsReloaded(ReloadResult reloadResult) {
+        PluginRegistry previousPluginRegistry = pluginRegistry;
+        pluginRegistry = reloadResult.getPluginRegistry();
+        for (String pluginName : reloadResult.getRemovedPlugins()) {
+            release(previousPluginRegistry, pluginName);
+        }
+        for (String pluginName : reloadResult.getModifiedPlugins()) {
+            release(previousPluginRegistry, pluginName);
+        }
+    }
+
+    private void release(PluginRegistry pluginRegistry, String pluginName) {
+        if (pluginRegistry instanceof LazyPluginRegistry && !((LazyPluginRegistry) pluginRegistry).isActivated(pluginName)) {
+            //Plugin was never activated, so it has no instances and shouldn't be activated now
+            return;
+        }
+        for (Class extensionPoint : pluginRegistry.getExtensionPoints(pluginName)) {
+            for (Class implementation : pluginRegistry.getImplementations(pluginName, extensionPoint)) {
+                release(implementation);
+            }
+        }
+    }
+
+    private void release(Class implementation) {
+        InstanceHolder instanceHolder = instanceHolders.get(implementation);
+        if (instanceHolder == null || !instanceHolders.remove(implementation, instanceHolder)) {
+            return;
+        }
+        Optional<Object> instance = instanceHolder.release();
+        if (instance.isPresent() && instance.get() instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) instance.get()).close();
+            } catch (Exception e) {
+                //Plugin is going away anyway, so there's nobody to report to
+            }
+        }
+    }
+
+    private static class InstanceHolder {
+
+        private final Class<?> implementation;
+
+        private final Scope scope;
+
+        private volatile Supplier<?> supplier;
+
+        private volatile Object instance;
+
+        private boolean released;
+
+        InstanceHolder(Class<?> implementation, Scope scope) {
+            this.implementation = implementation;
+            this.scope = scope;
+        }
+
+        /**
+         * Returns instance according to scope
+         *
+         * @return instance or null if singleton holder was released before instance was created
+         * @throws PluginException when instance can't be created
+         */
+        Object get() throws PluginException {
+            if (scope == Scope.PROTOTYPE) {
+                return newInstance();
+            }
+            Object result = instance;
+            if (result == null) {
+                synchronized (this) {
+                    if (released) {
+                        return null;
+                    }
+                    result = instance;
+                    if (result == null) {
+                        result = newInstance();
+                        instance = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Prevents creation of singleton instance by this holder
+         *
+         * @return instance created before or empty
+         */
+        synchronized Optional<Object> release() {
+            released = true;
+            return Optional.ofNullable(instance);
+        }
+
+        private Object newInstance() throws PluginException {
+            Supplier<?> instanceSupplier = supplier;
+            if (instanceSupplier == null) {
+                instanceSupplier = InstanceSuppliers.of(implementation);
+                supplier = instanceSupplier;
+            }
+            try {
+                return instanceSupplier.get();
+            } catch (Exception e) {
+                throw new PluginException(String.format("Failed to create instance of %s", implementation.getName()), e);
+            }
+        }
+
+    }
+
+}
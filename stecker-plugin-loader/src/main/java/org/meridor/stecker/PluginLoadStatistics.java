@@ -0,0 +1,288 @@
+package org.meridor.stecker;
+
+import org.meridor.stecker.interfaces.PluginLoadListener;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates plugin load phases timings and counts and exposes numbers of the last finished load through JMX. Once
+ * load is finished its numbers don't change: plugins lazily activated later are counted separately.
+ * <pre>
+ * PluginLoadStatistics statistics = new PluginLoadStatistics().register();
+ * PluginRegistry pluginRegistry = PluginLoader
+ *      .withPluginDirectory(pluginsDirectory)
+ *      .withPluginLoadListener(statistics)
+ *      .load();
+ * </pre>
+ */
+public class PluginLoadStatistics implements PluginLoadListener, PluginLoadStatisticsMXBean {
+
+    public static final String DEFAULT_OBJECT_NAME = "org.meridor.stecker:type=PluginLoadStatistics";
+
+    private final AtomicLong loadsCount = new AtomicLong();
+
+    //Events received while no load is running come from lazy activations
+    private final Counters activations = new Counters();
+
+    private volatile Counters currentLoad = activations;
+
+    private volatile Counters lastLoad = new Counters();
+
+    private ObjectName objectName;
+
+    @Override
+    public void onLoadStarted() {
+        currentLoad = new Counters();
+    }
+
+    @Override
+    public void onPluginsProvided(int pluginsCount, long durationNanos) {
+        currentLoad.providedPluginsCount = pluginsCount;
+        currentLoad.provideDuration.add(durationNanos);
+    }
+
+    @Override
+    public void onManifestRead(Path pluginFile, long durationNanos) {
+        currentLoad.manifestsReadCount.increment();
+        currentLoad.manifestReadDuration.add(durationNanos);
+    }
+
+    @Override
+    public void onDependenciesChecked(PluginMetadata pluginMetadata, long durationNanos) {
+        currentLoad.dependencyChecksCount.increment();
+        currentLoad.dependencyCheckDuration.add(durationNanos);
+    }
+
+    @Override
+    public void onPluginUnpacked(Path pluginFile, boolean cacheHit, long durationNanos) {
+        (cacheHit ? currentLoad.unpackCacheHitsCount : currentLoad.unpackCacheMissesCount).increment();
+        currentLoad.unpackDuration.add(durationNanos);
+    }
+
+    @Override
+    public void onClassesScanned(PluginMetadata pluginMetadata, int visitedClassesCount, int loadedClassesCount, long durationNanos) {
+        currentLoad.scannedPluginsCount.increment();
+        currentLoad.visitedClassesCount.add(visitedClassesCount);
+        currentLoad.loadedClassesCount.add(loadedClassesCount);
+        currentLoad.classScanDuration.add(durationNanos);
+    }
+
+    @Override
+    public void onResourcesScanned(PluginMetadata pluginMetadata, int resourcesCount, long durationNanos) {
+        currentLoad.foundResourcesCount.add(resourcesCount);
+        currentLoad.resourceScanDuration.add(durationNanos);
+    }
+
+    @Override
+    public void onLoadFinished(int pluginsCount, long durationNanos) {
+        Counters finishedLoad = currentLoad;
+        finishedLoad.loadedPluginsCount = pluginsCount;
+        finishedLoad.loadDuration.add(durationNanos);
+        lastLoad = finishedLoad;
+        currentLoad = activations;
+        loadsCount.incrementAndGet();
+    }
+
+    /**
+     * Registers this object in platform MBean server under {@link #DEFAULT_OBJECT_NAME}
+     *
+     * @return this
+     * @throws PluginException when registration fails, e.g. when the name is already taken
+     */
+    public PluginLoadStatistics register() throws PluginException {
+        return register(DEFAULT_OBJECT_NAME);
+    }
+
+    /**
+     * Registers this object in platform MBean server. Use different names for different plugin loaders.
+     *
+     * @param objectName JMX object name, e.g. <b>com.example:type=PluginLoadStatistics,name=extensions</b>
+     * @return this
+     * @throws PluginException when registration fails, e.g. when the name is already taken
+     */
+    public synchronized PluginLoadStatistics register(String objectName) throws PluginException {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            this.objectName = name;
+            return this;
+        } catch (JMException e) {
+            throw new PluginException(e);
+        }
+    }
+
+    /**
+     * Removes this object from platform MBean server if it was registered
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            //Already unregistered by someone else
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getLoadsCount() {
+        return loadsCount.get();
+    }
+
+    @Override
+    public long getLoadDurationMillis() {
+        return toMillis(lastLoad.loadDuration);
+    }
+
+    @Override
+    public int getLoadedPluginsCount() {
+        return lastLoad.loadedPluginsCount;
+    }
+
+    @Override
+    public int getProvidedPluginsCount() {
+        return lastLoad.providedPluginsCount;
+    }
+
+    @Override
+    public long getProvideDurationMillis() {
+        return toMillis(lastLoad.provideDuration);
+    }
+
+    @Override
+    public long getManifestsReadCount() {
+        return lastLoad.manifestsReadCount.sum();
+    }
+
+    @Override
+    public long getManifestReadDurationMillis() {
+        return toMillis(lastLoad.manifestReadDuration);
+    }
+
+    @Override
+    public long getDependencyChecksCount() {
+        return lastLoad.dependencyChecksCount.sum();
+    }
+
+    @Override
+    public long getDependencyCheckDurationMillis() {
+        return toMillis(lastLoad.dependencyCheckDuration);
+    }
+
+    @Override
+    public long getUnpackCacheHitsCount() {
+        return lastLoad.unpackCacheHitsCount.sum();
+    }
+
+    @Override
+    public long getUnpackCacheMissesCount() {
+        return lastLoad.unpackCacheMissesCount.sum();
+    }
+
+    @Override
+    public long getUnpackDurationMillis() {
+        return toMillis(lastLoad.unpackDuration);
+    }
+
+    @Override
+    public long getScannedPluginsCount() {
+        return lastLoad.scannedPluginsCount.sum();
+    }
+
+    @Override
+    public long getVisitedClassesCount() {
+        return lastLoad.visitedClassesCount.sum();
+    }
+
+    @Override
+    public long getLoadedClassesCount() {
+        return lastLoad.loadedClassesCount.sum();
+    }
+
+    @Override
+    public long getClassScanDurationMillis() {
+        return toMillis(lastLoad.classScanDuration);
+    }
+
+    @Override
+    public long getFoundResourcesCount() {
+        return lastLoad.foundResourcesCount.sum();
+    }
+
+    @Override
+    public long getResourceScanDurationMillis() {
+        return toMillis(lastLoad.resourceScanDuration);
+    }
+
+    @Override
+    public long getActivatedPluginsCount() {
+        return activations.scannedPluginsCount.sum();
+    }
+
+    @Override
+    public long getActivationLoadedClassesCount() {
+        return activations.loadedClassesCount.sum();
+    }
+
+    @Override
+    public long getActivationDurationMillis() {
+        //Classes scan duration includes unpacking
+        return TimeUnit.NANOSECONDS.toMillis(activations.classScanDuration.sum() + activations.resourceScanDuration.sum());
+    }
+
+    private static long toMillis(LongAdder durationNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos.sum());
+    }
+
+    private static class Counters {
+
+        private volatile int providedPluginsCount;
+
+        private volatile int loadedPluginsCount;
+
+        private final LongAdder loadDuration = new LongAdder();
+
+        private final LongAdder provideDuration = new LongAdder();
+
+        private final LongAdder manifestsReadCount = new LongAdder();
+
+        private final LongAdder manifestReadDuration = new LongAdder();
+
+        private final LongAdder dependencyChecksCount = new LongAdder();
+
+        private final LongAdder dependencyCheckDuration = new LongAdder();
+
+        private final LongAdder unpackCacheHitsCount = new LongAdder();
+
+        private final LongAdder unpackCacheMissesCount = new LongAdder();
+
+        private final LongAdder unpackDuration = new LongAdder();
+
+        private final LongAdder scannedPluginsCount = new LongAdder();
+
+        private final LongAdder visitedClassesCount = new LongAdder();
+
+        private final LongAdder loadedClassesCount = new LongAdder();
+
+        private final LongAdder classScanDuration = new LongAdder();
+
+        private final LongAdder foundResourcesCount = new LongAdder();
+
+        private final LongAdder resourceScanDuration = new LongAdder();
+
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.meridor.stecker;
+
+/**
+ * JMX view of plugin load phases. All numbers except activation ones describe the last finished load. Activation
+ * numbers are summed over all plugins lazily activated after their loads finished. Phase durations are summed over
+ * all plugins, so they may exceed total load duration when plugins are loaded in parallel.
+ */
+public interface PluginLoadStatisticsMXBean {
+
+    long getLoadsCount();
+
+    long getLoadDurationMillis();
+
+    int getLoadedPluginsCount();
+
+    int getProvidedPluginsCount();
+
+    long getProvideDurationMillis();
+
+    long getManifestsReadCount();
+
+    long getManifestReadDurationMillis();
+
+    long getDependencyChecksCount();
+
+    long getDependencyCheckDurationMillis();
+
+    long getUnpackCacheHitsCount();
+
+    long getUnpackCacheMissesCount();
+
+    long getUnpackDurationMillis();
+
+    long getScannedPluginsCount();
+
+    long getVisitedClassesCount();
+
+    long getLoadedClassesCount();
+
+    long getClassScanDurationMillis();
+
+    long getFoundResourcesCount();
+
+    long getResourceScanDurationMillis();
+
+    long getActivatedPluginsCount();
+
+    long getActivationLoadedClassesCount();
+
+    long getActivationDurationMillis();
+
+}
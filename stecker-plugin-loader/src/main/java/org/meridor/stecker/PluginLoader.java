@@ -1,22 +1,59 @@
 package org.meridor.stecker;
 
+import org.meridor.stecker.impl.ArchiveClassesScanner;
+import org.meridor.stecker.impl.ArchiveResourcesScanner;
+import org.meridor.stecker.impl.ClassesRegistry;
+import org.meridor.stecker.impl.ContentAddressedCache;
 import org.meridor.stecker.impl.DefaultClassesScanner;
 import org.meridor.stecker.impl.DefaultDependencyChecker;
+import org.meridor.stecker.impl.DefaultDependencyResolver;
 import org.meridor.stecker.impl.DefaultManifestReader;
 import org.meridor.stecker.impl.DefaultPluginsProvider;
+import org.meridor.stecker.impl.DefaultReloadResult;
 import org.meridor.stecker.impl.DefaultResourcesScanner;
+import org.meridor.stecker.impl.DefaultScanResult;
+import org.meridor.stecker.impl.DefaultUnloadResult;
+import org.meridor.stecker.impl.DefaultVersionComparator;
+import org.meridor.stecker.impl.LazyPluginRegistry;
+import org.meridor.stecker.impl.PluginArchives;
+import org.meridor.stecker.impl.PluginLoadListeners;
 import org.meridor.stecker.impl.PluginRegistryContainer;
+import org.meridor.stecker.impl.PluginRegistrySnapshot;
+import org.meridor.stecker.impl.PluginUtils;
+import org.meridor.stecker.impl.SharedLibraries;
+import org.meridor.stecker.impl.TaskRunner;
+import org.meridor.stecker.impl.UnpackedPlugins;
+import org.meridor.stecker.impl.Versions;
 import org.meridor.stecker.interfaces.ClassesScanner;
+import org.meridor.stecker.interfaces.Dependency;
 import org.meridor.stecker.interfaces.DependencyChecker;
+import org.meridor.stecker.interfaces.DependencyResolver;
 import org.meridor.stecker.interfaces.ManifestReader;
+import org.meridor.stecker.interfaces.PluginLoadListener;
 import org.meridor.stecker.interfaces.PluginsProvider;
+import org.meridor.stecker.interfaces.PluginsReloadedHandler;
+import org.meridor.stecker.interfaces.ReloadResult;
 import org.meridor.stecker.interfaces.ResourcesScanner;
 import org.meridor.stecker.interfaces.ScanResult;
+import org.meridor.stecker.interfaces.UnloadResult;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,6 +67,7 @@ public class PluginLoader {
     public static final String DEFAULT_CACHE_DIRECTORY = ".cache";
     private final Path pluginsDirectory;
     private final List<Class> extensionPoints = new ArrayList<>();
+    private final List<PluginLoadListener> pluginLoadListeners = new ArrayList<>();
     private Path cacheDirectory;
 
     private PluginsProvider pluginsProvider;
@@ -38,12 +76,29 @@ public class PluginLoader {
 
     private DependencyChecker dependencyChecker;
 
+    private DependencyResolver dependencyResolver;
+
     private ClassesScanner classesScanner;
 
     private ResourcesScanner resourcesScanner;
 
     private String[] resourcesPatterns = new String[0];
 
+    private ExecutorService executorService;
+
+    private int parallelism = 1;
+
+    private boolean unpack = true;
+
+    private boolean shareLibraries;
+
+    private boolean contentAddressedCache;
+
+    private boolean lazyActivation;
+
+    // Versions are parsed once for all loads done by this loader
+    private final Versions versions = new Versions();
+
     private PluginLoader(Path pluginsDirectory) {
         this.pluginsDirectory = pluginsDirectory;
     }
@@ -110,6 +165,17 @@ public class PluginLoader {
         return this;
     }
 
+    /**
+     * Add listener receiving timings and counts of load phases, e.g. {@link PluginLoadStatistics}
+     *
+     * @param pluginLoadListener listener instance
+     * @return this
+     */
+    public PluginLoader withPluginLoadListener(PluginLoadListener pluginLoadListener) {
+        this.pluginLoadListeners.add(pluginLoadListener);
+        return this;
+    }
+
     /**
      * Specify custom {@link ManifestReader} implementation
      *
@@ -132,6 +198,17 @@ public class PluginLoader {
         return this;
     }
 
+    /**
+     * Specify custom {@link DependencyResolver} implementation
+     *
+     * @param dependencyResolver custom {@link DependencyResolver} implementation
+     * @return this
+     */
+    public PluginLoader withDependencyResolver(DependencyResolver dependencyResolver) {
+        this.dependencyResolver = dependencyResolver;
+        return this;
+    }
+
     /**
      * Specify custom {@link ClassesScanner} implementation
      *
@@ -166,6 +243,80 @@ public class PluginLoader {
         return this;
     }
 
+    /**
+     * Specify executor service used to read manifests, unpack and scan plugins in parallel. Executor service is not
+     * shut down by the loader.
+     *
+     * @param executorService executor service instance
+     * @return this
+     */
+    public PluginLoader withExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Specify number of threads used to read manifests, unpack and scan plugins. Ignored when executor service is set
+     * with {@link #withExecutor(ExecutorService)}.
+     *
+     * @param parallelism number of threads, values less than 2 mean sequential loading
+     * @return this
+     */
+    public PluginLoader withParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Specify whether plugin files are unpacked to cache directory. When disabled plugin classes and resources are
+     * read right from plugin files by default classes and resources scanners.
+     *
+     * @param unpack false to load plugins without extracting them
+     * @return this
+     */
+    public PluginLoader withUnpack(boolean unpack) {
+        this.unpack = unpack;
+        return this;
+    }
+
+    /**
+     * Specify whether byte-identical libraries from <b>lib</b> directories of several plugins are loaded once by a
+     * class loader shared by all plugins. Only applies to unpacked plugins scanned by default classes scanner.
+     *
+     * @param shareLibraries true to deduplicate plugin libraries
+     * @return this
+     */
+    public PluginLoader withSharedLibraries(boolean shareLibraries) {
+        this.shareLibraries = shareLibraries;
+        return this;
+    }
+
+    /**
+     * Specify whether unpacked files are stored in cache directory once per distinct contents and hard linked to
+     * plugin directories. Classes and libraries present in several plugins or plugin versions are then written to
+     * disk only once. Files are copied as usual when file system does not support hard links.
+     *
+     * @param contentAddressedCache true to deduplicate unpacked files
+     * @return this
+     */
+    public PluginLoader withContentAddressedCache(boolean contentAddressedCache) {
+        this.contentAddressedCache = contentAddressedCache;
+        return this;
+    }
+
+    /**
+     * Specify whether plugins are activated on first use. Loading then only reads manifests and checks dependencies:
+     * plugin is unpacked and scanned when its implementations, class loader or resources are requested from returned
+     * registry for the first time. Shared libraries are not supported in this mode.
+     *
+     * @param lazyActivation true to defer scanning plugins until they are used
+     * @return this
+     */
+    public PluginLoader withLazyActivation(boolean lazyActivation) {
+        this.lazyActivation = lazyActivation;
+        return this;
+    }
+
     /**
      * Returns the directory where we search for plugins
      *
@@ -220,7 +371,17 @@ public class PluginLoader {
      */
     public DependencyChecker getDependencyChecker() {
         return (dependencyChecker != null) ?
-                dependencyChecker : new DefaultDependencyChecker();
+                dependencyChecker : new DefaultDependencyChecker(new DefaultVersionComparator(versions));
+    }
+
+    /**
+     * Returns current {@link DependencyResolver} instance
+     *
+     * @return current dependency resolver instance
+     */
+    public DependencyResolver getDependencyResolver() {
+        return (dependencyResolver != null) ?
+                dependencyResolver : new DefaultDependencyResolver(versions);
     }
 
     /**
@@ -229,8 +390,23 @@ public class PluginLoader {
      * @return current classes scanner instance
      */
     public ClassesScanner getClassesScanner() {
-        return (classesScanner != null) ?
-                classesScanner : new DefaultClassesScanner(getCacheDirectory());
+        return getClassesScanner(createUnpackedPlugins(), new PluginArchives());
+    }
+
+    private UnpackedPlugins createUnpackedPlugins() {
+        Path cacheDirectory = getCacheDirectory();
+        return new UnpackedPlugins(
+                cacheDirectory,
+                isContentAddressedCache() ? new ContentAddressedCache(cacheDirectory) : null
+        );
+    }
+
+    private ClassesScanner getClassesScanner(UnpackedPlugins unpackedPlugins, PluginArchives pluginArchives) {
+        if (classesScanner != null) {
+            return classesScanner;
+        }
+        return isUnpack() ?
+                new DefaultClassesScanner(unpackedPlugins) : new ArchiveClassesScanner(pluginArchives);
     }
 
     /**
@@ -239,8 +415,16 @@ public class PluginLoader {
      * @return current resources scanner instance
      */
     public ResourcesScanner getResourcesScanner() {
-        return (resourcesScanner != null) ?
-                resourcesScanner : new DefaultResourcesScanner(getCacheDirectory(), getResourcesPatterns());
+        return getResourcesScanner(createUnpackedPlugins(), new PluginArchives());
+    }
+
+    private ResourcesScanner getResourcesScanner(UnpackedPlugins unpackedPlugins, PluginArchives pluginArchives) {
+        if (resourcesScanner != null) {
+            return resourcesScanner;
+        }
+        return isUnpack() ?
+                new DefaultResourcesScanner(unpackedPlugins, getResourcesPatterns()) :
+                new ArchiveResourcesScanner(pluginArchives, getCacheDirectory(), getResourcesPatterns());
     }
 
     /**
@@ -262,47 +446,726 @@ public class PluginLoader {
     }
 
     /**
-     * Returns {@link PluginRegistry} storing information about loaded classes
+     * Returns a list of load listeners
+     *
+     * @return load listeners list
+     */
+    public List<PluginLoadListener> getPluginLoadListeners() {
+        return pluginLoadListeners;
+    }
+
+    /**
+     * Returns executor service used to load plugins in parallel
+     *
+     * @return executor service or empty if not set
+     */
+    public Optional<ExecutorService> getExecutor() {
+        return Optional.ofNullable(executorService);
+    }
+
+    /**
+     * Returns number of threads used to load plugins when no executor service is set
+     *
+     * @return number of threads
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns whether plugin files are unpacked to cache directory
+     *
+     * @return true if plugins are unpacked
+     */
+    public boolean isUnpack() {
+        return unpack;
+    }
+
+    /**
+     * Returns whether identical plugin libraries are loaded by shared class loader
+     *
+     * @return true if libraries are deduplicated
+     */
+    public boolean isSharedLibraries() {
+        return shareLibraries;
+    }
+
+    /**
+     * Returns whether unpacked files are deduplicated by contents
+     *
+     * @return true if content addressed cache is used
+     */
+    public boolean isContentAddressedCache() {
+        return contentAddressedCache;
+    }
+
+    /**
+     * Returns whether plugins are activated on first use
+     *
+     * @return true if plugins are scanned lazily
+     */
+    public boolean isLazyActivation() {
+        return lazyActivation;
+    }
+
+    /**
+     * Returns {@link PluginRegistry} storing information about loaded classes. Returned registry is immutable and
+     * can be safely read from any number of threads.
      *
      * @return plugin registry with loaded classes
      * @throws org.meridor.stecker.PluginException when something goes wrong during plugins loading
      */
     public PluginRegistry load() throws PluginException {
+        return reload(new PluginRegistryContainer()).getPluginRegistry();
+    }
+
+    /**
+     * Loads plugins again reusing class loaders, implementations and resources of plugins whose files did not change
+     * since previous registry was returned. Only added and modified plugin files are scanned. Loader should be
+     * configured with the same extension points and resources patterns as the one previous registry was created by.
+     * When some plugins were added, removed or modified handlers are notified, then class loaders of previous registry
+     * which are not reused by the new one are closed and their unpacked directories are removed. To check that they
+     * were garbage collected drop all references to previous registry and call
+     * {@link ReloadResult#awaitCollection(long, java.util.concurrent.TimeUnit)}.
+     *
+     * @param previousRegistry registry returned by previous {@link #load()} or {@link #reload(PluginRegistry,
+     *                         PluginsReloadedHandler...)} call
+     * @param handlers         handlers notified before replaced class loaders are closed
+     * @return new plugin registry and names of added, removed, modified and unchanged plugins
+     * @throws org.meridor.stecker.PluginException when something goes wrong during plugins loading
+     */
+    public ReloadResult reload(PluginRegistry previousRegistry, PluginsReloadedHandler... handlers) throws PluginException {
+        ReloadResult reloadResult = scanChanges(previousRegistry);
+        Map<String, ClassLoader> releasedClassLoaders = getActivatedClassLoaders(previousRegistry);
+        Set<ClassLoader> reusedClassLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+        reusedClassLoaders.addAll(getActivatedClassLoaders(reloadResult.getPluginRegistry()).values());
+        releasedClassLoaders.values().removeIf(reusedClassLoaders::contains);
+        DefaultReloadResult result = new DefaultReloadResult(
+                reloadResult.getPluginRegistry(),
+                reloadResult.getAddedPlugins(),
+                reloadResult.getRemovedPlugins(),
+                reloadResult.getModifiedPlugins(),
+                reloadResult.getUnchangedPlugins(),
+                reloadResult.getSharedLibrariesReport().orElse(null),
+                reloadResult.getSkippedPlugins(),
+                releasedClassLoaders
+        );
+        try {
+            if (hasChanges(result)) {
+                for (PluginsReloadedHandler handler : handlers) {
+                    handler.onPluginsReloaded(result);
+                }
+            }
+        } finally {
+            release(releasedClassLoaders, previousRegistry, result.getPluginRegistry());
+        }
+        return result;
+    }
 
-        List<Path> pluginFiles = getPluginsProvider().provide(getPluginsDirectory());
+    private static boolean hasChanges(ReloadResult reloadResult) {
+        return
+                !reloadResult.getAddedPlugins().isEmpty() ||
+                        !reloadResult.getRemovedPlugins().isEmpty() ||
+                        !reloadResult.getModifiedPlugins().isEmpty();
+    }
+
+    private ReloadResult scanChanges(PluginRegistry previousRegistry) throws PluginException {
 
-        PluginRegistry pluginRegistry = new PluginRegistryContainer();
+        PluginsProvider pluginsProvider = getPluginsProvider();
+        ManifestReader manifestReader = getManifestReader();
+        PluginLoadListeners listeners = new PluginLoadListeners(getPluginLoadListeners());
+        long loadStartTime = System.nanoTime();
+        listeners.onLoadStarted();
 
-        // Loading information about all plugins first
-        for (Path pluginFile : pluginFiles) {
-            PluginMetadata pluginMetadata = getManifestReader().read(pluginFile);
-            pluginRegistry.addPlugin(pluginMetadata);
+        try (TaskRunner taskRunner = getTaskRunner()) {
+
+            long provideStartTime = System.nanoTime();
+            List<Path> pluginFiles = pluginsProvider.provide(getPluginsDirectory());
+            listeners.onPluginsProvided(pluginFiles.size(), System.nanoTime() - provideStartTime);
+            Map<Path, PluginMetadata> previousPlugins = new HashMap<>();
+            for (PluginMetadata pluginMetadata : getDistinctPlugins(previousRegistry)) {
+                previousPlugins.put(pluginMetadata.getPath(), pluginMetadata);
+            }
+
+            // Loading information about all plugins first, manifests of unchanged plugins are not read again
+            List<Callable<PluginState>> readTasks = new ArrayList<>();
+            for (Path pluginFile : pluginFiles) {
+                readTasks.add(() -> {
+                    String fileStamp = getFileStamp(pluginFile);
+                    PluginMetadata previousMetadata = previousPlugins.get(pluginFile);
+                    if (previousMetadata != null && fileStamp.equals(getFileStamp(previousRegistry, previousMetadata))) {
+                        return new PluginState(previousMetadata, fileStamp, true);
+                    }
+                    long readStartTime = System.nanoTime();
+                    PluginMetadata pluginMetadata = manifestReader.read(pluginFile);
+                    listeners.onManifestRead(pluginFile, System.nanoTime() - readStartTime);
+                    return new PluginState(pluginMetadata, fileStamp, false);
+                });
+            }
+            Map<PluginMetadata, PluginState> foundPlugins = new IdentityHashMap<>();
+            List<PluginMetadata> allPlugins = new ArrayList<>();
+            for (PluginState pluginState : taskRunner.invokeAll(readTasks)) {
+                foundPlugins.put(pluginState.getPluginMetadata(), pluginState);
+                allPlugins.add(pluginState.getPluginMetadata());
+            }
+
+            // Choosing one version of every plugin before anything is unpacked or scanned
+            PluginRegistryContainer pluginRegistry = new PluginRegistryContainer();
+            Map<PluginMetadata, PluginState> pluginStates = new IdentityHashMap<>();
+            for (PluginMetadata pluginMetadata : getDependencyResolver().resolve(allPlugins)) {
+                pluginRegistry.addPlugin(pluginMetadata);
+                pluginStates.put(pluginMetadata, foundPlugins.get(pluginMetadata));
+            }
+            List<Path> skippedPlugins = allPlugins.stream()
+                    .filter(pluginMetadata -> !pluginStates.containsKey(pluginMetadata))
+                    .map(PluginMetadata::getPath)
+                    .collect(Collectors.toList());
+            Set<String> previousPluginNames = previousPlugins.values().stream()
+                    .map(PluginMetadata::getName)
+                    .collect(Collectors.toSet());
+            if (isLazyActivation()) {
+                return reloadLazily(previousRegistry, pluginRegistry, pluginStates, previousPluginNames, skippedPlugins, listeners, loadStartTime);
+            }
+
+            // Loading plugins level by level of dependency graph: plugin class loader delegates to class loaders of
+            // its dependencies, so they should be loaded first. Plugins from the same level are loaded in parallel.
+            DependencyChecker dependencyChecker = getDependencyChecker();
+            // Default scanners share unpacked plugins so that every plugin is unpacked and walked once, archive
+            // scanners share opened plugin archives so that every plugin file is mapped and parsed once
+            UnpackedPlugins unpackedPlugins = createUnpackedPlugins();
+            unpackedPlugins.setPluginLoadListener(listeners.isEmpty() ? null : listeners);
+            unpackedPlugins.setUsedDirectories(getUsedDirectories(previousRegistry, getActivatedClassLoaders(previousRegistry).values()));
+            PluginArchives pluginArchives = new PluginArchives();
+            ClassesScanner classesScanner = getClassesScanner(unpackedPlugins, pluginArchives);
+            ResourcesScanner resourcesScanner = getResourcesScanner(unpackedPlugins, pluginArchives);
+            SharedLibraries sharedLibraries = isSharedLibraries() && isUnpack() ?
+                    getSharedLibraries(taskRunner, unpackedPlugins, pluginStates.values()) : null;
+            unpackedPlugins.setSharedLibraries(sharedLibraries);
+            Map<PluginMetadata, List<PluginMetadata>> dependencyGraph = getDependencyGraph(pluginRegistry);
+            Map<PluginMetadata, LoadedPlugin> loadedPlugins = new IdentityHashMap<>();
+            List<LoadedPlugin> loadOrder = new ArrayList<>();
+            for (List<PluginMetadata> level : getDependencyLevels(dependencyGraph)) {
+                List<Callable<LoadedPlugin>> loadTasks = new ArrayList<>();
+                for (PluginMetadata pluginMetadata : level) {
+                    PluginState pluginState = pluginStates.get(pluginMetadata);
+                    List<LoadedPlugin> dependencies = dependencyGraph.get(pluginMetadata).stream()
+                            .map(loadedPlugins::get)
+                            .collect(Collectors.toList());
+                    // Class loader of unchanged plugin can't be reused when it delegates to a replaced one
+                    boolean isReused = pluginState.isUnchanged() &&
+                            isActivated(previousRegistry, pluginMetadata.getName()) &&
+                            dependencies.stream().allMatch(LoadedPlugin::isReused);
+                    List<ClassLoader> dependencyClassLoaders = dependencies.stream()
+                            .map(LoadedPlugin::getClassLoader)
+                            .filter(classLoader -> classLoader != null)
+                            .collect(Collectors.toList());
+                    loadTasks.add(() -> {
+                        long checkStartTime = System.nanoTime();
+                        dependencyChecker.check(pluginRegistry, pluginMetadata);
+                        listeners.onDependenciesChecked(pluginMetadata, System.nanoTime() - checkStartTime);
+                        if (isReused) {
+                            return LoadedPlugin.copyOf(previousRegistry, pluginMetadata, pluginState.getFileStamp());
+                        }
+                        return scan(pluginMetadata, pluginState.getFileStamp(), classesScanner, resourcesScanner, getExtensionPoints(), dependencyClassLoaders, listeners);
+                    });
+                }
+                for (LoadedPlugin loadedPlugin : taskRunner.invokeAll(loadTasks)) {
+                    loadedPlugins.put(loadedPlugin.getPluginMetadata(), loadedPlugin);
+                    loadOrder.add(loadedPlugin);
+                }
+            }
+
+            // Registry is only modified from the calling thread
+            List<String> addedPlugins = new ArrayList<>();
+            List<String> modifiedPlugins = new ArrayList<>();
+            List<String> unchangedPlugins = new ArrayList<>();
+            for (LoadedPlugin loadedPlugin : loadOrder) {
+                loadedPlugin.register(pluginRegistry);
+                String pluginName = loadedPlugin.getPluginMetadata().getName();
+                if (loadedPlugin.isReused()) {
+                    unchangedPlugins.add(pluginName);
+                } else if (previousPluginNames.contains(pluginName)) {
+                    modifiedPlugins.add(pluginName);
+                } else {
+                    addedPlugins.add(pluginName);
+                }
+            }
+            List<String> removedPlugins = previousPluginNames.stream()
+                    .filter(pluginName -> !pluginRegistry.getPlugin(pluginName).isPresent())
+                    .sorted()
+                    .collect(Collectors.toList());
+            Optional<ContentAddressedCache> contentAddressedCache = unpackedPlugins.getContentAddressedCache();
+            if (contentAddressedCache.isPresent()) {
+                // Files of plugins unpacked again are not linked from anywhere now
+                removeUnusedObjects(contentAddressedCache.get());
+            }
+            PluginRegistrySnapshot pluginRegistrySnapshot = pluginRegistry.freeze();
+            listeners.onLoadFinished(loadOrder.size(), System.nanoTime() - loadStartTime);
+            return new DefaultReloadResult(pluginRegistrySnapshot, addedPlugins, removedPlugins, modifiedPlugins, unchangedPlugins, sharedLibraries, skippedPlugins);
+        }
+    }
+
+    /**
+     * Unloads plugins together with plugins depending on them. Handlers are notified first, so that e.g.
+     * {@link PluginInstances} releases cached instances, then class loaders of unloaded plugins are closed and their
+     * unpacked directories are removed. Class loader with libraries shared between plugins is closed when no remaining
+     * plugin uses it. To check that class loaders were garbage collected drop all references to previous registry and
+     * call {@link UnloadResult#awaitCollection(long, java.util.concurrent.TimeUnit)}.
+     *
+     * @param previousRegistry registry returned by {@link #load()} or {@link #reload(PluginRegistry,
+     *                         PluginsReloadedHandler...)} call
+     * @param pluginNames      names of plugins to unload, unknown names are ignored
+     * @param handlers         handlers notified before class loaders are closed
+     * @return registry without unloaded plugins and names of all unloaded plugins
+     * @throws org.meridor.stecker.PluginException when plugins can't be removed from registry of this type
+     */
+    public UnloadResult unload(PluginRegistry previousRegistry, Collection<String> pluginNames, PluginsReloadedHandler... handlers) throws PluginException {
+        Map<PluginMetadata, List<PluginMetadata>> dependencyGraph = getDependencyGraph(previousRegistry);
+        Set<PluginMetadata> unloadedPlugins = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String pluginName : pluginNames) {
+            previousRegistry.getPlugin(pluginName).ifPresent(unloadedPlugins::add);
+        }
+        // Class loaders of dependent plugins delegate to unloaded ones, so dependent plugins can't stay
+        boolean hasNewDependents = !unloadedPlugins.isEmpty();
+        while (hasNewDependents) {
+            hasNewDependents = false;
+            for (Map.Entry<PluginMetadata, List<PluginMetadata>> entry : dependencyGraph.entrySet()) {
+                if (!unloadedPlugins.contains(entry.getKey()) && entry.getValue().stream().anyMatch(unloadedPlugins::contains)) {
+                    unloadedPlugins.add(entry.getKey());
+                    hasNewDependents = true;
+                }
+            }
+        }
+        List<String> removedPlugins = unloadedPlugins.stream()
+                .map(PluginMetadata::getName)
+                .sorted()
+                .collect(Collectors.toList());
+        List<String> unchangedPlugins = getDistinctPlugins(previousRegistry).stream()
+                .filter(pluginMetadata -> !unloadedPlugins.contains(pluginMetadata))
+                .map(PluginMetadata::getName)
+                .collect(Collectors.toList());
+        Map<String, ClassLoader> classLoaders = getActivatedClassLoaders(previousRegistry);
+        classLoaders.keySet().retainAll(removedPlugins);
+
+        UnloadResult unloadResult = new DefaultUnloadResult(
+                removePlugins(previousRegistry, removedPlugins),
+                removedPlugins,
+                unchangedPlugins,
+                classLoaders
+        );
+        try {
+            for (PluginsReloadedHandler handler : handlers) {
+                handler.onPluginsReloaded(unloadResult);
+            }
+        } finally {
+            release(classLoaders, previousRegistry, unloadResult.getPluginRegistry());
+        }
+        return unloadResult;
+    }
+
+    private static PluginRegistry removePlugins(PluginRegistry pluginRegistry, List<String> pluginNames) throws PluginException {
+        if (pluginRegistry instanceof LazyPluginRegistry) {
+            return ((LazyPluginRegistry) pluginRegistry).without(pluginNames);
+        }
+        PluginRegistryContainer pluginRegistryContainer;
+        if (pluginRegistry instanceof PluginRegistrySnapshot) {
+            pluginRegistryContainer = ((PluginRegistrySnapshot) pluginRegistry).edit();
+        } else if (pluginRegistry instanceof PluginRegistryContainer) {
+            pluginRegistryContainer = ((PluginRegistryContainer) pluginRegistry).freeze().edit();
+        } else {
+            throw new PluginException(String.format("Can't unload plugins from registry of type %s", pluginRegistry.getClass().getName()));
+        }
+        pluginNames.forEach(pluginRegistryContainer::removePlugin);
+        return pluginRegistryContainer.freeze();
+    }
+
+    private static Map<String, ClassLoader> getActivatedClassLoaders(PluginRegistry pluginRegistry) {
+        Map<String, ClassLoader> classLoaders = new LinkedHashMap<>();
+        for (PluginMetadata pluginMetadata : getDistinctPlugins(pluginRegistry)) {
+            String pluginName = pluginMetadata.getName();
+            // Not activated plugin has no class loader yet, asking for it would create one
+            if (isActivated(pluginRegistry, pluginName)) {
+                pluginRegistry.getClassLoader(pluginName).ifPresent(classLoader -> classLoaders.put(pluginName, classLoader));
+            }
+        }
+        return classLoaders;
+    }
+
+    private void release(Map<String, ClassLoader> classLoaders, PluginRegistry previousRegistry, PluginRegistry pluginRegistry) {
+        for (ClassLoader classLoader : classLoaders.values()) {
+            if (classLoader instanceof Closeable) {
+                try {
+                    ((Closeable) classLoader).close();
+                } catch (IOException e) {
+                    //Plugin is going away anyway, so there's nobody to report to
+                }
+            }
+        }
+        Collection<ClassLoader> remainingClassLoaders = getActivatedClassLoaders(pluginRegistry).values();
+        SharedLibraries.release(classLoaders.values(), remainingClassLoaders);
+
+        // Directories of released plugins are removed unless remaining plugins use the same ones
+        Path cacheDirectory = getCacheDirectory().toAbsolutePath().normalize();
+        Set<Path> releasedDirectories = new HashSet<>();
+        for (String pluginName : classLoaders.keySet()) {
+            previousRegistry.getPlugin(pluginName).ifPresent(pluginMetadata -> {
+                String fileStamp = getFileStamp(previousRegistry, pluginMetadata);
+                if (fileStamp != null) {
+                    releasedDirectories.add(PluginUtils.getPluginVersionDirectory(pluginMetadata.getPath(), cacheDirectory, fileStamp));
+                }
+            });
+        }
+        for (ClassLoader classLoader : classLoaders.values()) {
+            PluginUtils.getUnpackedPluginDirectory(classLoader).ifPresent(directory -> releasedDirectories.add(directory.toAbsolutePath().normalize()));
+        }
+        Set<Path> usedDirectories = getUsedDirectories(pluginRegistry, remainingClassLoaders);
+        for (Path directory : releasedDirectories) {
+            if (isPluginVersionDirectory(directory, cacheDirectory) && !usedDirectories.contains(directory)) {
+                PluginUtils.removePluginVersionDirectory(directory);
+            }
+        }
+    }
+
+    /**
+     * Returns absolute plugin version directories used by plugins from registry
+     */
+    private Set<Path> getUsedDirectories(PluginRegistry pluginRegistry, Collection<ClassLoader> classLoaders) {
+        Path cacheDirectory = getCacheDirectory().toAbsolutePath().normalize();
+        Set<Path> usedDirectories = new HashSet<>();
+        for (PluginMetadata pluginMetadata : getDistinctPlugins(pluginRegistry)) {
+            String fileStamp = getFileStamp(pluginRegistry, pluginMetadata);
+            if (fileStamp != null) {
+                usedDirectories.add(PluginUtils.getPluginVersionDirectory(pluginMetadata.getPath(), cacheDirectory, fileStamp));
+            }
+        }
+        for (ClassLoader classLoader : classLoaders) {
+            PluginUtils.getUnpackedPluginDirectory(classLoader).ifPresent(directory -> usedDirectories.add(directory.toAbsolutePath().normalize()));
+        }
+        return usedDirectories;
+    }
+
+    private static boolean isPluginVersionDirectory(Path directory, Path cacheDirectory) {
+        Path pluginStorageDirectory = directory.getParent();
+        return pluginStorageDirectory != null && cacheDirectory.equals(pluginStorageDirectory.getParent());
+    }
+
+    /**
+     * Reads nothing but manifests: returned registry scans every plugin on first use. Activated plugins whose files
+     * and dependencies did not change are copied from previous registry.
+     */
+    private ReloadResult reloadLazily(
+            PluginRegistry previousRegistry,
+            PluginRegistryContainer pluginRegistry,
+            Map<PluginMetadata, PluginState> pluginStates,
+            Set<String> previousPluginNames,
+            List<Path> skippedPlugins,
+            PluginLoadListeners listeners,
+            long loadStartTime
+    ) throws PluginException {
+        DependencyChecker dependencyChecker = getDependencyChecker();
+        Map<PluginMetadata, List<PluginMetadata>> dependencyGraph = getDependencyGraph(pluginRegistry);
+        List<PluginMetadata> loadOrder = new ArrayList<>();
+        getDependencyLevels(dependencyGraph).forEach(loadOrder::addAll);
+        Map<PluginMetadata, String> fileStamps = new IdentityHashMap<>();
+        Map<PluginMetadata, LazyPluginRegistry.Activation> activations = new IdentityHashMap<>();
+        Set<PluginMetadata> unchanged = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<String> addedPlugins = new ArrayList<>();
+        List<String> modifiedPlugins = new ArrayList<>();
+        List<String> unchangedPlugins = new ArrayList<>();
+        for (PluginMetadata pluginMetadata : loadOrder) {
+            long checkStartTime = System.nanoTime();
+            dependencyChecker.check(pluginRegistry, pluginMetadata);
+            listeners.onDependenciesChecked(pluginMetadata, System.nanoTime() - checkStartTime);
+            PluginState pluginState = pluginStates.get(pluginMetadata);
+            String pluginName = pluginMetadata.getName();
+            fileStamps.put(pluginMetadata, pluginState.getFileStamp());
+            // Not activated plugin has no classes yet, so only activated ones depend on class loaders of dependencies
+            if (pluginState.isUnchanged() && unchanged.containsAll(dependencyGraph.get(pluginMetadata))) {
+                unchanged.add(pluginMetadata);
+                unchangedPlugins.add(pluginName);
+                if (isActivated(previousRegistry, pluginName)) {
+                    activations.put(
+                            pluginMetadata,
+                            LoadedPlugin.copyOf(previousRegistry, pluginMetadata, pluginState.getFileStamp()).toActivation()
+                    );
+                }
+            } else if (previousPluginNames.contains(pluginName)) {
+                modifiedPlugins.add(pluginName);
+            } else {
+                addedPlugins.add(pluginName);
+            }
         }
+        List<String> removedPlugins = previousPluginNames.stream()
+                .filter(pluginName -> !pluginRegistry.getPlugin(pluginName).isPresent())
+                .sorted()
+                .collect(Collectors.toList());
 
-        // Iterating over the entire plugin set, checking for dependency resolution problems and loading classes
+        // Unused objects of content addressed cache are not removed: plugins activated later may link them
+        UnpackedPlugins unpackedPlugins = createUnpackedPlugins();
+        unpackedPlugins.setPluginLoadListener(listeners.isEmpty() ? null : listeners);
+        unpackedPlugins.setUsedDirectories(getUsedDirectories(previousRegistry, getActivatedClassLoaders(previousRegistry).values()));
+        PluginArchives pluginArchives = new PluginArchives();
+        ClassesScanner classesScanner = getClassesScanner(unpackedPlugins, pluginArchives);
+        ResourcesScanner resourcesScanner = getResourcesScanner(unpackedPlugins, pluginArchives);
+        List<Class> extensionPoints = new ArrayList<>(getExtensionPoints());
+        LazyPluginRegistry lazyPluginRegistry = new LazyPluginRegistry(
+                pluginRegistry,
+                loadOrder,
+                dependencyGraph,
+                fileStamps,
+                activations,
+                (pluginMetadata, dependencyClassLoaders) -> scan(
+                        pluginMetadata,
+                        fileStamps.get(pluginMetadata),
+                        classesScanner,
+                        resourcesScanner,
+                        extensionPoints,
+                        dependencyClassLoaders,
+                        listeners
+                ).toActivation()
+        );
+        listeners.onLoadFinished(loadOrder.size(), System.nanoTime() - loadStartTime);
+        return new DefaultReloadResult(lazyPluginRegistry, addedPlugins, removedPlugins, modifiedPlugins, unchangedPlugins, null, skippedPlugins);
+    }
+
+    private static LoadedPlugin scan(
+            PluginMetadata pluginMetadata,
+            String fileStamp,
+            ClassesScanner classesScanner,
+            ResourcesScanner resourcesScanner,
+            List<Class> extensionPoints,
+            List<ClassLoader> dependencyClassLoaders,
+            PluginLoadListener listener
+    ) throws PluginException {
+        long classesScanStartTime = System.nanoTime();
+        ScanResult scanResult = classesScanner.scan(pluginMetadata.getPath(), extensionPoints, dependencyClassLoaders);
+        listener.onClassesScanned(
+                pluginMetadata,
+                scanResult.getVisitedClassesCount(),
+                scanResult.getLoadedClassesCount(),
+                System.nanoTime() - classesScanStartTime
+        );
+        long resourcesScanStartTime = System.nanoTime();
+        List<Path> resources = resourcesScanner.scan(pluginMetadata.getPath());
+        listener.onResourcesScanned(pluginMetadata, resources.size(), System.nanoTime() - resourcesScanStartTime);
+        return new LoadedPlugin(pluginMetadata, scanResult, resources, fileStamp, false);
+    }
+
+    private static boolean isActivated(PluginRegistry pluginRegistry, String pluginName) {
+        return !(pluginRegistry instanceof LazyPluginRegistry) || ((LazyPluginRegistry) pluginRegistry).isActivated(pluginName);
+    }
+
+    private static void removeUnusedObjects(ContentAddressedCache contentAddressedCache) throws PluginException {
+        try {
+            contentAddressedCache.removeUnusedObjects();
+        } catch (IOException e) {
+            throw new PluginException(e);
+        }
+    }
+
+    private static String getFileStamp(Path pluginFile) throws PluginException {
+        try {
+            return PluginUtils.getFileStamp(pluginFile);
+        } catch (IOException e) {
+            throw new PluginException(e);
+        }
+    }
+
+    private static String getFileStamp(PluginRegistry pluginRegistry, PluginMetadata pluginMetadata) {
+        if (pluginRegistry instanceof PluginRegistrySnapshot) {
+            return ((PluginRegistrySnapshot) pluginRegistry).getFileStamp(pluginMetadata.getName()).orElse(null);
+        }
+        if (pluginRegistry instanceof PluginRegistryContainer) {
+            return ((PluginRegistryContainer) pluginRegistry).getFileStamp(pluginMetadata.getName()).orElse(null);
+        }
+        if (pluginRegistry instanceof LazyPluginRegistry) {
+            return ((LazyPluginRegistry) pluginRegistry).getFileStamp(pluginMetadata.getName()).orElse(null);
+        }
+        return null;
+    }
+
+    private TaskRunner getTaskRunner() {
+        return (executorService != null) ?
+                TaskRunner.withExecutor(executorService) :
+                TaskRunner.withParallelism(getParallelism());
+    }
+
+    private static List<PluginMetadata> getDistinctPlugins(PluginRegistry pluginRegistry) {
+        // Plugins providing virtual dependencies are registered under two names
+        Map<PluginMetadata, Boolean> distinctPlugins = new IdentityHashMap<>();
+        List<PluginMetadata> plugins = new ArrayList<>();
         for (String pluginName : pluginRegistry.getPluginNames()) {
             Optional<PluginMetadata> pluginMetadata = pluginRegistry.getPlugin(pluginName);
-            if (pluginMetadata.isPresent()) {
-                getDependencyChecker().check(pluginRegistry, pluginMetadata.get());
+            if (pluginMetadata.isPresent() && distinctPlugins.put(pluginMetadata.get(), true) == null) {
+                plugins.add(pluginMetadata.get());
+            }
+        }
+        return plugins;
+    }
 
-                ScanResult scanResult = getClassesScanner().scan(
-                        pluginMetadata.get().getPath(),
-                        getExtensionPoints()
-                );
-                for (Class extensionPoint : scanResult.getContents().getExtensionPoints()) {
-                    pluginRegistry.addImplementations(
-                            pluginMetadata.get(),
-                            extensionPoint,
-                            scanResult.getContents().getImplementations(extensionPoint)
-                    );
+    /**
+     * Unpacks changed plugins and finds libraries they have in common. Libraries of unchanged plugins are already
+     * loaded by their class loaders, so they are not considered.
+     */
+    private static SharedLibraries getSharedLibraries(TaskRunner taskRunner, UnpackedPlugins unpackedPlugins, Collection<PluginState> pluginStates) throws PluginException {
+        List<Callable<Map.Entry<Path, List<Path>>>> unpackTasks = new ArrayList<>();
+        for (PluginState pluginState : pluginStates) {
+            if (!pluginState.isUnchanged()) {
+                Path pluginFile = pluginState.getPluginMetadata().getPath();
+                unpackTasks.add(() -> new AbstractMap.SimpleEntry<>(pluginFile, unpackedPlugins.get(pluginFile).getLibraries()));
+            }
+        }
+        Map<Path, List<Path>> pluginLibraries = new LinkedHashMap<>();
+        for (Map.Entry<Path, List<Path>> entry : taskRunner.invokeAll(unpackTasks)) {
+            pluginLibraries.put(entry.getKey(), entry.getValue());
+        }
+        try {
+            //Plugin class loaders have system class loader as a parent unless libraries are shared
+            return SharedLibraries.create(
+                    pluginLibraries,
+                    ClassLoader.getSystemClassLoader(),
+                    unpackedPlugins.getCacheDirectory().resolve(SharedLibraries.SHARED_LIBRARIES_DIRECTORY)
+            );
+        } catch (IOException e) {
+            throw new PluginException(e);
+        }
+    }
+
+    /**
+     * Returns plugins each plugin requires. Dependencies provided by missing plugins are skipped here because
+     * dependency checker reports them.
+     */
+    private static Map<PluginMetadata, List<PluginMetadata>> getDependencyGraph(PluginRegistry pluginRegistry) {
+        Map<PluginMetadata, List<PluginMetadata>> dependencyGraph = new IdentityHashMap<>();
+        for (PluginMetadata pluginMetadata : getDistinctPlugins(pluginRegistry)) {
+            List<PluginMetadata> dependencies = new ArrayList<>();
+            for (Dependency requiredDependency : pluginMetadata.getRequiredDependencies()) {
+                Optional<PluginMetadata> dependency = pluginRegistry.getPlugin(requiredDependency.getName());
+                if (dependency.isPresent() && dependency.get() != pluginMetadata && !dependencies.contains(dependency.get())) {
+                    dependencies.add(dependency.get());
                 }
-                pluginRegistry.addClassLoader(pluginMetadata.get(), scanResult.getClassLoader());
+            }
+            dependencyGraph.put(pluginMetadata, dependencies);
+        }
+        return dependencyGraph;
+    }
 
-                List<Path> resources = getResourcesScanner().scan(pluginMetadata.get().getPath());
-                pluginRegistry.addResources(pluginMetadata.get(), resources);
+    /**
+     * Splits plugins to levels so that every plugin depends only on plugins from previous levels
+     */
+    private static List<List<PluginMetadata>> getDependencyLevels(Map<PluginMetadata, List<PluginMetadata>> dependencyGraph) throws PluginException {
+        List<List<PluginMetadata>> levels = new ArrayList<>();
+        Map<PluginMetadata, Boolean> placedPlugins = new IdentityHashMap<>();
+        List<PluginMetadata> remainingPlugins = new ArrayList<>(dependencyGraph.keySet());
+        while (!remainingPlugins.isEmpty()) {
+            List<PluginMetadata> level = remainingPlugins.stream()
+                    .filter(pluginMetadata -> dependencyGraph.get(pluginMetadata).stream().allMatch(placedPlugins::containsKey))
+                    .collect(Collectors.toList());
+            if (level.isEmpty()) {
+                String pluginNames = remainingPlugins.stream()
+                        .map(PluginMetadata::getName)
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                throw new PluginException(String.format("Plugins have cyclic dependencies: %s", pluginNames))
+                        .withPlugin(remainingPlugins.get(0));
             }
+            level.forEach(pluginMetadata -> placedPlugins.put(pluginMetadata, true));
+            remainingPlugins.removeAll(level);
+            levels.add(level);
         }
-        return pluginRegistry;
+        return levels;
+    }
+
+    private static class PluginState {
+
+        private final PluginMetadata pluginMetadata;
+
+        private final String fileStamp;
+
+        private final boolean unchanged;
+
+        PluginState(PluginMetadata pluginMetadata, String fileStamp, boolean unchanged) {
+            this.pluginMetadata = pluginMetadata;
+            this.fileStamp = fileStamp;
+            this.unchanged = unchanged;
+        }
+
+        PluginMetadata getPluginMetadata() {
+            return pluginMetadata;
+        }
+
+        String getFileStamp() {
+            return fileStamp;
+        }
+
+        boolean isUnchanged() {
+            return unchanged;
+        }
+
+    }
+
+    private static class LoadedPlugin {
+
+        private final PluginMetadata pluginMetadata;
+
+        private final ScanResult scanResult;
+
+        private final List<Path> resources;
+
+        private final String fileStamp;
+
+        private final boolean reused;
+
+        LoadedPlugin(PluginMetadata pluginMetadata, ScanResult scanResult, List<Path> resources, String fileStamp, boolean reused) {
+            this.pluginMetadata = pluginMetadata;
+            this.scanResult = scanResult;
+            this.resources = resources;
+            this.fileStamp = fileStamp;
+            this.reused = reused;
+        }
+
+        static LoadedPlugin copyOf(PluginRegistry pluginRegistry, PluginMetadata pluginMetadata, String fileStamp) {
+            String pluginName = pluginMetadata.getName();
+            Map<Class, List<Class>> implementations = new HashMap<>();
+            for (Class extensionPoint : pluginRegistry.getExtensionPoints(pluginName)) {
+                implementations.put(extensionPoint, pluginRegistry.getImplementations(pluginName, extensionPoint));
+            }
+            ScanResult scanResult = new DefaultScanResult(
+                    pluginRegistry.getClassLoader(pluginName).orElse(null),
+                    new ClassesRegistry(implementations)
+            );
+            return new LoadedPlugin(pluginMetadata, scanResult, pluginRegistry.getResources(pluginName), fileStamp, true);
+        }
+
+        PluginMetadata getPluginMetadata() {
+            return pluginMetadata;
+        }
+
+        ClassLoader getClassLoader() {
+            return scanResult.getClassLoader();
+        }
+
+        boolean isReused() {
+            return reused;
+        }
+
+        LazyPluginRegistry.Activation toActivation() {
+            return new LazyPluginRegistry.Activation(scanResult.getClassLoader(), scanResult.getContents(), resources);
+        }
+
+        void register(PluginRegistryContainer pluginRegistry) {
+            for (Class extensionPoint : scanResult.getContents().getExtensionPoints()) {
+                pluginRegistry.addImplementations(
+                        pluginMetadata,
+                        extensionPoint,
+                        scanResult.getContents().getImplementations(extensionPoint)
+                );
+            }
+            pluginRegistry.addClassLoader(pluginMetadata, scanResult.getClassLoader());
+            pluginRegistry.addResources(pluginMetadata, resources);
+            pluginRegistry.addFileStamp(pluginMetadata, fileStamp);
+        }
+
     }
 
 }
@@ -46,4 +46,19 @@ public interface PluginRegistry extends PluginsAware, ImplementationsAware, Reso
      */
     void addClassLoader(PluginMetadata pluginMetadata, ClassLoader classLoader);
 
+    /**
+     * Returns typed handle to implementations of extension point from all plugins
+     *
+     * @param extensionPoint extension point class or interface, annotations are not supported
+     * @param <T>            extension point type
+     * @return extension point handle
+     * @throws IllegalArgumentException when extension point is an annotation
+     */
+    default <T> ExtensionPoint<T> getExtensionPoint(Class<T> extensionPoint) {
+        List<Class> implementations = getImplementations(extensionPoint);
+        return implementations.isEmpty() ?
+                ExtensionPoint.empty(extensionPoint) :
+                ExtensionPoint.of(extensionPoint, implementations);
+    }
+
 }
@@ -0,0 +1,205 @@
+package org.meridor.stecker;
+
+import org.meridor.stecker.impl.PluginUtils;
+import org.meridor.stecker.interfaces.PluginsReloadedHandler;
+import org.meridor.stecker.interfaces.ReloadResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Watches plugins directory for plugin files being added, replaced or removed and reloads changed plugins in
+ * background. A change is applied only after plugin files stay the same during debounce delay, so partially written
+ * files are not loaded. New registry is published atomically: {@link #getPluginRegistry()} never blocks and always
+ * returns a completely loaded registry.
+ */
+public class PluginsWatcher implements Closeable {
+
+    public static final long DEFAULT_DEBOUNCE_DELAY = 1000;
+
+    private static final String THREAD_NAME = "Stecker Plugins Watcher";
+
+    private final PluginLoader pluginLoader;
+
+    private final long debounceDelay;
+
+    private final List<PluginsReloadedHandler> handlers = new CopyOnWriteArrayList<>();
+
+    private volatile PluginRegistry pluginRegistry;
+
+    private volatile PluginException lastError;
+
+    private volatile boolean isStarted;
+
+    private final Thread watcherThread;
+
+    public PluginsWatcher(PluginLoader pluginLoader, PluginRegistry pluginRegistry) {
+        this(pluginLoader, pluginRegistry, DEFAULT_DEBOUNCE_DELAY);
+    }
+
+    /**
+     * Creates watcher for plugins directory of plugin loader
+     *
+     * @param pluginLoader   plugin loader used to reload plugins
+     * @param pluginRegistry registry returned by this loader
+     * @param debounceDelay  time in milliseconds plugin files should stay unchanged before reload
+     */
+    public PluginsWatcher(PluginLoader pluginLoader, PluginRegistry pluginRegistry, long debounceDelay) {
+        this.pluginLoader = pluginLoader;
+        this.pluginRegistry = pluginRegistry;
+        this.debounceDelay = debounceDelay;
+        this.watcherThread = getWatcherThread();
+    }
+
+    private Thread getWatcherThread() {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                super.run();
+                try (WatchService watcher = isMacOs() ? null : FileSystems.getDefault().newWatchService()) {
+                    if (watcher != null) {
+                        pluginLoader.getPluginsDirectory().register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                    }
+                    watch(watcher);
+                } catch (InterruptedException e) {
+                    //Watcher was stopped
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        thread.setName(THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static boolean isMacOs() {
+        //WatchService doesn't work correctly on MacOS
+        return System.getProperty("os.name").toLowerCase().contains("mac");
+    }
+
+    private void watch(WatchService watcher) throws InterruptedException {
+        Map<Path, String> loadedState = null; //Forces a check right after start
+        Map<Path, String> pendingState = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            boolean hasEvents = waitForEvents(watcher);
+            if (!hasEvents && pendingState == null && loadedState != null) {
+                continue;
+            }
+            Map<Path, String> currentState = getPluginFilesState();
+            if (currentState.equals(loadedState)) {
+                pendingState = null;
+            } else if (!currentState.equals(pendingState)) {
+                pendingState = currentState; //Waiting for files to stay unchanged during one more delay
+            } else {
+                reload();
+                loadedState = currentState;
+                pendingState = null;
+            }
+        }
+    }
+
+    private boolean waitForEvents(WatchService watcher) throws InterruptedException {
+        if (watcher == null) {
+            Thread.sleep(debounceDelay);
+            return true;
+        }
+        WatchKey key = watcher.poll(debounceDelay, TimeUnit.MILLISECONDS);
+        if (key == null) {
+            return false;
+        }
+        key.pollEvents();
+        key.reset();
+        return true;
+    }
+
+    private Map<Path, String> getPluginFilesState() {
+        Map<Path, String> state = new HashMap<>();
+        try {
+            for (Path pluginFile : pluginLoader.getPluginsProvider().provide(pluginLoader.getPluginsDirectory())) {
+                try {
+                    state.put(pluginFile, PluginUtils.getFileStamp(pluginFile));
+                } catch (IOException e) {
+                    //File was removed after directory was listed
+                }
+            }
+        } catch (PluginException e) {
+            lastError = e;
+        }
+        return state;
+    }
+
+    private void reload() {
+        List<PluginsReloadedHandler> reloadHandlers = new ArrayList<>();
+        //New registry is published before other handlers are notified and replaced class loaders are closed
+        reloadHandlers.add(reloadResult -> pluginRegistry = reloadResult.getPluginRegistry());
+        reloadHandlers.addAll(handlers);
+        try {
+            ReloadResult reloadResult = pluginLoader.reload(pluginRegistry, reloadHandlers.toArray(new PluginsReloadedHandler[reloadHandlers.size()]));
+            pluginRegistry = reloadResult.getPluginRegistry();
+            lastError = null;
+        } catch (PluginException e) {
+            //Previous registry stays published until plugin files are fixed
+            lastError = e;
+        } catch (RuntimeException e) {
+            //Failing handler or custom loader component should not stop watching
+            lastError = new PluginException(e);
+        }
+    }
+
+    /**
+     * Returns the most recent completely loaded registry
+     *
+     * @return plugin registry
+     */
+    public PluginRegistry getPluginRegistry() {
+        return pluginRegistry;
+    }
+
+    /**
+     * Returns an error thrown during the last reload attempt. Unchecked exceptions, e.g. thrown by reload handlers, are
+     * returned as the cause of {@link PluginException}.
+     *
+     * @return exception or empty if last reload succeeded
+     */
+    public Optional<PluginException> getLastError() {
+        return Optional.ofNullable(lastError);
+    }
+
+    public void addReloadedHandler(PluginsReloadedHandler handler) {
+        handlers.add(handler);
+    }
+
+    public void start() {
+        watcherThread.start();
+        isStarted = true;
+    }
+
+    public void stop() {
+        if (isStarted) {
+            watcherThread.interrupt();
+            isStarted = false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.meridor.stecker;
+
+/**
+ * Shows how many instances of extension point implementation are created
+ */
+public enum Scope {
+
+    /**
+     * One shared instance created on first request
+     */
+    SINGLETON,
+
+    /**
+     * New instance on every request
+     */
+    PROTOTYPE
+
+}
@@ -7,6 +7,15 @@ import java.nio.file.Path;
 
 public class BuildToolClassLoaderFactory {
 
+    /**
+     * Returns class loader for plugin being developed. It's the same parallel capable class loader as for unpacked
+     * plugins, so plugin classes are loaded in dev mode the same way as in production.
+     *
+     * @param baseDirectory plugin project directory
+     * @param buildToolType build tool used by plugin project
+     * @return plugin class loader
+     * @throws PluginException when class loader can't be created
+     */
     public static ClassLoader getClassLoader(Path baseDirectory, BuildToolType buildToolType) throws PluginException {
         switch (buildToolType) {
             default:
@@ -0,0 +1,54 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.interfaces.ClassesScanner;
+import org.meridor.stecker.interfaces.PluginImplementationsAware;
+import org.meridor.stecker.interfaces.ScanResult;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Scans plugin classes without unpacking plugin file: classes are read and loaded right from nested jars using
+ * {@link PluginArchiveClassLoader}. Embedded extension index is used when present, otherwise it's built from class
+ * files bytes. Implementation classes are not initialized during the scan.
+ */
+public class ArchiveClassesScanner implements ClassesScanner {
+
+    private final PluginArchives pluginArchives;
+
+    public ArchiveClassesScanner() {
+        this(new PluginArchives());
+    }
+
+    public ArchiveClassesScanner(PluginArchives pluginArchives) {
+        this.pluginArchives = pluginArchives;
+    }
+
+    @Override
+    public ScanResult scan(Path pluginFile, List<Class> extensionPoints) throws PluginException {
+        return scan(pluginFile, extensionPoints, Collections.emptyList());
+    }
+
+    @Override
+    public ScanResult scan(Path pluginFile, List<Class> extensionPoints, List<ClassLoader> dependencyClassLoaders) throws PluginException {
+        try {
+            PluginArchive pluginArchive = pluginArchives.get(pluginFile);
+            ClassLoader classLoader = new PluginArchiveClassLoader(pluginArchive, dependencyClassLoaders);
+
+            ZipArchive pluginImplementationArchive = pluginArchive.getImplementationArchive();
+            Optional<ExtensionIndex> embeddedIndex = ExtensionIndex.read(pluginImplementationArchive);
+            ExtensionIndex extensionIndex = embeddedIndex.isPresent() ?
+                    embeddedIndex.get() : ExtensionIndex.build(pluginImplementationArchive, classLoader);
+
+            PluginImplementationsAware pluginImplementationsAware = PluginUtils.getMatchingClasses(extensionPoints, extensionIndex, classLoader, false);
+            return new DefaultScanResult(classLoader, pluginImplementationsAware, extensionIndex.getClassNames().size());
+
+        } catch (Exception e) {
+            throw new PluginException(e);
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.interfaces.ResourcesScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Searches for resources right inside plugin implementation archive. As plugin registry exposes resources as
+ * {@link Path} instances, only matching resources are extracted to plugin version directory inside cache directory,
+ * the one {@link PluginUtils#unpackPlugin(Path, Path)} would use. This directory is removed together with plugin
+ * class loader when plugin is reloaded or unloaded. When no patterns are specified nothing is written to disk.
+ */
+public class ArchiveResourcesScanner implements ResourcesScanner {
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final PluginArchives pluginArchives;
+
+    private final Path cacheDirectory;
+
+    private final String[] patterns;
+
+    public ArchiveResourcesScanner(Path cacheDirectory, String[] patterns) {
+        this(new PluginArchives(), cacheDirectory, patterns);
+    }
+
+    public ArchiveResourcesScanner(PluginArchives pluginArchives, Path cacheDirectory, String[] patterns) {
+        this.pluginArchives = pluginArchives;
+        this.cacheDirectory = cacheDirectory;
+        this.patterns = patterns;
+    }
+
+    @Override
+    public List<Path> scan(Path pluginFile) throws PluginException {
+        if (patterns.length == 0) {
+            return Collections.emptyList();
+        }
+        try {
+            List<PathMatcher> pathMatchers = Arrays.stream(patterns)
+                    .map(FileSystems.getDefault()::getPathMatcher)
+                    .collect(Collectors.toList());
+            Path pluginResourcesDirectory = PluginUtils.getPluginImplementationDirectory(
+                    PluginUtils.getPluginVersionDirectory(pluginFile, cacheDirectory)
+            );
+            ZipArchive pluginImplementationArchive = pluginArchives.get(pluginFile).getImplementationArchive();
+
+            List<Path> resources = new ArrayList<>();
+            for (String entryName : pluginImplementationArchive.getEntryNames()) {
+                ZipArchive.Entry entry = pluginImplementationArchive.getEntry(entryName).get();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                Path resource = pluginResourcesDirectory.resolve(entryName);
+                boolean extracted = false;
+                for (PathMatcher pathMatcher : pathMatchers) {
+                    if (pathMatcher.matches(resource)) {
+                        if (!extracted) {
+                            extract(pluginImplementationArchive, entry, resource);
+                            extracted = true;
+                        }
+                        resources.add(resource);
+                    }
+                }
+            }
+            return resources;
+        } catch (IOException e) {
+            throw new PluginException(e);
+        }
+    }
+
+    private static void extract(ZipArchive archive, ZipArchive.Entry entry, Path resource) throws IOException {
+        //Resources of the same plugin version are the same, so already extracted ones may be used by previous registry
+        if (Files.isRegularFile(resource)) {
+            return;
+        }
+        Files.createDirectories(resource.getParent());
+        Path temporaryFile = Files.createTempFile(resource.getParent(), null, TEMPORARY_FILE_SUFFIX);
+        try (InputStream inputStream = archive.getInputStream(entry)) {
+            Files.copy(inputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporaryFile, resource, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.interfaces.PluginImplementationsAware;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Works like {@link DefaultClassesScanner} but decides which classes implement extension points by reading class
+ * files bytes. Only matching classes are loaded and their static initializers are not run during the scan.
+ */
+public class BytecodeClassesScanner extends DefaultClassesScanner {
+
+    public BytecodeClassesScanner(Path cacheDirectory) {
+        super(cacheDirectory);
+    }
+
+    public BytecodeClassesScanner(UnpackedPlugins unpackedPlugins) {
+        super(unpackedPlugins);
+    }
+
+    @Override
+    protected PluginImplementationsAware scanClasses(List<Class> extensionPoints, UnpackedPlugin unpackedPlugin, ClassLoader classLoader) throws Exception {
+        return PluginUtils.getMatchingClassesByBytecode(extensionPoints, unpackedPlugin.getClassFiles(), classLoader);
+    }
+
+    @Override
+    protected boolean isInitializeClasses() {
+        return false;
+    }
+
+}
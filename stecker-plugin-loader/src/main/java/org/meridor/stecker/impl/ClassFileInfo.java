@@ -0,0 +1,305 @@
+package org.meridor.stecker.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stores class name, direct supertypes, annotations and referenced classes read directly from class file bytes, i.e.
+ * without defining the class in any class loader
+ */
+public class ClassFileInfo {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final String className;
+
+    private final String superClassName;
+
+    private final List<String> interfaceNames;
+
+    private final List<String> annotationNames;
+
+    private final Set<String> referencedClassNames;
+
+    public ClassFileInfo(String className, String superClassName, List<String> interfaceNames, List<String> annotationNames) {
+        this(className, superClassName, interfaceNames, annotationNames, Collections.emptySet());
+    }
+
+    public ClassFileInfo(String className, String superClassName, List<String> interfaceNames, List<String> annotationNames, Set<String> referencedClassNames) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+        this.annotationNames = annotationNames;
+        this.referencedClassNames = referencedClassNames;
+    }
+
+    /**
+     * Returns binary class name, e.g. <b>java.lang.String</b>
+     *
+     * @return class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns binary name of the direct superclass
+     *
+     * @return superclass name or empty for {@link Object} and module descriptors
+     */
+    public Optional<String> getSuperClassName() {
+        return Optional.ofNullable(superClassName);
+    }
+
+    /**
+     * Returns binary names of directly implemented interfaces
+     *
+     * @return a list of interface names
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * Returns binary names of annotations visible at runtime which are declared on the class itself
+     *
+     * @return a list of annotation names
+     */
+    public List<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    /**
+     * Returns binary names of all classes this class refers to in constant pool or member descriptors, including the
+     * class itself. Array types are replaced by their element types, primitive types are omitted.
+     *
+     * @return a set of class names
+     */
+    public Set<String> getReferencedClassNames() {
+        return referencedClassNames;
+    }
+
+    /**
+     * Reads class file structure from stream. Stream is not closed.
+     *
+     * @param inputStream stream with class file bytes
+     * @return class file information
+     * @throws IOException when stream does not contain a valid class file
+     */
+    public static ClassFileInfo read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        input.readUnsignedShort(); //Minor version
+        input.readUnsignedShort(); //Major version
+
+        int constantPoolCount = input.readUnsignedShort();
+        String[] utf8Constants = new String[constantPoolCount];
+        int[] classConstants = new int[constantPoolCount];
+        int[] descriptorConstants = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8Constants[i] = input.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classConstants[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_METHOD_TYPE:
+                    descriptorConstants[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_NAME_AND_TYPE:
+                    skip(input, 2); //Name
+                    descriptorConstants[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(input, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(input, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(input, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(input, 8);
+                    i++; //These constants take two slots
+                    break;
+                default:
+                    throw new IOException(String.format("Unknown constant pool tag %d", tag));
+            }
+        }
+
+        input.readUnsignedShort(); //Access flags
+        String className = getClassName(utf8Constants, classConstants, input.readUnsignedShort());
+        String superClassName = getClassName(utf8Constants, classConstants, input.readUnsignedShort());
+
+        int interfacesCount = input.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(getClassName(utf8Constants, classConstants, input.readUnsignedShort()));
+        }
+
+        Set<String> referencedClassNames = new HashSet<>();
+        readMemberDescriptors(input, utf8Constants, referencedClassNames); //Fields
+        readMemberDescriptors(input, utf8Constants, referencedClassNames); //Methods
+        for (int i = 1; i < constantPoolCount; i++) {
+            if (classConstants[i] != 0) {
+                addReferencedClassName(utf8Constants[classConstants[i]], referencedClassNames);
+            } else if (descriptorConstants[i] != 0) {
+                addDescriptorClassNames(utf8Constants[descriptorConstants[i]], referencedClassNames);
+            }
+        }
+
+        List<String> annotationNames = Collections.emptyList();
+        int attributesCount = input.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = utf8Constants[input.readUnsignedShort()];
+            int attributeLength = input.readInt();
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                annotationNames = readAnnotationNames(input, utf8Constants);
+            } else {
+                skip(input, attributeLength);
+            }
+        }
+
+        return new ClassFileInfo(className, superClassName, interfaceNames, annotationNames, referencedClassNames);
+    }
+
+    private static String getClassName(String[] utf8Constants, int[] classConstants, int classIndex) {
+        if (classIndex == 0) {
+            return null;
+        }
+        return toBinaryName(utf8Constants[classConstants[classIndex]]);
+    }
+
+    static String toBinaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static void addReferencedClassName(String internalName, Set<String> referencedClassNames) {
+        // Array classes are referenced as descriptors, e.g. [Ljava/lang/String;
+        if (internalName.startsWith("[")) {
+            addDescriptorClassNames(internalName, referencedClassNames);
+        } else {
+            referencedClassNames.add(toBinaryName(internalName));
+        }
+    }
+
+    private static void addDescriptorClassNames(String descriptor, Set<String> referencedClassNames) {
+        int start = descriptor.indexOf('L');
+        while (start != -1) {
+            int end = descriptor.indexOf(';', start);
+            if (end == -1) {
+                return;
+            }
+            referencedClassNames.add(toBinaryName(descriptor.substring(start + 1, end)));
+            start = descriptor.indexOf('L', end);
+        }
+    }
+
+    private static void readMemberDescriptors(DataInputStream input, String[] utf8Constants, Set<String> referencedClassNames) throws IOException {
+        int membersCount = input.readUnsignedShort();
+        for (int i = 0; i < membersCount; i++) {
+            skip(input, 4); //Access flags and name
+            addDescriptorClassNames(utf8Constants[input.readUnsignedShort()], referencedClassNames);
+            int attributesCount = input.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                skip(input, 2);
+                skip(input, input.readInt());
+            }
+        }
+    }
+
+    private static List<String> readAnnotationNames(DataInputStream input, String[] utf8Constants) throws IOException {
+        int annotationsCount = input.readUnsignedShort();
+        List<String> annotationNames = new ArrayList<>(annotationsCount);
+        for (int i = 0; i < annotationsCount; i++) {
+            String descriptor = utf8Constants[input.readUnsignedShort()];
+            // Descriptor looks like Lcom/example/Annotation;
+            annotationNames.add(toBinaryName(descriptor.substring(1, descriptor.length() - 1)));
+            skipElementValuePairs(input);
+        }
+        return annotationNames;
+    }
+
+    private static void skipElementValuePairs(DataInputStream input) throws IOException {
+        int pairsCount = input.readUnsignedShort();
+        for (int i = 0; i < pairsCount; i++) {
+            skip(input, 2); //Element name
+            skipElementValue(input);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream input) throws IOException {
+        int tag = input.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                skip(input, 4);
+                break;
+            case '@':
+                skip(input, 2);
+                skipElementValuePairs(input);
+                break;
+            case '[':
+                int valuesCount = input.readUnsignedShort();
+                for (int i = 0; i < valuesCount; i++) {
+                    skipElementValue(input);
+                }
+                break;
+            default:
+                skip(input, 2);
+        }
+    }
+
+    private static void skip(DataInputStream input, int bytesCount) throws IOException {
+        int remaining = bytesCount;
+        while (remaining > 0) {
+            int skipped = input.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            remaining -= skipped;
+        }
+    }
+
+}
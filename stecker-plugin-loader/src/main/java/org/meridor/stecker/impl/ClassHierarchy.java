@@ -0,0 +1,108 @@
+package org.meridor.stecker.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Resolves supertypes and annotations of classes using class file bytes only. Classes not present in the scanned set
+ * (e.g. library or host classes) are read as resources from the class loader, so nothing gets defined.
+ */
+public class ClassHierarchy {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final Map<String, ClassFileInfo> classes;
+
+    private final ClassLoader classLoader;
+
+    private final Map<String, Optional<ClassFileInfo>> externalClasses = new HashMap<>();
+
+    private final Map<String, Set<String>> supertypes = new HashMap<>();
+
+    private final Map<String, Set<String>> annotations = new HashMap<>();
+
+    public ClassHierarchy(Map<String, ClassFileInfo> classes, ClassLoader classLoader) {
+        this.classes = classes;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Returns all classes and interfaces the class extends or implements directly or indirectly including itself
+     *
+     * @param className binary class name
+     * @return a set of binary class names
+     */
+    public Set<String> getSupertypes(String className) {
+        Set<String> cachedSupertypes = supertypes.get(className);
+        if (cachedSupertypes != null) {
+            return cachedSupertypes;
+        }
+        Set<String> classSupertypes = new LinkedHashSet<>();
+        classSupertypes.add(className);
+        supertypes.put(className, classSupertypes); //Protects from cycles in broken class files
+        Optional<ClassFileInfo> classFileInfo = getClassFileInfo(className);
+        if (classFileInfo.isPresent()) {
+            if (classFileInfo.get().getSuperClassName().isPresent()) {
+                classSupertypes.addAll(getSupertypes(classFileInfo.get().getSuperClassName().get()));
+            }
+            for (String interfaceName : classFileInfo.get().getInterfaceNames()) {
+                classSupertypes.addAll(getSupertypes(interfaceName));
+            }
+        }
+        return classSupertypes;
+    }
+
+    /**
+     * Returns annotations declared on the class and all its superclasses. This is a superset of annotations returned
+     * by {@link Class#isAnnotationPresent(Class)} because only {@link java.lang.annotation.Inherited} ones are really
+     * inherited.
+     *
+     * @param className binary class name
+     * @return a set of binary annotation names
+     */
+    public Set<String> getAnnotations(String className) {
+        Set<String> cachedAnnotations = annotations.get(className);
+        if (cachedAnnotations != null) {
+            return cachedAnnotations;
+        }
+        Set<String> classAnnotations = new LinkedHashSet<>();
+        annotations.put(className, classAnnotations);
+        Optional<ClassFileInfo> classFileInfo = getClassFileInfo(className);
+        if (classFileInfo.isPresent()) {
+            classAnnotations.addAll(classFileInfo.get().getAnnotationNames());
+            if (classFileInfo.get().getSuperClassName().isPresent()) {
+                classAnnotations.addAll(getAnnotations(classFileInfo.get().getSuperClassName().get()));
+            }
+        }
+        return classAnnotations;
+    }
+
+    private Optional<ClassFileInfo> getClassFileInfo(String className) {
+        ClassFileInfo classFileInfo = classes.get(className);
+        if (classFileInfo != null) {
+            return Optional.of(classFileInfo);
+        }
+        return externalClasses.computeIfAbsent(className, this::readExternalClass);
+    }
+
+    private Optional<ClassFileInfo> readExternalClass(String className) {
+        if (classLoader == null) {
+            return Optional.empty();
+        }
+        String resourceName = className.replace('.', '/') + CLASS_FILE_EXTENSION;
+        try (InputStream inputStream = classLoader.getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                return Optional.empty();
+            }
+            return Optional.of(ClassFileInfo.read(inputStream));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+}
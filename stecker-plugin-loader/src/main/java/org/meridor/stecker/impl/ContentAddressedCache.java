@@ -0,0 +1,240 @@
+package org.meridor.stecker.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Unpacks plugins to the same per-plugin directories as {@link PluginUtils#unpackPlugin(Path, Path)} does, but
+ * stores every unpacked file once in objects directory keyed by contents hash and hard links it into plugin
+ * directories. Files present in several plugins or plugin versions are thus written to disk only once. When file
+ * system does not support hard links or objects directory is on another device files are copied as usual.
+ */
+public class ContentAddressedCache {
+
+    public static final String OBJECTS_DIRECTORY = ".objects";
+
+    private static final int MAX_IN_MEMORY_ENTRY_SIZE = 8 * 1024 * 1024;
+
+    private static final String LINKS_COUNT_ATTRIBUTE = "unix:nlink";
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private static final String CROSS_DEVICE_LINK_REASON = "cross-device";
+
+    private static final String NOT_SAME_DEVICE_REASON = "different disk drive";
+
+    private final Path cacheDirectory;
+
+    private final Path objectsDirectory;
+
+    private volatile boolean linksSupported = true;
+
+    public ContentAddressedCache(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        this.objectsDirectory = cacheDirectory.resolve(OBJECTS_DIRECTORY);
+    }
+
+    public Path getObjectsDirectory() {
+        return objectsDirectory;
+    }
+
+    /**
+     * Unpacks plugin file unless it's already unpacked. Plugin file is mapped and read in place, so only objects and
+     * links to them are written.
+     *
+     * @param pluginFile plugin file
+     * @return unpacked plugin directory
+     * @throws IOException when plugin can't be unpacked
+     */
+    public Path unpackPlugin(Path pluginFile) throws IOException {
+        Path pluginVersionDirectory = PluginUtils.getPluginVersionDirectory(pluginFile, cacheDirectory);
+        if (Files.isDirectory(pluginVersionDirectory)) {
+            return pluginVersionDirectory;
+        }
+
+        Path unpackDirectory = PluginUtils.createUnpackDirectory(pluginVersionDirectory);
+        try {
+            Files.createDirectories(objectsDirectory);
+            ZipArchive pluginArchive = new ZipArchive(PluginArchive.map(pluginFile));
+            for (String entryName : pluginArchive.getEntryNames()) {
+                ZipArchive.Entry entry = pluginArchive.getEntry(entryName).get();
+                if (entryName.equals(PluginUtils.PLUGIN_IMPLEMENTATION_FILE)) {
+                    // Nested plugin.jar is never stored, only its entries
+                    Path pluginImplementationDirectory = PluginUtils.getPluginImplementationDirectory(unpackDirectory);
+                    Files.createDirectories(pluginImplementationDirectory);
+                    unpackArchive(new ZipArchive(pluginArchive.getContents(entry)), pluginImplementationDirectory);
+                } else {
+                    unpackEntry(pluginArchive, entry, unpackDirectory);
+                }
+            }
+        } catch (IOException e) {
+            PluginUtils.removeDirectoryQuietly(unpackDirectory);
+            throw e;
+        }
+        return PluginUtils.moveUnpackDirectory(unpackDirectory, pluginVersionDirectory);
+    }
+
+    /**
+     * Removes objects not linked to any unpacked plugin directory any more, e.g. ones left after plugin directory was
+     * unpacked again. Nothing is removed when file system does not report number of hard links.
+     *
+     * @throws IOException when some object can't be removed
+     */
+    public void removeUnusedObjects() throws IOException {
+        if (!Files.isDirectory(objectsDirectory)) {
+            return;
+        }
+        Files.walkFileTree(objectsDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                try {
+                    Object linksCount = Files.getAttribute(file, LINKS_COUNT_ATTRIBUTE);
+                    if (linksCount instanceof Integer && (Integer) linksCount <= 1) {
+                        Files.delete(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                    return FileVisitResult.TERMINATE;
+                }
+            }
+        });
+    }
+
+    private void unpackArchive(ZipArchive archive, Path directory) throws IOException {
+        for (String entryName : archive.getEntryNames()) {
+            unpackEntry(archive, archive.getEntry(entryName).get(), directory);
+        }
+    }
+
+    private void unpackEntry(ZipArchive archive, ZipArchive.Entry entry, Path directory) throws IOException {
+        Path outputPath = directory.resolve(entry.getName()).normalize();
+        if (!outputPath.startsWith(directory)) {
+            throw new IOException(String.format("Entry %s is outside of target directory", entry.getName()));
+        }
+        if (entry.isDirectory()) {
+            Files.createDirectories(outputPath);
+            return;
+        }
+        Files.createDirectories(outputPath.getParent());
+        if (!linksSupported) {
+            try (InputStream inputStream = archive.getInputStream(entry)) {
+                Files.copy(inputStream, outputPath);
+            }
+            return;
+        }
+        Path object = (entry.getSize() <= MAX_IN_MEMORY_ENTRY_SIZE) ?
+                storeObject(archive.getContents(entry)) :
+                storeObject(archive.getInputStream(entry));
+        link(object, outputPath);
+    }
+
+    private Path storeObject(ByteBuffer contents) throws IOException {
+        MessageDigest digest = createDigest();
+        digest.update(contents.duplicate());
+        Path object = getObjectPath(digest.digest());
+        if (!Files.exists(object)) {
+            Path temporaryFile = createTemporaryFile();
+            try (WritableByteChannel channel = Files.newByteChannel(temporaryFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = contents.duplicate();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            moveObject(temporaryFile, object);
+        }
+        return object;
+    }
+
+    private Path storeObject(InputStream contents) throws IOException {
+        MessageDigest digest = createDigest();
+        Path temporaryFile = createTemporaryFile();
+        try (InputStream inputStream = contents;
+             OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(temporaryFile), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            int bytesCount;
+            while ((bytesCount = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesCount);
+            }
+        }
+        Path object = getObjectPath(digest.digest());
+        if (Files.exists(object)) {
+            Files.delete(temporaryFile);
+        } else {
+            moveObject(temporaryFile, object);
+        }
+        return object;
+    }
+
+    private void link(Path object, Path outputPath) throws IOException {
+        try {
+            Files.createLink(outputPath, object);
+        } catch (UnsupportedOperationException e) {
+            linksSupported = false;
+            Files.copy(object, outputPath);
+        } catch (FileSystemException e) {
+            //Any other failure, e.g. missing permissions or full disk, would break copying as well
+            if (!isCrossDeviceLink(e)) {
+                throw e;
+            }
+            linksSupported = false;
+            Files.copy(object, outputPath);
+        }
+    }
+
+    /**
+     * Returns whether link failed because objects directory is on another device: EXDEV on Unix or
+     * ERROR_NOT_SAME_DEVICE on Windows. File system exceptions only describe the reason with a message.
+     */
+    static boolean isCrossDeviceLink(FileSystemException e) {
+        String reason = Optional.ofNullable(e.getReason()).orElse("").toLowerCase(Locale.ROOT);
+        return reason.contains(CROSS_DEVICE_LINK_REASON) || reason.contains(NOT_SAME_DEVICE_REASON);
+    }
+
+    private Path createTemporaryFile() throws IOException {
+        return Files.createTempFile(objectsDirectory, null, TEMPORARY_FILE_SUFFIX);
+    }
+
+    private static void moveObject(Path temporaryFile, Path object) throws IOException {
+        Files.createDirectories(object.getParent());
+        try {
+            Files.move(temporaryFile, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, object, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path getObjectPath(byte[] hash) {
+        StringBuilder hexHash = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hexHash.append(String.format("%02x", b));
+        }
+        // Splitting objects by first byte of hash to keep directories small
+        return objectsDirectory.resolve(hexHash.substring(0, 2)).resolve(hexHash.substring(2));
+    }
+
+    private static MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+}
@@ -6,34 +6,111 @@ import org.meridor.stecker.interfaces.PluginImplementationsAware;
 import org.meridor.stecker.interfaces.ScanResult;
 
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class DefaultClassesScanner implements ClassesScanner {
 
-    private final Path cacheDirectory;
+    private final UnpackedPlugins unpackedPlugins;
+
+    private final ScanCache scanCache;
 
     public DefaultClassesScanner(Path cacheDirectory) {
-        this.cacheDirectory = cacheDirectory;
+        this(new UnpackedPlugins(cacheDirectory));
+    }
+
+    public DefaultClassesScanner(UnpackedPlugins unpackedPlugins) {
+        this.unpackedPlugins = unpackedPlugins;
+        this.scanCache = new ScanCache(unpackedPlugins.getCacheDirectory());
     }
 
     @Override
     public ScanResult scan(Path pluginFile, List<Class> extensionPoints) throws PluginException {
+        return scan(pluginFile, extensionPoints, Collections.emptyList());
+    }
+
+    @Override
+    public ScanResult scan(Path pluginFile, List<Class> extensionPoints, List<ClassLoader> dependencyClassLoaders) throws PluginException {
         try {
-            Path unpackedPluginDirectory = PluginUtils.unpackPlugin(pluginFile, cacheDirectory);
-            Path pluginImplementationDirectory = PluginUtils.getPluginImplementationDirectory(unpackedPluginDirectory);
+            UnpackedPlugin unpackedPlugin = unpackedPlugins.get(pluginFile);
 
-            ClassLoader classLoader = getClassLoader(unpackedPluginDirectory, pluginImplementationDirectory);
-            PluginImplementationsAware pluginImplementationsAware = PluginUtils.getMatchingClasses(extensionPoints, pluginImplementationDirectory, classLoader);
-            return new DefaultScanResult(classLoader, pluginImplementationsAware);
+            Optional<SharedLibraries> sharedLibraries = unpackedPlugins.getSharedLibraries();
+            Optional<List<Path>> privateLibraries = sharedLibraries.isPresent() ?
+                    sharedLibraries.get().getPrivateLibraries(pluginFile) : Optional.empty();
+            // Implementation directory was already walked while unpacking, so class loader indexes the same listing
+            ClassLoader classLoader = privateLibraries.isPresent() ?
+                    PluginUtils.getClassLoader(
+                            unpackedPlugin,
+                            privateLibraries.get(),
+                            sharedLibraries.get().getClassLoader(),
+                            dependencyClassLoaders
+                    ) :
+                    PluginUtils.getClassLoader(
+                            unpackedPlugin,
+                            unpackedPlugin.getLibraries(),
+                            ClassLoader.getSystemClassLoader(),
+                            dependencyClassLoaders
+                    );
+            return getMatchingClasses(extensionPoints, unpackedPlugin, classLoader, dependencyClassLoaders);
 
         } catch (Exception e) {
             throw new PluginException(e);
         }
     }
 
-    private ClassLoader getClassLoader(Path unpackedPluginDirectory, Path pluginImplementationDirectory) throws PluginException {
-        Path libDirectory = unpackedPluginDirectory.resolve(PluginUtils.LIB_DIRECTORY);
-        return PluginUtils.getClassLoader(pluginImplementationDirectory, libDirectory);
+    private ScanResult getMatchingClasses(List<Class> extensionPoints, UnpackedPlugin unpackedPlugin, ClassLoader classLoader, List<ClassLoader> dependencyClassLoaders) throws Exception {
+        Path pluginFile = unpackedPlugin.getPluginFile();
+        Optional<String> pluginFingerprint = unpackedPlugin.getFingerprint();
+        Optional<String> fingerprint = pluginFingerprint.isPresent() ?
+                ScanCache.getFingerprint(pluginFingerprint.get(), dependencyClassLoaders) : Optional.empty();
+        if (fingerprint.isPresent()) {
+            ScanCache.setFingerprint(classLoader, fingerprint.get());
+        }
+        Optional<Map<String, List<String>>> cachedImplementations = fingerprint.isPresent() ?
+                scanCache.readClasses(pluginFile, fingerprint.get(), extensionPoints) : Optional.empty();
+        if (cachedImplementations.isPresent()) {
+            try {
+                PluginImplementationsAware pluginImplementationsAware = PluginUtils.getClassesByNames(extensionPoints, cachedImplementations.get(), classLoader, isInitializeClasses());
+                int visitedClassesCount = cachedImplementations.get().values().stream().mapToInt(List::size).sum();
+                return new DefaultScanResult(classLoader, pluginImplementationsAware, visitedClassesCount);
+            } catch (ClassNotFoundException e) {
+                //Cache is out of sync with unpacked plugin, so falling back to the full scan
+            }
+        }
+        Optional<ExtensionIndex> extensionIndex = ExtensionIndex.read(unpackedPlugin.getImplementationDirectory());
+        PluginImplementationsAware pluginImplementationsAware = extensionIndex.isPresent() ?
+                PluginUtils.getMatchingClasses(extensionPoints, extensionIndex.get(), classLoader, isInitializeClasses()) :
+                scanClasses(extensionPoints, unpackedPlugin, classLoader);
+        if (fingerprint.isPresent()) {
+            scanCache.writeClasses(pluginFile, fingerprint.get(), extensionPoints, pluginImplementationsAware);
+        }
+        int visitedClassesCount = extensionIndex.isPresent() ?
+                extensionIndex.get().getClassNames().size() : unpackedPlugin.getClassFiles().size();
+        return new DefaultScanResult(classLoader, pluginImplementationsAware, visitedClassesCount);
+    }
+
+    /**
+     * Searches for extension point implementations when plugin has neither cached scan result nor extension index
+     *
+     * @param extensionPoints a list of extension point classes
+     * @param unpackedPlugin  unpacked plugin
+     * @param classLoader     plugin class loader
+     * @return mapping from extension point to implementations from a plugin
+     * @throws Exception when something goes wrong during classes scanning
+     */
+    protected PluginImplementationsAware scanClasses(List<Class> extensionPoints, UnpackedPlugin unpackedPlugin, ClassLoader classLoader) throws Exception {
+        return PluginUtils.getMatchingClasses(extensionPoints, unpackedPlugin.getImplementationDirectory(), unpackedPlugin.getClassFiles(), classLoader);
+    }
+
+    /**
+     * Returns whether implementation classes are initialized when loaded
+     *
+     * @return true to run static initializers during the scan
+     */
+    protected boolean isInitializeClasses() {
+        return true;
     }
 
 }
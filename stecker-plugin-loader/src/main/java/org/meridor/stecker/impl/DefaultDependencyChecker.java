@@ -14,6 +14,16 @@ import java.util.Optional;
 
 public class DefaultDependencyChecker implements DependencyChecker {
 
+    private final VersionComparator versionComparator;
+
+    public DefaultDependencyChecker() {
+        this(new DefaultVersionComparator());
+    }
+
+    public DefaultDependencyChecker(VersionComparator versionComparator) {
+        this.versionComparator = versionComparator;
+    }
+
     @Override
     public void check(PluginsAware pluginRegistry, PluginMetadata pluginMetadata) throws PluginException {
 
@@ -66,10 +76,6 @@ public class DefaultDependencyChecker implements DependencyChecker {
     private VersionRelation compareVersions(Dependency requiredDependency, PluginMetadata dependencyCandidate) {
         Optional<String> requiredVersion = requiredDependency.getVersion();
         Optional<String> actualVersion = Optional.ofNullable(dependencyCandidate.getVersion());
-        return getVersionComparator().compare(requiredVersion, actualVersion);
-    }
-
-    private VersionComparator getVersionComparator() {
-        return new DefaultVersionComparator();
+        return versionComparator.compare(requiredVersion, actualVersion);
     }
 }
@@ -0,0 +1,244 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.VersionRelation;
+import org.meridor.stecker.interfaces.Dependency;
+import org.meridor.stecker.interfaces.DependencyResolver;
+import org.meridor.stecker.interfaces.VersionComparator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses one version of every plugin so that chosen plugins satisfy each other's required and conflicting
+ * dependencies. Versions are tried from the highest one, so the result is the newest consistent set. Plugins having
+ * one version are always chosen: their dependency issues are reported by {@link DefaultDependencyChecker}. When no
+ * consistent set exists the highest versions are chosen, so that checker reports what's wrong. Search takes at most
+ * 100 000 steps: when they are not enough {@link PluginException} is thrown instead of guessing.
+ */
+public class DefaultDependencyResolver implements DependencyResolver {
+
+    private static final int MAX_STEPS = 100_000;
+
+    private final Versions versions;
+
+    private final VersionComparator versionComparator;
+
+    public DefaultDependencyResolver() {
+        this(new Versions());
+    }
+
+    public DefaultDependencyResolver(Versions versions) {
+        this.versions = versions;
+        this.versionComparator = new DefaultVersionComparator(versions);
+    }
+
+    @Override
+    public List<PluginMetadata> resolve(List<PluginMetadata> plugins) throws PluginException {
+        Map<String, List<PluginMetadata>> candidates = new LinkedHashMap<>();
+        for (PluginMetadata pluginMetadata : plugins) {
+            candidates.computeIfAbsent(pluginMetadata.getName(), name -> new ArrayList<>()).add(pluginMetadata);
+        }
+        if (candidates.size() == plugins.size()) {
+            return plugins;
+        }
+        Comparator<PluginMetadata> highestVersionFirst = Comparator.comparing(this::getVersion).reversed();
+        candidates.values().forEach(pluginVersions -> pluginVersions.sort(highestVersionFirst));
+
+        Resolution resolution = new Resolution(candidates);
+        List<String> ambiguousNames = new ArrayList<>();
+        for (Map.Entry<String, List<PluginMetadata>> entry : candidates.entrySet()) {
+            if (entry.getValue().size() == 1) {
+                resolution.choose(entry.getValue().get(0));
+            } else {
+                ambiguousNames.add(entry.getKey());
+            }
+        }
+
+        // Depth-first search over versions of plugins having several ones
+        int[] choices = new int[ambiguousNames.size()];
+        Arrays.fill(choices, -1);
+        int index = 0;
+        int steps = 0;
+        boolean isResolved = false;
+        while (index >= 0 && steps++ < MAX_STEPS) {
+            if (index == ambiguousNames.size()) {
+                // Chosen versions don't contradict each other, but required name may be provided by a version not
+                // chosen
+                if (resolution.isComplete()) {
+                    isResolved = true;
+                    break;
+                }
+                index--;
+                continue;
+            }
+            List<PluginMetadata> pluginVersions = candidates.get(ambiguousNames.get(index));
+            if (choices[index] >= 0) {
+                resolution.unchoose(pluginVersions.get(choices[index]));
+            }
+            int nextChoice = choices[index] + 1;
+            while (nextChoice < pluginVersions.size() && !resolution.isCompatible(pluginVersions.get(nextChoice))) {
+                nextChoice++;
+            }
+            if (nextChoice < pluginVersions.size()) {
+                choices[index] = nextChoice;
+                resolution.choose(pluginVersions.get(nextChoice));
+                index++;
+            } else {
+                choices[index] = -1;
+                index--;
+            }
+        }
+
+        if (!isResolved && index >= 0) {
+            throw new PluginException(String.format(
+                    "Failed to choose versions of plugins %s in %d steps", ambiguousNames, MAX_STEPS
+            ));
+        }
+
+        Set<PluginMetadata> chosenPlugins = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (isResolved) {
+            chosenPlugins.addAll(resolution.getChosenPlugins());
+        } else {
+            candidates.values().forEach(pluginVersions -> chosenPlugins.add(pluginVersions.get(0)));
+        }
+        return plugins.stream()
+                .filter(chosenPlugins::contains)
+                .collect(Collectors.toList());
+    }
+
+    private Version getVersion(PluginMetadata pluginMetadata) {
+        return versions.getVersion(Optional.ofNullable(pluginMetadata.getVersion()).orElse(""));
+    }
+
+    private boolean matches(Dependency dependency, PluginMetadata pluginMetadata) {
+        VersionRelation versionRelation = versionComparator.compare(
+                dependency.getVersion(),
+                Optional.ofNullable(pluginMetadata.getVersion())
+        );
+        return versionRelation == VersionRelation.EQUAL || versionRelation == VersionRelation.IN_RANGE;
+    }
+
+    /**
+     * Currently chosen plugins indexed by names they can be required by
+     */
+    private class Resolution {
+
+        private final Set<String> availableNames = new HashSet<>();
+
+        private final Map<String, PluginMetadata> chosenPlugins = new HashMap<>();
+
+        private final Map<String, List<PluginMetadata>> dependents = new HashMap<>();
+
+        Resolution(Map<String, List<PluginMetadata>> candidates) {
+            for (List<PluginMetadata> pluginVersions : candidates.values()) {
+                for (PluginMetadata pluginMetadata : pluginVersions) {
+                    getNames(pluginMetadata).forEach(availableNames::add);
+                }
+            }
+        }
+
+        boolean isCompatible(PluginMetadata pluginMetadata) {
+            for (String name : getNames(pluginMetadata)) {
+                if (chosenPlugins.containsKey(name)) {
+                    return false;
+                }
+                for (PluginMetadata dependent : dependents.getOrDefault(name, Collections.emptyList())) {
+                    if (!isCompatible(dependent, name, pluginMetadata)) {
+                        return false;
+                    }
+                }
+            }
+            for (Dependency dependency : pluginMetadata.getRequiredDependencies()) {
+                if (!availableNames.contains(dependency.getName())) {
+                    return false;
+                }
+            }
+            for (Dependency dependency : getDependencies(pluginMetadata)) {
+                PluginMetadata chosenPlugin = chosenPlugins.get(dependency.getName());
+                if (chosenPlugin != null && !isCompatible(pluginMetadata, dependency.getName(), chosenPlugin)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns whether chosen plugins provide every name they require. Names no plugin provides are reported by
+         * dependency checker, so they are skipped.
+         */
+        boolean isComplete() {
+            for (PluginMetadata pluginMetadata : chosenPlugins.values()) {
+                for (Dependency dependency : pluginMetadata.getRequiredDependencies()) {
+                    if (availableNames.contains(dependency.getName()) && !chosenPlugins.containsKey(dependency.getName())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean isCompatible(PluginMetadata dependent, String name, PluginMetadata pluginMetadata) {
+            for (Dependency dependency : dependent.getRequiredDependencies()) {
+                if (dependency.getName().equals(name) && !matches(dependency, pluginMetadata)) {
+                    return false;
+                }
+            }
+            for (Dependency dependency : dependent.getConflictingDependencies()) {
+                if (dependency.getName().equals(name) && matches(dependency, pluginMetadata)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void choose(PluginMetadata pluginMetadata) {
+            getNames(pluginMetadata).forEach(name -> chosenPlugins.put(name, pluginMetadata));
+            for (Dependency dependency : getDependencies(pluginMetadata)) {
+                dependents.computeIfAbsent(dependency.getName(), name -> new ArrayList<>()).add(pluginMetadata);
+            }
+        }
+
+        void unchoose(PluginMetadata pluginMetadata) {
+            getNames(pluginMetadata).forEach(chosenPlugins::remove);
+            for (Dependency dependency : getDependencies(pluginMetadata)) {
+                // Plugin is always the last one added
+                List<PluginMetadata> dependencyDependents = dependents.get(dependency.getName());
+                dependencyDependents.remove(dependencyDependents.size() - 1);
+            }
+        }
+
+        Set<PluginMetadata> getChosenPlugins() {
+            Set<PluginMetadata> plugins = Collections.newSetFromMap(new IdentityHashMap<>());
+            plugins.addAll(chosenPlugins.values());
+            return plugins;
+        }
+
+        private List<String> getNames(PluginMetadata pluginMetadata) {
+            List<String> names = new ArrayList<>();
+            names.add(pluginMetadata.getName());
+            pluginMetadata.getProvidedDependency().ifPresent(dependency -> names.add(dependency.getName()));
+            return names;
+        }
+
+        private List<Dependency> getDependencies(PluginMetadata pluginMetadata) {
+            List<Dependency> dependencies = new ArrayList<>(pluginMetadata.getRequiredDependencies());
+            dependencies.addAll(pluginMetadata.getConflictingDependencies());
+            return dependencies;
+        }
+
+    }
+
+}
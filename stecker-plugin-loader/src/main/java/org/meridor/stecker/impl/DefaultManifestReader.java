@@ -51,8 +51,9 @@ public class DefaultManifestReader implements ManifestReader {
     }
 
     Manifest getManifest(Path pluginFile) throws IOException {
-        JarInputStream jarStream = new JarInputStream(Files.newInputStream(pluginFile));
-        return jarStream.getManifest();
+        try (JarInputStream jarStream = new JarInputStream(Files.newInputStream(pluginFile))) {
+            return jarStream.getManifest();
+        }
     }
 
     String getField(Manifest manifest, ManifestField field) {
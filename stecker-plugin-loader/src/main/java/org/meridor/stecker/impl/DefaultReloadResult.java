@@ -0,0 +1,143 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginRegistry;
+import org.meridor.stecker.interfaces.ReloadResult;
+import org.meridor.stecker.interfaces.SharedLibrariesReport;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+public class DefaultReloadResult implements ReloadResult {
+
+    private static final long COLLECTION_CHECK_INTERVAL = 100;
+
+    private final PluginRegistry pluginRegistry;
+
+    private final List<String> addedPlugins;
+
+    private final List<String> removedPlugins;
+
+    private final List<String> modifiedPlugins;
+
+    private final List<String> unchangedPlugins;
+
+    private final SharedLibrariesReport sharedLibrariesReport;
+
+    private final List<Path> skippedPlugins;
+
+    private final Map<String, WeakReference<ClassLoader>> releasedClassLoaders = new LinkedHashMap<>();
+
+    public DefaultReloadResult(PluginRegistry pluginRegistry, List<String> addedPlugins, List<String> removedPlugins, List<String> modifiedPlugins, List<String> unchangedPlugins) {
+        this(pluginRegistry, addedPlugins, removedPlugins, modifiedPlugins, unchangedPlugins, null);
+    }
+
+    public DefaultReloadResult(PluginRegistry pluginRegistry, List<String> addedPlugins, List<String> removedPlugins, List<String> modifiedPlugins, List<String> unchangedPlugins, SharedLibrariesReport sharedLibrariesReport) {
+        this(pluginRegistry, addedPlugins, removedPlugins, modifiedPlugins, unchangedPlugins, sharedLibrariesReport, Collections.emptyList());
+    }
+
+    public DefaultReloadResult(PluginRegistry pluginRegistry, List<String> addedPlugins, List<String> removedPlugins, List<String> modifiedPlugins, List<String> unchangedPlugins, SharedLibrariesReport sharedLibrariesReport, List<Path> skippedPlugins) {
+        this(pluginRegistry, addedPlugins, removedPlugins, modifiedPlugins, unchangedPlugins, sharedLibrariesReport, skippedPlugins, Collections.emptyMap());
+    }
+
+    /**
+     * @param releasedClassLoaders class loaders of previous registry which are no longer used, only weak references to
+     *                             them are kept
+     */
+    public DefaultReloadResult(PluginRegistry pluginRegistry, List<String> addedPlugins, List<String> removedPlugins, List<String> modifiedPlugins, List<String> unchangedPlugins, SharedLibrariesReport sharedLibrariesReport, List<Path> skippedPlugins, Map<String, ClassLoader> releasedClassLoaders) {
+        releasedClassLoaders.forEach((pluginName, classLoader) -> this.releasedClassLoaders.put(pluginName, new WeakReference<>(classLoader)));
+        this.pluginRegistry = pluginRegistry;
+        this.addedPlugins = addedPlugins;
+        this.removedPlugins = removedPlugins;
+        this.modifiedPlugins = modifiedPlugins;
+        this.unchangedPlugins = unchangedPlugins;
+        this.sharedLibrariesReport = sharedLibrariesReport;
+        this.skippedPlugins = skippedPlugins;
+    }
+
+    @Override
+    public PluginRegistry getPluginRegistry() {
+        return pluginRegistry;
+    }
+
+    @Override
+    public List<String> getAddedPlugins() {
+        return addedPlugins;
+    }
+
+    @Override
+    public List<String> getRemovedPlugins() {
+        return removedPlugins;
+    }
+
+    @Override
+    public List<String> getModifiedPlugins() {
+        return modifiedPlugins;
+    }
+
+    @Override
+    public List<String> getUnchangedPlugins() {
+        return unchangedPlugins;
+    }
+
+    @Override
+    public Optional<SharedLibrariesReport> getSharedLibrariesReport() {
+        return Optional.ofNullable(sharedLibrariesReport);
+    }
+
+    @Override
+    public List<Path> getSkippedPlugins() {
+        return skippedPlugins;
+    }
+
+    @Override
+    public Map<String, String> awaitCollection(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (hasUncollectedClassLoaders() && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(Math.max(1, Math.min(COLLECTION_CHECK_INTERVAL, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+        }
+        Map<String, String> leaks = new LinkedHashMap<>();
+        releasedClassLoaders.forEach((pluginName, classLoaderReference) -> {
+            ClassLoader classLoader = classLoaderReference.get();
+            if (classLoader != null) {
+                leaks.put(pluginName, getLikelyCause(classLoader));
+            }
+        });
+        return leaks;
+    }
+
+    private boolean hasUncollectedClassLoaders() {
+        return releasedClassLoaders.values().stream().anyMatch(classLoaderReference -> classLoaderReference.get() != null);
+    }
+
+    private static String getLikelyCause(ClassLoader classLoader) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getClass().getClassLoader() == classLoader) {
+                return String.format("Thread %s started by plugin is still running", thread.getName());
+            }
+            if (isSameOrChild(thread.getContextClassLoader(), classLoader)) {
+                return String.format("Thread %s uses plugin class loader as context class loader", thread.getName());
+            }
+        }
+        return "Class loader is still referenced: check that previous plugin registry, plugin instances and objects " +
+                "created by plugin classes are no longer referenced, e.g. from static fields, caches or listeners " +
+                "outside of plugin";
+    }
+
+    private static boolean isSameOrChild(ClassLoader classLoader, ClassLoader pluginClassLoader) {
+        //Class loaders created by plugin itself have plugin class loader as one of parents
+        for (ClassLoader current = classLoader; current != null; current = current.getParent()) {
+            if (current == pluginClassLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
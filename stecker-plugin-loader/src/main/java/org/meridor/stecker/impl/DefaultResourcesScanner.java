@@ -5,24 +5,47 @@ import org.meridor.stecker.interfaces.ResourcesScanner;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 public class DefaultResourcesScanner implements ResourcesScanner {
 
-    private final Path cacheDirectory;
+    private final UnpackedPlugins unpackedPlugins;
     private final String[] patterns;
 
+    private final ScanCache scanCache;
+
     public DefaultResourcesScanner(Path cacheDirectory, String[] patterns) {
-        this.cacheDirectory = cacheDirectory;
+        this(new UnpackedPlugins(cacheDirectory), patterns);
+    }
+
+    public DefaultResourcesScanner(UnpackedPlugins unpackedPlugins, String[] patterns) {
+        this.unpackedPlugins = unpackedPlugins;
         this.patterns = patterns;
+        this.scanCache = new ScanCache(unpackedPlugins.getCacheDirectory());
     }
 
     @Override
     public List<Path> scan(Path pluginFile) throws PluginException {
+        if (patterns.length == 0) {
+            return Collections.emptyList();
+        }
         try {
-            Path unpackedPluginDirectory = PluginUtils.unpackPlugin(pluginFile, cacheDirectory);
-            Path pluginImplementationDirectory = PluginUtils.getPluginImplementationDirectory(unpackedPluginDirectory);
-            return PluginUtils.getMatchingFiles(pluginImplementationDirectory, patterns);
+            UnpackedPlugin unpackedPlugin = unpackedPlugins.get(pluginFile);
+            Path pluginImplementationDirectory = unpackedPlugin.getImplementationDirectory();
+            Optional<String> fingerprint = unpackedPlugin.getFingerprint();
+            Optional<List<Path>> cachedResources = fingerprint.isPresent() ?
+                    scanCache.readResources(pluginFile, fingerprint.get(), patterns, pluginImplementationDirectory) :
+                    Optional.empty();
+            if (cachedResources.isPresent()) {
+                return cachedResources.get();
+            }
+            List<Path> resources = PluginUtils.getMatchingFiles(unpackedPlugin.getImplementationFiles(), patterns);
+            if (fingerprint.isPresent()) {
+                scanCache.writeResources(pluginFile, fingerprint.get(), patterns, pluginImplementationDirectory, resources);
+            }
+            return resources;
         } catch (IOException e) {
             throw new PluginException(e);
         }
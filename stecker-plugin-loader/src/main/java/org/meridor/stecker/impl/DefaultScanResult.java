@@ -9,9 +9,16 @@ public class DefaultScanResult implements ScanResult {
 
     private final PluginImplementationsAware contents;
 
+    private final int visitedClassesCount;
+
     public DefaultScanResult(ClassLoader classLoader, PluginImplementationsAware contents) {
+        this(classLoader, contents, 0);
+    }
+
+    public DefaultScanResult(ClassLoader classLoader, PluginImplementationsAware contents, int visitedClassesCount) {
         this.classLoader = classLoader;
         this.contents = contents;
+        this.visitedClassesCount = visitedClassesCount;
     }
 
     @Override
@@ -23,4 +30,20 @@ public class DefaultScanResult implements ScanResult {
     public PluginImplementationsAware getContents() {
         return contents;
     }
+
+    @Override
+    public int getVisitedClassesCount() {
+        return visitedClassesCount;
+    }
+
+    @Override
+    public int getLoadedClassesCount() {
+        if (classLoader instanceof PluginClassLoader) {
+            return ((PluginClassLoader) classLoader).getDefinedClassesCount();
+        }
+        if (classLoader instanceof PluginArchiveClassLoader) {
+            return ((PluginArchiveClassLoader) classLoader).getDefinedClassesCount();
+        }
+        return 0;
+    }
 }
@@ -0,0 +1,22 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginRegistry;
+import org.meridor.stecker.interfaces.UnloadResult;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class DefaultUnloadResult extends DefaultReloadResult implements UnloadResult {
+
+    /**
+     * @param pluginRegistry   registry without unloaded plugins
+     * @param removedPlugins   names of unloaded plugins
+     * @param unchangedPlugins names of remaining plugins
+     * @param classLoaders     class loaders of unloaded plugins, only weak references to them are kept
+     */
+    public DefaultUnloadResult(PluginRegistry pluginRegistry, List<String> removedPlugins, List<String> unchangedPlugins, Map<String, ClassLoader> classLoaders) {
+        super(pluginRegistry, Collections.emptyList(), removedPlugins, Collections.emptyList(), unchangedPlugins, null, Collections.emptyList(), classLoaders);
+    }
+
+}
@@ -12,8 +12,22 @@ import static org.meridor.stecker.VersionRelation.LESS_THAN;
 import static org.meridor.stecker.VersionRelation.NOT_EQUAL;
 import static org.meridor.stecker.VersionRelation.NOT_IN_RANGE;
 
+/**
+ * Compares versions segment by segment, see {@link Version}. Parsed versions and ranges are kept by comparator, so
+ * one instance should be reused for many comparisons.
+ */
 public class DefaultVersionComparator implements VersionComparator {
 
+    private final Versions versions;
+
+    public DefaultVersionComparator() {
+        this(new Versions());
+    }
+
+    public DefaultVersionComparator(Versions versions) {
+        this.versions = versions;
+    }
+
     @Override
     public VersionRelation compare(Optional<String> required, Optional<String> actual) {
         if (!required.isPresent() || required.get().isEmpty()) {
@@ -23,14 +37,12 @@ public class DefaultVersionComparator implements VersionComparator {
             return NOT_EQUAL;
         }
 
-        String requiredVersion = required.get();
-        String actualVersion = actual.get();
-
-        VersionRange range = new VersionRange(requiredVersion);
+        VersionRange range = versions.getRange(required.get());
+        Version actualVersion = versions.getVersion(actual.get());
         if (range.isValid()) {
             return range.contains(actualVersion) ? IN_RANGE : NOT_IN_RANGE;
         } else {
-            int comparisonResult = actualVersion.compareTo(requiredVersion);
+            int comparisonResult = actualVersion.compareTo(versions.getVersion(required.get()));
             if (comparisonResult > 0) {
                 return GREATER_THAN;
             } else if (comparisonResult < 0) {
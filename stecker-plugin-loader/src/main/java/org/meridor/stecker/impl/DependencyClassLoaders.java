@@ -0,0 +1,88 @@
+package org.meridor.stecker.impl;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Class loaders of plugins current plugin depends on. Plugin class loaders ask them for classes and resources after
+ * parent class loader and before own classes, so that API types shared between plugins are loaded only once.
+ */
+final class DependencyClassLoaders {
+
+    private final List<ClassLoader> classLoaders;
+
+    DependencyClassLoaders(List<ClassLoader> classLoaders) {
+        this.classLoaders = new ArrayList<>(classLoaders);
+    }
+
+    List<ClassLoader> getClassLoaders() {
+        return Collections.unmodifiableList(classLoaders);
+    }
+
+    /**
+     * Loads class from the first dependency having it
+     *
+     * @param name binary class name
+     * @return class or null if no dependency has it
+     */
+    Class<?> loadClass(String name) {
+        for (ClassLoader classLoader : classLoaders) {
+            try {
+                return classLoader.loadClass(name);
+            } catch (ClassNotFoundException e) {
+                //Trying next dependency
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns resource from the first dependency having it
+     *
+     * @param name resource name
+     * @return resource URL or null if no dependency has it
+     */
+    URL getResource(String name) {
+        for (ClassLoader classLoader : classLoaders) {
+            URL url = classLoader.getResource(name);
+            if (url != null) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns resources found by parent, dependencies and plugin class loader itself in this order
+     *
+     * @param parent          parent class loader
+     * @param name            resource name
+     * @param pluginResources resources found by plugin class loader itself
+     * @return resources URLs without duplicates
+     * @throws IOException when some class loader fails to find resources
+     */
+    Enumeration<URL> getResources(ClassLoader parent, String name, Enumeration<URL> pluginResources) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        addResources(urls, parent.getResources(name));
+        for (ClassLoader classLoader : classLoaders) {
+            addResources(urls, classLoader.getResources(name));
+        }
+        addResources(urls, pluginResources);
+        return Collections.enumeration(urls);
+    }
+
+    private static void addResources(List<URL> urls, Enumeration<URL> resources) {
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            //Dependencies share parent class loader, so comparing strings to avoid resolving host names
+            if (urls.stream().noneMatch(existingUrl -> existingUrl.toString().equals(url.toString()))) {
+                urls.add(url);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+package org.meridor.stecker.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Stores all supertypes and annotations of every plugin class. Such index is generated by plugin generator at build
+ * time and allows to find extension point implementations without walking and loading plugin classes.
+ */
+public class ExtensionIndex {
+
+    public static final String INDEX_FILE = "META-INF/stecker/extensions.idx";
+
+    private static final String HEADER = "# Stecker extensions index: class;supertypes;annotations";
+
+    private static final String COMMENT_PREFIX = "#";
+
+    private static final String COLUMNS_DELIMITER = ";";
+
+    private static final String NAMES_DELIMITER = ",";
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final Map<String, Set<String>> supertypes = new TreeMap<>();
+
+    private final Map<String, Set<String>> annotations = new TreeMap<>();
+
+    /**
+     * Adds information about one class
+     *
+     * @param className       binary class name
+     * @param classSupertypes classes and interfaces the class extends or implements directly or indirectly
+     * @param classAnnotations annotations declared on the class or its superclasses
+     */
+    public void addClass(String className, Collection<String> classSupertypes, Collection<String> classAnnotations) {
+        Set<String> filteredSupertypes = new LinkedHashSet<>(classSupertypes);
+        filteredSupertypes.remove(className);
+        supertypes.put(className, filteredSupertypes);
+        annotations.put(className, new LinkedHashSet<>(classAnnotations));
+    }
+
+    /**
+     * Returns names of all indexed classes
+     *
+     * @return a list of binary class names
+     */
+    public List<String> getClassNames() {
+        return new ArrayList<>(supertypes.keySet());
+    }
+
+    /**
+     * Returns supertypes of indexed class
+     *
+     * @param className binary class name
+     * @return a set of binary class names, empty if class is not indexed
+     */
+    public Set<String> getSupertypes(String className) {
+        return supertypes.getOrDefault(className, Collections.emptySet());
+    }
+
+    /**
+     * Returns annotations of indexed class
+     *
+     * @param className binary class name
+     * @return a set of binary annotation names, empty if class is not indexed
+     */
+    public Set<String> getAnnotations(String className) {
+        return annotations.getOrDefault(className, Collections.emptySet());
+    }
+
+    /**
+     * Returns names of classes which may implement one of extension points
+     *
+     * @param extensionPoints a list of extension point classes
+     * @return a list of binary class names
+     */
+    public List<String> getCandidates(List<Class> extensionPoints) {
+        List<String> candidates = new ArrayList<>();
+        for (String className : supertypes.keySet()) {
+            for (Class<?> extensionPoint : extensionPoints) {
+                String extensionPointName = extensionPoint.getName();
+                if (
+                        className.equals(extensionPointName) ||
+                                getSupertypes(className).contains(extensionPointName) ||
+                                extensionPoint.isAnnotation() && getAnnotations(className).contains(extensionPointName)
+                        ) {
+                    candidates.add(className);
+                    break;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Builds index for all class files in the directory
+     *
+     * @param classesDirectory directory with compiled classes
+     * @param classLoader      class loader used to read supertypes not present in the directory, e.g. from libraries
+     * @return extension index
+     * @throws IOException when some class file can't be read
+     */
+    public static ExtensionIndex build(Path classesDirectory, ClassLoader classLoader) throws IOException {
+        List<Path> classFiles = new ArrayList<>();
+        Files.walkFileTree(classesDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (file.toString().toLowerCase().endsWith(CLASS_FILE_EXTENSION)) {
+                    classFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return build(classFiles, classLoader);
+    }
+
+    /**
+     * Builds index for already listed class files
+     *
+     * @param classFiles  class files
+     * @param classLoader class loader used to read supertypes not present in the list, e.g. from libraries
+     * @return extension index
+     * @throws IOException when some class file can't be read
+     */
+    public static ExtensionIndex build(List<Path> classFiles, ClassLoader classLoader) throws IOException {
+        Map<String, ClassFileInfo> classes = new TreeMap<>();
+        for (Path classFile : classFiles) {
+            try (InputStream inputStream = Files.newInputStream(classFile)) {
+                ClassFileInfo classFileInfo = ClassFileInfo.read(inputStream);
+                classes.put(classFileInfo.getClassName(), classFileInfo);
+            }
+        }
+        return build(classes, classLoader);
+    }
+
+    /**
+     * Builds index for all class files in the archive
+     *
+     * @param archive     archive with compiled classes
+     * @param classLoader class loader used to read supertypes not present in the archive, e.g. from libraries
+     * @return extension index
+     * @throws IOException when some class file can't be read
+     */
+    public static ExtensionIndex build(ZipArchive archive, ClassLoader classLoader) throws IOException {
+        Map<String, ClassFileInfo> classes = new TreeMap<>();
+        for (String entryName : archive.getEntryNames()) {
+            if (entryName.toLowerCase().endsWith(CLASS_FILE_EXTENSION)) {
+                try (InputStream inputStream = archive.getInputStream(archive.getEntry(entryName).get())) {
+                    ClassFileInfo classFileInfo = ClassFileInfo.read(inputStream);
+                    classes.put(classFileInfo.getClassName(), classFileInfo);
+                }
+            }
+        }
+        return build(classes, classLoader);
+    }
+
+    /**
+     * Builds index for already read class files
+     *
+     * @param classes     mapping from binary class name to class file information
+     * @param classLoader class loader used to read supertypes not present in the mapping
+     * @return extension index
+     */
+    public static ExtensionIndex build(Map<String, ClassFileInfo> classes, ClassLoader classLoader) {
+        ClassHierarchy classHierarchy = new ClassHierarchy(classes, classLoader);
+        ExtensionIndex extensionIndex = new ExtensionIndex();
+        for (String className : classes.keySet()) {
+            extensionIndex.addClass(
+                    className,
+                    classHierarchy.getSupertypes(className),
+                    classHierarchy.getAnnotations(className)
+            );
+        }
+        return extensionIndex;
+    }
+
+    /**
+     * Reads index embedded to unpacked plugin implementation
+     *
+     * @param pluginImplementationDirectory directory with unpacked plugin classes
+     * @return extension index or empty if plugin has no index
+     * @throws IOException when index exists but can't be read
+     */
+    public static Optional<ExtensionIndex> read(Path pluginImplementationDirectory) throws IOException {
+        Path indexFile = pluginImplementationDirectory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(indexFile)) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = Files.newInputStream(indexFile)) {
+            return Optional.of(read(inputStream));
+        }
+    }
+
+    /**
+     * Reads index embedded to plugin implementation archive
+     *
+     * @param pluginImplementationArchive archive with plugin classes
+     * @return extension index or empty if plugin has no index
+     * @throws IOException when index exists but can't be read
+     */
+    public static Optional<ExtensionIndex> read(ZipArchive pluginImplementationArchive) throws IOException {
+        Optional<ZipArchive.Entry> indexEntry = pluginImplementationArchive.getEntry(INDEX_FILE);
+        if (!indexEntry.isPresent()) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = pluginImplementationArchive.getInputStream(indexEntry.get())) {
+            return Optional.of(read(inputStream));
+        }
+    }
+
+    /**
+     * Reads index from stream. Stream is not closed.
+     *
+     * @param inputStream stream with index contents
+     * @return extension index
+     * @throws IOException when index can't be read
+     */
+    public static ExtensionIndex read(InputStream inputStream) throws IOException {
+        ExtensionIndex extensionIndex = new ExtensionIndex();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            String[] columns = line.split(COLUMNS_DELIMITER, -1);
+            if (columns.length != 3) {
+                throw new IOException(String.format("Invalid extensions index line: %s", line));
+            }
+            extensionIndex.addClass(columns[0], splitNames(columns[1]), splitNames(columns[2]));
+        }
+        return extensionIndex;
+    }
+
+    /**
+     * Writes index to file
+     *
+     * @param indexFile file to write to
+     * @throws IOException when file can't be written
+     */
+    public void write(Path indexFile) throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (String className : supertypes.keySet()) {
+                writer.write(className);
+                writer.write(COLUMNS_DELIMITER);
+                writer.write(String.join(NAMES_DELIMITER, getSupertypes(className)));
+                writer.write(COLUMNS_DELIMITER);
+                writer.write(String.join(NAMES_DELIMITER, getAnnotations(className)));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static List<String> splitNames(String names) {
+        return Arrays.stream(names.split(NAMES_DELIMITER))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+}
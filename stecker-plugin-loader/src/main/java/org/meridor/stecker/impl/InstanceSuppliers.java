@@ -0,0 +1,128 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginException;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Creates suppliers calling public no-argument constructor of implementation class. On Java 9+ supplier is generated
+ * with {@link LambdaMetafactory} in the context of implementation class, so it is defined in the plugin class loader
+ * and calling it costs the same as calling <b>new</b> directly. On Java 8 and when lambda can't be generated supplier
+ * falls back to cached {@link MethodHandle}.
+ */
+public final class InstanceSuppliers {
+
+    private static final String SUPPLIER_METHOD_NAME = "get";
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class);
+
+    private static final MethodType SUPPLIER_FACTORY_TYPE = MethodType.methodType(Supplier.class);
+
+    private static final MethodType SUPPLIER_METHOD_TYPE = MethodType.methodType(Object.class);
+
+    private static final Optional<Method> PRIVATE_LOOKUP_IN = getPrivateLookupIn();
+
+    private InstanceSuppliers() {
+    }
+
+    /**
+     * Returns supplier creating new instance of implementation class on every call. Exceptions thrown by constructor
+     * are rethrown by supplier as is.
+     *
+     * @param implementation implementation class having public no-argument constructor
+     * @param <T>            implementation type
+     * @return instances supplier
+     * @throws PluginException when class is abstract or has no public no-argument constructor
+     */
+    public static <T> Supplier<T> of(Class<T> implementation) throws PluginException {
+        if (implementation.isInterface() || Modifier.isAbstract(implementation.getModifiers())) {
+            throw new PluginException(String.format("Can't instantiate abstract class %s", implementation.getName()));
+        }
+        Constructor<T> constructor;
+        try {
+            constructor = implementation.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new PluginException(String.format("Class %s has no public no-argument constructor", implementation.getName()), e);
+        }
+        if (PRIVATE_LOOKUP_IN.isPresent()) {
+            try {
+                return createLambdaSupplier(PRIVATE_LOOKUP_IN.get(), implementation);
+            } catch (Throwable e) {
+                //E.g. class is not public or security manager denies private access
+            }
+        }
+        try {
+            return new MethodHandleSupplier<>(MethodHandles.publicLookup().unreflectConstructor(constructor));
+        } catch (IllegalAccessException e) {
+            throw new PluginException(String.format("Constructor of %s is not accessible", implementation.getName()), e);
+        }
+    }
+
+    /**
+     * Lambda classes are defined in the same class loader as lookup class, so lookup should have private access to
+     * implementation class itself. Java 8 has no public API for this.
+     */
+    private static Optional<Method> getPrivateLookupIn() {
+        try {
+            return Optional.of(MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class));
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> createLambdaSupplier(Method privateLookupIn, Class<T> implementation) throws Throwable {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = (MethodHandles.Lookup) privateLookupIn.invoke(null, implementation, MethodHandles.lookup());
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        CallSite callSite = LambdaMetafactory.metafactory(
+                lookup,
+                SUPPLIER_METHOD_NAME,
+                SUPPLIER_FACTORY_TYPE,
+                SUPPLIER_METHOD_TYPE,
+                lookup.findConstructor(implementation, CONSTRUCTOR_TYPE),
+                MethodType.methodType(implementation)
+        );
+        return (Supplier<T>) callSite.getTarget().invokeExact();
+    }
+
+    private static class MethodHandleSupplier<T> implements Supplier<T> {
+
+        private final MethodHandle constructor;
+
+        MethodHandleSupplier(MethodHandle constructor) {
+            this.constructor = constructor.asType(SUPPLIER_METHOD_TYPE);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get() {
+            try {
+                return (T) constructor.invokeExact();
+            } catch (Throwable e) {
+                //Checked exceptions are rethrown as is, like lambda supplier does
+                throw MethodHandleSupplier.<RuntimeException>rethrow(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E extends Throwable> E rethrow(Throwable e) throws E {
+            throw (E) e;
+        }
+
+    }
+
+}
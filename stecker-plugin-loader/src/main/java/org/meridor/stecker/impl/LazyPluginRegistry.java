@@ -0,0 +1,370 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.ExtensionPoint;
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.PluginRegistry;
+import org.meridor.stecker.interfaces.PluginImplementationsAware;
+import org.meridor.stecker.interfaces.PluginsAware;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable plugin registry which knows only plugin metadata at the beginning. Plugin is activated (unpacked and
+ * scanned) on first request of its implementations, class loader or resources. Dependencies are activated before
+ * plugin itself. Requests not limited to one plugin, e.g. {@link #getImplementations(Class)}, activate all plugins.
+ * Concurrent requests activate every plugin only once. When activation fails {@link IllegalStateException} caused by
+ * {@link PluginException} is thrown and activation is tried again on next request.
+ */
+public final class LazyPluginRegistry implements PluginRegistry {
+
+    private static final String IMMUTABLE_MESSAGE = "Lazy plugin registry can't be modified";
+
+    private final Map<String, PluginMetadata> plugins;
+
+    private final List<String> pluginNames;
+
+    private final Map<String, LazyPlugin> lazyPlugins = new LinkedHashMap<>();
+
+    private final Activator activator;
+
+    private volatile PluginRegistrySnapshot activatedRegistry;
+
+    /**
+     * @param plugins         all plugins including the names of virtual dependencies they provide
+     * @param loadOrder       distinct plugins ordered so that dependencies go before dependent plugins
+     * @param dependencyGraph plugins each plugin requires
+     * @param fileStamps      plugin file stamps
+     * @param activations     already activated plugins, e.g. reused from previous registry
+     * @param activator       activates remaining plugins
+     */
+    public LazyPluginRegistry(
+            PluginsAware plugins,
+            List<PluginMetadata> loadOrder,
+            Map<PluginMetadata, List<PluginMetadata>> dependencyGraph,
+            Map<PluginMetadata, String> fileStamps,
+            Map<PluginMetadata, Activation> activations,
+            Activator activator
+    ) {
+        Map<String, PluginMetadata> allPlugins = new LinkedHashMap<>();
+        for (String pluginName : plugins.getPluginNames()) {
+            plugins.getPlugin(pluginName).ifPresent(pluginMetadata -> allPlugins.put(pluginName, pluginMetadata));
+        }
+        this.plugins = Collections.unmodifiableMap(allPlugins);
+        this.pluginNames = Collections.unmodifiableList(new ArrayList<>(allPlugins.keySet()));
+        this.activator = activator;
+        Map<PluginMetadata, LazyPlugin> createdPlugins = new IdentityHashMap<>();
+        for (PluginMetadata pluginMetadata : loadOrder) {
+            List<LazyPlugin> dependencies = new ArrayList<>();
+            for (PluginMetadata dependency : dependencyGraph.getOrDefault(pluginMetadata, Collections.emptyList())) {
+                dependencies.add(createdPlugins.get(dependency));
+            }
+            LazyPlugin lazyPlugin = new LazyPlugin(
+                    activator,
+                    pluginMetadata,
+                    fileStamps.get(pluginMetadata),
+                    dependencies,
+                    activations.get(pluginMetadata)
+            );
+            createdPlugins.put(pluginMetadata, lazyPlugin);
+            lazyPlugins.put(pluginMetadata.getName(), lazyPlugin);
+        }
+    }
+
+    private LazyPluginRegistry(Map<String, PluginMetadata> plugins, Map<String, LazyPlugin> lazyPlugins, Activator activator) {
+        this.plugins = Collections.unmodifiableMap(plugins);
+        this.pluginNames = Collections.unmodifiableList(new ArrayList<>(plugins.keySet()));
+        this.lazyPlugins.putAll(lazyPlugins);
+        this.activator = activator;
+    }
+
+    /**
+     * Returns registry without specified plugins. Remaining plugins share activation state with this registry.
+     *
+     * @param removedPluginNames names of plugins to remove
+     * @return new lazy registry
+     */
+    public LazyPluginRegistry without(Collection<String> removedPluginNames) {
+        Map<String, PluginMetadata> remainingPlugins = new LinkedHashMap<>();
+        plugins.forEach((pluginName, pluginMetadata) -> {
+            //Plugin is also registered under the name of virtual dependency it provides
+            if (!removedPluginNames.contains(pluginMetadata.getName())) {
+                remainingPlugins.put(pluginName, pluginMetadata);
+            }
+        });
+        Map<String, LazyPlugin> remainingLazyPlugins = new LinkedHashMap<>(lazyPlugins);
+        remainingLazyPlugins.keySet().removeAll(removedPluginNames);
+        return new LazyPluginRegistry(remainingPlugins, remainingLazyPlugins, activator);
+    }
+
+    /**
+     * Returns whether plugin classes and resources were already scanned
+     *
+     * @param pluginName plugin name
+     * @return true if plugin is activated
+     */
+    public boolean isActivated(String pluginName) {
+        Optional<LazyPlugin> lazyPlugin = getLazyPlugin(pluginName);
+        return lazyPlugin.isPresent() && lazyPlugin.get().isActivated();
+    }
+
+    /**
+     * Returns plugin file state at the moment plugin metadata was read
+     *
+     * @param pluginName plugin name
+     * @return file stamp or empty if not known
+     */
+    public Optional<String> getFileStamp(String pluginName) {
+        return getLazyPlugin(pluginName).map(LazyPlugin::getFileStamp);
+    }
+
+    /**
+     * Activates all plugins and returns registry with their contents
+     *
+     * @return snapshot of completely activated registry
+     */
+    public PluginRegistrySnapshot activate() {
+        PluginRegistrySnapshot snapshot = activatedRegistry;
+        if (snapshot == null) {
+            PluginRegistryContainer pluginRegistryContainer = new PluginRegistryContainer();
+            plugins.forEach(pluginRegistryContainer::putPlugin);
+            for (LazyPlugin lazyPlugin : lazyPlugins.values()) {
+                String pluginName = lazyPlugin.getPluginMetadata().getName();
+                Activation activation = lazyPlugin.getActivation();
+                activation.getImplementations().forEach((extensionPoint, implementationClasses) ->
+                        pluginRegistryContainer.putImplementations(pluginName, extensionPoint, implementationClasses)
+                );
+                pluginRegistryContainer.putClassLoader(pluginName, activation.getClassLoader());
+                pluginRegistryContainer.putResources(pluginName, activation.getResources());
+                pluginRegistryContainer.putFileStamp(pluginName, lazyPlugin.getFileStamp());
+            }
+            // Concurrent callers build equal snapshots, so any of them can be kept
+            snapshot = pluginRegistryContainer.freeze();
+            activatedRegistry = snapshot;
+        }
+        return snapshot;
+    }
+
+    private Optional<LazyPlugin> getLazyPlugin(String pluginName) {
+        PluginMetadata pluginMetadata = plugins.get(pluginName);
+        return (pluginMetadata != null) ?
+                Optional.ofNullable(lazyPlugins.get(pluginMetadata.getName())) :
+                Optional.empty();
+    }
+
+    private Optional<Activation> getActivation(String pluginName) {
+        return getLazyPlugin(pluginName).map(LazyPlugin::getActivation);
+    }
+
+    @Override
+    public void addImplementations(PluginMetadata pluginMetadata, Class extensionPoint, List<Class> implementationClasses) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public void addPlugin(PluginMetadata pluginMetadata) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public void addResources(PluginMetadata pluginMetadata, List<Path> resources) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public void addClassLoader(PluginMetadata pluginMetadata, ClassLoader classLoader) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public Optional<PluginMetadata> getPlugin(String pluginName) {
+        return Optional.ofNullable(plugins.get(pluginName));
+    }
+
+    @Override
+    public List<String> getPluginNames() {
+        return pluginNames;
+    }
+
+    @Override
+    public List<Class> getExtensionPoints() {
+        return activate().getExtensionPoints();
+    }
+
+    @Override
+    public List<Class> getImplementations(Class extensionPoint) {
+        return activate().getImplementations(extensionPoint);
+    }
+
+    @Override
+    public <T> ExtensionPoint<T> getExtensionPoint(Class<T> extensionPoint) {
+        return activate().getExtensionPoint(extensionPoint);
+    }
+
+    @Override
+    public List<Class> getExtensionPoints(String pluginName) {
+        return getActivation(pluginName)
+                .map(Activation::getExtensionPoints)
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Class> getImplementations(String pluginName, Class extensionPoint) {
+        return getActivation(pluginName)
+                .map(activation -> activation.getImplementations(extensionPoint))
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Path> getResources(String pluginName) {
+        return getActivation(pluginName)
+                .map(Activation::getResources)
+                .orElse(Collections.emptyList());
+    }
+
+    @Override
+    public List<Path> getResources() {
+        return activate().getResources();
+    }
+
+    @Override
+    public Optional<ClassLoader> getClassLoader(String pluginName) {
+        return getActivation(pluginName).map(Activation::getClassLoader);
+    }
+
+    /**
+     * Unpacks and scans one plugin
+     */
+    @FunctionalInterface
+    public interface Activator {
+
+        /**
+         * Activates plugin
+         *
+         * @param pluginMetadata         plugin to activate
+         * @param dependencyClassLoaders class loaders of already activated plugins this plugin depends on
+         * @return plugin contents
+         * @throws PluginException when plugin can't be scanned
+         */
+        Activation activate(PluginMetadata pluginMetadata, List<ClassLoader> dependencyClassLoaders) throws PluginException;
+
+    }
+
+    /**
+     * Contents of activated plugin
+     */
+    public static final class Activation {
+
+        private final ClassLoader classLoader;
+
+        private final Map<Class, List<Class>> implementations;
+
+        private final List<Class> extensionPoints;
+
+        private final List<Path> resources;
+
+        public Activation(ClassLoader classLoader, PluginImplementationsAware contents, List<Path> resources) {
+            this.classLoader = classLoader;
+            Map<Class, List<Class>> frozenImplementations = new LinkedHashMap<>();
+            for (Class extensionPoint : contents.getExtensionPoints()) {
+                frozenImplementations.put(
+                        extensionPoint,
+                        Collections.unmodifiableList(new ArrayList<>(contents.getImplementations(extensionPoint)))
+                );
+            }
+            this.implementations = Collections.unmodifiableMap(frozenImplementations);
+            this.extensionPoints = Collections.unmodifiableList(new ArrayList<>(frozenImplementations.keySet()));
+            this.resources = Collections.unmodifiableList(new ArrayList<>(resources));
+        }
+
+        ClassLoader getClassLoader() {
+            return classLoader;
+        }
+
+        Map<Class, List<Class>> getImplementations() {
+            return implementations;
+        }
+
+        List<Class> getImplementations(Class extensionPoint) {
+            return implementations.getOrDefault(extensionPoint, Collections.emptyList());
+        }
+
+        List<Class> getExtensionPoints() {
+            return extensionPoints;
+        }
+
+        List<Path> getResources() {
+            return resources;
+        }
+
+    }
+
+    private static final class LazyPlugin {
+
+        private final Activator activator;
+
+        private final PluginMetadata pluginMetadata;
+
+        private final String fileStamp;
+
+        private final List<LazyPlugin> dependencies;
+
+        private volatile Activation activation;
+
+        LazyPlugin(Activator activator, PluginMetadata pluginMetadata, String fileStamp, List<LazyPlugin> dependencies, Activation activation) {
+            this.activator = activator;
+            this.pluginMetadata = pluginMetadata;
+            this.fileStamp = fileStamp;
+            this.dependencies = dependencies;
+            this.activation = activation;
+        }
+
+        PluginMetadata getPluginMetadata() {
+            return pluginMetadata;
+        }
+
+        String getFileStamp() {
+            return fileStamp;
+        }
+
+        boolean isActivated() {
+            return activation != null;
+        }
+
+        Activation getActivation() {
+            Activation currentActivation = activation;
+            if (currentActivation != null) {
+                return currentActivation;
+            }
+            // Dependencies are activated before taking the lock: dependency graph has no cycles, so threads never
+            // wait for each other in a loop
+            List<ClassLoader> dependencyClassLoaders = new ArrayList<>();
+            for (LazyPlugin dependency : dependencies) {
+                ClassLoader classLoader = dependency.getActivation().getClassLoader();
+                if (classLoader != null) {
+                    dependencyClassLoaders.add(classLoader);
+                }
+            }
+            synchronized (this) {
+                if (activation == null) {
+                    try {
+                        activation = activator.activate(pluginMetadata, dependencyClassLoaders);
+                    } catch (PluginException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return activation;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.meridor.stecker.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps resource directories (i.e. packages) to class path sources containing them. Class loader asks only the sources
+ * a class or resource can be in instead of searching every library, and fails right away for unknown packages.
+ *
+ * @param <S> class path source type
+ */
+final class PackageIndex<S> {
+
+    private static final String SEPARATOR = "/";
+
+    private final Map<String, List<S>> sources = new HashMap<>();
+
+    /**
+     * Registers one entry of the source. Sources should be added in class path order.
+     *
+     * @param entryName entry name, e.g. <b>org/example/SomeClass.class</b> or <b>org/example/</b> for directory
+     * @param source    source containing the entry
+     */
+    void add(String entryName, S source) {
+        boolean isDirectory = entryName.endsWith(SEPARATOR);
+        String name = isDirectory ? entryName.substring(0, entryName.length() - SEPARATOR.length()) : entryName;
+        if (name.isEmpty()) {
+            return;
+        }
+        addPackage(getPackageName(name), source);
+        if (isDirectory) {
+            //Directory itself can be requested as a resource, e.g. when scanning class path
+            addPackage(name, source);
+        }
+    }
+
+    private void addPackage(String packageName, S source) {
+        List<S> packageSources = sources.computeIfAbsent(packageName, name -> new ArrayList<>(1));
+        if (packageSources.isEmpty() || packageSources.get(packageSources.size() - 1) != source) {
+            packageSources.add(source);
+        }
+    }
+
+    /**
+     * Returns sources which may contain resource
+     *
+     * @param resourceName resource name, e.g. <b>org/example/SomeClass.class</b>
+     * @return sources in class path order, empty when resource package is unknown
+     */
+    List<S> getSources(String resourceName) {
+        String name = resourceName.endsWith(SEPARATOR) ?
+                resourceName.substring(0, resourceName.length() - SEPARATOR.length()) :
+                resourceName;
+        return sources.getOrDefault(getPackageName(name), Collections.emptyList());
+    }
+
+    private static String getPackageName(String name) {
+        int lastSeparatorIndex = name.lastIndexOf(SEPARATOR);
+        return (lastSeparatorIndex != -1) ? name.substring(0, lastSeparatorIndex) : "";
+    }
+
+}
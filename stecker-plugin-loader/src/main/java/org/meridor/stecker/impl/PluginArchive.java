@@ -0,0 +1,109 @@
+package org.meridor.stecker.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Gives access to plugin implementation and libraries right inside the plugin file, i.e. without unpacking it.
+ * Plugin file is memory-mapped, so stored nested jars and their entries are just slices of the mapped buffer.
+ * Mapped plugin file should be replaced with a new file rather than overwritten in place: access to mapped region of
+ * truncated file crashes JVM.
+ */
+public class PluginArchive {
+
+    private static final String LIB_DIRECTORY_PREFIX = PluginUtils.LIB_DIRECTORY + ZipArchive.ENTRY_SEPARATOR;
+
+    private static final String JAR_FILE_EXTENSION = ".jar";
+
+    private final Path pluginFile;
+
+    private final ZipArchive implementationArchive;
+
+    private final Map<String, ZipArchive> libraryArchives;
+
+    private PluginArchive(Path pluginFile, ZipArchive implementationArchive, Map<String, ZipArchive> libraryArchives) {
+        this.pluginFile = pluginFile;
+        this.implementationArchive = implementationArchive;
+        this.libraryArchives = libraryArchives;
+    }
+
+    /**
+     * Opens plugin file and reads central directories of outer and nested archives
+     *
+     * @param pluginFile plugin file
+     * @return plugin archive
+     * @throws IOException when plugin file is not a valid plugin
+     */
+    public static PluginArchive open(Path pluginFile) throws IOException {
+        ZipArchive pluginArchive = new ZipArchive(map(pluginFile));
+
+        Optional<ZipArchive.Entry> implementationEntry = pluginArchive.getEntry(PluginUtils.PLUGIN_IMPLEMENTATION_FILE);
+        if (!implementationEntry.isPresent()) {
+            throw new IOException(String.format("Plugin file %s does not contain %s", pluginFile, PluginUtils.PLUGIN_IMPLEMENTATION_FILE));
+        }
+        ZipArchive implementationArchive = new ZipArchive(pluginArchive.getContents(implementationEntry.get()));
+
+        Map<String, ZipArchive> libraryArchives = new LinkedHashMap<>();
+        for (String entryName : pluginArchive.getEntryNames()) {
+            if (isLibrary(entryName)) {
+                ZipArchive.Entry entry = pluginArchive.getEntry(entryName).get();
+                libraryArchives.put(entryName, new ZipArchive(pluginArchive.getContents(entry)));
+            }
+        }
+
+        return new PluginArchive(pluginFile, implementationArchive, libraryArchives);
+    }
+
+    /**
+     * Memory-maps plugin file for reading
+     *
+     * @param pluginFile plugin file
+     * @return read-only buffer with file contents
+     * @throws IOException when file can't be mapped
+     */
+    static ByteBuffer map(Path pluginFile) throws IOException {
+        //Mapping stays valid after channel is closed and is released when buffer is garbage collected
+        try (FileChannel fileChannel = FileChannel.open(pluginFile, StandardOpenOption.READ)) {
+            if (fileChannel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Plugin file %s is larger than 2 GB", pluginFile));
+            }
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+        }
+    }
+
+    private static boolean isLibrary(String entryName) {
+        return
+                entryName.startsWith(LIB_DIRECTORY_PREFIX) &&
+                        entryName.toLowerCase().endsWith(JAR_FILE_EXTENSION) &&
+                        !entryName.substring(LIB_DIRECTORY_PREFIX.length()).contains(ZipArchive.ENTRY_SEPARATOR);
+    }
+
+    public Path getPluginFile() {
+        return pluginFile;
+    }
+
+    /**
+     * Returns archive corresponding to nested plugin.jar
+     *
+     * @return plugin implementation archive
+     */
+    public ZipArchive getImplementationArchive() {
+        return implementationArchive;
+    }
+
+    /**
+     * Returns archives from lib directory
+     *
+     * @return mapping from entry name (e.g. <b>lib/some.jar</b>) to archive
+     */
+    public Map<String, ZipArchive> getLibraryArchives() {
+        return libraryArchives;
+    }
+
+}
@@ -0,0 +1,268 @@
+package org.meridor.stecker.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.security.CodeSource;
+import java.security.SecureClassLoader;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads classes and resources right from {@link PluginArchive}, i.e. from jars nested into plugin file. Class loaders
+ * of plugins current plugin depends on are searched first, then libraries and then plugin implementation, the same
+ * way as {@link PluginClassLoader} does. Nested jars are indexed by package, so only jars containing requested package
+ * are searched. Like {@link PluginClassLoader} it is parallel capable.
+ */
+public class PluginArchiveClassLoader extends SecureClassLoader {
+
+    static {
+        //Locking per class name instead of locking the whole class loader
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    static final String URL_PROTOCOL = "stecker";
+
+    private static final String NESTED_ARCHIVE_SEPARATOR = "!/";
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final PluginArchive pluginArchive;
+
+    private final PackageIndex<Source> packageIndex = new PackageIndex<>();
+
+    private final DependencyClassLoaders dependencyClassLoaders;
+
+    private final AtomicInteger definedClassesCount = new AtomicInteger();
+
+    public PluginArchiveClassLoader(PluginArchive pluginArchive) throws IOException {
+        this(pluginArchive, Collections.emptyList());
+    }
+
+    /**
+     * Creates class loader delegating to class loaders of plugins current plugin depends on
+     *
+     * @param pluginArchive          opened plugin file
+     * @param dependencyClassLoaders class loaders searched after parent class loader and before plugin archive
+     * @throws IOException when plugin URL can't be created
+     */
+    public PluginArchiveClassLoader(PluginArchive pluginArchive, List<ClassLoader> dependencyClassLoaders) throws IOException {
+        super(ClassLoader.getSystemClassLoader());
+        this.pluginArchive = pluginArchive;
+        this.dependencyClassLoaders = new DependencyClassLoaders(dependencyClassLoaders);
+        String pluginUrl = pluginArchive.getPluginFile().toUri().toString();
+        for (Map.Entry<String, ZipArchive> libraryArchive : pluginArchive.getLibraryArchives().entrySet()) {
+            addSource(new Source(pluginUrl, libraryArchive.getKey(), libraryArchive.getValue()));
+        }
+        addSource(new Source(pluginUrl, PluginUtils.PLUGIN_IMPLEMENTATION_FILE, pluginArchive.getImplementationArchive()));
+    }
+
+    private void addSource(Source source) {
+        for (String entryName : source.getArchive().getEntryNames()) {
+            packageIndex.add(entryName, source);
+        }
+    }
+
+    public PluginArchive getPluginArchive() {
+        return pluginArchive;
+    }
+
+    /**
+     * Returns class loaders of plugins current plugin depends on
+     *
+     * @return a list of class loaders
+     */
+    public List<ClassLoader> getDependencyClassLoaders() {
+        return dependencyClassLoaders.getClassLoaders();
+    }
+
+    /**
+     * Returns number of classes defined by this class loader itself, i.e. not by parent or dependencies
+     *
+     * @return classes count
+     */
+    public int getDefinedClassesCount() {
+        return definedClassesCount.get();
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null) {
+                try {
+                    loadedClass = getParent().loadClass(name);
+                } catch (ClassNotFoundException e) {
+                    loadedClass = dependencyClassLoaders.loadClass(name);
+                    if (loadedClass == null) {
+                        loadedClass = findClass(name);
+                        definedClassesCount.incrementAndGet();
+                    }
+                }
+            }
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+            return loadedClass;
+        }
+    }
+
+    @Override
+    public URL getResource(String name) {
+        URL url = getParent().getResource(name);
+        if (url == null) {
+            url = dependencyClassLoaders.getResource(name);
+        }
+        if (url == null) {
+            url = findResource(name);
+        }
+        return url;
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+        return dependencyClassLoaders.getResources(getParent(), name, findResources(name));
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        String entryName = name.replace('.', '/') + CLASS_FILE_EXTENSION;
+        for (Source source : packageIndex.getSources(entryName)) {
+            Optional<ZipArchive.Entry> entry = source.getArchive().getEntry(entryName);
+            if (entry.isPresent()) {
+                try {
+                    ByteBuffer classBytes = source.getArchive().getContents(entry.get());
+                    definePackageIfNeeded(name);
+                    return defineClass(name, classBytes, source.getCodeSource());
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    private void definePackageIfNeeded(String className) {
+        int lastDotIndex = className.lastIndexOf('.');
+        if (lastDotIndex == -1) {
+            return;
+        }
+        String packageName = className.substring(0, lastDotIndex);
+        if (getPackage(packageName) == null) {
+            try {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            } catch (IllegalArgumentException e) {
+                //Package was defined concurrently
+            }
+        }
+    }
+
+    @Override
+    protected URL findResource(String name) {
+        for (Source source : packageIndex.getSources(name)) {
+            Optional<URL> url = source.getResource(name);
+            if (url.isPresent()) {
+                return url.get();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected Enumeration<URL> findResources(String name) {
+        List<URL> urls = new ArrayList<>();
+        for (Source source : packageIndex.getSources(name)) {
+            source.getResource(name).ifPresent(urls::add);
+        }
+        return Collections.enumeration(urls);
+    }
+
+    private static class Source {
+
+        private final ZipArchive archive;
+
+        private final String baseUrl;
+
+        private final CodeSource codeSource;
+
+        private final URLStreamHandler urlStreamHandler;
+
+        Source(String pluginUrl, String entryName, ZipArchive archive) throws MalformedURLException {
+            this.archive = archive;
+            this.urlStreamHandler = new ArchiveURLStreamHandler(archive);
+            this.baseUrl = pluginUrl + NESTED_ARCHIVE_SEPARATOR + entryName + NESTED_ARCHIVE_SEPARATOR;
+            this.codeSource = new CodeSource(createUrl(""), (Certificate[]) null);
+        }
+
+        ZipArchive getArchive() {
+            return archive;
+        }
+
+        CodeSource getCodeSource() {
+            return codeSource;
+        }
+
+        Optional<URL> getResource(String name) {
+            if (!archive.getEntry(name).isPresent()) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(createUrl(name));
+            } catch (MalformedURLException e) {
+                return Optional.empty();
+            }
+        }
+
+        private URL createUrl(String name) throws MalformedURLException {
+            return new URL(URL_PROTOCOL, null, -1, baseUrl + name, urlStreamHandler);
+        }
+
+    }
+
+    private static class ArchiveURLStreamHandler extends URLStreamHandler {
+
+        private final ZipArchive archive;
+
+        ArchiveURLStreamHandler(ZipArchive archive) {
+            this.archive = archive;
+        }
+
+        @Override
+        protected URLConnection openConnection(URL url) throws IOException {
+            String file = url.getFile();
+            String entryName = file.substring(file.lastIndexOf(NESTED_ARCHIVE_SEPARATOR) + NESTED_ARCHIVE_SEPARATOR.length());
+            Optional<ZipArchive.Entry> entry = archive.getEntry(entryName);
+            if (!entry.isPresent()) {
+                throw new IOException(String.format("Entry %s not found", url));
+            }
+            return new URLConnection(url) {
+                @Override
+                public void connect() {
+                    connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    return archive.getInputStream(entry.get());
+                }
+
+                @Override
+                public int getContentLength() {
+                    return (int) entry.get().getSize();
+                }
+            };
+        }
+
+    }
+
+}
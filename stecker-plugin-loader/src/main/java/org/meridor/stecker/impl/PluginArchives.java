@@ -0,0 +1,33 @@
+package org.meridor.stecker.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps opened plugin archives during one loader run so that classes and resources scanners share the same mapping
+ * and parsed central directories of every plugin file
+ */
+public class PluginArchives {
+
+    private final Map<Path, PluginArchive> pluginArchives = new ConcurrentHashMap<>();
+
+    /**
+     * Returns plugin archive for plugin file opening it on first request
+     *
+     * @param pluginFile plugin file
+     * @return plugin archive
+     * @throws IOException when plugin file is not a valid plugin
+     */
+    public PluginArchive get(Path pluginFile) throws IOException {
+        PluginArchive pluginArchive = pluginArchives.get(pluginFile);
+        if (pluginArchive != null) {
+            return pluginArchive;
+        }
+        pluginArchive = PluginArchive.open(pluginFile);
+        PluginArchive previousPluginArchive = pluginArchives.putIfAbsent(pluginFile, pluginArchive);
+        return (previousPluginArchive != null) ? previousPluginArchive : pluginArchive;
+    }
+
+}
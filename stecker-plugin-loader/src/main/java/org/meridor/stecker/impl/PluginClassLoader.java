@@ -0,0 +1,494 @@
+package org.meridor.stecker.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Loads classes of unpacked plugin. Classes are searched in parent class loader first, then in class loaders of
+ * plugins current plugin depends on and finally in plugin libraries and implementation. Libraries and implementation
+ * directory are indexed by package once when class loader is created, so that every lookup goes straight to the
+ * library containing requested package and lookups of unknown packages fail without reading any library. Class
+ * loader is parallel capable: threads loading different classes don't wait for each other.
+ */
+public class PluginClassLoader extends URLClassLoader {
+
+    static {
+        //Locking per class name instead of locking the whole class loader
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private static final String FILE_PROTOCOL = "file";
+
+    private final DependencyClassLoaders dependencyClassLoaders;
+
+    private final AtomicInteger definedClassesCount = new AtomicInteger();
+
+    private final List<Source> sources = new ArrayList<>();
+
+    private final PackageIndex<Source> packageIndex;
+
+    private volatile boolean isClosed;
+
+    public PluginClassLoader(URL[] urls, List<ClassLoader> dependencyClassLoaders) {
+        this(urls, ClassLoader.getSystemClassLoader(), dependencyClassLoaders);
+    }
+
+    public PluginClassLoader(URL[] urls, ClassLoader parent, List<ClassLoader> dependencyClassLoaders) {
+        this(urls, parent, dependencyClassLoaders, Collections.emptyMap());
+    }
+
+    /**
+     * Creates class loader which indexes already listed directories without walking them again
+     *
+     * @param urls                   libraries and directories to load classes from
+     * @param parent                 parent class loader
+     * @param dependencyClassLoaders class loaders of plugins current plugin depends on
+     * @param directoryFiles         mapping from directory to all regular files inside it, e.g. from
+     *                               {@link UnpackedPlugin#getImplementationFiles()}
+     */
+    public PluginClassLoader(URL[] urls, ClassLoader parent, List<ClassLoader> dependencyClassLoaders, Map<Path, List<Path>> directoryFiles) {
+        super(urls, parent);
+        this.dependencyClassLoaders = new DependencyClassLoaders(dependencyClassLoaders);
+        this.packageIndex = createPackageIndex(urls, directoryFiles);
+    }
+
+    private PackageIndex<Source> createPackageIndex(URL[] urls, Map<Path, List<Path>> directoryFiles) {
+        PackageIndex<Source> packageIndex = new PackageIndex<>();
+        try {
+            for (URL url : urls) {
+                if (!FILE_PROTOCOL.equals(url.getProtocol())) {
+                    //Only local files can be indexed
+                    closeSources();
+                    return null;
+                }
+                Path path = Paths.get(url.toURI());
+                if (Files.isDirectory(path)) {
+                    List<Path> files = getDirectoryFiles(directoryFiles, path);
+                    sources.add(new DirectorySource(path, files, packageIndex));
+                } else if (Files.isRegularFile(path)) {
+                    sources.add(new JarSource(path, packageIndex));
+                }
+            }
+            return packageIndex;
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            //Falling back to searching every URL like URLClassLoader does
+            closeSources();
+            return null;
+        }
+    }
+
+    private static List<Path> getDirectoryFiles(Map<Path, List<Path>> directoryFiles, Path directory) {
+        Path normalizedDirectory = directory.toAbsolutePath().normalize();
+        for (Map.Entry<Path, List<Path>> entry : directoryFiles.entrySet()) {
+            if (entry.getKey().toAbsolutePath().normalize().equals(normalizedDirectory)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns class loaders of plugins current plugin depends on
+     *
+     * @return a list of class loaders
+     */
+    public List<ClassLoader> getDependencyClassLoaders() {
+        return dependencyClassLoaders.getClassLoaders();
+    }
+
+    /**
+     * Returns number of classes defined by this class loader itself, i.e. not by parent or dependencies
+     *
+     * @return classes count
+     */
+    public int getDefinedClassesCount() {
+        return definedClassesCount.get();
+    }
+
+    /**
+     * Returns whether libraries and implementation directory are indexed by package
+     *
+     * @return false if some URL is not a local file or class loader is closed, so lookups search every URL
+     */
+    public boolean isIndexed() {
+        return packageIndex != null && !isClosed;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null) {
+                try {
+                    loadedClass = getParent().loadClass(name);
+                } catch (ClassNotFoundException e) {
+                    loadedClass = dependencyClassLoaders.loadClass(name);
+                    if (loadedClass == null) {
+                        loadedClass = findClass(name);
+                        definedClassesCount.incrementAndGet();
+                    }
+                }
+            }
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+            return loadedClass;
+        }
+    }
+
+    @Override
+    public URL getResource(String name) {
+        URL url = getParent().getResource(name);
+        if (url == null) {
+            url = dependencyClassLoaders.getResource(name);
+        }
+        if (url == null) {
+            url = findResource(name);
+        }
+        return url;
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+        return dependencyClassLoaders.getResources(getParent(), name, findResources(name));
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        if (!isIndexed()) {
+            return super.findClass(name);
+        }
+        String entryName = name.replace('.', '/') + CLASS_FILE_EXTENSION;
+        for (Source source : packageIndex.getSources(entryName)) {
+            try {
+                byte[] classBytes = source.read(entryName);
+                if (classBytes != null) {
+                    definePackageIfNeeded(name, source);
+                    return defineClass(name, classBytes, 0, classBytes.length, source.getCodeSource(entryName));
+                }
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    private void definePackageIfNeeded(String className, Source source) throws IOException {
+        int lastDotIndex = className.lastIndexOf('.');
+        if (lastDotIndex == -1) {
+            return;
+        }
+        String packageName = className.substring(0, lastDotIndex);
+        if (getPackage(packageName) == null) {
+            try {
+                Manifest manifest = source.getManifest();
+                if (manifest != null) {
+                    definePackage(packageName, manifest, source.getUrl());
+                } else {
+                    definePackage(packageName, null, null, null, null, null, null, null);
+                }
+            } catch (IllegalArgumentException e) {
+                //Package was defined concurrently
+            }
+        }
+    }
+
+    @Override
+    public URL findResource(String name) {
+        if (!isIndexed()) {
+            return super.findResource(name);
+        }
+        for (Source source : packageIndex.getSources(name)) {
+            URL url = source.getResource(name);
+            if (url != null) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        if (!isIndexed()) {
+            return super.findResources(name);
+        }
+        List<URL> urls = new ArrayList<>();
+        for (Source source : packageIndex.getSources(name)) {
+            URL url = source.getResource(name);
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        return Collections.enumeration(urls);
+    }
+
+    @Override
+    public void close() throws IOException {
+        isClosed = true;
+        try {
+            closeSources();
+        } finally {
+            super.close();
+        }
+    }
+
+    private void closeSources() {
+        for (Source source : sources) {
+            try {
+                source.close();
+            } catch (IOException e) {
+                //Nothing to do with it
+            }
+        }
+        sources.clear();
+    }
+
+    private static String encode(String name) {
+        try {
+            return new URI(null, null, name, null).getRawPath();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private interface Source {
+
+        /**
+         * Returns entry contents
+         *
+         * @param name entry name
+         * @return entry bytes or null if missing
+         * @throws IOException when entry can't be read
+         */
+        byte[] read(String name) throws IOException;
+
+        /**
+         * Returns code source of already read entry
+         *
+         * @param name entry name
+         * @return code source with entry signers if any
+         */
+        CodeSource getCodeSource(String name);
+
+        URL getResource(String name);
+
+        URL getUrl();
+
+        Manifest getManifest() throws IOException;
+
+        void close() throws IOException;
+
+    }
+
+    private static class JarSource implements Source {
+
+        private static final String JAR_PROTOCOL_PREFIX = "jar:";
+
+        private static final String JAR_ENTRY_SEPARATOR = "!/";
+
+        private final JarFile jarFile;
+
+        private final URL url;
+
+        private final String baseUrl;
+
+        private final CodeSource codeSource;
+
+        JarSource(Path file, PackageIndex<Source> packageIndex) throws IOException {
+            this.jarFile = new JarFile(file.toFile());
+            this.url = file.toUri().toURL();
+            this.baseUrl = JAR_PROTOCOL_PREFIX + url + JAR_ENTRY_SEPARATOR;
+            this.codeSource = new CodeSource(url, (Certificate[]) null);
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                packageIndex.add(entries.nextElement().getName(), this);
+            }
+        }
+
+        @Override
+        public byte[] read(String name) throws IOException {
+            JarEntry entry = jarFile.getJarEntry(name);
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream(
+                        entry.getSize() > 0 ? (int) entry.getSize() : 8192
+                );
+                byte[] buffer = new byte[8192];
+                int bytesCount;
+                while ((bytesCount = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, bytesCount);
+                }
+                return outputStream.toByteArray();
+            }
+        }
+
+        @Override
+        public CodeSource getCodeSource(String name) {
+            //Signers are known only after entry was completely read
+            JarEntry entry = jarFile.getJarEntry(name);
+            CodeSigner[] codeSigners = (entry != null) ? entry.getCodeSigners() : null;
+            return (codeSigners != null) ? new CodeSource(url, codeSigners) : codeSource;
+        }
+
+        @Override
+        public URL getResource(String name) {
+            String encodedName = encode(name);
+            if (encodedName == null || jarFile.getEntry(name) == null) {
+                return null;
+            }
+            try {
+                return new URL(baseUrl + encodedName);
+            } catch (MalformedURLException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public Manifest getManifest() throws IOException {
+            return jarFile.getManifest();
+        }
+
+        @Override
+        public void close() throws IOException {
+            jarFile.close();
+        }
+
+    }
+
+    private static class DirectorySource implements Source {
+
+        private final Path directory;
+
+        private final URL url;
+
+        private final CodeSource codeSource;
+
+        DirectorySource(Path directory, List<Path> files, PackageIndex<Source> packageIndex) throws IOException {
+            this.directory = directory.toAbsolutePath().normalize();
+            this.url = directory.toUri().toURL();
+            this.codeSource = new CodeSource(url, (Certificate[]) null);
+            if (files != null) {
+                index(files, packageIndex);
+                return;
+            }
+            Files.walkFileTree(this.directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                    packageIndex.add(getEntryName(dir) + "/", DirectorySource.this);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    packageIndex.add(getEntryName(file), DirectorySource.this);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        /**
+         * Indexes files listed by someone who has already walked the directory. Empty directories are not listed,
+         * so only directories containing files are indexed.
+         */
+        private void index(List<Path> files, PackageIndex<Source> packageIndex) {
+            Set<Path> indexedDirectories = new HashSet<>();
+            for (Path file : files) {
+                Path normalizedFile = file.toAbsolutePath().normalize();
+                if (!normalizedFile.startsWith(directory)) {
+                    continue;
+                }
+                packageIndex.add(getEntryName(normalizedFile), this);
+                Path parent = normalizedFile.getParent();
+                while (parent != null && parent.startsWith(directory) && indexedDirectories.add(parent)) {
+                    packageIndex.add(getEntryName(parent) + "/", this);
+                    parent = parent.getParent();
+                }
+            }
+        }
+
+        private String getEntryName(Path path) {
+            return directory.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+        }
+
+        private Path getFile(String name) {
+            Path file = directory.resolve(name).normalize();
+            return file.startsWith(directory) && Files.exists(file) ? file : null;
+        }
+
+        @Override
+        public byte[] read(String name) throws IOException {
+            Path file = getFile(name);
+            return (file != null && Files.isRegularFile(file)) ? Files.readAllBytes(file) : null;
+        }
+
+        @Override
+        public CodeSource getCodeSource(String name) {
+            return codeSource;
+        }
+
+        @Override
+        public URL getResource(String name) {
+            Path file = getFile(name);
+            if (file == null) {
+                return null;
+            }
+            try {
+                return file.toUri().toURL();
+            } catch (MalformedURLException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public Manifest getManifest() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            //Nothing to close
+        }
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.interfaces.PluginLoadListener;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passes every event to a list of listeners
+ */
+public class PluginLoadListeners implements PluginLoadListener {
+
+    private final List<PluginLoadListener> listeners;
+
+    public PluginLoadListeners(List<PluginLoadListener> listeners) {
+        this.listeners = new ArrayList<>(listeners);
+    }
+
+    public boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    @Override
+    public void onLoadStarted() {
+        listeners.forEach(PluginLoadListener::onLoadStarted);
+    }
+
+    @Override
+    public void onPluginsProvided(int pluginsCount, long durationNanos) {
+        listeners.forEach(listener -> listener.onPluginsProvided(pluginsCount, durationNanos));
+    }
+
+    @Override
+    public void onManifestRead(Path pluginFile, long durationNanos) {
+        listeners.forEach(listener -> listener.onManifestRead(pluginFile, durationNanos));
+    }
+
+    @Override
+    public void onDependenciesChecked(PluginMetadata pluginMetadata, long durationNanos) {
+        listeners.forEach(listener -> listener.onDependenciesChecked(pluginMetadata, durationNanos));
+    }
+
+    @Override
+    public void onPluginUnpacked(Path pluginFile, boolean cacheHit, long durationNanos) {
+        listeners.forEach(listener -> listener.onPluginUnpacked(pluginFile, cacheHit, durationNanos));
+    }
+
+    @Override
+    public void onClassesScanned(PluginMetadata pluginMetadata, int visitedClassesCount, int loadedClassesCount, long durationNanos) {
+        listeners.forEach(listener -> listener.onClassesScanned(pluginMetadata, visitedClassesCount, loadedClassesCount, durationNanos));
+    }
+
+    @Override
+    public void onResourcesScanned(PluginMetadata pluginMetadata, int resourcesCount, long durationNanos) {
+        listeners.forEach(listener -> listener.onResourcesScanned(pluginMetadata, resourcesCount, durationNanos));
+    }
+
+    @Override
+    public void onLoadFinished(int pluginsCount, long durationNanos) {
+        listeners.forEach(listener -> listener.onLoadFinished(pluginsCount, durationNanos));
+    }
+
+}
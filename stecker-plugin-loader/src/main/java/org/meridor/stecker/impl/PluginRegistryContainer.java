@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,13 +26,11 @@ public class PluginRegistryContainer implements PluginRegistry {
 
     private final Map<String, ClassLoader> classLoaders = new HashMap<>();
 
+    private final Map<String, String> fileStamps = new HashMap<>();
+
     @Override
     public void addImplementations(PluginMetadata pluginMetadata, Class extensionPoint, List<Class> implementationClasses) {
-        if (!registry.containsKey(pluginMetadata.getName())) {
-            registry.put(pluginMetadata.getName(), new ClassesRegistry(extensionPoint, implementationClasses));
-        } else {
-            registry.get(pluginMetadata.getName()).addImplementations(extensionPoint, implementationClasses);
-        }
+        putImplementations(pluginMetadata.getName(), extensionPoint, implementationClasses);
     }
 
     @Override
@@ -121,4 +120,84 @@ public class PluginRegistryContainer implements PluginRegistry {
     public Optional<ClassLoader> getClassLoader(String pluginName) {
         return Optional.ofNullable(classLoaders.get(pluginName));
     }
+
+    /**
+     * Saves plugin file state at the moment plugin was scanned
+     *
+     * @param pluginMetadata plugin metadata object
+     * @param fileStamp      plugin file stamp as returned by {@link PluginUtils#getFileStamp(Path)}
+     */
+    public void addFileStamp(PluginMetadata pluginMetadata, String fileStamp) {
+        fileStamps.put(pluginMetadata.getName(), fileStamp);
+    }
+
+    /**
+     * Returns plugin file state at the moment plugin was scanned
+     *
+     * @param pluginName plugin name
+     * @return file stamp or empty if not known
+     */
+    public Optional<String> getFileStamp(String pluginName) {
+        return Optional.ofNullable(fileStamps.get(pluginName));
+    }
+
+    /**
+     * Removes plugin and everything registered for it
+     *
+     * @param pluginName plugin name
+     */
+    public void removePlugin(String pluginName) {
+        PluginMetadata pluginMetadata = plugins.get(pluginName);
+        if (pluginMetadata != null) {
+            //Plugin is also registered under the name of virtual dependency it provides
+            plugins.values().removeIf(anotherPluginMetadata -> anotherPluginMetadata == pluginMetadata);
+            pluginName = pluginMetadata.getName();
+        }
+        registry.remove(pluginName);
+        resources.remove(pluginName);
+        classLoaders.remove(pluginName);
+        fileStamps.remove(pluginName);
+    }
+
+    /**
+     * Returns immutable thread-safe copy of this registry. Further changes of this registry do not affect the copy.
+     *
+     * @return registry snapshot
+     */
+    public PluginRegistrySnapshot freeze() {
+        Map<String, Map<Class, List<Class>>> implementations = new LinkedHashMap<>();
+        registry.forEach((pluginName, classesRegistry) -> {
+            Map<Class, List<Class>> pluginImplementations = new LinkedHashMap<>();
+            for (Class extensionPoint : classesRegistry.getExtensionPoints()) {
+                pluginImplementations.put(extensionPoint, classesRegistry.getImplementations(extensionPoint));
+            }
+            implementations.put(pluginName, pluginImplementations);
+        });
+        return new PluginRegistrySnapshot(plugins, implementations, resources, classLoaders, fileStamps);
+    }
+
+    void putPlugin(String pluginName, PluginMetadata pluginMetadata) {
+        plugins.put(pluginName, pluginMetadata);
+    }
+
+    void putImplementations(String pluginName, Class extensionPoint, List<Class> implementationClasses) {
+        if (!registry.containsKey(pluginName)) {
+            registry.put(pluginName, new ClassesRegistry(extensionPoint, implementationClasses));
+        } else {
+            registry.get(pluginName).addImplementations(extensionPoint, implementationClasses);
+        }
+    }
+
+    void putResources(String pluginName, List<Path> resourcesList) {
+        resources.put(pluginName, new ArrayList<>(resourcesList));
+    }
+
+    void putClassLoader(String pluginName, ClassLoader classLoader) {
+        classLoaders.put(pluginName, classLoader);
+    }
+
+    void putFileStamp(String pluginName, String fileStamp) {
+        fileStamps.put(pluginName, fileStamp);
+    }
+
 }
@@ -0,0 +1,212 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.ExtensionPoint;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.PluginRegistry;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable plugin registry. All lists and extension point handles are computed once when snapshot is created, so reads
+ * never lock or allocate and snapshot can be safely shared between any number of threads. Use {@link #edit()} to derive
+ * a new snapshot with some changes applied.
+ */
+public final class PluginRegistrySnapshot implements PluginRegistry {
+
+    private static final String IMMUTABLE_MESSAGE = "Plugin registry snapshot can't be modified, use edit() instead";
+
+    private final Map<String, PluginMetadata> plugins;
+
+    private final List<String> pluginNames;
+
+    private final Map<String, Map<Class, List<Class>>> pluginImplementations;
+
+    private final Map<String, List<Class>> pluginExtensionPoints;
+
+    private final List<Class> extensionPoints;
+
+    private final Map<Class, List<Class>> implementations;
+
+    private final Map<Class, ExtensionPoint<?>> extensionPointHandles;
+
+    private final Map<String, List<Path>> resources;
+
+    private final List<Path> allResources;
+
+    private final Map<String, ClassLoader> classLoaders;
+
+    private final Map<String, String> fileStamps;
+
+    PluginRegistrySnapshot(
+            Map<String, PluginMetadata> plugins,
+            Map<String, ? extends Map<Class, List<Class>>> pluginImplementations,
+            Map<String, List<Path>> resources,
+            Map<String, ClassLoader> classLoaders,
+            Map<String, String> fileStamps
+    ) {
+        this.plugins = Collections.unmodifiableMap(new LinkedHashMap<>(plugins));
+        this.pluginNames = Collections.unmodifiableList(new ArrayList<>(plugins.keySet()));
+
+        Map<String, Map<Class, List<Class>>> frozenPluginImplementations = new LinkedHashMap<>();
+        Map<String, List<Class>> frozenPluginExtensionPoints = new LinkedHashMap<>();
+        Map<Class, Set<Class>> allImplementations = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Map<Class, List<Class>>> entry : pluginImplementations.entrySet()) {
+            Map<Class, List<Class>> frozenImplementations = new LinkedHashMap<>();
+            for (Map.Entry<Class, List<Class>> implementationsEntry : entry.getValue().entrySet()) {
+                frozenImplementations.put(
+                        implementationsEntry.getKey(),
+                        Collections.unmodifiableList(new ArrayList<>(implementationsEntry.getValue()))
+                );
+                allImplementations
+                        .computeIfAbsent(implementationsEntry.getKey(), extensionPoint -> new LinkedHashSet<>())
+                        .addAll(implementationsEntry.getValue());
+            }
+            frozenPluginImplementations.put(entry.getKey(), Collections.unmodifiableMap(frozenImplementations));
+            frozenPluginExtensionPoints.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(frozenImplementations.keySet())));
+        }
+        this.pluginImplementations = Collections.unmodifiableMap(frozenPluginImplementations);
+        this.pluginExtensionPoints = Collections.unmodifiableMap(frozenPluginExtensionPoints);
+        Map<Class, List<Class>> frozenAllImplementations = new LinkedHashMap<>();
+        for (Map.Entry<Class, Set<Class>> entry : allImplementations.entrySet()) {
+            frozenAllImplementations.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.implementations = Collections.unmodifiableMap(frozenAllImplementations);
+        Map<Class, ExtensionPoint<?>> frozenExtensionPointHandles = new HashMap<>();
+        for (Map.Entry<Class, List<Class>> entry : frozenAllImplementations.entrySet()) {
+            if (!entry.getKey().isAnnotation()) {
+                frozenExtensionPointHandles.put(entry.getKey(), ExtensionPoint.of((Class<?>) entry.getKey(), entry.getValue()));
+            }
+        }
+        this.extensionPointHandles = Collections.unmodifiableMap(frozenExtensionPointHandles);
+        this.extensionPoints = Collections.unmodifiableList(new ArrayList<>(frozenAllImplementations.keySet()));
+
+        Map<String, List<Path>> frozenResources = new LinkedHashMap<>();
+        List<Path> frozenAllResources = new ArrayList<>();
+        for (Map.Entry<String, List<Path>> entry : resources.entrySet()) {
+            frozenResources.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            frozenAllResources.addAll(entry.getValue());
+        }
+        this.resources = Collections.unmodifiableMap(frozenResources);
+        this.allResources = Collections.unmodifiableList(frozenAllResources);
+
+        this.classLoaders = Collections.unmodifiableMap(new LinkedHashMap<>(classLoaders));
+        this.fileStamps = Collections.unmodifiableMap(new LinkedHashMap<>(fileStamps));
+    }
+
+    /**
+     * Returns mutable copy of this snapshot. Call {@link PluginRegistryContainer#freeze()} on it to get a new
+     * snapshot, this snapshot is never changed.
+     *
+     * @return mutable registry with the same contents
+     */
+    public PluginRegistryContainer edit() {
+        PluginRegistryContainer pluginRegistryContainer = new PluginRegistryContainer();
+        plugins.forEach(pluginRegistryContainer::putPlugin);
+        pluginImplementations.forEach((pluginName, contents) ->
+                contents.forEach((extensionPoint, implementationClasses) ->
+                        pluginRegistryContainer.putImplementations(pluginName, extensionPoint, implementationClasses)
+                )
+        );
+        resources.forEach(pluginRegistryContainer::putResources);
+        classLoaders.forEach(pluginRegistryContainer::putClassLoader);
+        fileStamps.forEach(pluginRegistryContainer::putFileStamp);
+        return pluginRegistryContainer;
+    }
+
+    @Override
+    public void addImplementations(PluginMetadata pluginMetadata, Class extensionPoint, List<Class> implementationClasses) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public void addPlugin(PluginMetadata pluginMetadata) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public void addResources(PluginMetadata pluginMetadata, List<Path> resources) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public void addClassLoader(PluginMetadata pluginMetadata, ClassLoader classLoader) {
+        throw new UnsupportedOperationException(IMMUTABLE_MESSAGE);
+    }
+
+    @Override
+    public Optional<PluginMetadata> getPlugin(String pluginName) {
+        return Optional.ofNullable(plugins.get(pluginName));
+    }
+
+    @Override
+    public List<String> getPluginNames() {
+        return pluginNames;
+    }
+
+    @Override
+    public List<Class> getExtensionPoints() {
+        return extensionPoints;
+    }
+
+    @Override
+    public List<Class> getImplementations(Class extensionPoint) {
+        return implementations.getOrDefault(extensionPoint, Collections.emptyList());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ExtensionPoint<T> getExtensionPoint(Class<T> extensionPoint) {
+        ExtensionPoint<T> extensionPointHandle = (ExtensionPoint<T>) extensionPointHandles.get(extensionPoint);
+        return (extensionPointHandle != null) ?
+                extensionPointHandle :
+                ExtensionPoint.empty(extensionPoint);
+    }
+
+    @Override
+    public List<Class> getExtensionPoints(String pluginName) {
+        return pluginExtensionPoints.getOrDefault(pluginName, Collections.emptyList());
+    }
+
+    @Override
+    public List<Class> getImplementations(String pluginName, Class extensionPoint) {
+        Map<Class, List<Class>> contents = pluginImplementations.get(pluginName);
+        return (contents != null) ?
+                contents.getOrDefault(extensionPoint, Collections.emptyList()) :
+                Collections.emptyList();
+    }
+
+    @Override
+    public List<Path> getResources(String pluginName) {
+        return resources.getOrDefault(pluginName, Collections.emptyList());
+    }
+
+    @Override
+    public List<Path> getResources() {
+        return allResources;
+    }
+
+    @Override
+    public Optional<ClassLoader> getClassLoader(String pluginName) {
+        return Optional.ofNullable(classLoaders.get(pluginName));
+    }
+
+    /**
+     * Returns plugin file state at the moment plugin was scanned
+     *
+     * @param pluginName plugin name
+     * @return file stamp or empty if not known
+     */
+    public Optional<String> getFileStamp(String pluginName) {
+        return Optional.ofNullable(fileStamps.get(pluginName));
+    }
+
+}
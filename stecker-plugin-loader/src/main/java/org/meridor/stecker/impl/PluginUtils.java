@@ -5,9 +5,11 @@ import org.meridor.stecker.interfaces.PluginImplementationsAware;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -15,17 +17,22 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class PluginUtils {
 
@@ -36,32 +43,199 @@ public class PluginUtils {
     private static final String PACKAGE_SEPARATOR = ".";
     private static final String CLASS_FILE_EXTENSION = ".class";
     private static final String JAR_DIRECTORY_SEPARATOR = "/";
-
+    private static final String FILE_STAMP_SEPARATOR = ":";
+    private static final String VERSION_DIRECTORY_SEPARATOR = "-";
+    private static final String TEMPORARY_DIRECTORY_PREFIX = ".unpacking-";
+
+    /**
+     * Unpacks plugin file to its own directory inside cache directory unless it's already unpacked. Every version of
+     * plugin file gets a separate directory, so files used by class loaders of previous version are not touched.
+     *
+     * @param pluginFile     plugin file
+     * @param cacheDirectory cache directory
+     * @return unpacked plugin directory
+     * @throws IOException when plugin can't be unpacked
+     * @see #getPluginVersionDirectory(Path, Path)
+     */
     public static Path unpackPlugin(Path pluginFile, Path cacheDirectory) throws IOException {
-        String pluginName = pluginFile.getFileName().toString().replace(JAR_FILE_EXTENSION, "");
-        Path pluginStorageDirectory = cacheDirectory.resolve(pluginName);
+        Path pluginVersionDirectory = getPluginVersionDirectory(pluginFile, cacheDirectory);
+        if (Files.isDirectory(pluginVersionDirectory)) {
+            return pluginVersionDirectory;
+        }
 
-        if (Files.exists(pluginStorageDirectory)) {
-            if (!Files.isDirectory(pluginStorageDirectory)) {
-                throw new IOException("Plugin cache directory is not a directory");
-            }
-            if (fileIsNewerThan(pluginStorageDirectory, pluginFile)) {
-                return pluginStorageDirectory;
-            }
-            FileSystemHelper.removeDirectory(pluginStorageDirectory);
+        Path unpackDirectory = createUnpackDirectory(pluginVersionDirectory);
+        try {
+            unpackJar(pluginFile, unpackDirectory);
+
+            Path pluginImplementationFilePath = unpackDirectory.resolve(PLUGIN_IMPLEMENTATION_FILE);
+            Path pluginImplementationDirectory = getPluginImplementationDirectory(unpackDirectory);
+
+            Files.createDirectories(pluginImplementationDirectory);
+            unpackJar(pluginImplementationFilePath, pluginImplementationDirectory);
+            Files.delete(pluginImplementationFilePath);
+        } catch (IOException e) {
+            removeDirectoryQuietly(unpackDirectory);
+            throw e;
         }
 
+        return moveUnpackDirectory(unpackDirectory, pluginVersionDirectory);
+    }
+
+    /**
+     * Creates temporary directory next to plugin version directory. Plugin is unpacked there and then moved to
+     * version directory at once, so partially unpacked directory is never used.
+     *
+     * @param pluginVersionDirectory directory plugin will be moved to
+     * @return empty temporary directory
+     * @throws IOException when directory can't be created
+     */
+    static Path createUnpackDirectory(Path pluginVersionDirectory) throws IOException {
+        Path pluginStorageDirectory = pluginVersionDirectory.getParent();
+        if (Files.exists(pluginStorageDirectory) && !Files.isDirectory(pluginStorageDirectory)) {
+            throw new IOException("Plugin cache directory is not a directory");
+        }
         Files.createDirectories(pluginStorageDirectory);
-        unpackJar(pluginFile, pluginStorageDirectory);
+        return Files.createTempDirectory(pluginStorageDirectory, TEMPORARY_DIRECTORY_PREFIX);
+    }
+
+    /**
+     * Moves completely unpacked plugin to its version directory
+     *
+     * @param unpackDirectory        directory returned by {@link #createUnpackDirectory(Path)}
+     * @param pluginVersionDirectory target directory
+     * @return version directory
+     * @throws IOException when directory can't be moved
+     */
+    static Path moveUnpackDirectory(Path unpackDirectory, Path pluginVersionDirectory) throws IOException {
+        try {
+            Files.move(unpackDirectory, pluginVersionDirectory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            removeDirectoryQuietly(unpackDirectory);
+            //The same version was unpacked concurrently, e.g. by another loader using the same cache directory
+            if (!Files.isDirectory(pluginVersionDirectory)) {
+                throw e;
+            }
+        }
+        return pluginVersionDirectory;
+    }
+
+    /**
+     * Returns whether plugin file is already unpacked to cache directory and was not changed since then
+     *
+     * @param pluginFile     plugin file
+     * @param cacheDirectory cache directory
+     * @return true if unpacking plugin again is not needed
+     * @throws IOException when plugin file attributes can't be read
+     */
+    public static boolean isUnpacked(Path pluginFile, Path cacheDirectory) throws IOException {
+        return Files.isDirectory(getPluginVersionDirectory(pluginFile, cacheDirectory));
+    }
+
+    /**
+     * Returns directory containing all unpacked versions of plugin file
+     *
+     * @param pluginFile     plugin file
+     * @param cacheDirectory cache directory
+     * @return plugin storage directory
+     */
+    public static Path getPluginStorageDirectory(Path pluginFile, Path cacheDirectory) {
+        String pluginName = pluginFile.getFileName().toString().replace(JAR_FILE_EXTENSION, "");
+        return cacheDirectory.resolve(pluginName);
+    }
 
-        Path pluginImplementationFilePath = pluginStorageDirectory.resolve(PLUGIN_IMPLEMENTATION_FILE);
-        Path pluginImplementationDirectory = getPluginImplementationDirectory(pluginStorageDirectory);
+    /**
+     * Returns directory current version of plugin file is unpacked to. Directory name is derived from plugin file
+     * stamp, so it changes whenever plugin file is replaced.
+     *
+     * @param pluginFile     plugin file
+     * @param cacheDirectory cache directory
+     * @return plugin version directory
+     * @throws IOException when plugin file attributes can't be read
+     */
+    public static Path getPluginVersionDirectory(Path pluginFile, Path cacheDirectory) throws IOException {
+        return getPluginVersionDirectory(pluginFile, cacheDirectory, getFileStamp(pluginFile));
+    }
 
-        Files.createDirectories(pluginImplementationDirectory);
-        unpackJar(pluginImplementationFilePath, pluginImplementationDirectory);
-        Files.delete(pluginImplementationFilePath);
+    /**
+     * Returns directory given version of plugin file is unpacked to
+     *
+     * @param pluginFile     plugin file
+     * @param cacheDirectory cache directory
+     * @param fileStamp      plugin file stamp as returned by {@link #getFileStamp(Path)}
+     * @return plugin version directory
+     */
+    public static Path getPluginVersionDirectory(Path pluginFile, Path cacheDirectory, String fileStamp) {
+        return getPluginStorageDirectory(pluginFile, cacheDirectory).resolve(fileStamp.replace(FILE_STAMP_SEPARATOR, VERSION_DIRECTORY_SEPARATOR));
+    }
 
-        return pluginStorageDirectory;
+    /**
+     * Returns directory unpacked plugin classes are loaded from by plugin class loader
+     *
+     * @param classLoader plugin class loader
+     * @return unpacked plugin directory or empty if class loader does not load classes from unpacked plugin
+     */
+    public static Optional<Path> getUnpackedPluginDirectory(ClassLoader classLoader) {
+        if (!(classLoader instanceof URLClassLoader)) {
+            return Optional.empty();
+        }
+        for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+            try {
+                Path path = Paths.get(url.toURI());
+                Path fileName = path.getFileName();
+                if (fileName != null && fileName.toString().equals(PLUGIN_IMPLEMENTATION_UNPACK_DIRECTORY)) {
+                    return Optional.ofNullable(path.getParent());
+                }
+            } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+                //Not a local file
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Removes unpacked plugin version directory and plugin storage directory when no other versions are left.
+     * Directory can't always be removed, e.g. files opened by just closed class loader are still locked on Windows:
+     * such directories are left as is.
+     *
+     * @param pluginVersionDirectory directory returned by {@link #getPluginVersionDirectory(Path, Path)}
+     */
+    public static void removePluginVersionDirectory(Path pluginVersionDirectory) {
+        removeDirectoryQuietly(pluginVersionDirectory);
+        try {
+            Files.deleteIfExists(pluginVersionDirectory.getParent());
+        } catch (IOException e) {
+            //Other versions are still there
+        }
+    }
+
+    /**
+     * Removes other unpacked versions of the same plugin file and temporary directories left by interrupted unpacking.
+     * Directories which can't be removed, e.g. still locked on Windows, are left as is.
+     *
+     * @param pluginVersionDirectory just unpacked plugin version directory
+     * @param usedDirectories        absolute version directories which are still used by loaded plugins
+     */
+    public static void removeStaleVersionDirectories(Path pluginVersionDirectory, Set<Path> usedDirectories) {
+        Path currentDirectory = pluginVersionDirectory.toAbsolutePath().normalize();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(currentDirectory.getParent(), Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (!directory.equals(currentDirectory) && !usedDirectories.contains(directory)) {
+                    removeDirectoryQuietly(directory);
+                }
+            }
+        } catch (IOException e) {
+            //Will be removed next time
+        }
+    }
+
+    static void removeDirectoryQuietly(Path directory) {
+        try {
+            if (Files.exists(directory)) {
+                FileSystemHelper.removeDirectory(directory);
+            }
+        } catch (IOException e) {
+            //Will be removed next time
+        }
     }
 
     private static void unpackJar(Path pluginFile, Path pluginStorageDirectory) throws IOException {
@@ -91,45 +265,173 @@ public class PluginUtils {
         }
     }
 
-    private static boolean fileIsNewerThan(Path file, Path anotherFile) throws IOException {
-        FileTime fileLastModificationTime = getLastModificationTime(file);
-        FileTime anotherFileLastModificationTime = getLastModificationTime(anotherFile);
-        return fileLastModificationTime.compareTo(anotherFileLastModificationTime) > 0;
-    }
-
     public static FileTime getLastModificationTime(Path path) throws IOException {
         return Files.readAttributes(path, BasicFileAttributes.class).lastModifiedTime();
     }
 
+    /**
+     * Returns a string which changes whenever file is modified: its size and last modification time
+     *
+     * @param file file to check
+     * @return file stamp
+     * @throws IOException when file attributes can't be read
+     */
+    public static String getFileStamp(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.size() + FILE_STAMP_SEPARATOR + attributes.lastModifiedTime().toMillis();
+    }
+
     public static Path getPluginImplementationDirectory(Path unpackedPluginDirectory) {
         return unpackedPluginDirectory.resolve(PLUGIN_IMPLEMENTATION_UNPACK_DIRECTORY);
     }
 
     public static List<Path> getMatchingFiles(Path pluginImplementationDirectory, String[] patterns) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(pluginImplementationDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return getMatchingFiles(files, patterns);
+    }
+
+    /**
+     * Filters already listed files using resources patterns
+     *
+     * @param files    a list of files
+     * @param patterns a list of patterns in {@link PathMatcher} format
+     * @return a list of matching files
+     */
+    public static List<Path> getMatchingFiles(List<Path> files, String[] patterns) {
         List<Path> matchingFiles = new ArrayList<>();
         List<PathMatcher> pathMatchers = Arrays.stream(patterns)
                 .map(FileSystems.getDefault()::getPathMatcher)
                 .collect(Collectors.toList());
 
-        Files.walkFileTree(pluginImplementationDirectory, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
-                for (PathMatcher pathMatcher : pathMatchers) {
-                    if (pathMatcher.matches(file)) {
-                        matchingFiles.add(file);
-                    }
+        for (Path file : files) {
+            for (PathMatcher pathMatcher : pathMatchers) {
+                if (pathMatcher.matches(file)) {
+                    matchingFiles.add(file);
                 }
-                return FileVisitResult.CONTINUE;
             }
-        });
+        }
 
         return matchingFiles;
     }
 
-
     public static PluginImplementationsAware getMatchingClasses(List<Class> extensionPoints, Path pluginImplementationDirectory, ClassLoader classLoader) throws Exception {
+        return getMatchingClasses(extensionPoints, pluginImplementationDirectory, getClassFiles(pluginImplementationDirectory), classLoader);
+    }
+
+    /**
+     * Does the same as {@link #getMatchingClasses(List, Path, ClassLoader)} for already listed class files
+     *
+     * @param extensionPoints               a list of extension point classes
+     * @param pluginImplementationDirectory directory with plugin classes
+     * @param classFiles                    class files from this directory
+     * @param classLoader                   plugin class loader
+     * @return mapping from extension point to implementations from a plugin
+     * @throws Exception when something goes wrong during classes scanning
+     */
+    public static PluginImplementationsAware getMatchingClasses(List<Class> extensionPoints, Path pluginImplementationDirectory, List<Path> classFiles, ClassLoader classLoader) throws Exception {
+        Map<Class, List<Class>> matchingClasses = new HashMap<>();
+
+        for (Path classFile : classFiles) {
+            String className = getClassName(pluginImplementationDirectory, classFile);
+            Class<?> currentClass = Class.forName(className, true, classLoader);
+            addMatchingClass(matchingClasses, extensionPoints, currentClass);
+        }
+
+        return new ClassesRegistry(matchingClasses);
+    }
+
+    /**
+     * Does the same as {@link #getMatchingClasses(List, Path, ClassLoader)} but reads class files bytes to find
+     * candidate classes. Only candidates are loaded and none of the classes is initialized.
+     *
+     * @param extensionPoints               a list of extension point classes
+     * @param pluginImplementationDirectory directory with plugin classes
+     * @param classLoader                   plugin class loader
+     * @return mapping from extension point to implementations from a plugin
+     * @throws Exception when something goes wrong during classes scanning
+     */
+    public static PluginImplementationsAware getMatchingClassesByBytecode(List<Class> extensionPoints, Path pluginImplementationDirectory, ClassLoader classLoader) throws Exception {
+        return getMatchingClassesByBytecode(extensionPoints, getClassFiles(pluginImplementationDirectory), classLoader);
+    }
+
+    /**
+     * Does the same as {@link #getMatchingClassesByBytecode(List, Path, ClassLoader)} for already listed class files
+     *
+     * @param extensionPoints a list of extension point classes
+     * @param classFiles      plugin class files
+     * @param classLoader     plugin class loader
+     * @return mapping from extension point to implementations from a plugin
+     * @throws Exception when something goes wrong during classes scanning
+     */
+    public static PluginImplementationsAware getMatchingClassesByBytecode(List<Class> extensionPoints, List<Path> classFiles, ClassLoader classLoader) throws Exception {
+        ExtensionIndex extensionIndex = ExtensionIndex.build(classFiles, classLoader);
+        return getMatchingClasses(extensionPoints, extensionIndex, classLoader, false);
+    }
+
+    /**
+     * Loads only classes which are implementations of extension points according to extension index
+     *
+     * @param extensionPoints a list of extension point classes
+     * @param extensionIndex  plugin extension index
+     * @param classLoader     plugin class loader
+     * @param initialize      whether to initialize loaded classes
+     * @return mapping from extension point to implementations from a plugin
+     * @throws ClassNotFoundException when indexed class is missing
+     */
+    public static PluginImplementationsAware getMatchingClasses(List<Class> extensionPoints, ExtensionIndex extensionIndex, ClassLoader classLoader, boolean initialize) throws ClassNotFoundException {
+        Map<Class, List<Class>> matchingClasses = new HashMap<>();
+        for (String className : extensionIndex.getCandidates(extensionPoints)) {
+            Class<?> currentClass = Class.forName(className, initialize, classLoader);
+            addMatchingClass(matchingClasses, extensionPoints, currentClass);
+        }
+        return new ClassesRegistry(matchingClasses);
+    }
+
+    /**
+     * Loads previously found implementation classes by their names
+     *
+     * @param extensionPoints     a list of extension point classes
+     * @param implementationNames mapping from extension point name to implementation class names
+     * @param classLoader         plugin class loader
+     * @param initialize          whether to initialize loaded classes
+     * @return mapping from extension point to implementations from a plugin
+     * @throws ClassNotFoundException when some implementation class is missing
+     */
+    public static PluginImplementationsAware getClassesByNames(List<Class> extensionPoints, Map<String, List<String>> implementationNames, ClassLoader classLoader, boolean initialize) throws ClassNotFoundException {
         Map<Class, List<Class>> matchingClasses = new HashMap<>();
+        for (Class<?> extensionPoint : extensionPoints) {
+            List<String> classNames = implementationNames.get(extensionPoint.getName());
+            if (classNames == null) {
+                continue;
+            }
+            List<Class> implementations = new ArrayList<>(classNames.size());
+            for (String className : classNames) {
+                implementations.add(Class.forName(className, initialize, classLoader));
+            }
+            matchingClasses.put(extensionPoint, implementations);
+        }
+        return new ClassesRegistry(matchingClasses);
+    }
 
+    private static void addMatchingClass(Map<Class, List<Class>> matchingClasses, List<Class> extensionPoints, Class<?> currentClass) {
+        for (Class<?> extensionPoint : extensionPoints) {
+            if (isSubclassOf(currentClass, extensionPoint) || isAnnotatedWith(currentClass, extensionPoint)) {
+                if (!matchingClasses.containsKey(extensionPoint)) {
+                    matchingClasses.put(extensionPoint, new ArrayList<>());
+                }
+                matchingClasses.get(extensionPoint).add(currentClass);
+            }
+        }
+    }
+
+    private static List<Path> getClassFiles(Path pluginImplementationDirectory) throws IOException {
         List<Path> classFiles = new ArrayList<>();
         Files.walkFileTree(pluginImplementationDirectory, new SimpleFileVisitor<Path>() {
             @Override
@@ -140,21 +442,7 @@ public class PluginUtils {
                 return FileVisitResult.CONTINUE;
             }
         });
-
-        for (Path classFile : classFiles) {
-            String className = getClassName(pluginImplementationDirectory, classFile);
-            Class<?> currentClass = Class.forName(className, true, classLoader);
-            for (Class<?> extensionPoint : extensionPoints) {
-                if (isSubclassOf(currentClass, extensionPoint) || isAnnotatedWith(currentClass, extensionPoint)) {
-                    if (!matchingClasses.containsKey(extensionPoint)) {
-                        matchingClasses.put(extensionPoint, new ArrayList<>());
-                    }
-                    matchingClasses.get(extensionPoint).add(currentClass);
-                }
-            }
-        }
-
-        return new ClassesRegistry(matchingClasses);
+        return classFiles;
     }
 
     private static String getClassName(Path pluginImplementationDirectory, Path classFile) {
@@ -181,25 +469,91 @@ public class PluginUtils {
     }
 
     public static ClassLoader getClassLoader(Path classesPath, Path dependenciesPath) throws PluginException {
+        return getClassLoader(classesPath, dependenciesPath, Collections.emptyList());
+    }
+
+    /**
+     * Returns class loader for unpacked plugin
+     *
+     * @param classesPath            directory with plugin classes
+     * @param dependenciesPath       directory with plugin libraries
+     * @param dependencyClassLoaders class loaders of plugins current plugin depends on
+     * @return plugin class loader
+     * @throws PluginException when class loader can't be created
+     */
+    public static ClassLoader getClassLoader(Path classesPath, Path dependenciesPath, List<ClassLoader> dependencyClassLoaders) throws PluginException {
+        try {
+            return getClassLoader(classesPath, getLibraries(dependenciesPath), ClassLoader.getSystemClassLoader(), dependencyClassLoaders);
+        } catch (IOException e) {
+            throw new PluginException(e);
+        }
+    }
+
+    /**
+     * Returns class loader for unpacked plugin with explicitly specified libraries
+     *
+     * @param classesPath            directory with plugin classes
+     * @param libraries              plugin library files
+     * @param parent                 parent class loader, e.g. the one with libraries shared between plugins
+     * @param dependencyClassLoaders class loaders of plugins current plugin depends on
+     * @return plugin class loader
+     * @throws PluginException when class loader can't be created
+     */
+    public static ClassLoader getClassLoader(Path classesPath, List<Path> libraries, ClassLoader parent, List<ClassLoader> dependencyClassLoaders) throws PluginException {
+        return getClassLoader(classesPath, libraries, parent, dependencyClassLoaders, Collections.emptyMap());
+    }
+
+    /**
+     * Returns class loader for unpacked plugin reusing implementation directory listing instead of walking it again
+     *
+     * @param unpackedPlugin         unpacked plugin
+     * @param libraries              plugin library files
+     * @param parent                 parent class loader, e.g. the one with libraries shared between plugins
+     * @param dependencyClassLoaders class loaders of plugins current plugin depends on
+     * @return plugin class loader
+     * @throws PluginException when class loader can't be created
+     */
+    public static ClassLoader getClassLoader(UnpackedPlugin unpackedPlugin, List<Path> libraries, ClassLoader parent, List<ClassLoader> dependencyClassLoaders) throws PluginException {
+        try {
+            Path classesPath = unpackedPlugin.getImplementationDirectory();
+            return getClassLoader(classesPath, libraries, parent, dependencyClassLoaders, Collections.singletonMap(classesPath, unpackedPlugin.getImplementationFiles()));
+        } catch (IOException e) {
+            throw new PluginException(e);
+        }
+    }
+
+    private static ClassLoader getClassLoader(Path classesPath, List<Path> libraries, ClassLoader parent, List<ClassLoader> dependencyClassLoaders, Map<Path, List<Path>> directoryFiles) throws PluginException {
         try {
             List<URL> urls = new ArrayList<>();
-            if (dependenciesPath != null && Files.exists(dependenciesPath) && Files.isDirectory(dependenciesPath)) {
-                List<URI> uris = Files.list(dependenciesPath)
-                        .filter(Files::isRegularFile)
-                        .map(Path::toUri)
-                        .collect(Collectors.toList());
-                for (URI uri : uris) {
-                    urls.add(uri.toURL());
-                }
+            for (Path library : libraries) {
+                urls.add(library.toUri().toURL());
             }
 
             urls.add(classesPath.toUri().toURL());
 
-            return new URLClassLoader(urls.toArray(new URL[urls.size()]));
+            return new PluginClassLoader(urls.toArray(new URL[urls.size()]), parent, dependencyClassLoaders, directoryFiles);
         } catch (IOException e) {
             throw new PluginException(e);
         }
     }
 
+    /**
+     * Returns jar files from unpacked plugin lib directory
+     *
+     * @param libDirectory directory with plugin libraries
+     * @return a list of files, empty if directory does not exist
+     * @throws IOException when directory can't be listed
+     */
+    public static List<Path> getLibraries(Path libDirectory) throws IOException {
+        if (libDirectory == null || !Files.isDirectory(libDirectory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(libDirectory)) {
+            return files
+                    .filter(file -> Files.isRegularFile(file) && file.toString().toLowerCase().endsWith(JAR_FILE_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
 
 }
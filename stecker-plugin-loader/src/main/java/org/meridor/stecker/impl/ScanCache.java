@@ -0,0 +1,282 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.interfaces.PluginImplementationsAware;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * Persists scan results next to unpacked plugin directory so that unchanged plugins are not scanned again after
+ * restart. Each result is keyed by plugin file contents fingerprint and by the set of scan parameters (extension
+ * points or resources patterns). Classes scan results also depend on classes of plugins current plugin depends on, so
+ * their key includes fingerprints of dependency class loaders.
+ */
+public class ScanCache {
+
+    private static final String FORMAT_VERSION = "2";
+
+    private static final String CLASSES_FILE_EXTENSION = ".classes";
+
+    private static final String RESOURCES_FILE_EXTENSION = ".resources";
+
+    private static final String FINGERPRINT_KEY = "fingerprint";
+
+    private static final String EXTENSION_POINT_PREFIX = "extension-point.";
+
+    private static final String RESOURCE_PREFIX = "resource.";
+
+    private static final String NAMES_DELIMITER = ",";
+
+    // Fingerprints of plugin classes including classes of dependencies, class loaders are referenced weakly
+    private static final Map<ClassLoader, String> CLASS_LOADER_FINGERPRINTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Path cacheDirectory;
+
+    public ScanCache(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns extension point name to implementation class names mapping saved for plugin file
+     *
+     * @param pluginFile      plugin file
+     * @param fingerprint     fingerprint of plugin classes returned by {@link #getFingerprint(String, List)}
+     * @param extensionPoints extension points used during the scan
+     * @return saved mapping or empty if plugin, its dependencies or extension points changed
+     */
+    public Optional<Map<String, List<String>>> readClasses(Path pluginFile, String fingerprint, List<Class> extensionPoints) {
+        Optional<Properties> properties = read(getClassesFile(pluginFile), fingerprint, getNames(extensionPoints));
+        if (!properties.isPresent()) {
+            return Optional.empty();
+        }
+        Map<String, List<String>> implementationNames = new LinkedHashMap<>();
+        for (String key : properties.get().stringPropertyNames()) {
+            if (key.startsWith(EXTENSION_POINT_PREFIX)) {
+                List<String> classNames = Arrays.stream(properties.get().getProperty(key).split(NAMES_DELIMITER))
+                        .filter(className -> !className.isEmpty())
+                        .collect(Collectors.toList());
+                implementationNames.put(key.substring(EXTENSION_POINT_PREFIX.length()), classNames);
+            }
+        }
+        return Optional.of(implementationNames);
+    }
+
+    /**
+     * Saves classes scan result for plugin file
+     *
+     * @param pluginFile      plugin file
+     * @param fingerprint     fingerprint of plugin classes returned by {@link #getFingerprint(String, List)}
+     * @param extensionPoints extension points used during the scan
+     * @param contents        scan result
+     */
+    public void writeClasses(Path pluginFile, String fingerprint, List<Class> extensionPoints, PluginImplementationsAware contents) {
+        Properties properties = new Properties();
+        for (Class extensionPoint : contents.getExtensionPoints()) {
+            String implementationNames = getNames(contents.getImplementations(extensionPoint)).stream()
+                    .collect(Collectors.joining(NAMES_DELIMITER));
+            properties.setProperty(EXTENSION_POINT_PREFIX + extensionPoint.getName(), implementationNames);
+        }
+        write(getClassesFile(pluginFile), getKey(fingerprint, getNames(extensionPoints)), properties);
+    }
+
+    /**
+     * Returns resources saved for plugin file
+     *
+     * @param pluginFile    plugin file
+     * @param fingerprint   plugin file fingerprint returned by {@link #getFingerprint(Path)}
+     * @param patterns      resources patterns used during the scan
+     * @param baseDirectory directory resources paths are relative to
+     * @return saved resources or empty if plugin or patterns changed
+     */
+    public Optional<List<Path>> readResources(Path pluginFile, String fingerprint, String[] patterns, Path baseDirectory) {
+        Optional<Properties> properties = read(getResourcesFile(pluginFile), fingerprint, Arrays.asList(patterns));
+        if (!properties.isPresent()) {
+            return Optional.empty();
+        }
+        List<Path> resources = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            String resource = properties.get().getProperty(RESOURCE_PREFIX + i);
+            if (resource == null) {
+                break;
+            }
+            resources.add(baseDirectory.resolve(resource));
+        }
+        return Optional.of(resources);
+    }
+
+    /**
+     * Saves resources scan result for plugin file
+     *
+     * @param pluginFile    plugin file
+     * @param fingerprint   plugin file fingerprint returned by {@link #getFingerprint(Path)}
+     * @param patterns      resources patterns used during the scan
+     * @param baseDirectory directory resources paths should be saved relatively to
+     * @param resources     scan result
+     */
+    public void writeResources(Path pluginFile, String fingerprint, String[] patterns, Path baseDirectory, List<Path> resources) {
+        Properties properties = new Properties();
+        for (int i = 0; i < resources.size(); i++) {
+            properties.setProperty(RESOURCE_PREFIX + i, baseDirectory.relativize(resources.get(i)).toString());
+        }
+        write(getResourcesFile(pluginFile), getKey(fingerprint, Arrays.asList(patterns)), properties);
+    }
+
+    private Path getClassesFile(Path pluginFile) {
+        return getCacheFile(pluginFile, CLASSES_FILE_EXTENSION);
+    }
+
+    private Path getResourcesFile(Path pluginFile) {
+        return getCacheFile(pluginFile, RESOURCES_FILE_EXTENSION);
+    }
+
+    private Path getCacheFile(Path pluginFile, String extension) {
+        Path pluginStorageDirectory = PluginUtils.getPluginStorageDirectory(pluginFile, cacheDirectory);
+        return pluginStorageDirectory.resolveSibling(pluginStorageDirectory.getFileName() + extension);
+    }
+
+    private static List<String> getNames(List<Class> classes) {
+        return classes.stream().map(Class::getName).collect(Collectors.toList());
+    }
+
+    private static Optional<Properties> read(Path cacheFile, String fingerprint, Collection<String> parameters) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(cacheFile)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        return getKey(fingerprint, parameters).equals(properties.getProperty(FINGERPRINT_KEY)) ?
+                Optional.of(properties) : Optional.empty();
+    }
+
+    private static void write(Path cacheFile, String key, Properties properties) {
+        properties.setProperty(FINGERPRINT_KEY, key);
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path temporaryFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                properties.store(outputStream, null);
+            }
+            try {
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            //Cache is only an optimization: next load will simply scan the plugin again
+        }
+    }
+
+    private static String getKey(String fingerprint, Collection<String> parameters) {
+        MessageDigest digest = getDigest();
+        update(digest, FORMAT_VERSION);
+        update(digest, fingerprint);
+        for (String parameter : new TreeSet<>(parameters)) {
+            update(digest, parameter);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns fingerprint of plugin file contents. Plugin contents are fingerprinted using jar central directory
+     * (entry names, sizes and checksums) so that the whole file is not read.
+     *
+     * @param pluginFile plugin file
+     * @return fingerprint or empty if plugin file can't be read
+     */
+    public static Optional<String> getFingerprint(Path pluginFile) {
+        try (JarFile jarFile = new JarFile(pluginFile.toFile())) {
+            MessageDigest digest = getDigest();
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                update(digest, entry.getName());
+                update(digest, String.valueOf(entry.getCrc()));
+                update(digest, String.valueOf(entry.getSize()));
+            }
+            return Optional.of(toHex(digest.digest()));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns fingerprint of plugin classes together with classes of plugins it depends on
+     *
+     * @param pluginFingerprint      plugin file fingerprint returned by {@link #getFingerprint(Path)}
+     * @param dependencyClassLoaders class loaders of plugins current plugin depends on
+     * @return fingerprint or empty if some dependency class loader was not created by a plugin with known fingerprint
+     */
+    public static Optional<String> getFingerprint(String pluginFingerprint, List<ClassLoader> dependencyClassLoaders) {
+        MessageDigest digest = getDigest();
+        update(digest, pluginFingerprint);
+        for (ClassLoader dependencyClassLoader : dependencyClassLoaders) {
+            String dependencyFingerprint = CLASS_LOADER_FINGERPRINTS.get(dependencyClassLoader);
+            if (dependencyFingerprint == null) {
+                return Optional.empty();
+            }
+            update(digest, dependencyFingerprint);
+        }
+        return Optional.of(toHex(digest.digest()));
+    }
+
+    /**
+     * Remembers fingerprint of classes loaded by plugin class loader, so that plugins depending on this plugin can
+     * include it to their fingerprints
+     *
+     * @param classLoader plugin class loader
+     * @param fingerprint fingerprint returned by {@link #getFingerprint(String, List)}
+     */
+    public static void setFingerprint(ClassLoader classLoader, String fingerprint) {
+        CLASS_LOADER_FINGERPRINTS.put(classLoader, fingerprint);
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,438 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.interfaces.SharedLibrariesReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * Finds byte-identical libraries in several plugins and loads them once by a class loader shared by all plugin class
+ * loaders as a parent. Library is shared only when none of its classes is present in any other non-identical library,
+ * so that no plugin gets another version of the class it ships, and when every class it refers to is visible to the
+ * shared class loader, i.e. comes from parent class loader or another shared library. Library contents are hashed
+ * only when another library of exactly the same size exists. Shared libraries are copied to a separate directory, so
+ * that they don't depend on unpacked directory of any plugin.
+ */
+public class SharedLibraries implements SharedLibrariesReport {
+
+    public static final String SHARED_LIBRARIES_DIRECTORY = ".shared";
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private static final String JAR_FILE_EXTENSION = ".jar";
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ClassLoader classLoader;
+
+    private final Map<Path, List<Path>> privateLibraries;
+
+    private final Map<Path, List<Path>> sharedLibraries;
+
+    private final List<Path> conflictingLibraries;
+
+    private final int deduplicatedLibrariesCount;
+
+    private final int deduplicatedClassesCount;
+
+    private final long deduplicatedBytes;
+
+    private SharedLibraries(
+            ClassLoader classLoader,
+            Map<Path, List<Path>> privateLibraries,
+            Map<Path, List<Path>> sharedLibraries,
+            List<Path> conflictingLibraries,
+            int deduplicatedLibrariesCount,
+            int deduplicatedClassesCount,
+            long deduplicatedBytes
+    ) {
+        this.classLoader = classLoader;
+        this.privateLibraries = privateLibraries;
+        this.sharedLibraries = sharedLibraries;
+        this.conflictingLibraries = conflictingLibraries;
+        this.deduplicatedLibrariesCount = deduplicatedLibrariesCount;
+        this.deduplicatedClassesCount = deduplicatedClassesCount;
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+
+    /**
+     * Groups libraries of all plugins by contents
+     *
+     * @param pluginLibraries  mapping from plugin file to library files of this plugin
+     * @param parent           parent of shared class loader, i.e. the one plugin class loaders would have otherwise
+     * @param storageDirectory directory shared libraries are copied to
+     * @return shared libraries
+     * @throws IOException when some library can't be read or copied
+     */
+    public static SharedLibraries create(Map<Path, List<Path>> pluginLibraries, ClassLoader parent, Path storageDirectory) throws IOException {
+
+        // Only libraries having the same size may be identical
+        Map<Long, List<Library>> librariesBySize = new HashMap<>();
+        List<Library> libraries = new ArrayList<>();
+        // Plugins are sorted so that the same library is shared no matter what map was passed
+        for (Map.Entry<Path, List<Path>> entry : new TreeMap<>(pluginLibraries).entrySet()) {
+            for (Path libraryFile : entry.getValue()) {
+                Library library = new Library(entry.getKey(), libraryFile, Files.size(libraryFile));
+                libraries.add(library);
+                librariesBySize.computeIfAbsent(library.getSize(), size -> new ArrayList<>()).add(library);
+            }
+        }
+        Map<String, List<Library>> librariesByFingerprint = new LinkedHashMap<>();
+        for (List<Library> sameSizeLibraries : librariesBySize.values()) {
+            if (sameSizeLibraries.size() > 1) {
+                for (Library library : sameSizeLibraries) {
+                    library.setContentsKey(getFingerprint(library.getFile()));
+                    librariesByFingerprint.computeIfAbsent(library.getContentsKey(), fingerprint -> new ArrayList<>()).add(library);
+                }
+            }
+        }
+
+        // Library can be shared when at least two different plugins contain it
+        List<List<Library>> candidates = librariesByFingerprint.values().stream()
+                .filter(identicalLibraries -> identicalLibraries.stream().map(Library::getPluginFile).distinct().count() > 1)
+                .sorted(Comparator.comparing(identicalLibraries -> identicalLibraries.get(0).getFile()))
+                .collect(Collectors.toList());
+
+        // Library can't be shared when some non-identical library contains the same classes
+        Map<Library, Set<String>> classNames = new HashMap<>();
+        Map<String, Set<String>> classContents = new HashMap<>();
+        for (Library library : libraries) {
+            Set<String> libraryClassNames = getClassNames(library.getFile());
+            classNames.put(library, libraryClassNames);
+            for (String className : libraryClassNames) {
+                classContents.computeIfAbsent(className, name -> new HashSet<>()).add(library.getContentsKey());
+            }
+        }
+        List<Path> conflictingLibraries = new ArrayList<>();
+        List<List<Library>> librariesToShare = new ArrayList<>();
+        for (List<Library> identicalLibraries : candidates) {
+            Library sharedLibrary = identicalLibraries.get(0);
+            boolean hasConflicts = classNames.get(sharedLibrary).stream().anyMatch(className -> classContents.get(className).size() > 1);
+            if (hasConflicts) {
+                conflictingLibraries.add(sharedLibrary.getFile());
+            } else {
+                librariesToShare.add(identicalLibraries);
+            }
+        }
+
+        // Shared class loader can't see private libraries, so library is shared only together with its dependencies.
+        // Excluding one library may break another one, so checking until nothing changes.
+        Map<String, Boolean> parentClassNames = new HashMap<>();
+        Map<Library, Optional<Set<String>>> requiredClassNames = new HashMap<>();
+        for (List<Library> identicalLibraries : librariesToShare) {
+            Library sharedLibrary = identicalLibraries.get(0);
+            requiredClassNames.put(sharedLibrary, getRequiredClassNames(sharedLibrary.getFile(), classNames.get(sharedLibrary), parent, parentClassNames));
+        }
+        boolean hasMissingDependencies = true;
+        while (hasMissingDependencies) {
+            Set<String> sharedClassNames = librariesToShare.stream()
+                    .flatMap(identicalLibraries -> classNames.get(identicalLibraries.get(0)).stream())
+                    .collect(Collectors.toSet());
+            hasMissingDependencies = librariesToShare.removeIf(identicalLibraries -> {
+                Optional<Set<String>> required = requiredClassNames.get(identicalLibraries.get(0));
+                return !required.isPresent() || !sharedClassNames.containsAll(required.get());
+            });
+        }
+        for (List<Library> identicalLibraries : candidates) {
+            Library sharedLibrary = identicalLibraries.get(0);
+            if (requiredClassNames.containsKey(sharedLibrary) && !librariesToShare.contains(identicalLibraries)) {
+                conflictingLibraries.add(sharedLibrary.getFile());
+            }
+        }
+        conflictingLibraries.sort(Comparator.naturalOrder());
+
+        Map<Path, List<Path>> sharedLibraries = new LinkedHashMap<>();
+        Set<Library> sharedLibraryCopies = new HashSet<>();
+        List<URL> sharedUrls = new ArrayList<>();
+        int deduplicatedLibrariesCount = 0;
+        int deduplicatedClassesCount = 0;
+        long deduplicatedBytes = 0;
+        for (List<Library> identicalLibraries : librariesToShare) {
+            Library sharedLibrary = identicalLibraries.get(0);
+            sharedLibraryCopies.addAll(identicalLibraries);
+            Path sharedLibraryFile = store(sharedLibrary, storageDirectory);
+            sharedUrls.add(sharedLibraryFile.toUri().toURL());
+            List<Path> pluginFiles = identicalLibraries.stream()
+                    .map(Library::getPluginFile)
+                    .distinct()
+                    .collect(Collectors.toList());
+            sharedLibraries.put(sharedLibraryFile, Collections.unmodifiableList(pluginFiles));
+            int copiesCount = identicalLibraries.size() - 1;
+            deduplicatedLibrariesCount += copiesCount;
+            deduplicatedClassesCount += copiesCount * classNames.get(sharedLibrary).size();
+            deduplicatedBytes += copiesCount * sharedLibrary.getSize();
+        }
+
+        Map<Path, List<Path>> privateLibraries = new HashMap<>();
+        for (Map.Entry<Path, List<Path>> entry : pluginLibraries.entrySet()) {
+            privateLibraries.put(entry.getKey(), new ArrayList<>());
+        }
+        for (Library library : libraries) {
+            if (!sharedLibraryCopies.contains(library)) {
+                privateLibraries.get(library.getPluginFile()).add(library.getFile());
+            }
+        }
+
+        ClassLoader classLoader = sharedUrls.isEmpty() ?
+                parent :
+                new SharedClassLoader(sharedUrls.toArray(new URL[sharedUrls.size()]), parent);
+        return new SharedLibraries(
+                classLoader,
+                privateLibraries,
+                Collections.unmodifiableMap(sharedLibraries),
+                Collections.unmodifiableList(conflictingLibraries),
+                deduplicatedLibrariesCount,
+                deduplicatedClassesCount,
+                deduplicatedBytes
+        );
+    }
+
+    /**
+     * Closes shared class loaders which only released plugin class loaders delegate to and removes library files
+     * only these shared class loaders use
+     *
+     * @param releasedClassLoaders  class loaders of plugins which are no longer used
+     * @param remainingClassLoaders class loaders of plugins which are still used
+     */
+    public static void release(Collection<ClassLoader> releasedClassLoaders, Collection<ClassLoader> remainingClassLoaders) {
+        Set<ClassLoader> usedClassLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<URL> usedUrls = new HashSet<>();
+        for (ClassLoader classLoader : remainingClassLoaders) {
+            getSharedClassLoader(classLoader).ifPresent(sharedClassLoader -> {
+                usedClassLoaders.add(sharedClassLoader);
+                usedUrls.addAll(Arrays.asList(sharedClassLoader.getURLs()));
+            });
+        }
+        Set<ClassLoader> unusedClassLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ClassLoader classLoader : releasedClassLoaders) {
+            getSharedClassLoader(classLoader)
+                    .filter(sharedClassLoader -> !usedClassLoaders.contains(sharedClassLoader))
+                    .filter(unusedClassLoaders::add)
+                    .ifPresent(sharedClassLoader -> {
+                        try {
+                            sharedClassLoader.close();
+                            for (URL url : sharedClassLoader.getURLs()) {
+                                if (!usedUrls.contains(url)) {
+                                    Files.deleteIfExists(Paths.get(url.toURI()));
+                                }
+                            }
+                        } catch (IOException | URISyntaxException e) {
+                            //Nobody uses these libraries anyway
+                        }
+                    });
+        }
+    }
+
+    private static Optional<SharedClassLoader> getSharedClassLoader(ClassLoader pluginClassLoader) {
+        ClassLoader parent = pluginClassLoader.getParent();
+        return parent instanceof SharedClassLoader ? Optional.of((SharedClassLoader) parent) : Optional.empty();
+    }
+
+    /**
+     * Returns class loader which should be the parent of plugin class loaders
+     *
+     * @return class loader with shared libraries
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Returns libraries which should be loaded by plugin class loader itself
+     *
+     * @param pluginFile plugin file
+     * @return a list of library files or empty if plugin libraries were not considered
+     */
+    public Optional<List<Path>> getPrivateLibraries(Path pluginFile) {
+        return Optional.ofNullable(privateLibraries.get(pluginFile));
+    }
+
+    @Override
+    public Map<Path, List<Path>> getSharedLibraries() {
+        return sharedLibraries;
+    }
+
+    @Override
+    public List<Path> getConflictingLibraries() {
+        return conflictingLibraries;
+    }
+
+    @Override
+    public int getDeduplicatedLibrariesCount() {
+        return deduplicatedLibrariesCount;
+    }
+
+    @Override
+    public int getDeduplicatedClassesCount() {
+        return deduplicatedClassesCount;
+    }
+
+    @Override
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    private static String getFingerprint(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+                while (inputStream.read(buffer) != -1) {
+                    //Digest is updated while reading
+                }
+            }
+            StringBuilder fingerprint = new StringBuilder();
+            for (byte b : digest.digest()) {
+                fingerprint.append(String.format("%02x", b));
+            }
+            return fingerprint.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns class files library classes refer to which are neither in the library itself nor in parent class loader
+     *
+     * @return class file names or empty when some class file can't be parsed
+     */
+    private static Optional<Set<String>> getRequiredClassNames(Path libraryFile, Set<String> libraryClassNames, ClassLoader parent, Map<String, Boolean> parentClassNames) throws IOException {
+        Set<String> requiredClassNames = new HashSet<>();
+        try (JarFile jarFile = new JarFile(libraryFile.toFile())) {
+            for (String classFileName : libraryClassNames) {
+                ClassFileInfo classFileInfo;
+                try (InputStream inputStream = jarFile.getInputStream(jarFile.getJarEntry(classFileName))) {
+                    classFileInfo = ClassFileInfo.read(inputStream);
+                } catch (IOException e) {
+                    //Unknown dependencies of a broken or too new class file can't be checked
+                    return Optional.empty();
+                }
+                for (String className : classFileInfo.getReferencedClassNames()) {
+                    String referencedClassFileName = className.replace('.', '/') + CLASS_FILE_EXTENSION;
+                    if (
+                            !libraryClassNames.contains(referencedClassFileName) &&
+                            !parentClassNames.computeIfAbsent(referencedClassFileName, name -> parent.getResource(name) != null)
+                    ) {
+                        requiredClassNames.add(referencedClassFileName);
+                    }
+                }
+            }
+        }
+        return Optional.of(requiredClassNames);
+    }
+
+    private static Path store(Library library, Path storageDirectory) throws IOException {
+        Path libraryFile = storageDirectory.resolve(library.getContentsKey() + JAR_FILE_EXTENSION);
+        if (Files.isRegularFile(libraryFile)) {
+            return libraryFile;
+        }
+        Files.createDirectories(storageDirectory);
+        Path temporaryFile = Files.createTempFile(storageDirectory, null, TEMPORARY_FILE_SUFFIX);
+        try {
+            Files.copy(library.getFile(), temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporaryFile, libraryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        return libraryFile;
+    }
+
+    private static Set<String> getClassNames(Path libraryFile) throws IOException {
+        Set<String> classNames = new HashSet<>();
+        try (JarFile jarFile = new JarFile(libraryFile.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.endsWith(CLASS_FILE_EXTENSION)) {
+                    classNames.add(entryName);
+                }
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * Distinguishes class loader with shared libraries from any other parent of plugin class loader
+     */
+    private static class SharedClassLoader extends URLClassLoader {
+
+        static {
+            ClassLoader.registerAsParallelCapable();
+        }
+
+        SharedClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+    }
+
+    private static class Library {
+
+        private final Path pluginFile;
+
+        private final Path file;
+
+        private final long size;
+
+        private String contentsKey;
+
+        Library(Path pluginFile, Path file, long size) {
+            this.pluginFile = pluginFile;
+            this.file = file;
+            this.size = size;
+            this.contentsKey = file.toString(); //Library of unique size is not identical to any other one
+        }
+
+        Path getPluginFile() {
+            return pluginFile;
+        }
+
+        Path getFile() {
+            return file;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        String getContentsKey() {
+            return contentsKey;
+        }
+
+        void setContentsKey(String contentsKey) {
+            this.contentsKey = contentsKey;
+        }
+
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.PluginException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent plugin loading tasks either in the calling thread or using an executor service. Results are always
+ * returned in the order of submitted tasks so that callers can merge them deterministically.
+ */
+public class TaskRunner implements AutoCloseable {
+
+    private final ExecutorService executorService;
+
+    private final boolean ownsExecutorService;
+
+    private TaskRunner(ExecutorService executorService, boolean ownsExecutorService) {
+        this.executorService = executorService;
+        this.ownsExecutorService = ownsExecutorService;
+    }
+
+    /**
+     * Returns task runner executing everything in the calling thread
+     *
+     * @return sequential task runner
+     */
+    public static TaskRunner sequential() {
+        return new TaskRunner(null, false);
+    }
+
+    /**
+     * Returns task runner using external executor service. This executor service is never shut down by the runner.
+     *
+     * @param executorService executor service to submit tasks to
+     * @return task runner
+     */
+    public static TaskRunner withExecutor(ExecutorService executorService) {
+        return new TaskRunner(executorService, false);
+    }
+
+    /**
+     * Returns task runner using its own fixed thread pool which is shut down when runner is closed
+     *
+     * @param parallelism number of threads to use
+     * @return task runner
+     */
+    public static TaskRunner withParallelism(int parallelism) {
+        if (parallelism <= 1) {
+            return sequential();
+        }
+        return new TaskRunner(Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "Stecker Plugin Loader");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    public boolean isParallel() {
+        return executorService != null;
+    }
+
+    /**
+     * Runs all tasks and returns their results in submission order
+     *
+     * @param tasks tasks to run
+     * @param <T>   task result type
+     * @return a list of results
+     * @throws PluginException the first failure in submission order
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) throws PluginException {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (!isParallel()) {
+            for (Callable<T> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+        try {
+            List<Future<T>> futures = executorService.invokeAll(tasks);
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PluginException(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static <T> T call(Callable<T> task) throws PluginException {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static PluginException unwrap(Throwable cause) {
+        if (cause instanceof PluginException) {
+            return (PluginException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        if (!(cause instanceof Exception)) {
+            //Neither checked nor unchecked exception, e.g. a custom Throwable subclass thrown by plugin code
+            return new PluginException(new ExecutionException(cause));
+        }
+        return new PluginException((Exception) cause);
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+}
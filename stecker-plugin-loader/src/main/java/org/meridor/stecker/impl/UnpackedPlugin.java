@@ -0,0 +1,155 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.interfaces.PluginLoadListener;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Plugin file unpacked to cache directory. Plugin is unpacked and its implementation directory is walked at most
+ * once, no matter how many scanners use it.
+ */
+public class UnpackedPlugin {
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private final Path pluginFile;
+
+    private final Path cacheDirectory;
+
+    private final ContentAddressedCache contentAddressedCache;
+
+    private final PluginLoadListener pluginLoadListener;
+
+    private final Set<Path> usedDirectories;
+
+    private Path directory;
+
+    private List<Path> implementationFiles;
+
+    private Optional<String> fingerprint;
+
+    public UnpackedPlugin(Path pluginFile, Path cacheDirectory) {
+        this(pluginFile, cacheDirectory, null);
+    }
+
+    public UnpackedPlugin(Path pluginFile, Path cacheDirectory, ContentAddressedCache contentAddressedCache) {
+        this(pluginFile, cacheDirectory, contentAddressedCache, null);
+    }
+
+    public UnpackedPlugin(Path pluginFile, Path cacheDirectory, ContentAddressedCache contentAddressedCache, PluginLoadListener pluginLoadListener) {
+        this(pluginFile, cacheDirectory, contentAddressedCache, pluginLoadListener, null);
+    }
+
+    /**
+     * @param pluginFile            plugin file
+     * @param cacheDirectory        cache directory
+     * @param contentAddressedCache cache plugin is unpacked to or null to unpack it separately
+     * @param pluginLoadListener    listener notified when plugin gets unpacked or null
+     * @param usedDirectories       version directories used by loaded plugins: when new version of plugin file is
+     *                              unpacked, other versions not listed here are removed; null to keep them all
+     */
+    public UnpackedPlugin(Path pluginFile, Path cacheDirectory, ContentAddressedCache contentAddressedCache, PluginLoadListener pluginLoadListener, Set<Path> usedDirectories) {
+        this.pluginFile = pluginFile;
+        this.cacheDirectory = cacheDirectory;
+        this.contentAddressedCache = contentAddressedCache;
+        this.pluginLoadListener = pluginLoadListener;
+        this.usedDirectories = usedDirectories;
+    }
+
+    public Path getPluginFile() {
+        return pluginFile;
+    }
+
+    /**
+     * Returns directory plugin file is unpacked to, unpacking it on first call
+     *
+     * @return unpacked plugin directory
+     * @throws IOException when plugin can't be unpacked
+     */
+    public synchronized Path getDirectory() throws IOException {
+        if (directory == null) {
+            long startTime = System.nanoTime();
+            boolean cacheHit = (pluginLoadListener != null || usedDirectories != null) && PluginUtils.isUnpacked(pluginFile, cacheDirectory);
+            directory = (contentAddressedCache != null) ?
+                    contentAddressedCache.unpackPlugin(pluginFile) :
+                    PluginUtils.unpackPlugin(pluginFile, cacheDirectory);
+            if (!cacheHit && usedDirectories != null) {
+                PluginUtils.removeStaleVersionDirectories(directory, usedDirectories);
+            }
+            if (pluginLoadListener != null) {
+                pluginLoadListener.onPluginUnpacked(pluginFile, cacheHit, System.nanoTime() - startTime);
+            }
+        }
+        return directory;
+    }
+
+    public Path getImplementationDirectory() throws IOException {
+        return PluginUtils.getPluginImplementationDirectory(getDirectory());
+    }
+
+    public Path getLibDirectory() throws IOException {
+        return getDirectory().resolve(PluginUtils.LIB_DIRECTORY);
+    }
+
+    public List<Path> getLibraries() throws IOException {
+        return PluginUtils.getLibraries(getLibDirectory());
+    }
+
+    /**
+     * Returns all regular files from unpacked plugin implementation directory
+     *
+     * @return a list of files
+     * @throws IOException when directory can't be walked
+     */
+    public synchronized List<Path> getImplementationFiles() throws IOException {
+        if (implementationFiles == null) {
+            List<Path> files = new ArrayList<>();
+            Files.walkFileTree(getImplementationDirectory(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    files.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            implementationFiles = Collections.unmodifiableList(files);
+        }
+        return implementationFiles;
+    }
+
+    /**
+     * Returns fingerprint of plugin file contents, reading plugin file central directory on first call
+     *
+     * @return fingerprint or empty if plugin file can't be read
+     * @see ScanCache#getFingerprint(Path)
+     */
+    public synchronized Optional<String> getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = ScanCache.getFingerprint(pluginFile);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns class files from unpacked plugin implementation directory
+     *
+     * @return a list of class files
+     * @throws IOException when directory can't be walked
+     */
+    public List<Path> getClassFiles() throws IOException {
+        return getImplementationFiles().stream()
+                .filter(file -> file.toString().toLowerCase().endsWith(CLASS_FILE_EXTENSION))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.meridor.stecker.impl;
+
+import org.meridor.stecker.interfaces.PluginLoadListener;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps unpacked plugins during one loader run so that classes and resources scanners share the same unpack and
+ * directory walk of every plugin
+ */
+public class UnpackedPlugins {
+
+    private final Path cacheDirectory;
+
+    private final Map<Path, UnpackedPlugin> unpackedPlugins = new ConcurrentHashMap<>();
+
+    private final ContentAddressedCache contentAddressedCache;
+
+    private volatile SharedLibraries sharedLibraries;
+
+    private volatile PluginLoadListener pluginLoadListener;
+
+    private volatile Set<Path> usedDirectories;
+
+    public UnpackedPlugins(Path cacheDirectory) {
+        this(cacheDirectory, null);
+    }
+
+    public UnpackedPlugins(Path cacheDirectory, ContentAddressedCache contentAddressedCache) {
+        this.cacheDirectory = cacheDirectory;
+        this.contentAddressedCache = contentAddressedCache;
+    }
+
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Returns cache plugins are unpacked to when unpacked files are deduplicated
+     *
+     * @return content addressed cache or empty if every plugin is unpacked separately
+     */
+    public Optional<ContentAddressedCache> getContentAddressedCache() {
+        return Optional.ofNullable(contentAddressedCache);
+    }
+
+    /**
+     * Returns libraries shared between plugins unpacked during current load
+     *
+     * @return shared libraries or empty if libraries are not shared
+     */
+    public Optional<SharedLibraries> getSharedLibraries() {
+        return Optional.ofNullable(sharedLibraries);
+    }
+
+    public void setSharedLibraries(SharedLibraries sharedLibraries) {
+        this.sharedLibraries = sharedLibraries;
+    }
+
+    /**
+     * Sets listener notified when plugins get unpacked. Applies to plugins requested after this call.
+     *
+     * @param pluginLoadListener listener or null
+     */
+    public void setPluginLoadListener(PluginLoadListener pluginLoadListener) {
+        this.pluginLoadListener = pluginLoadListener;
+    }
+
+    /**
+     * Sets version directories used by loaded plugins. When new version of plugin file is unpacked, its other versions
+     * and leftovers of interrupted unpacking are removed unless they are listed here. By default nothing is removed.
+     * Applies to plugins requested after this call.
+     *
+     * @param usedDirectories absolute plugin version directories or null to keep all versions
+     */
+    public void setUsedDirectories(Set<Path> usedDirectories) {
+        this.usedDirectories = usedDirectories;
+    }
+
+    /**
+     * Returns unpacked plugin for plugin file. Plugin is not unpacked until its contents are requested.
+     *
+     * @param pluginFile plugin file
+     * @return unpacked plugin
+     */
+    public UnpackedPlugin get(Path pluginFile) {
+        return unpackedPlugins.computeIfAbsent(pluginFile, file -> new UnpackedPlugin(file, cacheDirectory, contentAddressedCache, pluginLoadListener, usedDirectories));
+    }
+
+}
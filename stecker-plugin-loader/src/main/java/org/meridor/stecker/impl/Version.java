@@ -0,0 +1,169 @@
+package org.meridor.stecker.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plugin version split to segments once, e.g. <b>1.10.0-beta</b> becomes <b>1</b>, <b>10</b>, <b>0</b> and
+ * <b>beta</b>. Numeric segments are compared as numbers, so <b>1.10</b> is greater than <b>1.9</b>. Missing numeric
+ * segments are treated as zeros, so <b>1.0</b> equals <b>1.0.0</b> and <b>1.0-beta</b> equals <b>1-beta</b>.
+ * Textual segments are compared as strings and are less than numeric ones, so <b>1.0-beta</b> is less than both
+ * <b>1.0</b> and <b>1.0.1</b>.
+ */
+public final class Version implements Comparable<Version> {
+
+    private static final String SEGMENT_DELIMITERS = ".-_+";
+
+    private final String version;
+
+    private final List<Segment> segments;
+
+    private Version(String version, List<Segment> segments) {
+        this.version = version;
+        this.segments = segments;
+    }
+
+    /**
+     * Parses version string
+     *
+     * @param version version string, e.g. <b>1.0.1</b>
+     * @return parsed version
+     */
+    public static Version parse(String version) {
+        String trimmedVersion = version.trim();
+        List<Segment> segments = new ArrayList<>();
+        int segmentStart = 0;
+        for (int i = 0; i <= trimmedVersion.length(); i++) {
+            boolean isEnd = i == trimmedVersion.length();
+            char c = isEnd ? 0 : trimmedVersion.charAt(i);
+            if (isEnd || SEGMENT_DELIMITERS.indexOf(c) != -1) {
+                addSegment(segments, trimmedVersion.substring(segmentStart, i));
+                segmentStart = i + 1;
+            } else if (i > segmentStart && Character.isDigit(c) != Character.isDigit(trimmedVersion.charAt(i - 1))) {
+                // E.g. 1.0rc1 is the same as 1.0.rc.1
+                addSegment(segments, trimmedVersion.substring(segmentStart, i));
+                segmentStart = i;
+            }
+        }
+        // Trailing zeros do not change the version
+        removeTrailingZeros(segments);
+        return new Version(version, Collections.unmodifiableList(segments));
+    }
+
+    private static void addSegment(List<Segment> segments, String segment) {
+        if (!segment.isEmpty()) {
+            Segment newSegment = new Segment(segment);
+            if (!newSegment.isNumeric()) {
+                // Zeros before text do not change the version either, so 1.0-beta equals 1-beta
+                removeTrailingZeros(segments);
+            }
+            segments.add(newSegment);
+        }
+    }
+
+    private static void removeTrailingZeros(List<Segment> segments) {
+        while (!segments.isEmpty() && segments.get(segments.size() - 1).isZero()) {
+            segments.remove(segments.size() - 1);
+        }
+    }
+
+    @Override
+    public int compareTo(Version anotherVersion) {
+        int segmentsCount = Math.max(segments.size(), anotherVersion.segments.size());
+        for (int i = 0; i < segmentsCount; i++) {
+            int comparisonResult = compare(getSegment(i), anotherVersion.getSegment(i));
+            if (comparisonResult != 0) {
+                return comparisonResult;
+            }
+        }
+        return 0;
+    }
+
+    private Segment getSegment(int index) {
+        return (index < segments.size()) ? segments.get(index) : null;
+    }
+
+    private static int compare(Segment segment, Segment anotherSegment) {
+        if (segment == null) {
+            return -compare(anotherSegment, null);
+        }
+        if (anotherSegment == null) {
+            // Missing segment is zero for numbers and is greater than any text
+            if (segment.isNumeric()) {
+                return segment.isZero() ? 0 : 1;
+            }
+            return -1;
+        }
+        return segment.compareTo(anotherSegment);
+    }
+
+    @Override
+    public boolean equals(Object anotherVersion) {
+        return (anotherVersion instanceof Version) && compareTo((Version) anotherVersion) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return segments.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return version;
+    }
+
+    private static final class Segment implements Comparable<Segment> {
+
+        private final String value;
+
+        private final boolean isNumeric;
+
+        Segment(String value) {
+            this.isNumeric = Character.isDigit(value.charAt(0));
+            this.value = isNumeric ? stripLeadingZeros(value) : value;
+        }
+
+        private static String stripLeadingZeros(String value) {
+            int firstSignificantDigit = 0;
+            while (firstSignificantDigit < value.length() - 1 && value.charAt(firstSignificantDigit) == '0') {
+                firstSignificantDigit++;
+            }
+            return value.substring(firstSignificantDigit);
+        }
+
+        boolean isNumeric() {
+            return isNumeric;
+        }
+
+        boolean isZero() {
+            return isNumeric && value.equals("0");
+        }
+
+        @Override
+        public int compareTo(Segment anotherSegment) {
+            if (isNumeric != anotherSegment.isNumeric) {
+                return isNumeric ? 1 : -1;
+            }
+            if (isNumeric && value.length() != anotherSegment.value.length()) {
+                // Numbers of any length without leading zeros
+                return Integer.compare(value.length(), anotherSegment.value.length());
+            }
+            return value.compareTo(anotherSegment.value);
+        }
+
+        @Override
+        public boolean equals(Object anotherSegment) {
+            return (anotherSegment instanceof Segment) &&
+                    isNumeric == ((Segment) anotherSegment).isNumeric &&
+                    value.equals(((Segment) anotherSegment).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+    }
+
+}
@@ -1,6 +1,9 @@
 package org.meridor.stecker.impl;
 
-class VersionRange {
+/**
+ * Version range like <b>[1.0,2.0)</b> with bounds parsed to {@link Version} once
+ */
+public final class VersionRange {
 
     private String startVersion = "";
 
@@ -12,6 +15,10 @@ class VersionRange {
 
     private boolean isValid = false;
 
+    private Version parsedStartVersion;
+
+    private Version parsedEndVersion;
+
     public VersionRange(String range) {
         parse(range);
     }
@@ -40,6 +47,8 @@ class VersionRange {
         this.endVersionIncluded = endIncluded;
         this.startVersion = start.substring(1);
         this.endVersion = end.substring(0, end.length() - 1);
+        this.parsedStartVersion = startVersion.isEmpty() ? null : Version.parse(startVersion);
+        this.parsedEndVersion = endVersion.isEmpty() ? null : Version.parse(endVersion);
         this.isValid = true;
     }
 
@@ -64,15 +73,24 @@ class VersionRange {
     }
 
     public boolean contains(String version) {
+        return version != null && contains(Version.parse(version));
+    }
+
+    public boolean contains(Version version) {
         if (version == null || !isValid()) {
             return false;
         }
-        boolean isStartVersionOk = isStartVersionIncluded() ?
-                getStartVersion().compareTo(version) <= 0 :
-                getStartVersion().isEmpty() || getStartVersion().compareTo(version) < 0;
-        boolean isEndVersionOk = isEndVersionIncluded() ?
-                getEndVersion().compareTo(version) >= 0 :
-                getEndVersion().isEmpty() || getEndVersion().compareTo(version) > 0;
+        boolean isStartVersionOk = (parsedStartVersion == null) || (isStartVersionIncluded() ?
+                parsedStartVersion.compareTo(version) <= 0 :
+                parsedStartVersion.compareTo(version) < 0);
+        boolean isEndVersionOk = (parsedEndVersion == null) || (isEndVersionIncluded() ?
+                parsedEndVersion.compareTo(version) >= 0 :
+                parsedEndVersion.compareTo(version) > 0);
         return isStartVersionOk && isEndVersionOk;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String toString() {
+        return String.format("%s%s,%s%s", startVersionIncluded ? "[" : "(", startVersion, endVersion, endVersionIncluded ? "]" : ")");
+    }
+}
@@ -0,0 +1,36 @@
+package org.meridor.stecker.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses every distinct version and version range string once and returns the same instance for equal strings.
+ * Thousands of plugins usually depend on a handful of versions, so dependency checks do not parse anything again.
+ */
+public class Versions {
+
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    private final Map<String, VersionRange> ranges = new ConcurrentHashMap<>();
+
+    /**
+     * Returns parsed version
+     *
+     * @param version version string
+     * @return interned version
+     */
+    public Version getVersion(String version) {
+        return versions.computeIfAbsent(version, Version::parse);
+    }
+
+    /**
+     * Returns parsed version range
+     *
+     * @param range version range string
+     * @return interned version range, possibly invalid when string is a plain version
+     */
+    public VersionRange getRange(String range) {
+        return ranges.computeIfAbsent(range, VersionRange::new);
+    }
+
+}
@@ -0,0 +1,309 @@
+package org.meridor.stecker.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads ZIP (and thus JAR) archive stored in a {@link ByteBuffer}. Central directory is parsed once, entries contents
+ * are located using local headers and inflated only when requested. This allows to read archives nested into another
+ * archive without extracting anything to disk.
+ */
+public class ZipArchive {
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    static final String ENTRY_SEPARATOR = "/";
+
+    private final ByteBuffer buffer;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public ZipArchive(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            readCentralDirectory();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted ZIP archive", e);
+        }
+    }
+
+    /**
+     * Returns names of all entries in the order they are stored in central directory
+     *
+     * @return a list of entry names
+     */
+    public List<String> getEntryNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Returns entry by its name
+     *
+     * @param name entry name, e.g. <b>org/example/SomeClass.class</b>
+     * @return entry or empty if missing
+     */
+    public Optional<Entry> getEntry(String name) {
+        return Optional.ofNullable(entries.get(name));
+    }
+
+    /**
+     * Returns uncompressed entry contents. Stored entries are returned as a slice of archive buffer without copying.
+     *
+     * @param entry archive entry
+     * @return read-only buffer with entry contents
+     * @throws IOException when entry data is corrupted
+     */
+    public ByteBuffer getContents(Entry entry) throws IOException {
+        ByteBuffer data = getRawData(entry);
+        switch (entry.getMethod()) {
+            case METHOD_STORED:
+                return data.asReadOnlyBuffer();
+            case METHOD_DEFLATED:
+                return ByteBuffer.wrap(inflate(data, entry.getSize())).asReadOnlyBuffer();
+            default:
+                throw new IOException(String.format("Unsupported compression method %d for entry %s", entry.getMethod(), entry.getName()));
+        }
+    }
+
+    /**
+     * Returns entry contents as a stream. Stored entries are read right from archive buffer, deflated ones are
+     * inflated while reading.
+     *
+     * @param entry archive entry
+     * @return input stream with entry contents
+     * @throws IOException when entry data is corrupted
+     */
+    public InputStream getInputStream(Entry entry) throws IOException {
+        ByteBuffer data = getRawData(entry);
+        switch (entry.getMethod()) {
+            case METHOD_STORED:
+                return new ByteBufferInputStream(data);
+            case METHOD_DEFLATED:
+                return new EntryInflaterInputStream(data);
+            default:
+                throw new IOException(String.format("Unsupported compression method %d for entry %s", entry.getMethod(), entry.getName()));
+        }
+    }
+
+    private ByteBuffer getRawData(Entry entry) throws IOException {
+        try {
+            int localHeaderOffset = toInt(entry.getLocalHeaderOffset());
+            if (buffer.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+                throw new IOException(String.format("Invalid local header for entry %s", entry.getName()));
+            }
+            int nameLength = Short.toUnsignedInt(buffer.getShort(localHeaderOffset + 26));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(localHeaderOffset + 28));
+            int dataOffset = localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            ByteBuffer data = buffer.duplicate();
+            data.limit(dataOffset + toInt(entry.getCompressedSize()));
+            data.position(dataOffset);
+            return data.slice();
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException(String.format("Corrupted entry %s", entry.getName()), e);
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer data, long size) throws IOException {
+        byte[] output = new byte[toInt(size)];
+        try (InputStream inputStream = new EntryInflaterInputStream(data)) {
+            int outputOffset = 0;
+            while (outputOffset < output.length) {
+                int inflated = inputStream.read(output, outputOffset, output.length - outputOffset);
+                if (inflated == -1) {
+                    throw new IOException("Unexpected end of compressed entry data");
+                }
+                outputOffset += inflated;
+            }
+        }
+        return output;
+    }
+
+    private void readCentralDirectory() throws IOException {
+        int endOfCentralDirectoryOffset = findEndOfCentralDirectory();
+        long entriesCount = Short.toUnsignedInt(buffer.getShort(endOfCentralDirectoryOffset + 10));
+        long centralDirectoryOffset = Integer.toUnsignedLong(buffer.getInt(endOfCentralDirectoryOffset + 16));
+
+        int zip64LocatorOffset = endOfCentralDirectoryOffset - ZIP64_LOCATOR_SIZE;
+        if (zip64LocatorOffset >= 0 && buffer.getInt(zip64LocatorOffset) == ZIP64_LOCATOR_SIGNATURE) {
+            int zip64EndOffset = toInt(buffer.getLong(zip64LocatorOffset + 8));
+            if (buffer.getInt(zip64EndOffset) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                throw new IOException("Invalid ZIP64 end of central directory record");
+            }
+            entriesCount = buffer.getLong(zip64EndOffset + 32);
+            centralDirectoryOffset = buffer.getLong(zip64EndOffset + 48);
+        }
+
+        int offset = toInt(centralDirectoryOffset);
+        for (long i = 0; i < entriesCount; i++) {
+            if (buffer.getInt(offset) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) {
+                throw new IOException("Invalid central directory header");
+            }
+            int method = Short.toUnsignedInt(buffer.getShort(offset + 10));
+            long compressedSize = Integer.toUnsignedLong(buffer.getInt(offset + 20));
+            long size = Integer.toUnsignedLong(buffer.getInt(offset + 24));
+            int nameLength = Short.toUnsignedInt(buffer.getShort(offset + 28));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(offset + 30));
+            int commentLength = Short.toUnsignedInt(buffer.getShort(offset + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(buffer.getInt(offset + 42));
+
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer nameBuffer = buffer.duplicate();
+            nameBuffer.position(offset + CENTRAL_DIRECTORY_HEADER_SIZE);
+            nameBuffer.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            if (name.startsWith(ENTRY_SEPARATOR) && name.length() > 1) {
+                name = name.substring(1);
+            }
+
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                int extraOffset = offset + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength;
+                int extraEnd = extraOffset + extraLength;
+                while (extraOffset + 4 <= extraEnd) {
+                    int id = Short.toUnsignedInt(buffer.getShort(extraOffset));
+                    int length = Short.toUnsignedInt(buffer.getShort(extraOffset + 2));
+                    if (id == ZIP64_EXTRA_FIELD_ID) {
+                        int valueOffset = extraOffset + 4;
+                        if (size == ZIP64_MAGIC) {
+                            size = buffer.getLong(valueOffset);
+                            valueOffset += 8;
+                        }
+                        if (compressedSize == ZIP64_MAGIC) {
+                            compressedSize = buffer.getLong(valueOffset);
+                            valueOffset += 8;
+                        }
+                        if (localHeaderOffset == ZIP64_MAGIC) {
+                            localHeaderOffset = buffer.getLong(valueOffset);
+                        }
+                        break;
+                    }
+                    extraOffset += 4 + length;
+                }
+            }
+
+            entries.put(name, new Entry(name, method, compressedSize, size, localHeaderOffset));
+            offset += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private int findEndOfCentralDirectory() throws IOException {
+        int lastPossibleOffset = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        int firstPossibleOffset = Math.max(0, lastPossibleOffset - MAX_COMMENT_LENGTH);
+        for (int offset = lastPossibleOffset; offset >= firstPossibleOffset; offset--) {
+            if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return offset;
+            }
+        }
+        throw new IOException("Not a ZIP archive: end of central directory not found");
+    }
+
+    private static int toInt(long value) throws IOException {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Archives larger than 2 GB are not supported");
+        }
+        return (int) value;
+    }
+
+    private static class EntryInflaterInputStream extends InflaterInputStream {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private boolean dummyByteSupplied;
+
+        EntryInflaterInputStream(ByteBuffer data) {
+            super(new ByteBufferInputStream(data), new Inflater(true), Math.max(1, Math.min(BUFFER_SIZE, data.remaining())));
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            int bytesCount = in.read(buf, 0, buf.length);
+            if (bytesCount == -1) {
+                if (dummyByteSupplied) {
+                    throw new EOFException("Unexpected end of compressed entry data");
+                }
+                //Inflater without zlib header may need one extra byte to finish
+                buf[0] = 0;
+                bytesCount = 1;
+                dummyByteSupplied = true;
+            }
+            len = bytesCount;
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            inf.end();
+        }
+
+    }
+
+    public static class Entry {
+
+        private final String name;
+
+        private final int method;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long localHeaderOffset;
+
+        Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLocalHeaderOffset() {
+            return localHeaderOffset;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith(ENTRY_SEPARATOR);
+        }
+
+    }
+
+}
@@ -21,4 +21,19 @@ public interface ClassesScanner {
      */
     ScanResult scan(Path pluginFile, List<Class> extensionPoints) throws PluginException;
 
+    /**
+     * Does the same as {@link #scan(Path, List)} for plugin depending on other plugins. Returned class loader should
+     * load classes from dependency class loaders before plugin own classes. Default implementation ignores
+     * dependencies.
+     *
+     * @param pluginFile             plugin file to process
+     * @param extensionPoints        a list of extension point classes
+     * @param dependencyClassLoaders class loaders of plugins current plugin depends on
+     * @return mapping from extension point to implementations from a plugin
+     * @throws org.meridor.stecker.PluginException when something goes wrong during classes scanning
+     */
+    default ScanResult scan(Path pluginFile, List<Class> extensionPoints, List<ClassLoader> dependencyClassLoaders) throws PluginException {
+        return scan(pluginFile, extensionPoints);
+    }
+
 }
@@ -0,0 +1,23 @@
+package org.meridor.stecker.interfaces;
+
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+
+import java.util.List;
+
+/**
+ * Chooses which plugins to load when plugins directory contains several versions of the same plugin
+ */
+public interface DependencyResolver {
+
+    /**
+     * Returns plugins to load: at most one version of every plugin. Plugins not returned are neither unpacked nor
+     * scanned.
+     *
+     * @param plugins metadata of all found plugin files
+     * @return chosen plugins in the same order as passed
+     * @throws org.meridor.stecker.PluginException when plugins can't be resolved
+     */
+    List<PluginMetadata> resolve(List<PluginMetadata> plugins) throws PluginException;
+
+}
@@ -0,0 +1,87 @@
+package org.meridor.stecker.interfaces;
+
+import org.meridor.stecker.PluginMetadata;
+
+import java.nio.file.Path;
+
+/**
+ * Receives timings and counts of plugin loading phases. Plugins are loaded in parallel, so methods may be called
+ * from several threads at once. All durations are in nanoseconds. With lazy activation plugins are unpacked and
+ * scanned after load is finished, so respective methods are called later from threads using plugin registry.
+ */
+public interface PluginLoadListener {
+
+    /**
+     * Called before anything is loaded
+     */
+    default void onLoadStarted() {
+    }
+
+    /**
+     * Called when {@link PluginsProvider} has returned plugin files
+     *
+     * @param pluginsCount  number of found plugin files
+     * @param durationNanos time spent by plugins provider
+     */
+    default void onPluginsProvided(int pluginsCount, long durationNanos) {
+    }
+
+    /**
+     * Called when plugin manifest was read. Not called for unchanged plugins during reload.
+     *
+     * @param pluginFile    plugin file
+     * @param durationNanos time spent by manifest reader
+     */
+    default void onManifestRead(Path pluginFile, long durationNanos) {
+    }
+
+    /**
+     * Called when plugin dependencies were checked
+     *
+     * @param pluginMetadata checked plugin
+     * @param durationNanos  time spent by dependency checker
+     */
+    default void onDependenciesChecked(PluginMetadata pluginMetadata, long durationNanos) {
+    }
+
+    /**
+     * Called when plugin contents were requested from cache directory by default scanners
+     *
+     * @param pluginFile    plugin file
+     * @param cacheHit      true if plugin was already unpacked and thus not extracted again
+     * @param durationNanos time spent unpacking plugin or checking that it's up to date
+     */
+    default void onPluginUnpacked(Path pluginFile, boolean cacheHit, long durationNanos) {
+    }
+
+    /**
+     * Called when plugin classes were scanned
+     *
+     * @param pluginMetadata      scanned plugin
+     * @param visitedClassesCount number of plugin classes examined by classes scanner
+     * @param loadedClassesCount  number of classes defined by plugin class loader during the scan
+     * @param durationNanos       time spent by classes scanner including unpacking
+     */
+    default void onClassesScanned(PluginMetadata pluginMetadata, int visitedClassesCount, int loadedClassesCount, long durationNanos) {
+    }
+
+    /**
+     * Called when plugin resources were scanned
+     *
+     * @param pluginMetadata scanned plugin
+     * @param resourcesCount number of found resources
+     * @param durationNanos  time spent by resources scanner
+     */
+    default void onResourcesScanned(PluginMetadata pluginMetadata, int resourcesCount, long durationNanos) {
+    }
+
+    /**
+     * Called when plugin registry was successfully built
+     *
+     * @param pluginsCount  number of loaded plugins
+     * @param durationNanos total load time
+     */
+    default void onLoadFinished(int pluginsCount, long durationNanos) {
+    }
+
+}
@@ -0,0 +1,7 @@
+package org.meridor.stecker.interfaces;
+
+public interface PluginsReloadedHandler {
+
+    void onPluginsReloaded(ReloadResult reloadResult);
+
+}
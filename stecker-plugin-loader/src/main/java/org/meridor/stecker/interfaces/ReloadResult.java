@@ -0,0 +1,79 @@
+package org.meridor.stecker.interfaces;
+
+import org.meridor.stecker.PluginRegistry;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of incremental plugins reload: new registry and names of plugins grouped by what happened to them
+ */
+public interface ReloadResult {
+
+    /**
+     * Returns registry containing all currently present plugins
+     *
+     * @return new plugin registry
+     */
+    PluginRegistry getPluginRegistry();
+
+    /**
+     * Returns plugins which were not present in previous registry
+     *
+     * @return a list of plugin names
+     */
+    List<String> getAddedPlugins();
+
+    /**
+     * Returns plugins present in previous registry whose files no longer exist
+     *
+     * @return a list of plugin names
+     */
+    List<String> getRemovedPlugins();
+
+    /**
+     * Returns plugins whose files were changed and thus scanned again
+     *
+     * @return a list of plugin names
+     */
+    List<String> getModifiedPlugins();
+
+    /**
+     * Returns plugins whose class loaders and scan results were taken from previous registry
+     *
+     * @return a list of plugin names
+     */
+    List<String> getUnchangedPlugins();
+
+    /**
+     * Returns how libraries of loaded plugins were deduplicated
+     *
+     * @return report or empty if libraries sharing is disabled
+     */
+    Optional<SharedLibrariesReport> getSharedLibrariesReport();
+
+    /**
+     * Returns plugin files which were not loaded because another version of the same plugin was chosen by
+     * {@link DependencyResolver}
+     *
+     * @return a list of plugin files
+     */
+    List<Path> getSkippedPlugins();
+
+    /**
+     * Waits for class loaders of previous registry which were closed because their plugins were removed, modified or
+     * unloaded to be garbage collected. Previous registry and everything created by plugin classes should be no
+     * longer referenced before calling this method, otherwise class loaders can't be collected.
+     *
+     * @param timeout how long to wait
+     * @param unit    timeout unit
+     * @return names of plugins whose class loaders are still reachable mapped to the likely cause, empty when all
+     * class loaders were collected
+     * @throws InterruptedException when waiting thread is interrupted
+     */
+    Map<String, String> awaitCollection(long timeout, TimeUnit unit) throws InterruptedException;
+
+}
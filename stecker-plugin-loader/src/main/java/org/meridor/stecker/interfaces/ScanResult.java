@@ -6,4 +6,22 @@ public interface ScanResult {
 
     PluginImplementationsAware getContents();
 
+    /**
+     * Returns number of plugin classes examined during the scan, e.g. read class files or indexed class names
+     *
+     * @return classes count or zero if not known
+     */
+    default int getVisitedClassesCount() {
+        return 0;
+    }
+
+    /**
+     * Returns number of classes defined by plugin class loader during the scan
+     *
+     * @return classes count or zero if not known
+     */
+    default int getLoadedClassesCount() {
+        return 0;
+    }
+
 }
@@ -0,0 +1,50 @@
+package org.meridor.stecker.interfaces;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes how plugin libraries were deduplicated, i.e. which byte-identical libraries were loaded once by a shared
+ * class loader instead of once per plugin
+ */
+public interface SharedLibrariesReport {
+
+    /**
+     * Returns libraries loaded by shared class loader
+     *
+     * @return mapping from library copy actually loaded to plugin files containing the same library
+     */
+    Map<Path, List<Path>> getSharedLibraries();
+
+    /**
+     * Returns identical libraries left in plugin class loaders because they contain the same classes as some other
+     * non-identical library, e.g. another version of the same library, or because they refer to classes which
+     * shared class loader can't load
+     *
+     * @return a list of library files
+     */
+    List<Path> getConflictingLibraries();
+
+    /**
+     * Returns number of library copies which were not loaded
+     *
+     * @return number of library files
+     */
+    int getDeduplicatedLibrariesCount();
+
+    /**
+     * Returns number of classes which were not loaded once per plugin
+     *
+     * @return number of classes
+     */
+    int getDeduplicatedClassesCount();
+
+    /**
+     * Returns total size of library copies which were not loaded
+     *
+     * @return size in bytes
+     */
+    long getDeduplicatedBytes();
+
+}
@@ -0,0 +1,10 @@
+package org.meridor.stecker.interfaces;
+
+/**
+ * Result of plugins unloading: new registry without unloaded plugins and names of unloaded plugins returned by
+ * {@link #getRemovedPlugins()}. Class loaders of unloaded plugins are referenced only weakly, so the result can be
+ * kept as long as needed.
+ */
+public interface UnloadResult extends ReloadResult {
+
+}
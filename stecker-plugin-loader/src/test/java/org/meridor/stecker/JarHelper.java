@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 
@@ -37,10 +38,10 @@ public final class JarHelper {
     private static Path createJarFile(Path directory, String name, Optional<Manifest> manifest, Class[] classesToAdd, Map<String, Path> filesToAdd) throws Exception {
         Path outputFile = directory.resolve(name);
         OutputStream fileOutputStream = Files.newOutputStream(outputFile);
-        try (JarOutputStream outputStream = manifest.isPresent() ?
-                new JarOutputStream(fileOutputStream, manifest.get()) :
-                new JarOutputStream(fileOutputStream, new Manifest())
-        ) {
+        try (JarOutputStream outputStream = new JarOutputStream(fileOutputStream)) {
+            outputStream.putNextEntry(createEntry(JarFile.MANIFEST_NAME));
+            manifest.orElseGet(Manifest::new).write(outputStream);
+            outputStream.closeEntry();
             for (Class currentClass : classesToAdd) {
                 addClass(outputStream, currentClass);
             }
@@ -59,7 +60,7 @@ public final class JarHelper {
     }
 
     private static void addPath(JarOutputStream outputStream, Path path, String entryName) throws Exception {
-        outputStream.putNextEntry(new JarEntry(entryName));
+        outputStream.putNextEntry(createEntry(entryName));
         if (!Files.isDirectory(path)) {
             try (InputStream inputStream = Files.newInputStream(path)) {
                 while (inputStream.available() > 0) {
@@ -70,6 +71,12 @@ public final class JarHelper {
         outputStream.closeEntry();
     }
 
+    private static JarEntry createEntry(String entryName) {
+        JarEntry entry = new JarEntry(entryName);
+        entry.setTime(0); //Jars with the same contents should be identical, e.g. libraries of different plugins
+        return entry;
+    }
+
     public static String classToResourceName(Class currentClass) throws Exception {
         return currentClass.getCanonicalName().replace(".", FILE_SEPARATOR) + CLASS_EXTENSION;
     }
@@ -94,6 +101,7 @@ public final class JarHelper {
                     {
                         put(PluginUtils.PLUGIN_IMPLEMENTATION_FILE, pluginJar);
                         put(Paths.get(PluginUtils.LIB_DIRECTORY, DEPENDENCY_JAR_NAME).toString(), dependencyFile);
+                        put(Paths.get(PluginUtils.LIB_DIRECTORY, TEST_RESOURCE_NAME).toString(), getTestResourcePath()); //Only jars are libraries
                         put("uselessDirectory/", directory); //Just to test how directories are processed
                     }
                 }
@@ -0,0 +1,181 @@
+package org.meridor.stecker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.meridor.stecker.impl.DefaultReloadResult;
+import org.meridor.stecker.impl.PluginRegistryContainer;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PluginInstancesTest {
+
+    private static final String PLUGIN_NAME = "test-plugin";
+
+    private PluginRegistry pluginRegistry;
+
+    @Before
+    public void setUp() throws PluginException {
+        CountingImpl.CREATED.set(0);
+        CountingImpl.CLOSED.set(0);
+        PluginRegistryContainer pluginRegistryContainer = new PluginRegistryContainer();
+        PluginMetadata pluginMetadata = mock(PluginMetadata.class);
+        when(pluginMetadata.getName()).thenReturn(PLUGIN_NAME);
+        when(pluginMetadata.getProvidedDependency()).thenReturn(Optional.empty());
+        pluginRegistryContainer.addPlugin(pluginMetadata);
+        pluginRegistryContainer.addImplementations(pluginMetadata, Runnable.class, Collections.singletonList(CountingImpl.class));
+        pluginRegistryContainer.addImplementations(pluginMetadata, TestExtensionPoint.class, Collections.singletonList(TestExtensionPointImpl.class));
+        pluginRegistry = pluginRegistryContainer.freeze();
+    }
+
+    @Test
+    public void testSingletonScope() throws Exception {
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry);
+        assertThat(CountingImpl.CREATED.get(), equalTo(0)); //Instances are created lazily
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Runnable>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executorService.submit((Callable<Runnable>) () -> pluginInstances.getInstance(CountingImpl.class)));
+            }
+            Runnable firstInstance = futures.get(0).get();
+            for (Future<Runnable> future : futures) {
+                assertThat(future.get(), sameInstance(firstInstance));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertThat(CountingImpl.CREATED.get(), equalTo(1));
+    }
+
+    @Test
+    public void testPrototypeScope() throws PluginException {
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry)
+                .withScope(CountingImpl.class, Scope.PROTOTYPE);
+        assertThat(pluginInstances.getScope(CountingImpl.class), equalTo(Scope.PROTOTYPE));
+        assertThat(pluginInstances.getScope(TestExtensionPointImpl.class), equalTo(Scope.SINGLETON));
+
+        CountingImpl instance = pluginInstances.getInstance(CountingImpl.class);
+        assertThat(pluginInstances.getInstance(CountingImpl.class), not(sameInstance(instance)));
+        assertThat(CountingImpl.CREATED.get(), equalTo(2));
+    }
+
+    @Test
+    public void testGetInstances() throws PluginException {
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry);
+        List<TestExtensionPoint> instances = pluginInstances.getInstances(TestExtensionPoint.class);
+        assertThat(instances, contains(instanceOf(TestExtensionPointImpl.class)));
+        assertThat(pluginInstances.getInstances(TestExtensionPoint.class).get(0), sameInstance(instances.get(0)));
+    }
+
+    @Test
+    public void testRelease() throws PluginException {
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry);
+        CountingImpl instance = pluginInstances.getInstance(CountingImpl.class);
+
+        pluginInstances.release(PLUGIN_NAME);
+        assertThat(CountingImpl.CLOSED.get(), equalTo(1));
+        assertThat(pluginInstances.getInstance(CountingImpl.class), not(sameInstance(instance)));
+    }
+
+    @Test
+    public void testConcurrentRelease() throws Exception {
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit((Callable<Void>) () -> {
+                    for (int j = 0; j < 10000; j++) {
+                        pluginInstances.getInstance(CountingImpl.class);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                while (!future.isDone()) {
+                    pluginInstances.releaseAll();
+                }
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        pluginInstances.releaseAll();
+
+        //No instance is created by already released holder, so every created instance is closed
+        assertThat(CountingImpl.CLOSED.get(), equalTo(CountingImpl.CREATED.get()));
+    }
+
+    @Test
+    public void testReleaseOnReload() throws PluginException {
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry);
+        pluginInstances.getInstance(CountingImpl.class);
+
+        PluginRegistry reloadedPluginRegistry = new PluginRegistryContainer().freeze();
+        pluginInstances.onPluginsReloaded(new DefaultReloadResult(
+                reloadedPluginRegistry,
+                Collections.emptyList(),
+                Collections.singletonList(PLUGIN_NAME),
+                Collections.emptyList(),
+                Collections.emptyList()
+        ));
+        assertThat(CountingImpl.CLOSED.get(), equalTo(1));
+        assertThat(pluginInstances.getPluginRegistry(), sameInstance(reloadedPluginRegistry));
+        assertTrue(pluginInstances.getInstances(Runnable.class).isEmpty());
+    }
+
+    @Test(expected = PluginException.class)
+    public void testMissingConstructor() throws PluginException {
+        new PluginInstances(pluginRegistry).getInstance(NoDefaultConstructorImpl.class);
+    }
+
+    public static class CountingImpl implements Runnable, AutoCloseable {
+
+        static final AtomicInteger CREATED = new AtomicInteger();
+
+        static final AtomicInteger CLOSED = new AtomicInteger();
+
+        public CountingImpl() {
+            CREATED.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public void close() {
+            CLOSED.incrementAndGet();
+        }
+
+    }
+
+    public static class NoDefaultConstructorImpl {
+
+        public NoDefaultConstructorImpl(String value) {
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.meridor.stecker;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.meridor.stecker.impl.ManifestField;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.Manifest;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class PluginLoadStatisticsTest {
+
+    private static final String OBJECT_NAME = "org.meridor.stecker:type=PluginLoadStatistics,name=test";
+
+    @Rule
+    public TemporaryDirectory temporaryDirectory = new TemporaryDirectory();
+
+    @Test
+    public void testLoadPhases() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("first", tempDirectory, Optional.of(createManifest("first-plugin")));
+        JarHelper.createTestPluginFile("second", tempDirectory, Optional.of(createManifest("second-plugin")));
+        PluginLoadStatistics statistics = new PluginLoadStatistics();
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class)
+                .withResourcesPatterns("glob:**/*.resource")
+                .withPluginLoadListener(statistics);
+
+        pluginLoader.load();
+        assertThat(statistics.getLoadsCount(), equalTo(1L));
+        assertThat(statistics.getProvidedPluginsCount(), equalTo(2));
+        assertThat(statistics.getLoadedPluginsCount(), equalTo(2));
+        assertThat(statistics.getManifestsReadCount(), equalTo(2L));
+        assertThat(statistics.getDependencyChecksCount(), equalTo(2L));
+        assertThat(statistics.getUnpackCacheMissesCount(), equalTo(2L));
+        assertThat(statistics.getUnpackCacheHitsCount(), equalTo(0L));
+        assertThat(statistics.getScannedPluginsCount(), equalTo(2L));
+        assertThat(statistics.getVisitedClassesCount(), greaterThan(0L));
+        assertThat(statistics.getFoundResourcesCount(), equalTo(2L));
+
+        //Plugins are already unpacked
+        pluginLoader.load();
+        assertThat(statistics.getLoadsCount(), equalTo(2L));
+        assertThat(statistics.getUnpackCacheMissesCount(), equalTo(0L));
+        assertThat(statistics.getUnpackCacheHitsCount(), equalTo(2L));
+    }
+
+    @Test
+    public void testLazyActivationsAreCountedSeparately() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("first", tempDirectory, Optional.of(createManifest("first-plugin")));
+        PluginLoadStatistics statistics = new PluginLoadStatistics();
+        PluginRegistry pluginRegistry = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class)
+                .withLazyActivation(true)
+                .withPluginLoadListener(statistics)
+                .load();
+        assertThat(statistics.getScannedPluginsCount(), equalTo(0L));
+        assertThat(statistics.getActivatedPluginsCount(), equalTo(0L));
+
+        pluginRegistry.getImplementations("first-plugin", TestExtensionPoint.class);
+        assertThat(statistics.getScannedPluginsCount(), equalTo(0L));
+        assertThat(statistics.getUnpackCacheMissesCount(), equalTo(0L));
+        assertThat(statistics.getActivatedPluginsCount(), equalTo(1L));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        PluginLoadStatistics statistics = new PluginLoadStatistics().register(OBJECT_NAME);
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(OBJECT_NAME);
+        try {
+            statistics.onLoadStarted();
+            statistics.onPluginsProvided(3, 0);
+            statistics.onLoadFinished(3, 0);
+            assertThat(mBeanServer.getAttribute(objectName, "LoadedPluginsCount"), equalTo(3));
+            assertThat(mBeanServer.getAttribute(objectName, "LoadsCount"), equalTo(1L));
+        } finally {
+            statistics.unregister();
+        }
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    private static Manifest createManifest(String pluginName) {
+        Map<String, String> manifestContents = new HashMap<>();
+        manifestContents.put(ManifestField.NAME.getFieldName(), pluginName);
+        manifestContents.put(ManifestField.VERSION.getFieldName(), "1.0");
+        return JarHelper.createManifest(manifestContents);
+    }
+
+}
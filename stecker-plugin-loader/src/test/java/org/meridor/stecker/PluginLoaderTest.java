@@ -2,38 +2,67 @@ package org.meridor.stecker;
 
 import org.junit.Rule;
 import org.junit.Test;
+import org.meridor.stecker.impl.ArchiveClassesScanner;
+import org.meridor.stecker.impl.ArchiveResourcesScanner;
+import org.meridor.stecker.impl.ContentAddressedCache;
 import org.meridor.stecker.impl.ManifestField;
+import org.meridor.stecker.impl.PluginArchiveClassLoader;
+import org.meridor.stecker.impl.PluginClassLoader;
+import org.meridor.stecker.impl.PluginRegistryContainer;
+import org.meridor.stecker.impl.PluginRegistrySnapshot;
+import org.meridor.stecker.impl.PluginUtils;
+import org.meridor.stecker.impl.SharedLibraries;
 import org.meridor.stecker.impl.data.AnnotatedImpl;
 import org.meridor.stecker.impl.data.TestAnnotation;
 import org.meridor.stecker.impl.data.TestExtensionPoint;
 import org.meridor.stecker.impl.data.TestExtensionPointImpl;
 import org.meridor.stecker.interfaces.ClassesScanner;
 import org.meridor.stecker.interfaces.DependencyChecker;
+import org.meridor.stecker.interfaces.DependencyResolver;
 import org.meridor.stecker.interfaces.ManifestReader;
+import org.meridor.stecker.interfaces.PluginLoadListener;
 import org.meridor.stecker.interfaces.PluginsProvider;
+import org.meridor.stecker.interfaces.PluginsReloadedHandler;
+import org.meridor.stecker.interfaces.ReloadResult;
 import org.meridor.stecker.interfaces.ResourcesScanner;
+import org.meridor.stecker.interfaces.UnloadResult;
 
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class PluginLoaderTest {
 
@@ -49,10 +78,12 @@ public class PluginLoaderTest {
         Class[] extensionPointsArray = new Class[]{TestExtensionPoint.class, TestExtensionPoint.class}; //We intentionally duplicate extension points
         ManifestReader manifestReader = mock(ManifestReader.class);
         DependencyChecker dependencyChecker = mock(DependencyChecker.class);
+        DependencyResolver dependencyResolver = mock(DependencyResolver.class);
+        PluginLoadListener pluginLoadListener = mock(PluginLoadListener.class);
         ClassesScanner classesScanner = mock(ClassesScanner.class);
         ResourcesScanner resourcesScanner = mock(ResourcesScanner.class);
         String[] resourcesGlobs = new String[]{"glob1", "glob2"};
-
+        ExecutorService executorService = mock(ExecutorService.class);
 
         PluginLoader pluginLoader = PluginLoader
                 .withPluginDirectory(pluginDirectory)
@@ -62,9 +93,17 @@ public class PluginLoaderTest {
                 .withExtensionPoints(extensionPointsArray)
                 .withManifestReader(manifestReader)
                 .withDependencyChecker(dependencyChecker)
+                .withDependencyResolver(dependencyResolver)
+                .withPluginLoadListener(pluginLoadListener)
+                .withLazyActivation(true)
                 .withClassesScanner(classesScanner)
                 .withResourcesScanner(resourcesScanner)
-                .withResourcesPatterns(resourcesGlobs);
+                .withResourcesPatterns(resourcesGlobs)
+                .withExecutor(executorService)
+                .withParallelism(4)
+                .withUnpack(false)
+                .withSharedLibraries(true)
+                .withContentAddressedCache(true);
 
         assertThat(pluginLoader.getPluginsDirectory(), equalTo(pluginDirectory));
         List<Class> uniqueExtensionPoints = Arrays.asList(extensionPointsArray)
@@ -76,9 +115,17 @@ public class PluginLoaderTest {
         assertThat(pluginLoader.getPluginsProvider(), equalTo(pluginsProvider));
         assertThat(pluginLoader.getManifestReader(), equalTo(manifestReader));
         assertThat(pluginLoader.getDependencyChecker(), equalTo(dependencyChecker));
+        assertThat(pluginLoader.getDependencyResolver(), equalTo(dependencyResolver));
+        assertThat(pluginLoader.getPluginLoadListeners(), contains(pluginLoadListener));
+        assertTrue(pluginLoader.isLazyActivation());
         assertThat(pluginLoader.getClassesScanner(), equalTo(classesScanner));
         assertThat(pluginLoader.getResourcesScanner(), equalTo(resourcesScanner));
         assertThat(pluginLoader.getResourcesPatterns(), equalTo(resourcesGlobs));
+        assertThat(pluginLoader.getExecutor(), equalTo(Optional.of(executorService)));
+        assertThat(pluginLoader.getParallelism(), equalTo(4));
+        assertFalse(pluginLoader.isUnpack());
+        assertTrue(pluginLoader.isSharedLibraries());
+        assertTrue(pluginLoader.isContentAddressedCache());
     }
 
     @Test(expected = PluginException.class)
@@ -108,6 +155,7 @@ public class PluginLoaderTest {
                 .withResourcesPatterns("glob:**/*.resource")
                 .load();
 
+        assertThat(pluginRegistry, instanceOf(PluginRegistrySnapshot.class));
         assertThat(pluginRegistry.getPluginNames(), hasSize(1));
         assertThat(pluginRegistry.getPluginNames(), contains(PLUGIN_NAME));
         assertTrue(pluginRegistry.getPlugin(PLUGIN_NAME).isPresent());
@@ -137,6 +185,475 @@ public class PluginLoaderTest {
 
     }
 
+    @Test
+    public void testLoadWithoutUnpack() throws Exception {
+        final String PLUGIN_NAME = "plugin-name";
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        Path pluginFile = JarHelper.createTestPluginFile(
+                "some-plugin",
+                tempDirectory,
+                Optional.of(createTestLoadManifest(PLUGIN_NAME, "plugin-version"))
+        );
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class, TestAnnotation.class)
+                .withResourcesPatterns("glob:**/*.resource")
+                .withUnpack(false);
+        assertThat(pluginLoader.getClassesScanner(), instanceOf(ArchiveClassesScanner.class));
+        assertThat(pluginLoader.getResourcesScanner(), instanceOf(ArchiveResourcesScanner.class));
+        PluginRegistry pluginRegistry = pluginLoader.load();
+
+        assertThat(pluginRegistry.getPluginNames(), contains(PLUGIN_NAME));
+        assertThat(pluginRegistry.getImplementations(TestAnnotation.class), contains(AnnotatedImpl.class));
+        assertThat(pluginRegistry.getImplementations(TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertTrue(pluginRegistry.getClassLoader(PLUGIN_NAME).isPresent());
+
+        assertThat(pluginRegistry.getResources(PLUGIN_NAME), hasSize(1));
+        Path resourcePath = pluginRegistry.getResources(PLUGIN_NAME).get(0);
+        assertTrue(resourcePath.endsWith(JarHelper.TEST_RESOURCE_NAME));
+        try (InputStream inputStream = Files.newInputStream(resourcePath)) {
+            assertNotNull(inputStream);
+        }
+
+        //Only matching resources are extracted and they are removed when plugin is unloaded
+        Path pluginVersionDirectory = PluginUtils.getPluginVersionDirectory(pluginFile, pluginLoader.getCacheDirectory());
+        assertTrue(resourcePath.startsWith(pluginVersionDirectory));
+        assertFalse(Files.exists(pluginVersionDirectory.resolve(PluginUtils.LIB_DIRECTORY)));
+        pluginLoader.unload(pluginRegistry, Collections.singletonList(PLUGIN_NAME));
+        assertFalse(Files.exists(pluginVersionDirectory));
+    }
+
+    @Test
+    public void testParallelLoad() throws Exception {
+        final int PLUGINS_COUNT = 8;
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        for (int i = 0; i < PLUGINS_COUNT; i++) {
+            JarHelper.createTestPluginFile(
+                    "some-plugin-" + i,
+                    tempDirectory,
+                    Optional.of(createTestLoadManifest("plugin-name-" + i, "plugin-version"))
+            );
+        }
+
+        PluginRegistry sequentialRegistry = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class, TestAnnotation.class)
+                .withResourcesPatterns("glob:**/*.resource")
+                .load();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            PluginRegistry parallelRegistry = PluginLoader
+                    .withPluginDirectory(tempDirectory)
+                    .withExtensionPoints(TestExtensionPoint.class, TestAnnotation.class)
+                    .withResourcesPatterns("glob:**/*.resource")
+                    .withExecutor(executorService)
+                    .load();
+            assertFalse(executorService.isShutdown()); //External executor should not be touched
+
+            assertThat(parallelRegistry.getPluginNames(), hasSize(PLUGINS_COUNT));
+            assertThat(parallelRegistry.getPluginNames(), containsInAnyOrder(sequentialRegistry.getPluginNames().toArray()));
+            assertThat(parallelRegistry.getExtensionPoints(), containsInAnyOrder(sequentialRegistry.getExtensionPoints().toArray()));
+            assertThat(parallelRegistry.getImplementations(TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+            assertThat(parallelRegistry.getResources(), hasSize(PLUGINS_COUNT));
+            for (String pluginName : sequentialRegistry.getPluginNames()) {
+                assertThat(
+                        parallelRegistry.getImplementations(pluginName, TestAnnotation.class),
+                        equalTo(sequentialRegistry.getImplementations(pluginName, TestAnnotation.class))
+                );
+                assertThat(
+                        parallelRegistry.getResources(pluginName),
+                        equalTo(sequentialRegistry.getResources(pluginName))
+                );
+                assertTrue(parallelRegistry.getClassLoader(pluginName).isPresent());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        PluginRegistry pooledRegistry = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class, TestAnnotation.class)
+                .withParallelism(4)
+                .load();
+        assertThat(pooledRegistry.getPluginNames(), hasSize(PLUGINS_COUNT));
+    }
+
+    @Test(expected = PluginException.class)
+    public void testParallelLoadFailure() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile(
+                "some-plugin",
+                tempDirectory,
+                Optional.of(JarHelper.createManifest(Collections.emptyMap())) //Required fields are missing
+        );
+        PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withParallelism(4)
+                .load();
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("unchanged", tempDirectory, Optional.of(createTestLoadManifest("unchanged-plugin", "1.0")));
+        Path modifiedPluginFile = JarHelper.createTestPluginFile("modified", tempDirectory, Optional.of(createTestLoadManifest("modified-plugin", "1.0")));
+        Path removedPluginFile = JarHelper.createTestPluginFile("removed", tempDirectory, Optional.of(createTestLoadManifest("removed-plugin", "1.0")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class, TestAnnotation.class)
+                .withResourcesPatterns("glob:**/*.resource");
+        PluginRegistry previousRegistry = pluginLoader.load();
+
+        ReloadResult sameResult = pluginLoader.reload(previousRegistry);
+        assertThat(sameResult.getUnchangedPlugins(), containsInAnyOrder("unchanged-plugin", "modified-plugin", "removed-plugin"));
+        assertThat(sameResult.getAddedPlugins(), hasSize(0));
+        assertThat(sameResult.getRemovedPlugins(), hasSize(0));
+        assertThat(sameResult.getModifiedPlugins(), hasSize(0));
+
+        Files.delete(modifiedPluginFile);
+        JarHelper.createTestPluginFile("modified", tempDirectory, Optional.of(createTestLoadManifest("modified-plugin", "2.0")));
+        Files.setLastModifiedTime(modifiedPluginFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        Files.delete(removedPluginFile);
+        JarHelper.createTestPluginFile("added", tempDirectory, Optional.of(createTestLoadManifest("added-plugin", "1.0")));
+
+        ReloadResult reloadResult = pluginLoader.reload(sameResult.getPluginRegistry());
+        assertThat(reloadResult.getAddedPlugins(), contains("added-plugin"));
+        assertThat(reloadResult.getRemovedPlugins(), contains("removed-plugin"));
+        assertThat(reloadResult.getModifiedPlugins(), contains("modified-plugin"));
+        assertThat(reloadResult.getUnchangedPlugins(), contains("unchanged-plugin"));
+
+        PluginRegistry pluginRegistry = reloadResult.getPluginRegistry();
+        assertThat(pluginRegistry.getPluginNames(), containsInAnyOrder("unchanged-plugin", "modified-plugin", "added-plugin"));
+        assertThat(pluginRegistry.getPlugin("modified-plugin").get().getVersion(), equalTo("2.0"));
+        assertThat(pluginRegistry.getClassLoader("unchanged-plugin").get(), sameInstance(previousRegistry.getClassLoader("unchanged-plugin").get()));
+        assertThat(pluginRegistry.getClassLoader("modified-plugin").get(), not(sameInstance(previousRegistry.getClassLoader("modified-plugin").get())));
+        assertThat(pluginRegistry.getImplementations("unchanged-plugin", TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertThat(pluginRegistry.getImplementations("added-plugin", TestAnnotation.class), contains(AnnotatedImpl.class));
+        assertThat(pluginRegistry.getResources("unchanged-plugin"), equalTo(previousRegistry.getResources("unchanged-plugin")));
+        assertThat(pluginRegistry.getResources(), hasSize(3));
+    }
+
+    @Test
+    public void testReloadReleasesClassLoaders() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("unchanged", tempDirectory, Optional.of(createTestLoadManifest("unchanged-plugin", "1.0")));
+        Path modifiedPluginFile = JarHelper.createTestPluginFile("modified", tempDirectory, Optional.of(createTestLoadManifest("modified-plugin", "1.0")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class);
+        PluginRegistry pluginRegistry = pluginLoader.load();
+        PluginClassLoader unchangedClassLoader = (PluginClassLoader) pluginRegistry.getClassLoader("unchanged-plugin").get();
+        PluginClassLoader modifiedClassLoader = (PluginClassLoader) pluginRegistry.getClassLoader("modified-plugin").get();
+        Path previousDirectory = PluginUtils.getPluginVersionDirectory(modifiedPluginFile, pluginLoader.getCacheDirectory());
+        PluginsReloadedHandler handler = mock(PluginsReloadedHandler.class);
+
+        //Nothing changed, so handlers are not notified
+        ReloadResult sameResult = pluginLoader.reload(pluginRegistry, handler);
+        verifyZeroInteractions(handler);
+        assertTrue(modifiedClassLoader.isIndexed());
+
+        Files.delete(modifiedPluginFile);
+        JarHelper.createTestPluginFile("modified", tempDirectory, Optional.of(createTestLoadManifest("modified-plugin", "2.0")));
+        Files.setLastModifiedTime(modifiedPluginFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+
+        //New version is unpacked to another directory, previous one is removed after its class loader is closed
+        ReloadResult reloadResult = pluginLoader.reload(sameResult.getPluginRegistry(), handler);
+        verify(handler).onPluginsReloaded(reloadResult);
+        assertTrue(unchangedClassLoader.isIndexed());
+        assertFalse(modifiedClassLoader.isIndexed()); //Closed class loader falls back to searching closed URLs
+        assertFalse(Files.exists(previousDirectory));
+        assertTrue(Files.isDirectory(PluginUtils.getPluginVersionDirectory(modifiedPluginFile, pluginLoader.getCacheDirectory())));
+
+        //Nothing references replaced class loader now
+        pluginRegistry = null;
+        sameResult = null;
+        modifiedClassLoader = null;
+        assertThat(reloadResult.awaitCollection(10, TimeUnit.SECONDS).keySet(), empty());
+    }
+
+    @Test
+    public void testStaleVersionDirectoriesAreRemoved() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        Path pluginFile = JarHelper.createTestPluginFile("some", tempDirectory, Optional.of(createTestLoadManifest("some-plugin", "1.0")));
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class);
+
+        //Left by previous runs: another version of plugin file and interrupted unpacking
+        Path pluginStorageDirectory = PluginUtils.getPluginStorageDirectory(pluginFile, pluginLoader.getCacheDirectory());
+        Path staleDirectory = Files.createDirectories(pluginStorageDirectory.resolve("1-1"));
+        Files.write(staleDirectory.resolve("stale.txt"), new byte[]{1});
+        Path unpackDirectory = Files.createDirectories(pluginStorageDirectory.resolve(".unpacking-1"));
+
+        PluginRegistry pluginRegistry = pluginLoader.load();
+        Path previousDirectory = PluginUtils.getPluginVersionDirectory(pluginFile, pluginLoader.getCacheDirectory());
+        assertTrue(Files.isDirectory(previousDirectory));
+        assertFalse(Files.exists(staleDirectory));
+        assertFalse(Files.exists(unpackDirectory));
+
+        //Version used by previous registry is kept until its class loader is released
+        Files.delete(pluginFile);
+        JarHelper.createTestPluginFile("some", tempDirectory, Optional.of(createTestLoadManifest("some-plugin", "2.0")));
+        Files.setLastModifiedTime(pluginFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        AtomicBoolean previousDirectoryKept = new AtomicBoolean();
+        pluginLoader.reload(pluginRegistry, reloadResult -> previousDirectoryKept.set(Files.isDirectory(previousDirectory)));
+        assertTrue(previousDirectoryKept.get());
+        assertFalse(Files.exists(previousDirectory));
+    }
+
+    @Test
+    public void testDependencyClassLoaders() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        Path apiPluginFile = JarHelper.createTestPluginFile("api", tempDirectory, Optional.of(createTestLoadManifest("api-plugin", "1.0")));
+        JarHelper.createTestPluginFile("consumer", tempDirectory, Optional.of(createTestLoadManifest("consumer-plugin", "1.0", "api-plugin")));
+        JarHelper.createTestPluginFile("another-consumer", tempDirectory, Optional.of(createTestLoadManifest("another-consumer-plugin", "1.0", "consumer-plugin;api-plugin")));
+
+        for (boolean unpack : new boolean[]{true, false}) {
+            PluginLoader pluginLoader = PluginLoader
+                    .withPluginDirectory(tempDirectory)
+                    .withExtensionPoints(TestExtensionPoint.class)
+                    .withUnpack(unpack);
+            PluginRegistry pluginRegistry = pluginLoader.load();
+
+            ClassLoader apiClassLoader = pluginRegistry.getClassLoader("api-plugin").get();
+            ClassLoader consumerClassLoader = pluginRegistry.getClassLoader("consumer-plugin").get();
+            ClassLoader anotherConsumerClassLoader = pluginRegistry.getClassLoader("another-consumer-plugin").get();
+            assertThat(getDependencyClassLoaders(apiClassLoader), hasSize(0));
+            assertThat(getDependencyClassLoaders(consumerClassLoader), contains(apiClassLoader));
+            assertThat(getDependencyClassLoaders(anotherConsumerClassLoader), contains(consumerClassLoader, apiClassLoader));
+        }
+
+        //Plugins depending on modified plugin get new class loaders too
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class);
+        PluginRegistry previousRegistry = pluginLoader.load();
+        Files.setLastModifiedTime(apiPluginFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        ReloadResult reloadResult = pluginLoader.reload(previousRegistry);
+        assertThat(reloadResult.getModifiedPlugins(), contains("api-plugin", "consumer-plugin", "another-consumer-plugin"));
+        assertThat(
+                getDependencyClassLoaders(reloadResult.getPluginRegistry().getClassLoader("consumer-plugin").get()),
+                contains(reloadResult.getPluginRegistry().getClassLoader("api-plugin").get())
+        );
+    }
+
+    @Test
+    public void testSharedLibraries() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("first", tempDirectory, Optional.of(createTestLoadManifest("first-plugin", "1.0")));
+        JarHelper.createTestPluginFile("second", tempDirectory, Optional.of(createTestLoadManifest("second-plugin", "1.0")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class)
+                .withSharedLibraries(true);
+        ReloadResult reloadResult = pluginLoader.reload(new PluginRegistryContainer());
+
+        assertTrue(reloadResult.getSharedLibrariesReport().isPresent());
+        Set<Path> sharedLibraries = reloadResult.getSharedLibrariesReport().get().getSharedLibraries().keySet();
+        assertThat(sharedLibraries, not(empty()));
+        for (Path sharedLibrary : sharedLibraries) {
+            assertThat(sharedLibrary.getParent(), equalTo(pluginLoader.getCacheDirectory().resolve(SharedLibraries.SHARED_LIBRARIES_DIRECTORY)));
+        }
+        PluginRegistry pluginRegistry = reloadResult.getPluginRegistry();
+        assertThat(pluginRegistry.getPluginNames(), containsInAnyOrder("first-plugin", "second-plugin"));
+        assertThat(pluginRegistry.getImplementations("first-plugin", TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertThat(pluginRegistry.getClassLoader("first-plugin").get(), instanceOf(PluginClassLoader.class));
+
+        //Shared libraries are removed together with the last plugin using them
+        pluginRegistry = pluginLoader.unload(pluginRegistry, Collections.singletonList("first-plugin")).getPluginRegistry();
+        assertTrue(sharedLibraries.stream().allMatch(Files::exists));
+        pluginLoader.unload(pluginRegistry, Collections.singletonList("second-plugin"));
+        assertTrue(sharedLibraries.stream().noneMatch(Files::exists));
+    }
+
+    @Test
+    public void testContentAddressedCache() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("first", tempDirectory, Optional.of(createTestLoadManifest("first-plugin", "1.0")));
+        JarHelper.createTestPluginFile("second", tempDirectory, Optional.of(createTestLoadManifest("second-plugin", "1.0")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class)
+                .withContentAddressedCache(true);
+        PluginRegistry pluginRegistry = pluginLoader.load();
+
+        assertThat(pluginRegistry.getPluginNames(), containsInAnyOrder("first-plugin", "second-plugin"));
+        assertThat(pluginRegistry.getImplementations("second-plugin", TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertTrue(Files.isDirectory(pluginLoader.getCacheDirectory().resolve(ContentAddressedCache.OBJECTS_DIRECTORY)));
+    }
+
+    @Test
+    public void testSeveralPluginVersions() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        Path oldVersion = JarHelper.createTestPluginFile("library-1.0", tempDirectory, Optional.of(createTestLoadManifest("library", "1.0")));
+        Path newVersion = JarHelper.createTestPluginFile("library-2.0", tempDirectory, Optional.of(createTestLoadManifest("library", "2.0")));
+        JarHelper.createTestPluginFile("dependent", tempDirectory, Optional.of(createTestLoadManifest("dependent", "1.0", "library=[1.0,2.0)")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class);
+        ReloadResult reloadResult = pluginLoader.reload(new PluginRegistryContainer());
+
+        PluginRegistry pluginRegistry = reloadResult.getPluginRegistry();
+        assertThat(pluginRegistry.getPluginNames(), containsInAnyOrder("library", "dependent"));
+        assertThat(pluginRegistry.getPlugin("library").get().getPath(), equalTo(oldVersion));
+        assertThat(reloadResult.getSkippedPlugins(), contains(newVersion));
+        //Skipped version is not even unpacked
+        assertFalse(Files.exists(PluginUtils.getPluginStorageDirectory(newVersion, pluginLoader.getCacheDirectory())));
+    }
+
+    @Test
+    public void testLazyActivation() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        Path apiPluginFile = JarHelper.createTestPluginFile("api", tempDirectory, Optional.of(createTestLoadManifest("api-plugin", "1.0")));
+        Path consumerPluginFile = JarHelper.createTestPluginFile("consumer", tempDirectory, Optional.of(createTestLoadManifest("consumer-plugin", "1.0", "api-plugin")));
+        Path otherPluginFile = JarHelper.createTestPluginFile("other", tempDirectory, Optional.of(createTestLoadManifest("other-plugin", "1.0")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class)
+                .withResourcesPatterns("glob:**/*.resource")
+                .withLazyActivation(true);
+        PluginRegistry pluginRegistry = pluginLoader.load();
+        Path cacheDirectory = pluginLoader.getCacheDirectory();
+        assertThat(pluginRegistry.getPluginNames(), containsInAnyOrder("api-plugin", "consumer-plugin", "other-plugin"));
+        assertFalse(Files.exists(PluginUtils.getPluginStorageDirectory(apiPluginFile, cacheDirectory)));
+
+        //Dependencies are activated together with dependent plugin
+        ClassLoader consumerClassLoader = pluginRegistry.getClassLoader("consumer-plugin").get();
+        assertThat(getDependencyClassLoaders(consumerClassLoader), contains(pluginRegistry.getClassLoader("api-plugin").get()));
+        assertTrue(Files.exists(PluginUtils.getPluginStorageDirectory(consumerPluginFile, cacheDirectory)));
+        assertTrue(Files.exists(PluginUtils.getPluginStorageDirectory(apiPluginFile, cacheDirectory)));
+        assertFalse(Files.exists(PluginUtils.getPluginStorageDirectory(otherPluginFile, cacheDirectory)));
+        assertThat(pluginRegistry.getImplementations("consumer-plugin", TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertThat(pluginRegistry.getResources("consumer-plugin"), hasSize(1));
+
+        //Activated plugins are reused, not activated ones stay lazy
+        ReloadResult reloadResult = pluginLoader.reload(pluginRegistry);
+        assertThat(reloadResult.getUnchangedPlugins(), containsInAnyOrder("api-plugin", "consumer-plugin", "other-plugin"));
+        PluginRegistry newRegistry = reloadResult.getPluginRegistry();
+        assertThat(newRegistry.getClassLoader("consumer-plugin").get(), sameInstance(consumerClassLoader));
+        assertFalse(Files.exists(PluginUtils.getPluginStorageDirectory(otherPluginFile, cacheDirectory)));
+
+        //Requesting implementations of all plugins activates everything
+        assertThat(newRegistry.getImplementations(TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertThat(newRegistry.getResources(), hasSize(3));
+        assertTrue(Files.exists(PluginUtils.getPluginStorageDirectory(otherPluginFile, cacheDirectory)));
+    }
+
+    @Test
+    public void testUnload() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("api", tempDirectory, Optional.of(createTestLoadManifest("api-plugin", "1.0")));
+        JarHelper.createTestPluginFile("consumer", tempDirectory, Optional.of(createTestLoadManifest("consumer-plugin", "1.0", "api-plugin")));
+        JarHelper.createTestPluginFile("other", tempDirectory, Optional.of(createTestLoadManifest("other-plugin", "1.0")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class);
+        PluginRegistry pluginRegistry = pluginLoader.load();
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry);
+        Object instance = pluginInstances.getInstance(TestExtensionPointImpl.class);
+        PluginClassLoader apiClassLoader = (PluginClassLoader) pluginRegistry.getClassLoader("api-plugin").get();
+        PluginsReloadedHandler handler = mock(PluginsReloadedHandler.class);
+
+        //Dependent plugin can't stay without its dependency
+        UnloadResult unloadResult = pluginLoader.unload(pluginRegistry, Collections.singletonList("api-plugin"), pluginInstances, handler);
+        verify(handler).onPluginsReloaded(unloadResult);
+        assertThat(unloadResult.getRemovedPlugins(), contains("api-plugin", "consumer-plugin"));
+        assertThat(unloadResult.getUnchangedPlugins(), contains("other-plugin"));
+        assertThat(unloadResult.getPluginRegistry().getPluginNames(), contains("other-plugin"));
+        assertFalse(unloadResult.getPluginRegistry().getClassLoader("api-plugin").isPresent());
+        assertThat(pluginInstances.getPluginRegistry(), sameInstance(unloadResult.getPluginRegistry()));
+        assertThat(pluginInstances.getInstance(TestExtensionPointImpl.class), not(sameInstance(instance)));
+        assertFalse(apiClassLoader.isIndexed()); //Closed class loader falls back to searching closed URLs
+
+        //Nothing references unloaded plugins now
+        pluginRegistry = null;
+        apiClassLoader = null;
+        assertThat(unloadResult.awaitCollection(10, TimeUnit.SECONDS).keySet(), empty());
+    }
+
+    @Test
+    public void testUnloadLazily() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        Path apiPluginFile = JarHelper.createTestPluginFile("api", tempDirectory, Optional.of(createTestLoadManifest("api-plugin", "1.0")));
+        JarHelper.createTestPluginFile("other", tempDirectory, Optional.of(createTestLoadManifest("other-plugin", "1.0")));
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class)
+                .withLazyActivation(true);
+        PluginRegistry pluginRegistry = pluginLoader.load();
+        PluginInstances pluginInstances = new PluginInstances(pluginRegistry);
+        UnloadResult unloadResult = pluginLoader.unload(pluginRegistry, Collections.singletonList("api-plugin"), pluginInstances);
+        assertThat(unloadResult.getPluginRegistry().getPluginNames(), contains("other-plugin"));
+        //Not activated plugin is not activated just to be unloaded
+        assertFalse(Files.exists(PluginUtils.getPluginStorageDirectory(apiPluginFile, pluginLoader.getCacheDirectory())));
+        assertThat(unloadResult.awaitCollection(1, TimeUnit.SECONDS).keySet(), empty());
+    }
+
+    @Test
+    public void testUnloadLeak() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("leaking", tempDirectory, Optional.of(createTestLoadManifest("leaking-plugin", "1.0")));
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class);
+        PluginRegistry pluginRegistry = pluginLoader.load();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.setName("leaking-thread");
+        thread.setContextClassLoader(pluginRegistry.getClassLoader("leaking-plugin").get());
+        thread.start();
+        try {
+            UnloadResult unloadResult = pluginLoader.unload(pluginRegistry, Collections.singletonList("leaking-plugin"));
+            pluginRegistry = null;
+            Map<String, String> leaks = unloadResult.awaitCollection(500, TimeUnit.MILLISECONDS);
+            assertThat(leaks.keySet(), contains("leaking-plugin"));
+            assertThat(leaks.get("leaking-plugin"), containsString("leaking-thread"));
+        } finally {
+            latch.countDown();
+            thread.join();
+        }
+    }
+
+    @Test(expected = PluginException.class)
+    public void testCyclicDependencies() throws Exception {
+        Path tempDirectory = temporaryDirectory.getDirectory();
+        JarHelper.createTestPluginFile("first", tempDirectory, Optional.of(createTestLoadManifest("first-plugin", "1.0", "second-plugin")));
+        JarHelper.createTestPluginFile("second", tempDirectory, Optional.of(createTestLoadManifest("second-plugin", "1.0", "first-plugin")));
+        PluginLoader
+                .withPluginDirectory(tempDirectory)
+                .withExtensionPoints(TestExtensionPoint.class)
+                .load();
+    }
+
+    private static List<ClassLoader> getDependencyClassLoaders(ClassLoader classLoader) {
+        return (classLoader instanceof PluginClassLoader) ?
+                ((PluginClassLoader) classLoader).getDependencyClassLoaders() :
+                ((PluginArchiveClassLoader) classLoader).getDependencyClassLoaders();
+    }
+
+    private Manifest createTestLoadManifest(String pluginName, String pluginVersion, String dependencies) {
+        Manifest manifest = createTestLoadManifest(pluginName, pluginVersion);
+        manifest.getMainAttributes().putValue(ManifestField.DEPENDS.getFieldName(), dependencies);
+        return manifest;
+    }
+
     private Manifest createTestLoadManifest(String pluginName, String pluginVersion) {
         Map<String, String> manifestContents = new HashMap<String, String>() {
             {
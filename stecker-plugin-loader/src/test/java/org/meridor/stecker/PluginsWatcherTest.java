@@ -0,0 +1,127 @@
+package org.meridor.stecker;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.meridor.stecker.impl.ManifestField;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+import org.meridor.stecker.interfaces.ReloadResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.Manifest;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class PluginsWatcherTest {
+
+    private static final long DEBOUNCE_DELAY = 200;
+
+    @Rule
+    public TemporaryDirectory pluginsDirectory = new TemporaryDirectory();
+
+    @Rule
+    public TemporaryDirectory buildDirectory = new TemporaryDirectory();
+
+    private PluginsWatcher pluginsWatcher;
+
+    @Test(timeout = 20000)
+    public void testReloadOnChanges() throws Exception {
+        Path pluginFile = createPlugin("first", "first-plugin");
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(pluginsDirectory.getDirectory())
+                .withExtensionPoints(TestExtensionPoint.class);
+        PluginRegistry initialRegistry = pluginLoader.load();
+
+        BlockingQueue<ReloadResult> reloadResults = new ArrayBlockingQueue<>(10);
+        pluginsWatcher = new PluginsWatcher(pluginLoader, initialRegistry, DEBOUNCE_DELAY);
+        pluginsWatcher.addReloadedHandler(reloadResults::add);
+        assertThat(pluginsWatcher.getPluginRegistry(), sameInstance(initialRegistry));
+        pluginsWatcher.start();
+
+        createPlugin("second", "second-plugin");
+        ReloadResult addResult = reloadResults.poll(10, TimeUnit.SECONDS);
+        assertThat(addResult, notNullValue());
+        assertThat(addResult.getAddedPlugins(), contains("second-plugin"));
+        assertThat(addResult.getUnchangedPlugins(), contains("first-plugin"));
+        PluginRegistry pluginRegistry = pluginsWatcher.getPluginRegistry();
+        assertThat(pluginRegistry, sameInstance(addResult.getPluginRegistry()));
+        assertThat(pluginRegistry.getPluginNames(), containsInAnyOrder("first-plugin", "second-plugin"));
+        assertThat(pluginRegistry.getImplementations("second-plugin", TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+
+        Files.delete(pluginFile);
+        ReloadResult removeResult = reloadResults.poll(10, TimeUnit.SECONDS);
+        assertThat(removeResult, notNullValue());
+        assertThat(removeResult.getRemovedPlugins(), contains("first-plugin"));
+        assertThat(pluginsWatcher.getPluginRegistry().getPluginNames(), contains("second-plugin"));
+        assertFalse(pluginsWatcher.getLastError().isPresent());
+        assertThat(reloadResults, hasSize(0));
+    }
+
+    @Test(timeout = 20000)
+    public void testFailingHandlerDoesNotStopWatcher() throws Exception {
+        createPlugin("first", "first-plugin");
+
+        PluginLoader pluginLoader = PluginLoader
+                .withPluginDirectory(pluginsDirectory.getDirectory())
+                .withExtensionPoints(TestExtensionPoint.class);
+        PluginRegistry initialRegistry = pluginLoader.load();
+
+        BlockingQueue<ReloadResult> reloadResults = new ArrayBlockingQueue<>(10);
+        AtomicBoolean isFailed = new AtomicBoolean();
+        pluginsWatcher = new PluginsWatcher(pluginLoader, initialRegistry, DEBOUNCE_DELAY);
+        pluginsWatcher.addReloadedHandler(reloadResult -> {
+            reloadResults.add(reloadResult);
+            if (isFailed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Handler failed");
+            }
+        });
+        pluginsWatcher.start();
+
+        createPlugin("second", "second-plugin");
+        assertThat(reloadResults.poll(10, TimeUnit.SECONDS), notNullValue());
+        while (!pluginsWatcher.getLastError().isPresent()) {
+            Thread.sleep(DEBOUNCE_DELAY / 10);
+        }
+        assertThat(pluginsWatcher.getLastError().get().getCause(), instanceOf(IllegalStateException.class));
+
+        createPlugin("third", "third-plugin");
+        ReloadResult reloadResult = reloadResults.poll(10, TimeUnit.SECONDS);
+        assertThat(reloadResult, notNullValue());
+        assertThat(reloadResult.getAddedPlugins(), contains("third-plugin"));
+        assertThat(pluginsWatcher.getPluginRegistry().getPluginNames(), containsInAnyOrder("first-plugin", "second-plugin", "third-plugin"));
+    }
+
+    private Path createPlugin(String fileName, String pluginName) throws Exception {
+        Map<String, String> manifestContents = new HashMap<>();
+        manifestContents.put(ManifestField.NAME.getFieldName(), pluginName);
+        manifestContents.put(ManifestField.VERSION.getFieldName(), "1.0");
+        Manifest manifest = JarHelper.createManifest(manifestContents);
+        Path pluginFile = JarHelper.createTestPluginFile(fileName, buildDirectory.getDirectory(), Optional.of(manifest));
+        return Files.move(pluginFile, pluginsDirectory.getDirectory().resolve(pluginFile.getFileName()));
+    }
+
+    @After
+    public void after() {
+        if (pluginsWatcher != null) {
+            pluginsWatcher.stop();
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package org.meridor.stecker.dev;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
+import org.meridor.stecker.impl.PluginClassLoader;
 
 import java.net.MalformedURLException;
 import java.nio.file.Path;
@@ -11,6 +12,7 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertThat;
 
 @RunWith(Parameterized.class)
@@ -55,4 +57,9 @@ public class BuildToolClassLoaderFactoryTest {
         assertThat(BuildToolClassLoaderFactory.getDependenciesPath(BASE_DIRECTORY, buildToolType), equalTo(correctDependenciesPath));
     }
 
+    @Test
+    public void testGetClassLoader() throws Exception {
+        assertThat(BuildToolClassLoaderFactory.getClassLoader(BASE_DIRECTORY, buildToolType), instanceOf(PluginClassLoader.class));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package org.meridor.stecker.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.meridor.stecker.JarHelper;
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginLoader;
+import org.meridor.stecker.impl.data.AnnotatedImpl;
+import org.meridor.stecker.impl.data.LibraryClass;
+import org.meridor.stecker.impl.data.TestAnnotation;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+import org.meridor.stecker.interfaces.PluginImplementationsAware;
+import org.meridor.stecker.interfaces.ScanResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ArchiveClassesScannerTest {
+
+    private static final String PLUGIN_NAME = "some-plugin";
+
+    private Path tempDirectory;
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = FileSystemHelper.createTempDirectory();
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile(PLUGIN_NAME, tempDirectory, Optional.empty());
+        List<Class> extensionPoints = new ArrayList<Class>() {
+            {
+                add(TestExtensionPoint.class);
+                add(TestAnnotation.class);
+            }
+        };
+
+        ScanResult scanResult = new ArchiveClassesScanner().scan(pluginFile, extensionPoints);
+
+        assertThat(scanResult.getClassLoader(), instanceOf(PluginArchiveClassLoader.class));
+
+        PluginImplementationsAware contents = scanResult.getContents();
+        assertThat(contents.getExtensionPoints(), hasSize(2));
+        assertThat(contents.getImplementations(TestAnnotation.class), contains(AnnotatedImpl.class));
+        assertThat(contents.getImplementations(TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+
+        assertFalse(Files.exists(tempDirectory.resolve(PluginLoader.DEFAULT_CACHE_DIRECTORY))); //Nothing is unpacked
+    }
+
+    @Test
+    public void testPluginArchiveIsSharedWithResourcesScanner() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile(PLUGIN_NAME, tempDirectory, Optional.empty());
+        PluginArchives pluginArchives = new PluginArchives();
+
+        ScanResult scanResult = new ArchiveClassesScanner(pluginArchives).scan(pluginFile, Collections.singletonList(TestExtensionPoint.class));
+        PluginArchive pluginArchive = ((PluginArchiveClassLoader) scanResult.getClassLoader()).getPluginArchive();
+        assertThat(pluginArchives.get(pluginFile), sameInstance(pluginArchive));
+
+        Path cacheDirectory = tempDirectory.resolve(PluginLoader.DEFAULT_CACHE_DIRECTORY);
+        new ArchiveResourcesScanner(pluginArchives, cacheDirectory, new String[]{"glob:**/*.resource"}).scan(pluginFile);
+        assertThat(pluginArchives.get(pluginFile), sameInstance(pluginArchive));
+    }
+
+    @Test
+    public void testClassLoader() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile(PLUGIN_NAME, tempDirectory, Optional.empty());
+        PluginArchiveClassLoader classLoader = new PluginArchiveClassLoader(PluginArchive.open(pluginFile));
+
+        //Test classes are also available from parent class loader, so calling findClass directly
+        Class<?> libraryClass = classLoader.findClass(LibraryClass.class.getName());
+        assertThat(libraryClass.getClassLoader(), equalTo(classLoader));
+        assertThat(libraryClass, not(equalTo(LibraryClass.class)));
+        assertThat(libraryClass.getPackage(), notNullValue());
+        assertThat(libraryClass.getProtectionDomain().getCodeSource().getLocation().toString(), equalTo(
+                PluginArchiveClassLoader.URL_PROTOCOL + ":" + pluginFile.toUri() + "!/lib/dependency.jar!/"
+        ));
+
+        Class<?> implementationClass = classLoader.findClass(TestExtensionPointImpl.class.getName());
+        assertThat(implementationClass.getClassLoader(), equalTo(classLoader));
+
+        URL resourceUrl = classLoader.findResource(JarHelper.TEST_RESOURCE_NAME);
+        assertThat(resourceUrl, notNullValue());
+        assertThat(resourceUrl.getProtocol(), equalTo(PluginArchiveClassLoader.URL_PROTOCOL));
+        byte[] expectedContents;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(JarHelper.TEST_RESOURCE_NAME)) {
+            expectedContents = readFully(inputStream);
+        }
+        try (InputStream inputStream = resourceUrl.openStream()) {
+            assertTrue(Arrays.equals(readFully(inputStream), expectedContents));
+        }
+        assertThat(Collections.list(classLoader.findResources(JarHelper.TEST_RESOURCE_NAME)), hasSize(1));
+        assertThat(classLoader.findResource("missing.resource"), equalTo(null));
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testMissingClass() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile(PLUGIN_NAME, tempDirectory, Optional.empty());
+        new PluginArchiveClassLoader(PluginArchive.open(pluginFile)).findClass("org.example.Missing");
+    }
+
+    @Test(expected = PluginException.class)
+    public void testInvalidPluginFile() throws Exception {
+        Path pluginFile = tempDirectory.resolve(PLUGIN_NAME + ".jar");
+        Files.write(pluginFile, new byte[]{1, 2, 3});
+        new ArchiveClassesScanner().scan(pluginFile, new ArrayList<>());
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @After
+    public void removeTempDirectory() throws IOException {
+        FileSystemHelper.removeDirectory(tempDirectory);
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Test;
+import org.meridor.stecker.JarHelper;
+import org.meridor.stecker.impl.data.AnnotatedImpl;
+import org.meridor.stecker.impl.data.LibraryClass;
+import org.meridor.stecker.impl.data.TestAnnotation;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileInfoTest {
+
+    @Test
+    public void testReadImplementation() throws Exception {
+        ClassFileInfo classFileInfo = read(TestExtensionPointImpl.class);
+        assertThat(classFileInfo.getClassName(), equalTo(TestExtensionPointImpl.class.getName()));
+        assertThat(classFileInfo.getSuperClassName().get(), equalTo(Object.class.getName()));
+        assertThat(classFileInfo.getInterfaceNames(), contains(TestExtensionPoint.class.getName()));
+        assertThat(classFileInfo.getAnnotationNames(), empty());
+        assertThat(
+                classFileInfo.getReferencedClassNames(),
+                hasItems(TestExtensionPointImpl.class.getName(), TestExtensionPoint.class.getName(), LibraryClass.class.getName())
+        );
+    }
+
+    @Test
+    public void testReadAnnotatedClass() throws Exception {
+        ClassFileInfo classFileInfo = read(AnnotatedImpl.class);
+        assertThat(classFileInfo.getAnnotationNames(), contains(TestAnnotation.class.getName()));
+        assertThat(classFileInfo.getInterfaceNames(), empty());
+    }
+
+    @Test
+    public void testReadSystemClass() throws Exception {
+        try (InputStream inputStream = ClassLoader.getSystemResourceAsStream("java/lang/Long.class")) {
+            ClassFileInfo classFileInfo = ClassFileInfo.read(inputStream);
+            assertThat(classFileInfo.getClassName(), equalTo(Long.class.getName()));
+            assertThat(classFileInfo.getSuperClassName().get(), equalTo(Number.class.getName()));
+            assertThat(classFileInfo.getInterfaceNames(), hasItem(Comparable.class.getName()));
+            //Array of this class is referenced in method descriptors only
+            assertThat(classFileInfo.getReferencedClassNames(), hasItems(String.class.getName(), Number.class.getName()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadInvalidClass() throws Exception {
+        ClassFileInfo.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+    }
+
+    @Test
+    public void testClassHierarchy() throws Exception {
+        Map<String, ClassFileInfo> classes = new HashMap<>();
+        classes.put(TestExtensionPointImpl.class.getName(), read(TestExtensionPointImpl.class));
+        classes.put(AnnotatedImpl.class.getName(), read(AnnotatedImpl.class));
+        ClassHierarchy classHierarchy = new ClassHierarchy(classes, getClass().getClassLoader());
+
+        assertThat(
+                classHierarchy.getSupertypes(TestExtensionPointImpl.class.getName()),
+                hasItems(TestExtensionPointImpl.class.getName(), TestExtensionPoint.class.getName(), Object.class.getName())
+        );
+        assertThat(classHierarchy.getSupertypes(AnnotatedImpl.class.getName()), not(hasItem(TestExtensionPoint.class.getName())));
+        assertTrue(classHierarchy.getAnnotations(AnnotatedImpl.class.getName()).contains(TestAnnotation.class.getName()));
+        assertFalse(classHierarchy.getAnnotations(TestExtensionPointImpl.class.getName()).contains(TestAnnotation.class.getName()));
+
+        //Resolved from class loader resources
+        assertThat(classHierarchy.getSupertypes(Long.class.getName()), hasItem(Serializable.class.getName()));
+    }
+
+    private static ClassFileInfo read(Class<?> aClass) throws Exception {
+        try (InputStream inputStream = Files.newInputStream(JarHelper.classToPath(aClass))) {
+            return ClassFileInfo.read(inputStream);
+        }
+    }
+
+}
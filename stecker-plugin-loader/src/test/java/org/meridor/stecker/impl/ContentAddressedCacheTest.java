@@ -0,0 +1,127 @@
+package org.meridor.stecker.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.meridor.stecker.JarHelper;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ContentAddressedCacheTest {
+
+    private Path tempDirectory;
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = FileSystemHelper.createTempDirectory();
+    }
+
+    private Path getCacheDirectory() {
+        return tempDirectory.resolve(".cache");
+    }
+
+    @Test
+    public void testSameLayoutAsUnpackPlugin() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile("some-plugin", tempDirectory, Optional.empty());
+        Path pluginDirectory = new ContentAddressedCache(getCacheDirectory()).unpackPlugin(pluginFile);
+        assertThat(pluginDirectory, equalTo(PluginUtils.getPluginVersionDirectory(pluginFile, getCacheDirectory())));
+
+        Path expectedDirectory = PluginUtils.unpackPlugin(pluginFile, tempDirectory.resolve("expected"));
+        assertThat(getRelativeFiles(pluginDirectory), equalTo(getRelativeFiles(expectedDirectory)));
+        assertThat(getRelativeFiles(pluginDirectory), not(empty()));
+    }
+
+    @Test
+    public void testPluginFileIsNotCopied() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile("some-plugin", tempDirectory, Optional.empty());
+        ContentAddressedCache contentAddressedCache = new ContentAddressedCache(getCacheDirectory());
+        Path pluginDirectory = contentAddressedCache.unpackPlugin(pluginFile);
+
+        //Only objects and links to them are written
+        assertThat(getChildren(getCacheDirectory()), containsInAnyOrder(contentAddressedCache.getObjectsDirectory(), pluginDirectory.getParent()));
+        assertThat(getChildren(pluginDirectory.getParent()), contains(pluginDirectory));
+    }
+
+    @Test
+    public void testOnlyCrossDeviceLinkFailuresDisableLinks() {
+        assertTrue(ContentAddressedCache.isCrossDeviceLink(new FileSystemException("a", "b", "Invalid cross-device link")));
+        assertTrue(ContentAddressedCache.isCrossDeviceLink(new FileSystemException("a", "b", "The system cannot move the file to a different disk drive.")));
+        assertFalse(ContentAddressedCache.isCrossDeviceLink(new AccessDeniedException("a", "b", "Permission denied")));
+        assertFalse(ContentAddressedCache.isCrossDeviceLink(new FileSystemException("a", "b", "No space left on device")));
+        assertFalse(ContentAddressedCache.isCrossDeviceLink(new FileAlreadyExistsException("a")));
+    }
+
+    @Test
+    public void testIdenticalFilesAreStoredOnce() throws Exception {
+        Path firstPluginFile = JarHelper.createTestPluginFile("first", tempDirectory, Optional.empty());
+        Path secondPluginFile = JarHelper.createTestPluginFile("second", tempDirectory, Optional.empty());
+        ContentAddressedCache contentAddressedCache = new ContentAddressedCache(getCacheDirectory());
+        Path firstDirectory = contentAddressedCache.unpackPlugin(firstPluginFile);
+        Path secondDirectory = contentAddressedCache.unpackPlugin(secondPluginFile);
+
+        for (Path file : getRelativeFiles(firstDirectory)) {
+            assertTrue(Files.isSameFile(firstDirectory.resolve(file), secondDirectory.resolve(file)));
+        }
+        //Files with the same contents inside one plugin are also stored once
+        assertThat(getRelativeFiles(contentAddressedCache.getObjectsDirectory()).size(), lessThanOrEqualTo(getRelativeFiles(firstDirectory).size()));
+
+        //Plugin is not unpacked again until it changes
+        assertThat(contentAddressedCache.unpackPlugin(firstPluginFile), equalTo(firstDirectory));
+    }
+
+    @Test
+    public void testRemoveUnusedObjects() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile("some-plugin", tempDirectory, Optional.empty());
+        ContentAddressedCache contentAddressedCache = new ContentAddressedCache(getCacheDirectory());
+        Path pluginDirectory = contentAddressedCache.unpackPlugin(pluginFile);
+
+        contentAddressedCache.removeUnusedObjects();
+        assertThat(getRelativeFiles(contentAddressedCache.getObjectsDirectory()), not(empty()));
+
+        FileSystemHelper.removeDirectory(pluginDirectory);
+        assertFalse(Files.exists(pluginDirectory));
+        contentAddressedCache.removeUnusedObjects();
+        assertThat(getRelativeFiles(contentAddressedCache.getObjectsDirectory()), empty());
+    }
+
+    private static List<Path> getChildren(Path directory) throws IOException {
+        try (Stream<Path> children = Files.list(directory)) {
+            return children.collect(Collectors.toList());
+        }
+    }
+
+    private static List<Path> getRelativeFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .map(directory::relativize)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @After
+    public void removeTempDirectory() throws IOException {
+        FileSystemHelper.removeDirectory(tempDirectory);
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Test;
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.interfaces.Dependency;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class DefaultDependencyResolverTest {
+
+    @Test
+    public void testSingleVersionsAreNotChanged() throws Exception {
+        List<PluginMetadata> plugins = Arrays.asList(
+                createPlugin("first", "1.0"),
+                createPlugin("second", "1.0", new DependencyContainer("missing"))
+        );
+        assertThat(new DefaultDependencyResolver().resolve(plugins), sameInstance(plugins));
+    }
+
+    @Test
+    public void testHighestVersionIsChosen() throws Exception {
+        PluginMetadata oldVersion = createPlugin("plugin", "1.9");
+        PluginMetadata newVersion = createPlugin("plugin", "1.10");
+        PluginMetadata anotherPlugin = createPlugin("another-plugin", "1.0");
+        assertThat(
+                new DefaultDependencyResolver().resolve(Arrays.asList(oldVersion, anotherPlugin, newVersion)),
+                contains(anotherPlugin, newVersion)
+        );
+    }
+
+    @Test
+    public void testVersionRequiredByDependentIsChosen() throws Exception {
+        PluginMetadata oldVersion = createPlugin("plugin", "1.0");
+        PluginMetadata newVersion = createPlugin("plugin", "2.0");
+        PluginMetadata dependent = createPlugin("dependent", "1.0", new DependencyContainer("plugin", "[1.0,2.0)"));
+        assertThat(
+                new DefaultDependencyResolver().resolve(Arrays.asList(oldVersion, newVersion, dependent)),
+                contains(oldVersion, dependent)
+        );
+    }
+
+    @Test
+    public void testConsistentSetIsChosen() throws Exception {
+        // The newest dependent requires the oldest library, so the newest library should be dropped
+        PluginMetadata oldLibrary = createPlugin("library", "1.0");
+        PluginMetadata newLibrary = createPlugin("library", "2.0");
+        PluginMetadata oldDependent = createPlugin("dependent", "1.0", new DependencyContainer("library", "[2.0,)"));
+        PluginMetadata newDependent = createPlugin("dependent", "2.0", new DependencyContainer("library", "1.0"));
+        PluginMetadata conflicting = createPlugin("conflicting", "1.0");
+        ((PluginMetadataContainer) conflicting).addConflictingDependencies(Collections.singletonList(new DependencyContainer("library", "[2.0,)")));
+        assertThat(
+                new DefaultDependencyResolver().resolve(Arrays.asList(oldLibrary, newLibrary, oldDependent, newDependent, conflicting)),
+                contains(oldLibrary, newDependent, conflicting)
+        );
+    }
+
+    @Test
+    public void testVersionWithMissingDependencyIsSkipped() throws Exception {
+        PluginMetadata oldVersion = createPlugin("plugin", "1.0");
+        PluginMetadata newVersion = createPlugin("plugin", "2.0", new DependencyContainer("missing"));
+        assertThat(new DefaultDependencyResolver().resolve(Arrays.asList(oldVersion, newVersion)), contains(oldVersion));
+    }
+
+    @Test
+    public void testProvidedDependency() throws Exception {
+        PluginMetadata provider = createPlugin("provider", "1.0");
+        ((PluginMetadataContainer) provider).setProvidedDependency(new DependencyContainer("api"));
+        PluginMetadata oldDependent = createPlugin("dependent", "1.0", new DependencyContainer("api"));
+        PluginMetadata newDependent = createPlugin("dependent", "2.0", new DependencyContainer("api", "2.0"));
+        assertThat(
+                new DefaultDependencyResolver().resolve(Arrays.asList(provider, oldDependent, newDependent)),
+                contains(provider, oldDependent)
+        );
+    }
+
+    @Test
+    public void testHighestVersionsWhenNothingIsConsistent() throws Exception {
+        PluginMetadata oldVersion = createPlugin("plugin", "1.0", new DependencyContainer("missing"));
+        PluginMetadata newVersion = createPlugin("plugin", "2.0", new DependencyContainer("missing"));
+        assertThat(new DefaultDependencyResolver().resolve(Arrays.asList(oldVersion, newVersion)), contains(newVersion));
+    }
+
+    @Test
+    public void testVersionProvidingRequiredNameIsChosen() throws Exception {
+        // Only the oldest version provides what dependent requires
+        PluginMetadata oldProvider = createPlugin("provider", "1.0");
+        ((PluginMetadataContainer) oldProvider).setProvidedDependency(new DependencyContainer("api"));
+        PluginMetadata newProvider = createPlugin("provider", "2.0");
+        PluginMetadata dependent = createPlugin("dependent", "1.0", new DependencyContainer("api"));
+        assertThat(
+                new DefaultDependencyResolver().resolve(Arrays.asList(oldProvider, newProvider, dependent)),
+                contains(oldProvider, dependent)
+        );
+    }
+
+    @Test(expected = PluginException.class)
+    public void testTooManyStepsFail() throws Exception {
+        // Every combination of library versions is tried before dependent turns out to be incompatible with all of them
+        List<PluginMetadata> plugins = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            for (int version = 1; version <= 3; version++) {
+                plugins.add(createPlugin("library-" + i, version + ".0"));
+            }
+        }
+        plugins.add(createPlugin("api", "1.0"));
+        plugins.add(createPlugin("dependent", "1.0", new DependencyContainer("api", "2.0")));
+        plugins.add(createPlugin("dependent", "2.0", new DependencyContainer("api", "2.0")));
+        new DefaultDependencyResolver().resolve(plugins);
+    }
+
+    private static PluginMetadata createPlugin(String name, String version, Dependency... requiredDependencies) {
+        PluginMetadataContainer pluginMetadata = new PluginMetadataContainer(name, version, Paths.get(name + "-" + version + ".jar"));
+        pluginMetadata.addRequiredDependencies(Arrays.asList(requiredDependencies));
+        return pluginMetadata;
+    }
+
+}
@@ -46,7 +46,12 @@ public class DefaultVersionComparatorTest {
                 {"(,1.1]", "1.1", VersionRelation.IN_RANGE},
                 {"(,)", "1.1", VersionRelation.IN_RANGE},
                 {"[1.0,1.1)", "1.1", VersionRelation.NOT_IN_RANGE},
-                {"(1.0,1.1)", "1.0", VersionRelation.NOT_IN_RANGE}
+                {"(1.0,1.1)", "1.0", VersionRelation.NOT_IN_RANGE},
+                {"1.9", "1.10", VersionRelation.GREATER_THAN},
+                {"1.10", "1.9", VersionRelation.LESS_THAN},
+                {"1.0", "1.0.0", VersionRelation.EQUAL},
+                {"[1.2,1.10)", "1.9", VersionRelation.IN_RANGE},
+                {"[1.2,1.10)", "1.10", VersionRelation.NOT_IN_RANGE}
         });
     }
 
@@ -0,0 +1,87 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.meridor.stecker.JarHelper;
+import org.meridor.stecker.TemporaryDirectory;
+import org.meridor.stecker.impl.data.AnnotatedImpl;
+import org.meridor.stecker.impl.data.TestAnnotation;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+import org.meridor.stecker.interfaces.PluginImplementationsAware;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ExtensionIndexTest {
+
+    private static final List<Class> EXTENSION_POINTS = Arrays.asList(TestExtensionPoint.class, TestAnnotation.class);
+
+    @Rule
+    public TemporaryDirectory temporaryDirectory = new TemporaryDirectory();
+
+    @Test
+    public void testBuildWriteAndRead() throws Exception {
+        Path classesDirectory = temporaryDirectory.getDirectory().resolve("classes");
+        for (Class aClass : new Class[]{TestExtensionPointImpl.class, AnnotatedImpl.class}) {
+            Path classFile = classesDirectory.resolve(JarHelper.classToResourceName(aClass));
+            Files.createDirectories(classFile.getParent());
+            Files.copy(JarHelper.classToPath(aClass), classFile);
+        }
+
+        ExtensionIndex extensionIndex = ExtensionIndex.build(classesDirectory, getClass().getClassLoader());
+        assertThat(extensionIndex.getClassNames(), containsInAnyOrder(TestExtensionPointImpl.class.getName(), AnnotatedImpl.class.getName()));
+        assertThat(extensionIndex.getSupertypes(TestExtensionPointImpl.class.getName()), hasItem(TestExtensionPoint.class.getName()));
+        assertThat(extensionIndex.getAnnotations(AnnotatedImpl.class.getName()), contains(TestAnnotation.class.getName()));
+
+        extensionIndex.write(classesDirectory.resolve(ExtensionIndex.INDEX_FILE));
+        Optional<ExtensionIndex> readIndex = ExtensionIndex.read(classesDirectory);
+        assertTrue(readIndex.isPresent());
+        assertThat(readIndex.get().getClassNames(), containsInAnyOrder(TestExtensionPointImpl.class.getName(), AnnotatedImpl.class.getName()));
+        assertThat(readIndex.get().getCandidates(Collections.singletonList(TestExtensionPoint.class)), contains(TestExtensionPointImpl.class.getName()));
+        assertThat(readIndex.get().getCandidates(Collections.singletonList(TestAnnotation.class)), contains(AnnotatedImpl.class.getName()));
+        assertThat(readIndex.get().getCandidates(Collections.singletonList(Number.class)), empty());
+    }
+
+    @Test
+    public void testMissingIndex() throws Exception {
+        assertFalse(ExtensionIndex.read(temporaryDirectory.getDirectory()).isPresent());
+    }
+
+    @Test
+    public void testScannerUsesIndex() throws Exception {
+        Path cacheDirectory = temporaryDirectory.getDirectory().resolve(".cache");
+        Path pluginFile = JarHelper.createTestPluginFile("some-plugin", temporaryDirectory.getDirectory(), Optional.empty());
+        Path pluginImplementationDirectory = PluginUtils.getPluginImplementationDirectory(
+                PluginUtils.unpackPlugin(pluginFile, cacheDirectory)
+        );
+
+        //Intentionally omitting annotated class to make sure that classes are not scanned
+        ExtensionIndex extensionIndex = new ExtensionIndex();
+        extensionIndex.addClass(
+                TestExtensionPointImpl.class.getName(),
+                Arrays.asList(TestExtensionPoint.class.getName(), Object.class.getName()),
+                Collections.emptyList()
+        );
+        extensionIndex.write(pluginImplementationDirectory.resolve(ExtensionIndex.INDEX_FILE));
+
+        PluginImplementationsAware contents = new DefaultClassesScanner(cacheDirectory)
+                .scan(pluginFile, EXTENSION_POINTS)
+                .getContents();
+        assertThat(contents.getImplementations(TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertThat(contents.getImplementations(TestAnnotation.class), empty());
+    }
+
+}
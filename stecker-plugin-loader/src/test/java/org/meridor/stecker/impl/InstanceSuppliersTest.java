@@ -0,0 +1,75 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Test;
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class InstanceSuppliersTest {
+
+    @Test
+    public void testSupplier() throws PluginException {
+        Supplier<TestExtensionPointImpl> supplier = InstanceSuppliers.of(TestExtensionPointImpl.class);
+        TestExtensionPointImpl instance = supplier.get();
+        assertThat(instance, instanceOf(TestExtensionPointImpl.class));
+        assertThat(supplier.get(), not(sameInstance(instance)));
+    }
+
+    @Test
+    public void testSupplierIsGeneratedInImplementationClassLoader() throws PluginException {
+        //Java 8 falls back to method handle
+        assumeTrue(hasPrivateLookupIn());
+        Supplier<TestExtensionPointImpl> supplier = InstanceSuppliers.of(TestExtensionPointImpl.class);
+        assertThat(supplier.getClass().getClassLoader(), sameInstance(TestExtensionPointImpl.class.getClassLoader()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testConstructorExceptionIsRethrown() throws Exception {
+        InstanceSuppliers.of(ThrowingImpl.class).get();
+    }
+
+    @Test(expected = PluginException.class)
+    public void testAbstractClass() throws PluginException {
+        InstanceSuppliers.of(TestExtensionPoint.class);
+    }
+
+    @Test(expected = PluginException.class)
+    public void testNoDefaultConstructor() throws PluginException {
+        InstanceSuppliers.of(NoDefaultConstructorImpl.class);
+    }
+
+    private static boolean hasPrivateLookupIn() {
+        try {
+            MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public static class NoDefaultConstructorImpl {
+
+        public NoDefaultConstructorImpl(String value) {
+        }
+
+    }
+
+    public static class ThrowingImpl {
+
+        public ThrowingImpl() throws IOException {
+            throw new IOException("Constructor failed");
+        }
+
+    }
+
+}
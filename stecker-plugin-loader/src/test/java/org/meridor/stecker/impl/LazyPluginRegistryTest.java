@@ -0,0 +1,180 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Test;
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LazyPluginRegistryTest {
+
+    private static final String API_PLUGIN_NAME = "api-plugin";
+    private static final String CONSUMER_PLUGIN_NAME = "consumer-plugin";
+    private static final int THREADS_COUNT = 8;
+
+    private final PluginMetadata apiPlugin = new PluginMetadataContainer(API_PLUGIN_NAME, "1.0", Paths.get("api.jar"));
+
+    private final PluginMetadata consumerPlugin = new PluginMetadataContainer(CONSUMER_PLUGIN_NAME, "1.0", Paths.get("consumer.jar"));
+
+    private final Map<String, AtomicInteger> activationsCount = new ConcurrentHashMap<>();
+
+    private final Map<String, List<ClassLoader>> dependencyClassLoaders = new ConcurrentHashMap<>();
+
+    @Test
+    public void testActivation() throws Exception {
+        LazyPluginRegistry pluginRegistry = createRegistry(this::activate);
+        assertFalse(pluginRegistry.isActivated(API_PLUGIN_NAME));
+        assertThat(pluginRegistry.getPlugin(CONSUMER_PLUGIN_NAME).get(), sameInstance(consumerPlugin));
+        assertThat(pluginRegistry.getFileStamp(CONSUMER_PLUGIN_NAME).get(), equalTo(CONSUMER_PLUGIN_NAME + "-stamp"));
+        assertThat(activationsCount.keySet(), empty());
+
+        assertThat(pluginRegistry.getImplementations(API_PLUGIN_NAME, TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertTrue(pluginRegistry.isActivated(API_PLUGIN_NAME));
+        assertFalse(pluginRegistry.isActivated(CONSUMER_PLUGIN_NAME));
+
+        ClassLoader consumerClassLoader = pluginRegistry.getClassLoader(CONSUMER_PLUGIN_NAME).get();
+        assertThat(dependencyClassLoaders.get(CONSUMER_PLUGIN_NAME), contains(pluginRegistry.getClassLoader(API_PLUGIN_NAME).get()));
+        assertThat(pluginRegistry.getResources(CONSUMER_PLUGIN_NAME), contains(Paths.get(CONSUMER_PLUGIN_NAME + ".resource")));
+        assertThat(pluginRegistry.getResources(), containsInAnyOrder(Paths.get(API_PLUGIN_NAME + ".resource"), Paths.get(CONSUMER_PLUGIN_NAME + ".resource")));
+        assertThat(pluginRegistry.getClassLoader(CONSUMER_PLUGIN_NAME).get(), sameInstance(consumerClassLoader));
+        assertThat(activationsCount.get(API_PLUGIN_NAME).get(), equalTo(1));
+        assertThat(activationsCount.get(CONSUMER_PLUGIN_NAME).get(), equalTo(1));
+    }
+
+    @Test
+    public void testConcurrentActivation() throws Exception {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        LazyPluginRegistry pluginRegistry = createRegistry((pluginMetadata, classLoaders) -> {
+            try {
+                //Makes concurrent requests wait for the same activation
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return activate(pluginMetadata, classLoaders);
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS_COUNT);
+        try {
+            List<Future<ClassLoader>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS_COUNT; i++) {
+                String pluginName = (i % 2 == 0) ? API_PLUGIN_NAME : CONSUMER_PLUGIN_NAME;
+                Callable<ClassLoader> task = () -> {
+                    startLatch.await();
+                    return pluginRegistry.getClassLoader(pluginName).get();
+                };
+                futures.add(executorService.submit(task));
+            }
+            startLatch.countDown();
+            Map<ClassLoader, Boolean> classLoaders = new IdentityHashMap<>();
+            for (Future<ClassLoader> future : futures) {
+                classLoaders.put(future.get(), true);
+            }
+            assertThat(classLoaders.size(), equalTo(2));
+            assertThat(activationsCount.get(API_PLUGIN_NAME).get(), equalTo(1));
+            assertThat(activationsCount.get(CONSUMER_PLUGIN_NAME).get(), equalTo(1));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedActivation() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        LazyPluginRegistry pluginRegistry = createRegistry((pluginMetadata, classLoaders) -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new PluginException("Broken plugin").withPlugin(pluginMetadata);
+            }
+            return activate(pluginMetadata, classLoaders);
+        });
+        try {
+            pluginRegistry.getClassLoader(API_PLUGIN_NAME);
+            fail("Activation failure should be reported");
+        } catch (IllegalStateException e) {
+            assertThat(e.getCause(), instanceOf(PluginException.class));
+        }
+        assertFalse(pluginRegistry.isActivated(API_PLUGIN_NAME));
+        assertTrue(pluginRegistry.getClassLoader(API_PLUGIN_NAME).isPresent());
+    }
+
+    @Test
+    public void testWithout() throws Exception {
+        LazyPluginRegistry pluginRegistry = createRegistry(this::activate);
+        ClassLoader apiClassLoader = pluginRegistry.getClassLoader(API_PLUGIN_NAME).get();
+        LazyPluginRegistry newRegistry = pluginRegistry.without(Collections.singletonList(CONSUMER_PLUGIN_NAME));
+        assertThat(newRegistry.getPluginNames(), contains(API_PLUGIN_NAME));
+        assertFalse(newRegistry.getPlugin(CONSUMER_PLUGIN_NAME).isPresent());
+        assertFalse(newRegistry.getClassLoader(CONSUMER_PLUGIN_NAME).isPresent());
+        //Activation state is shared with original registry
+        assertTrue(newRegistry.isActivated(API_PLUGIN_NAME));
+        assertThat(newRegistry.getClassLoader(API_PLUGIN_NAME).get(), sameInstance(apiClassLoader));
+        assertThat(newRegistry.getResources(), contains(Paths.get(API_PLUGIN_NAME + ".resource")));
+        assertFalse(pluginRegistry.isActivated(CONSUMER_PLUGIN_NAME));
+        assertThat(activationsCount.get(API_PLUGIN_NAME).get(), equalTo(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws Exception {
+        createRegistry(this::activate).addPlugin(apiPlugin);
+    }
+
+    private LazyPluginRegistry createRegistry(LazyPluginRegistry.Activator activator) throws PluginException {
+        PluginRegistryContainer plugins = new PluginRegistryContainer();
+        plugins.addPlugin(apiPlugin);
+        plugins.addPlugin(consumerPlugin);
+        Map<PluginMetadata, List<PluginMetadata>> dependencyGraph = new HashMap<>();
+        dependencyGraph.put(apiPlugin, Collections.emptyList());
+        dependencyGraph.put(consumerPlugin, Collections.singletonList(apiPlugin));
+        Map<PluginMetadata, String> fileStamps = new HashMap<>();
+        fileStamps.put(apiPlugin, API_PLUGIN_NAME + "-stamp");
+        fileStamps.put(consumerPlugin, CONSUMER_PLUGIN_NAME + "-stamp");
+        return new LazyPluginRegistry(
+                plugins,
+                Arrays.asList(apiPlugin, consumerPlugin),
+                dependencyGraph,
+                fileStamps,
+                Collections.emptyMap(),
+                activator
+        );
+    }
+
+    private LazyPluginRegistry.Activation activate(PluginMetadata pluginMetadata, List<ClassLoader> classLoaders) {
+        String pluginName = pluginMetadata.getName();
+        activationsCount.computeIfAbsent(pluginName, name -> new AtomicInteger()).incrementAndGet();
+        dependencyClassLoaders.put(pluginName, classLoaders);
+        return new LazyPluginRegistry.Activation(
+                new URLClassLoader(new URL[0]),
+                new ClassesRegistry(TestExtensionPoint.class, Collections.singletonList(TestExtensionPointImpl.class)),
+                Collections.singletonList(Paths.get(pluginName + ".resource"))
+        );
+    }
+
+}
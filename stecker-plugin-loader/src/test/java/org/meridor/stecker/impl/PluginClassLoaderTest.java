@@ -0,0 +1,220 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.meridor.stecker.impl.data.AnnotatedImpl;
+import org.meridor.stecker.impl.data.LibraryClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.meridor.stecker.JarHelper.classToPath;
+import static org.meridor.stecker.JarHelper.classToResourceName;
+
+public class PluginClassLoaderTest {
+
+    private static final int LIBRARIES_COUNT = 60;
+
+    private static final String RESOURCE_NAME = "shared.txt";
+
+    private static final String FIRST_CLASS_NAME = "org.example.First";
+
+    private static final String SECOND_CLASS_NAME = "org.example.Second";
+
+    private static final long LOADING_TIMEOUT_SECONDS = 5;
+
+    private Path tempDirectory;
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = FileSystemHelper.createTempDirectory();
+    }
+
+    @Test
+    public void testIndexedLookup() throws Exception {
+        Path classesDirectory = Files.createDirectories(tempDirectory.resolve("classes"));
+        Path implementationClass = classesDirectory.resolve(classToResourceName(AnnotatedImpl.class));
+        Files.createDirectories(implementationClass.getParent());
+        Files.copy(classToPath(AnnotatedImpl.class), implementationClass);
+        Files.write(classesDirectory.resolve(RESOURCE_NAME), "implementation".getBytes(StandardCharsets.UTF_8));
+
+        List<Path> libraries = new ArrayList<>();
+        for (int i = 0; i < LIBRARIES_COUNT; i++) {
+            libraries.add(createLibrary(
+                    String.format("filler-%d.jar", i),
+                    String.format("org/example/filler%d/Filler.txt", i),
+                    "filler".getBytes(StandardCharsets.UTF_8)
+            ));
+        }
+        libraries.add(createLibrary("library.jar", classToResourceName(LibraryClass.class), Files.readAllBytes(classToPath(LibraryClass.class))));
+        libraries.add(createLibrary("resources.jar", RESOURCE_NAME, "library".getBytes(StandardCharsets.UTF_8)));
+
+        try (PluginClassLoader classLoader = (PluginClassLoader) PluginUtils.getClassLoader(
+                classesDirectory,
+                libraries,
+                ClassLoader.getSystemClassLoader(),
+                Collections.emptyList()
+        )) {
+            assertTrue(classLoader.isIndexed());
+
+            //Test classes are also visible to parent class loader, so asking plugin class loader directly
+            Class<?> libraryClass = classLoader.findClass(LibraryClass.class.getName());
+            assertThat(libraryClass, not(sameInstance(LibraryClass.class)));
+            assertThat(libraryClass.getClassLoader(), sameInstance(classLoader));
+            assertThat(libraryClass.getPackage(), notNullValue());
+            assertThat(
+                    libraryClass.getProtectionDomain().getCodeSource().getLocation(),
+                    equalTo(libraries.get(LIBRARIES_COUNT).toUri().toURL())
+            );
+            Class<?> implementation = classLoader.findClass(AnnotatedImpl.class.getName());
+            assertThat(implementation.getClassLoader(), sameInstance(classLoader));
+
+            assertThat(classLoader.findResource("org/example/filler7/Filler.txt").toString(), startsWith("jar:"));
+            assertThat(classLoader.findResource("org/example/filler7/"), nullValue());
+            URL resource = classLoader.getResource(RESOURCE_NAME);
+            assertThat(read(resource), equalTo("library"));
+            List<URL> resources = Collections.list(classLoader.getResources(RESOURCE_NAME));
+            assertThat(resources, hasSize(2));
+            assertThat(read(resources.get(1)), equalTo("implementation"));
+            assertThat(classLoader.getResource("org/example/missing.txt"), nullValue());
+        }
+    }
+
+    @Test
+    public void testListedDirectoryIsNotWalked() throws Exception {
+        Path classesDirectory = Files.createDirectories(tempDirectory.resolve("classes"));
+        Path implementationClass = classesDirectory.resolve(classToResourceName(AnnotatedImpl.class));
+        Files.createDirectories(implementationClass.getParent());
+        Files.copy(classToPath(AnnotatedImpl.class), implementationClass);
+        Path unlistedResource = Files.createDirectories(classesDirectory.resolve("unlisted")).resolve(RESOURCE_NAME);
+        Files.write(unlistedResource, "implementation".getBytes(StandardCharsets.UTF_8));
+
+        try (PluginClassLoader classLoader = new PluginClassLoader(
+                new URL[]{classesDirectory.toUri().toURL()},
+                ClassLoader.getSystemClassLoader(),
+                Collections.emptyList(),
+                Collections.singletonMap(classesDirectory, Collections.singletonList(implementationClass))
+        )) {
+            assertTrue(classLoader.isIndexed());
+            assertThat(classLoader.findClass(AnnotatedImpl.class.getName()).getClassLoader(), sameInstance(classLoader));
+            assertThat(classLoader.findResource(classToResourceName(AnnotatedImpl.class).replaceAll("[^/]+$", "")), notNullValue());
+            //Only packages of listed files are indexed
+            assertThat(classLoader.findResource("unlisted/" + RESOURCE_NAME), nullValue());
+        }
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testUnknownPackage() throws Exception {
+        Path library = createLibrary("library.jar", classToResourceName(LibraryClass.class), Files.readAllBytes(classToPath(LibraryClass.class)));
+        try (PluginClassLoader classLoader = (PluginClassLoader) PluginUtils.getClassLoader(
+                tempDirectory.resolve("classes"),
+                Collections.singletonList(library),
+                ClassLoader.getSystemClassLoader(),
+                Collections.emptyList()
+        )) {
+            classLoader.loadClass("org.example.missing.Missing");
+        }
+    }
+
+    @Test
+    public void testParallelCapable() throws Exception {
+        CountDownLatch firstLoading = new CountDownLatch(1);
+        CountDownLatch secondLoading = new CountDownLatch(1);
+        //Loading of the first class waits in dependency until the second class starts loading
+        ClassLoader dependency = new ClassLoader(null) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (FIRST_CLASS_NAME.equals(name)) {
+                    firstLoading.countDown();
+                    awaitQuietly(secondLoading);
+                } else if (SECOND_CLASS_NAME.equals(name)) {
+                    secondLoading.countDown();
+                }
+                throw new ClassNotFoundException(name);
+            }
+        };
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try (PluginClassLoader classLoader = new PluginClassLoader(new URL[0], Collections.singletonList(dependency))) {
+            Future<Boolean> first = executorService.submit(() -> isLoaded(classLoader, FIRST_CLASS_NAME));
+            assertTrue(firstLoading.await(LOADING_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Future<Boolean> second = executorService.submit(() -> isLoaded(classLoader, SECOND_CLASS_NAME));
+            //Class loaders which are not parallel capable block the second class until the first one is loaded
+            assertTrue(secondLoading.await(LOADING_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertFalse(first.get());
+            assertFalse(second.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static boolean isLoaded(ClassLoader classLoader, String className) {
+        try {
+            classLoader.loadClass(className);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(LOADING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        Path library = createLibrary("library.jar", RESOURCE_NAME, "library".getBytes(StandardCharsets.UTF_8));
+        PluginClassLoader classLoader = new PluginClassLoader(new URL[]{library.toUri().toURL()}, Collections.emptyList());
+        assertThat(classLoader.findResource(RESOURCE_NAME), notNullValue());
+        classLoader.close();
+        assertFalse(classLoader.isIndexed());
+        assertThat(classLoader.findResource(RESOURCE_NAME), nullValue());
+    }
+
+    private Path createLibrary(String fileName, String entryName, byte[] contents) throws IOException {
+        Path libraryFile = tempDirectory.resolve(fileName);
+        try (OutputStream outputStream = Files.newOutputStream(libraryFile);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream)) {
+            jarOutputStream.putNextEntry(new ZipEntry(entryName));
+            jarOutputStream.write(contents);
+            jarOutputStream.closeEntry();
+        }
+        return libraryFile;
+    }
+
+    private static String read(URL url) throws IOException {
+        try (InputStream inputStream = url.openStream(); Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.meridor.stecker.impl;
 
+import org.hamcrest.Matcher;
 import org.junit.Test;
 import org.meridor.stecker.PluginException;
 import org.meridor.stecker.PluginMetadata;
@@ -17,6 +18,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -102,6 +104,12 @@ public class PluginRegistryContainerTest {
         assertThat(pluginRegistry.getImplementations(ANOTHER_PLUGIN_NAME, TestExtensionPoint.class), contains(String.class));
         assertThat(pluginRegistry.getImplementations(ANOTHER_PLUGIN_NAME, Number.class), hasSize(2));
         assertThat(pluginRegistry.getImplementations(ANOTHER_PLUGIN_NAME, Number.class), containsInAnyOrder(Integer.class, AtomicInteger.class));
+
+        @SuppressWarnings("unchecked")
+        Matcher<Iterable<? extends Class<? extends Number>>> numberImplementations = containsInAnyOrder(Integer.class, AtomicInteger.class);
+        assertThat(pluginRegistry.getExtensionPoint(Number.class).getImplementations(), numberImplementations);
+        assertTrue(pluginRegistry.getExtensionPoint(Runnable.class).isEmpty());
+        assertThat(pluginRegistry.getExtensionPoint(Runnable.class), sameInstance(pluginRegistry.getExtensionPoint(Runnable.class)));
     }
 
     private PluginMetadata getMockPluginMetadata(String pluginName) {
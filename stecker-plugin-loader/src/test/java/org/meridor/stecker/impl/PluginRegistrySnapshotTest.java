@@ -0,0 +1,135 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Test;
+import org.meridor.stecker.ExtensionPoint;
+import org.meridor.stecker.PluginException;
+import org.meridor.stecker.PluginMetadata;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PluginRegistrySnapshotTest {
+
+    private static final String PLUGIN_NAME = "test-plugin";
+    private static final String ANOTHER_PLUGIN_NAME = "another-test-plugin";
+    private static final String PROVIDED_NAME = "provided-dependency";
+
+    @Test
+    public void testFreeze() throws PluginException {
+        PluginRegistryContainer pluginRegistryContainer = createRegistry();
+        PluginRegistrySnapshot snapshot = pluginRegistryContainer.freeze();
+
+        assertThat(snapshot.getPluginNames(), containsInAnyOrder(PLUGIN_NAME, ANOTHER_PLUGIN_NAME, PROVIDED_NAME));
+        assertThat(snapshot.getPlugin(PROVIDED_NAME).get().getName(), equalTo(ANOTHER_PLUGIN_NAME));
+        assertThat(snapshot.getExtensionPoints(), containsInAnyOrder(TestExtensionPoint.class, Number.class));
+        assertThat(snapshot.getImplementations(TestExtensionPoint.class), containsInAnyOrder(TestExtensionPointImpl.class, String.class));
+        assertThat(snapshot.getImplementations(Runnable.class), empty());
+        assertThat(snapshot.getImplementations(PLUGIN_NAME, TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertThat(snapshot.getExtensionPoints(ANOTHER_PLUGIN_NAME), containsInAnyOrder(TestExtensionPoint.class, Number.class));
+        assertThat(snapshot.getResources(PLUGIN_NAME), contains(Paths.get("some.resource")));
+        assertThat(snapshot.getResources(), contains(Paths.get("some.resource")));
+        assertThat(snapshot.getClassLoader(PLUGIN_NAME).get(), sameInstance(getClass().getClassLoader()));
+        assertThat(snapshot.getFileStamp(PLUGIN_NAME), equalTo(Optional.of("stamp")));
+
+        //Reads return the same precomputed lists
+        assertThat(snapshot.getImplementations(TestExtensionPoint.class), sameInstance(snapshot.getImplementations(TestExtensionPoint.class)));
+
+        //Changing source registry does not affect snapshot
+        pluginRegistryContainer.addImplementations(getMockPluginMetadata(PLUGIN_NAME), Number.class, Collections.singletonList(Integer.class));
+        assertThat(snapshot.getImplementations(Number.class), contains(Long.class));
+    }
+
+    @Test
+    public void testGetExtensionPoint() throws PluginException {
+        PluginRegistrySnapshot snapshot = createRegistry().freeze();
+
+        ExtensionPoint<Number> extensionPoint = snapshot.getExtensionPoint(Number.class);
+        assertThat(extensionPoint.getType(), equalTo(Number.class));
+        assertThat(extensionPoint.getImplementations(), equalTo(Collections.<Class<? extends Number>>singletonList(Long.class)));
+        assertThat(extensionPoint, sameInstance(snapshot.getExtensionPoint(Number.class)));
+        assertThat(extensionPoint.getImplementations(), sameInstance(extensionPoint.getImplementations()));
+
+        ExtensionPoint<Runnable> missingExtensionPoint = snapshot.getExtensionPoint(Runnable.class);
+        assertTrue(missingExtensionPoint.isEmpty());
+        assertThat(missingExtensionPoint, sameInstance(snapshot.getExtensionPoint(Runnable.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAnnotationIsNotTypedExtensionPoint() throws PluginException {
+        createRegistry().freeze().getExtensionPoint(Deprecated.class);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotIsImmutable() throws PluginException {
+        PluginRegistrySnapshot snapshot = createRegistry().freeze();
+        snapshot.addImplementations(getMockPluginMetadata(PLUGIN_NAME), Number.class, Collections.singletonList(Integer.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testListsAreImmutable() throws PluginException {
+        PluginRegistrySnapshot snapshot = createRegistry().freeze();
+        snapshot.getImplementations(TestExtensionPoint.class).clear();
+    }
+
+    @Test
+    public void testEdit() throws PluginException {
+        PluginRegistrySnapshot snapshot = createRegistry().freeze();
+
+        PluginRegistryContainer pluginRegistryContainer = snapshot.edit();
+        pluginRegistryContainer.removePlugin(PROVIDED_NAME); //Removing by virtual name removes the plugin itself
+        PluginRegistrySnapshot derivedSnapshot = pluginRegistryContainer.freeze();
+
+        assertThat(derivedSnapshot.getPluginNames(), contains(PLUGIN_NAME));
+        assertFalse(derivedSnapshot.getPlugin(ANOTHER_PLUGIN_NAME).isPresent());
+        assertThat(derivedSnapshot.getImplementations(TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+        assertThat(derivedSnapshot.getExtensionPoints(), contains(TestExtensionPoint.class));
+        assertThat(derivedSnapshot.getResources(PLUGIN_NAME), contains(Paths.get("some.resource")));
+        assertTrue(derivedSnapshot.getClassLoader(PLUGIN_NAME).isPresent());
+
+        //Original snapshot stays the same
+        assertTrue(snapshot.getPlugin(ANOTHER_PLUGIN_NAME).isPresent());
+        assertThat(snapshot.getImplementations(TestExtensionPoint.class), containsInAnyOrder(TestExtensionPointImpl.class, String.class));
+    }
+
+    private PluginRegistryContainer createRegistry() throws PluginException {
+        PluginRegistryContainer pluginRegistryContainer = new PluginRegistryContainer();
+
+        PluginMetadata pluginMetadata = getMockPluginMetadata(PLUGIN_NAME);
+        when(pluginMetadata.getProvidedDependency()).thenReturn(Optional.empty());
+        pluginRegistryContainer.addPlugin(pluginMetadata);
+        pluginRegistryContainer.addImplementations(pluginMetadata, TestExtensionPoint.class, Collections.singletonList(TestExtensionPointImpl.class));
+        pluginRegistryContainer.addResources(pluginMetadata, Collections.<Path>singletonList(Paths.get("some.resource")));
+        pluginRegistryContainer.addClassLoader(pluginMetadata, getClass().getClassLoader());
+        pluginRegistryContainer.addFileStamp(pluginMetadata, "stamp");
+
+        PluginMetadata anotherPluginMetadata = getMockPluginMetadata(ANOTHER_PLUGIN_NAME);
+        when(anotherPluginMetadata.getProvidedDependency()).thenReturn(Optional.of(new DependencyContainer(PROVIDED_NAME)));
+        pluginRegistryContainer.addPlugin(anotherPluginMetadata);
+        pluginRegistryContainer.addImplementations(anotherPluginMetadata, TestExtensionPoint.class, Collections.singletonList(String.class));
+        pluginRegistryContainer.addImplementations(anotherPluginMetadata, Number.class, Collections.singletonList(Long.class));
+
+        return pluginRegistryContainer;
+    }
+
+    private PluginMetadata getMockPluginMetadata(String pluginName) {
+        PluginMetadata pluginMetadata = mock(PluginMetadata.class);
+        when(pluginMetadata.getName()).thenReturn(pluginName);
+        return pluginMetadata;
+    }
+
+}
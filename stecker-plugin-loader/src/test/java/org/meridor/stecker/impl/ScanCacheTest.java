@@ -0,0 +1,127 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.meridor.stecker.JarHelper;
+import org.meridor.stecker.TemporaryDirectory;
+import org.meridor.stecker.impl.data.AnnotatedImpl;
+import org.meridor.stecker.impl.data.TestAnnotation;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ScanCacheTest {
+
+    private static final String PLUGIN_NAME = "some-plugin";
+
+    private static final List<Class> EXTENSION_POINTS = Arrays.asList(TestExtensionPoint.class, TestAnnotation.class);
+
+    @Rule
+    public TemporaryDirectory temporaryDirectory = new TemporaryDirectory();
+
+    @Test
+    public void testClassesRoundTrip() throws Exception {
+        Path pluginFile = createPluginFile();
+        String fingerprint = ScanCache.getFingerprint(pluginFile).get();
+        ScanCache scanCache = new ScanCache(getCacheDirectory());
+        assertFalse(scanCache.readClasses(pluginFile, fingerprint, EXTENSION_POINTS).isPresent());
+
+        scanCache.writeClasses(pluginFile, fingerprint, EXTENSION_POINTS, new ClassesRegistry(TestExtensionPoint.class, Collections.singletonList(TestExtensionPointImpl.class)));
+
+        Optional<Map<String, List<String>>> implementationNames = scanCache.readClasses(pluginFile, fingerprint, EXTENSION_POINTS);
+        assertTrue(implementationNames.isPresent());
+        assertThat(implementationNames.get().keySet(), contains(TestExtensionPoint.class.getName()));
+        assertThat(implementationNames.get().get(TestExtensionPoint.class.getName()), contains(TestExtensionPointImpl.class.getName()));
+
+        //Another set of extension points or changed dependencies should not use saved result
+        assertFalse(scanCache.readClasses(pluginFile, fingerprint, Collections.singletonList(TestAnnotation.class)).isPresent());
+        assertFalse(scanCache.readClasses(pluginFile, "another", EXTENSION_POINTS).isPresent());
+    }
+
+    @Test
+    public void testResourcesRoundTrip() throws Exception {
+        Path pluginFile = createPluginFile();
+        String fingerprint = ScanCache.getFingerprint(pluginFile).get();
+        ScanCache scanCache = new ScanCache(getCacheDirectory());
+        String[] patterns = new String[]{"glob:**/*.resource"};
+        Path baseDirectory = temporaryDirectory.getDirectory().resolve("base");
+        Path resource = baseDirectory.resolve("some").resolve("file.resource");
+
+        scanCache.writeResources(pluginFile, fingerprint, patterns, baseDirectory, Collections.singletonList(resource));
+
+        Optional<List<Path>> resources = scanCache.readResources(pluginFile, fingerprint, patterns, baseDirectory);
+        assertTrue(resources.isPresent());
+        assertThat(resources.get(), contains(resource));
+        assertFalse(scanCache.readResources(pluginFile, fingerprint, new String[]{"glob:**/*.xml"}, baseDirectory).isPresent());
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        Path pluginFile = createPluginFile();
+        Optional<String> fingerprint = ScanCache.getFingerprint(pluginFile);
+        assertTrue(fingerprint.isPresent());
+        assertThat(ScanCache.getFingerprint(pluginFile), equalTo(fingerprint));
+
+        Files.delete(pluginFile);
+        JarHelper.createTestPluginFile(PLUGIN_NAME, temporaryDirectory.getDirectory(), Optional.of(
+                JarHelper.createManifest(Collections.singletonMap(ManifestField.NAME.getFieldName(), "changed"))
+        ));
+        assertThat(ScanCache.getFingerprint(pluginFile), not(equalTo(fingerprint)));
+    }
+
+    @Test
+    public void testDependenciesFingerprint() throws Exception {
+        ClassLoader dependencyClassLoader = new URLClassLoader(new URL[0]);
+        List<ClassLoader> dependencyClassLoaders = Collections.singletonList(dependencyClassLoader);
+        //Classes of unknown dependency can't be fingerprinted
+        assertFalse(ScanCache.getFingerprint("plugin", dependencyClassLoaders).isPresent());
+
+        ScanCache.setFingerprint(dependencyClassLoader, "dependency");
+        Optional<String> fingerprint = ScanCache.getFingerprint("plugin", dependencyClassLoaders);
+        assertTrue(fingerprint.isPresent());
+        assertThat(ScanCache.getFingerprint("plugin", Collections.emptyList()), not(equalTo(fingerprint)));
+
+        ScanCache.setFingerprint(dependencyClassLoader, "changed-dependency");
+        assertThat(ScanCache.getFingerprint("plugin", dependencyClassLoaders), not(equalTo(fingerprint)));
+    }
+
+    @Test
+    public void testScannerUsesCache() throws Exception {
+        Path pluginFile = createPluginFile();
+        DefaultClassesScanner classesScanner = new DefaultClassesScanner(getCacheDirectory());
+        ClassLoader classLoader = classesScanner.scan(pluginFile, EXTENSION_POINTS).getClassLoader();
+        String fingerprint = ScanCache.getFingerprint(ScanCache.getFingerprint(pluginFile).get(), Collections.emptyList()).get();
+        assertTrue(new ScanCache(getCacheDirectory()).readClasses(pluginFile, fingerprint, EXTENSION_POINTS).isPresent());
+        //Plugins depending on this one include its fingerprint to their own
+        assertTrue(ScanCache.getFingerprint("dependent", Collections.singletonList(classLoader)).isPresent());
+
+        List<Class> implementations = classesScanner.scan(pluginFile, EXTENSION_POINTS)
+                .getContents().getImplementations(TestAnnotation.class);
+        assertThat(implementations, contains(AnnotatedImpl.class));
+    }
+
+    private Path getCacheDirectory() {
+        return temporaryDirectory.getDirectory().resolve(".cache");
+    }
+
+    private Path createPluginFile() throws Exception {
+        return JarHelper.createTestPluginFile(PLUGIN_NAME, temporaryDirectory.getDirectory(), Optional.empty());
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.meridor.stecker.JarHelper;
+import org.meridor.stecker.impl.data.AnnotatedImpl;
+import org.meridor.stecker.impl.data.LibraryClass;
+import org.meridor.stecker.impl.data.TestAnnotation;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SharedLibrariesTest {
+
+    private static final String VERSION_FILE = "version.txt";
+
+    private Path tempDirectory;
+
+    private Path storageDirectory;
+
+    //Classes from test classpath are visible only when they're shared
+    private final ClassLoader parent = new URLClassLoader(new URL[0], null);
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = FileSystemHelper.createTempDirectory();
+        storageDirectory = tempDirectory.resolve(SharedLibraries.SHARED_LIBRARIES_DIRECTORY);
+    }
+
+    @Test
+    public void testIdenticalLibrariesAreShared() throws Exception {
+        Path firstPlugin = tempDirectory.resolve("first.jar");
+        Path secondPlugin = tempDirectory.resolve("second.jar");
+        Path thirdPlugin = tempDirectory.resolve("third.jar");
+
+        Path firstCommon = createLibrary("first/common.jar", "common", LibraryClass.class);
+        Path secondCommon = createLibrary("second/common-copy.jar", "common", LibraryClass.class);
+        Path firstVersioned = createLibrary("first/versioned.jar", "v1", TestAnnotation.class);
+        Path secondVersioned = createLibrary("second/versioned.jar", "v1", TestAnnotation.class);
+        Path thirdVersioned = createLibrary("third/versioned.jar", "v2", TestAnnotation.class);
+        Path unique = createLibrary("third/unique.jar", "unique contents", AnnotatedImpl.class);
+
+        Map<Path, List<Path>> pluginLibraries = new HashMap<>();
+        pluginLibraries.put(firstPlugin, Arrays.asList(firstCommon, firstVersioned));
+        pluginLibraries.put(secondPlugin, Arrays.asList(secondCommon, secondVersioned));
+        pluginLibraries.put(thirdPlugin, Arrays.asList(thirdVersioned, unique));
+        SharedLibraries sharedLibraries = SharedLibraries.create(pluginLibraries, parent, storageDirectory);
+
+        assertThat(sharedLibraries.getSharedLibraries().keySet(), hasSize(1));
+        Path sharedCommon = sharedLibraries.getSharedLibraries().keySet().iterator().next();
+        //Shared library does not belong to any plugin
+        assertThat(sharedCommon.getParent(), equalTo(storageDirectory));
+        assertThat(Files.readAllBytes(sharedCommon), equalTo(Files.readAllBytes(firstCommon)));
+        assertThat(sharedLibraries.getSharedLibraries().get(sharedCommon), containsInAnyOrder(firstPlugin, secondPlugin));
+        //Another version of the same classes exists in third plugin
+        assertThat(sharedLibraries.getConflictingLibraries(), contains(firstVersioned));
+        assertThat(sharedLibraries.getDeduplicatedLibrariesCount(), equalTo(1));
+        assertThat(sharedLibraries.getDeduplicatedClassesCount(), equalTo(1));
+        assertThat(sharedLibraries.getDeduplicatedBytes(), equalTo(Files.size(secondCommon)));
+
+        assertThat(sharedLibraries.getPrivateLibraries(firstPlugin).get(), contains(firstVersioned));
+        assertThat(sharedLibraries.getPrivateLibraries(secondPlugin).get(), contains(secondVersioned));
+        assertThat(sharedLibraries.getPrivateLibraries(thirdPlugin).get(), contains(thirdVersioned, unique));
+        assertFalse(sharedLibraries.getPrivateLibraries(tempDirectory.resolve("missing.jar")).isPresent());
+
+        ClassLoader classLoader = sharedLibraries.getClassLoader();
+        assertThat(classLoader, instanceOf(URLClassLoader.class));
+        assertThat(classLoader.getParent(), sameInstance(parent));
+        assertThat(Class.forName(LibraryClass.class.getName(), false, classLoader).getClassLoader(), sameInstance(classLoader));
+    }
+
+    @Test
+    public void testLibraryIsSharedWithDependencies() throws Exception {
+        Path firstPlugin = tempDirectory.resolve("first.jar");
+        Path secondPlugin = tempDirectory.resolve("second.jar");
+
+        Map<Path, List<Path>> pluginLibraries = new HashMap<>();
+        pluginLibraries.put(firstPlugin, Arrays.asList(
+                createLibrary("first/api.jar", "api", TestExtensionPoint.class),
+                createLibrary("first/impl.jar", "impl", TestExtensionPointImpl.class),
+                createLibrary("first/library.jar", "library", LibraryClass.class)
+        ));
+        pluginLibraries.put(secondPlugin, Arrays.asList(
+                createLibrary("second/api.jar", "api", TestExtensionPoint.class),
+                createLibrary("second/impl.jar", "impl", TestExtensionPointImpl.class),
+                createLibrary("second/library.jar", "library", LibraryClass.class)
+        ));
+        SharedLibraries sharedLibraries = SharedLibraries.create(pluginLibraries, parent, storageDirectory);
+
+        assertThat(sharedLibraries.getSharedLibraries().keySet(), hasSize(3));
+        assertThat(sharedLibraries.getConflictingLibraries(), empty());
+        assertThat(sharedLibraries.getPrivateLibraries(firstPlugin).get(), empty());
+        assertThat(
+                Class.forName(TestExtensionPointImpl.class.getName(), true, sharedLibraries.getClassLoader()).getClassLoader(),
+                sameInstance(sharedLibraries.getClassLoader())
+        );
+    }
+
+    @Test
+    public void testLibraryDependingOnPrivateLibraryIsNotShared() throws Exception {
+        Path firstPlugin = tempDirectory.resolve("first.jar");
+        Path secondPlugin = tempDirectory.resolve("second.jar");
+
+        Path firstApi = createLibrary("first/api.jar", "api 1.0", TestExtensionPoint.class);
+        Path firstImpl = createLibrary("first/impl.jar", "impl", TestExtensionPointImpl.class);
+        Path firstLibrary = createLibrary("first/library.jar", "library", LibraryClass.class);
+        Path secondApi = createLibrary("second/api.jar", "api 2.0", TestExtensionPoint.class);
+        Path secondImpl = createLibrary("second/impl.jar", "impl", TestExtensionPointImpl.class);
+        Path secondLibrary = createLibrary("second/library.jar", "library", LibraryClass.class);
+
+        Map<Path, List<Path>> pluginLibraries = new HashMap<>();
+        pluginLibraries.put(firstPlugin, Arrays.asList(firstApi, firstImpl, firstLibrary));
+        pluginLibraries.put(secondPlugin, Arrays.asList(secondApi, secondImpl, secondLibrary));
+        SharedLibraries sharedLibraries = SharedLibraries.create(pluginLibraries, parent, storageDirectory);
+
+        //Shared implementation would not see private API of either plugin
+        assertThat(sharedLibraries.getSharedLibraries().keySet(), hasSize(1));
+        assertThat(sharedLibraries.getConflictingLibraries(), contains(firstImpl));
+        assertThat(sharedLibraries.getPrivateLibraries(firstPlugin).get(), contains(firstApi, firstImpl));
+        assertThat(sharedLibraries.getPrivateLibraries(secondPlugin).get(), contains(secondApi, secondImpl));
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        Map<Path, List<Path>> pluginLibraries = new HashMap<>();
+        pluginLibraries.put(tempDirectory.resolve("first.jar"), Collections.singletonList(createLibrary("first/library.jar", "library", LibraryClass.class)));
+        pluginLibraries.put(tempDirectory.resolve("second.jar"), Collections.singletonList(createLibrary("second/library.jar", "library", LibraryClass.class)));
+        SharedLibraries sharedLibraries = SharedLibraries.create(pluginLibraries, parent, storageDirectory);
+        Path sharedLibrary = sharedLibraries.getSharedLibraries().keySet().iterator().next();
+        ClassLoader firstClassLoader = new URLClassLoader(new URL[0], sharedLibraries.getClassLoader());
+        ClassLoader secondClassLoader = new URLClassLoader(new URL[0], sharedLibraries.getClassLoader());
+
+        //Second plugin still uses shared class loader
+        SharedLibraries.release(Collections.singletonList(firstClassLoader), Collections.singletonList(secondClassLoader));
+        assertTrue(Files.exists(sharedLibrary));
+        assertThat(Class.forName(LibraryClass.class.getName(), false, secondClassLoader).getClassLoader(), sameInstance(sharedLibraries.getClassLoader()));
+
+        SharedLibraries.release(Collections.singletonList(secondClassLoader), Collections.emptyList());
+        assertFalse(Files.exists(sharedLibrary));
+    }
+
+    @Test
+    public void testNothingToShare() throws Exception {
+        Path pluginFile = tempDirectory.resolve("plugin.jar");
+        Path library = createLibrary("plugin/library.jar", "common", LibraryClass.class);
+        SharedLibraries sharedLibraries = SharedLibraries.create(Collections.singletonMap(pluginFile, Collections.singletonList(library)), parent, storageDirectory);
+
+        assertThat(sharedLibraries.getSharedLibraries().keySet(), empty());
+        assertThat(sharedLibraries.getDeduplicatedLibrariesCount(), equalTo(0));
+        assertThat(sharedLibraries.getPrivateLibraries(pluginFile).get(), contains(library));
+        assertThat(sharedLibraries.getClassLoader(), sameInstance(parent));
+        assertFalse(Files.exists(storageDirectory));
+    }
+
+    private Path createLibrary(String fileName, String version, Class<?>... classes) throws Exception {
+        Path libraryFile = tempDirectory.resolve(fileName);
+        Files.createDirectories(libraryFile.getParent());
+        try (OutputStream outputStream = Files.newOutputStream(libraryFile);
+             JarOutputStream jarOutputStream = new JarOutputStream(outputStream)) {
+            for (Class<?> aClass : classes) {
+                putEntry(jarOutputStream, JarHelper.classToResourceName(aClass), Files.readAllBytes(JarHelper.classToPath(aClass)));
+            }
+            //Libraries with the same classes but different versions should produce different files
+            putEntry(jarOutputStream, VERSION_FILE, version.getBytes(StandardCharsets.UTF_8));
+        }
+        return libraryFile;
+    }
+
+    private static void putEntry(JarOutputStream jarOutputStream, String entryName, byte[] contents) throws IOException {
+        ZipEntry entry = new ZipEntry(entryName);
+        entry.setTime(0); //Identical contents should produce identical files
+        jarOutputStream.putNextEntry(entry);
+        jarOutputStream.write(contents);
+        jarOutputStream.closeEntry();
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Test;
+import org.meridor.stecker.PluginException;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TaskRunnerTest {
+
+    @Test
+    public void testThrowableFailure() throws Exception {
+        Throwable throwable = new Throwable("Not an exception");
+        try (TaskRunner taskRunner = TaskRunner.withParallelism(2)) {
+            taskRunner.invokeAll(Collections.singletonList(() -> {
+                throw TaskRunnerTest.<RuntimeException>sneakyThrow(throwable);
+            }));
+            fail("Failure was not reported");
+        } catch (PluginException e) {
+            assertThat(e.getCause(), instanceOf(ExecutionException.class));
+            assertThat(e.getCause().getCause(), sameInstance(throwable));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E sneakyThrow(Throwable throwable) throws E {
+        throw (E) throwable;
+    }
+
+}
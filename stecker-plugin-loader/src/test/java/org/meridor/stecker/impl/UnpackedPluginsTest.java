@@ -0,0 +1,80 @@
+package org.meridor.stecker.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.meridor.stecker.JarHelper;
+import org.meridor.stecker.impl.data.TestExtensionPoint;
+import org.meridor.stecker.impl.data.TestExtensionPointImpl;
+import org.meridor.stecker.interfaces.ScanResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class UnpackedPluginsTest {
+
+    private static final String PLUGIN_NAME = "some-plugin";
+
+    private Path tempDirectory;
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = FileSystemHelper.createTempDirectory();
+    }
+
+    private Path getCacheDirectory() {
+        return tempDirectory.resolve(".cache");
+    }
+
+    @Test
+    public void testUnpackOnce() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile(PLUGIN_NAME, tempDirectory, Optional.empty());
+        UnpackedPlugins unpackedPlugins = new UnpackedPlugins(getCacheDirectory());
+
+        UnpackedPlugin unpackedPlugin = unpackedPlugins.get(pluginFile);
+        assertThat(unpackedPlugins.get(pluginFile), sameInstance(unpackedPlugin));
+        assertFalse(Files.exists(getCacheDirectory())); //Nothing is unpacked until requested
+
+        Path directory = unpackedPlugin.getDirectory();
+        assertThat(directory, equalTo(PluginUtils.getPluginVersionDirectory(pluginFile, getCacheDirectory())));
+        assertTrue(Files.isDirectory(unpackedPlugin.getImplementationDirectory()));
+        assertTrue(Files.isDirectory(unpackedPlugin.getLibDirectory()));
+
+        List<Path> implementationFiles = unpackedPlugin.getImplementationFiles();
+        assertThat(unpackedPlugin.getImplementationFiles(), sameInstance(implementationFiles));
+        assertTrue(implementationFiles.contains(unpackedPlugin.getImplementationDirectory().resolve(JarHelper.TEST_RESOURCE_NAME)));
+        assertThat(unpackedPlugin.getClassFiles(), hasSize(2));
+    }
+
+    @Test
+    public void testScannersShareUnpackedPlugin() throws Exception {
+        Path pluginFile = JarHelper.createTestPluginFile(PLUGIN_NAME, tempDirectory, Optional.empty());
+        UnpackedPlugins unpackedPlugins = new UnpackedPlugins(getCacheDirectory());
+
+        ScanResult scanResult = new DefaultClassesScanner(unpackedPlugins)
+                .scan(pluginFile, Collections.singletonList(TestExtensionPoint.class));
+        assertThat(scanResult.getContents().getImplementations(TestExtensionPoint.class), contains(TestExtensionPointImpl.class));
+
+        List<Path> resources = new DefaultResourcesScanner(unpackedPlugins, new String[]{"glob:**/*.resource"}).scan(pluginFile);
+        assertThat(resources, hasSize(1));
+        assertThat(resources.get(0), equalTo(unpackedPlugins.get(pluginFile).getImplementationDirectory().resolve(JarHelper.TEST_RESOURCE_NAME)));
+    }
+
+    @After
+    public void removeTempDirectory() throws IOException {
+        FileSystemHelper.removeDirectory(tempDirectory);
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.meridor.stecker.impl;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+@RunWith(Parameterized.class)
+public class VersionTest {
+
+    private final String version;
+
+    private final String anotherVersion;
+
+    private final int comparisonResult;
+
+    public VersionTest(String version, String anotherVersion, int comparisonResult) {
+        this.version = version;
+        this.anotherVersion = anotherVersion;
+        this.comparisonResult = comparisonResult;
+    }
+
+    @Parameterized.Parameters(name = "{0} compared to {1} must be {2}")
+    public static Collection combinations() {
+        return Arrays.asList(new Object[][]{
+                {"1.0", "1.0", 0},
+                {"1.0", "1.0.0", 0},
+                {"1", "1.0", 0},
+                {"01.002", "1.2", 0},
+                {"1.10", "1.9", 1},
+                {"1.9", "1.10", -1},
+                {"2.0", "1.99.99", 1},
+                {"1.0.1", "1.0", 1},
+                {"1.0-beta", "1.0", -1},
+                {"1.0-alpha", "1.0-beta", -1},
+                {"1.0-beta", "1.0.1", -1},
+                {"1-beta", "1.0-beta", 0},
+                {"1.0.0-beta", "1-beta", 0},
+                {"1-beta", "1", -1},
+                {"1.0-beta", "1", -1},
+                {"1.0-beta.1", "1-beta-1", 0},
+                {"1.0.1-beta", "1.0.1", -1},
+                {"1.0.1-beta", "1.0-beta", 1},
+                {"1.0rc2", "1.0-rc-2", 0},
+                {"1.0-rc10", "1.0-rc9", 1},
+                {"12345678901234567890", "9", 1}
+        });
+    }
+
+    @Test
+    public void testCompareTo() {
+        assertThat(Integer.signum(Version.parse(version).compareTo(Version.parse(anotherVersion))), equalTo(comparisonResult));
+        assertThat(Integer.signum(Version.parse(anotherVersion).compareTo(Version.parse(version))), equalTo(-comparisonResult));
+    }
+
+    @Test
+    public void testEquals() {
+        assertThat(Version.parse(version).equals(Version.parse(anotherVersion)), equalTo(comparisonResult == 0));
+        if (comparisonResult == 0) {
+            assertThat(Version.parse(version).hashCode(), equalTo(Version.parse(anotherVersion).hashCode()));
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.meridor.stecker.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ZipArchiveTest {
+
+    private static final String STORED_ENTRY = "stored.txt";
+
+    private static final String DEFLATED_ENTRY = "some/directory/deflated.bin";
+
+    private static final String NESTED_ENTRY = "nested.jar";
+
+    private static final byte[] STORED_CONTENTS = "stored contents".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] DEFLATED_CONTENTS = createDeflatedContents();
+
+    private Path tempDirectory;
+
+    @Before
+    public void createTempDirectory() throws IOException {
+        tempDirectory = FileSystemHelper.createTempDirectory();
+    }
+
+    @Test
+    public void testReadEntries() throws Exception {
+        ZipArchive zipArchive = new ZipArchive(ByteBuffer.wrap(createArchive()));
+
+        assertThat(zipArchive.getEntryNames(), contains(STORED_ENTRY, "some/directory/", DEFLATED_ENTRY));
+        assertTrue(zipArchive.getEntry("some/directory/").get().isDirectory());
+        assertFalse(zipArchive.getEntry("missing").isPresent());
+
+        assertArrayEquals(STORED_CONTENTS, getContents(zipArchive, STORED_ENTRY));
+        assertArrayEquals(DEFLATED_CONTENTS, getContents(zipArchive, DEFLATED_ENTRY));
+        assertArrayEquals(STORED_CONTENTS, readFully(zipArchive.getInputStream(zipArchive.getEntry(STORED_ENTRY).get())));
+        assertArrayEquals(DEFLATED_CONTENTS, readFully(zipArchive.getInputStream(zipArchive.getEntry(DEFLATED_ENTRY).get())));
+    }
+
+    @Test
+    public void testStoredEntriesAreNotCopied() throws Exception {
+        Path outerArchive = tempDirectory.resolve("outer.zip");
+        byte[] nestedArchive = createArchive();
+        try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(outerArchive))) {
+            addEntry(outputStream, NESTED_ENTRY, nestedArchive, ZipEntry.STORED);
+        }
+
+        ByteBuffer mappedBuffer = ByteBuffer.allocateDirect((int) Files.size(outerArchive));
+        mappedBuffer.put(Files.readAllBytes(outerArchive)).flip();
+        ZipArchive zipArchive = new ZipArchive(mappedBuffer);
+        ByteBuffer nestedContents = zipArchive.getContents(zipArchive.getEntry(NESTED_ENTRY).get());
+        assertTrue(nestedContents.isDirect());
+
+        ZipArchive nestedZipArchive = new ZipArchive(nestedContents);
+        ByteBuffer storedContents = nestedZipArchive.getContents(nestedZipArchive.getEntry(STORED_ENTRY).get());
+        assertTrue(storedContents.isDirect());
+        assertTrue(storedContents.isReadOnly());
+        assertArrayEquals(STORED_CONTENTS, toArray(storedContents));
+        assertArrayEquals(DEFLATED_CONTENTS, getContents(nestedZipArchive, DEFLATED_ENTRY));
+    }
+
+    @Test
+    public void testByteBufferInputStream() throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(STORED_CONTENTS);
+        InputStream inputStream = new ByteBufferInputStream(buffer);
+        assertThat(inputStream.available(), equalTo(STORED_CONTENTS.length));
+        assertThat(inputStream.read(), equalTo((int) STORED_CONTENTS[0]));
+        inputStream.mark(0);
+        assertThat(inputStream.skip(2), equalTo(2L));
+        inputStream.reset();
+        assertThat(inputStream.read(), equalTo((int) STORED_CONTENTS[1]));
+        assertThat(buffer.position(), equalTo(0)); //Original buffer is not changed
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnArchive() throws Exception {
+        new ZipArchive(ByteBuffer.wrap(STORED_CONTENTS));
+    }
+
+    private static byte[] createArchive() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream outputStream = new ZipOutputStream(archive)) {
+            addEntry(outputStream, STORED_ENTRY, STORED_CONTENTS, ZipEntry.STORED);
+            outputStream.putNextEntry(new ZipEntry("some/directory/"));
+            outputStream.closeEntry();
+            addEntry(outputStream, DEFLATED_ENTRY, DEFLATED_CONTENTS, ZipEntry.DEFLATED);
+        }
+        return archive.toByteArray();
+    }
+
+    private static void addEntry(ZipOutputStream outputStream, String name, byte[] contents, int method) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(contents);
+            entry.setSize(contents.length);
+            entry.setCompressedSize(contents.length);
+            entry.setCrc(crc.getValue());
+        }
+        outputStream.putNextEntry(entry);
+        outputStream.write(contents);
+        outputStream.closeEntry();
+    }
+
+    private static byte[] createDeflatedContents() {
+        byte[] contents = new byte[100000];
+        Random random = new Random(42);
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = (byte) (random.nextInt(16) + 'a'); //Compressible but not trivial
+        }
+        return contents;
+    }
+
+    private static byte[] getContents(ZipArchive zipArchive, String entryName) throws IOException {
+        return toArray(zipArchive.getContents(zipArchive.getEntry(entryName).get()));
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        try (InputStream input = inputStream; ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        }
+    }
+
+    @After
+    public void removeTempDirectory() throws IOException {
+        FileSystemHelper.removeDirectory(tempDirectory);
+    }
+
+}